@@ -3,8 +3,10 @@ package spring._3alemliveback;
 import org.springdoc.core.configuration.SpringDocConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = {SpringDocConfiguration.class})
+@EnableScheduling
 public class Application {
 
     public static void main(String[] args) {
@@ -0,0 +1,126 @@
+package spring._3alemliveback.chat;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connexion d'un participant : file d'envoi bornée alimentée par le salon et vidée par une tâche
+ * du pool (jamais deux envois simultanés sur la même session). Les messages en attente partent
+ * ensemble dans une seule trame (tableau JSON).
+ */
+@Slf4j
+final class ChatConnexion {
+
+    private final WebSocketSession session;
+    private final ChatParticipant participant;
+    private final ChatRoom salon;
+    private final ArrayBlockingQueue<String> file;
+    private final Executor executor;
+    private final int tailleMaxTrame;
+    private final AtomicBoolean envoiPlanifie = new AtomicBoolean();
+    private final AtomicBoolean fermee = new AtomicBoolean();
+    // Lu et écrit par le thread de réception de la session uniquement
+    private long dernierMessage;
+
+    ChatConnexion(WebSocketSession session, ChatParticipant participant, ChatRoom salon,
+                  int capacite, Executor executor, int tailleMaxTrame) {
+        this.session = session;
+        this.participant = participant;
+        this.salon = salon;
+        this.file = new ArrayBlockingQueue<>(capacite);
+        this.executor = executor;
+        this.tailleMaxTrame = tailleMaxTrame;
+    }
+
+    ChatParticipant participant() {
+        return participant;
+    }
+
+    ChatRoom salon() {
+        return salon;
+    }
+
+    /**
+     * @return false si la file est pleine : le client ne suit pas le débit du salon
+     */
+    boolean offrir(String json) {
+        if (fermee.get()) {
+            return true;
+        }
+        if (!file.offer(json)) {
+            return false;
+        }
+        if (envoiPlanifie.compareAndSet(false, true)) {
+            executor.execute(this::envoyer);
+        }
+        return true;
+    }
+
+    /**
+     * Limite de débit en réception : false si le message précédent est trop récent.
+     */
+    boolean accepter(long maintenantMs, long intervalleMinMs) {
+        if (maintenantMs - dernierMessage < intervalleMinMs) {
+            return false;
+        }
+        dernierMessage = maintenantMs;
+        return true;
+    }
+
+    /**
+     * Marque la connexion fermée ; la session elle-même est fermée sur le pool, hors de la boucle du
+     * salon, où un close() attendant la fin d'un envoi bloquerait tout le salon.
+     */
+    void fermer(CloseStatus statut) {
+        if (!fermee.compareAndSet(false, true)) {
+            return;
+        }
+        file.clear();
+        try {
+            executor.execute(() -> fermerSession(statut));
+        } catch (RejectedExecutionException e) {
+            // Pool arrêté avec l'application
+            fermerSession(statut);
+        }
+    }
+
+    private void fermerSession(CloseStatus statut) {
+        try {
+            session.close(statut);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Fermeture de la session {} : {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private void envoyer() {
+        try {
+            StringBuilder trame = new StringBuilder();
+            String json;
+            while (!fermee.get() && (json = file.poll()) != null) {
+                trame.append(trame.isEmpty() ? '[' : ',').append(json);
+                if (trame.length() >= tailleMaxTrame || file.isEmpty()) {
+                    session.sendMessage(new TextMessage(trame.append(']').toString()));
+                    trame.setLength(0);
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Session coupée ou envoi bloqué au-delà du délai : afterConnectionClosed retire la connexion
+            log.debug("Envoi interrompu sur la session {} : {}", session.getId(), e.getMessage());
+            fermer(CloseStatus.SESSION_NOT_RELIABLE);
+        } finally {
+            envoiPlanifie.set(false);
+        }
+        // Message déposé entre le dernier poll et la libération du drapeau
+        if (!fermee.get() && !file.isEmpty() && envoiPlanifie.compareAndSet(false, true)) {
+            executor.execute(this::envoyer);
+        }
+    }
+}
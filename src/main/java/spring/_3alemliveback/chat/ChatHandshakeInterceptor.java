@@ -0,0 +1,118 @@
+package spring._3alemliveback.chat;
+
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriTemplate;
+import spring._3alemliveback.exceptions.AccessDeniedException;
+import spring._3alemliveback.exceptions.FormationNotFoundException;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+import spring._3alemliveback.exceptions.UserNotFoundException;
+import spring._3alemliveback.repo.TokenRepository;
+import spring._3alemliveback.security.JwtService;
+import spring._3alemliveback.services.FormationService;
+
+import java.util.Map;
+
+/**
+ * Authentification à l'ouverture du WebSocket, avec le même JWT que l'API : en-tête Authorization,
+ * ou paramètre ?token= pour les navigateurs (l'API WebSocket ne permet pas d'en-têtes). Seuls le
+ * formateur et les inscrits d'une formation EN_COURS sont admis ; la réponse HTTP du refus
+ * (401, 403, 404, 409) tient lieu de message d'erreur.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatHandshakeInterceptor implements HandshakeInterceptor {
+
+    private static final String CHEMIN = "/ws/formations/{id}/chat";
+    private static final UriTemplate MODELE = new UriTemplate(CHEMIN);
+
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+    private final TokenRepository tokenRepository;
+    private final FormationService formationService;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        Long formationId = formationId(request);
+        if (formationId == null) {
+            response.setStatusCode(HttpStatus.NOT_FOUND);
+            return false;
+        }
+        String email = utilisateur(jeton(request));
+        if (email == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        try {
+            attributes.put(ChatWebSocketHandler.PARTICIPANT, formationService.admettreAuChat(formationId, email));
+            return true;
+        } catch (FormationNotFoundException e) {
+            response.setStatusCode(HttpStatus.NOT_FOUND);
+        } catch (AccessDeniedException | UserNotFoundException e) {
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+        } catch (InvalidOperationException e) {
+            response.setStatusCode(HttpStatus.CONFLICT);
+        }
+        return false;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private static Long formationId(ServerHttpRequest request) {
+        String chemin = request.getURI().getPath();
+        if (!MODELE.matches(chemin)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(MODELE.match(chemin).get("id"));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String jeton(ServerHttpRequest request) {
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+    }
+
+    /**
+     * Mêmes contrôles que JwtAuthenticationFilter : signature, expiration, jeton ni expiré ni révoqué en base.
+     * @return email de l'utilisateur, null si le jeton est absent ou invalide
+     */
+    private String utilisateur(String jwt) {
+        if (jwt == null || jwt.isBlank()) {
+            return null;
+        }
+        try {
+            String userEmail = jwtService.extractUsername(jwt);
+            if (userEmail == null) {
+                return null;
+            }
+            UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+            boolean actif = tokenRepository.findByToken(jwt)
+                    .map(t -> !t.isExpired() && !t.isRevoked())
+                    .orElse(false);
+            return actif && jwtService.isTokenValid(jwt, userDetails) ? userEmail : null;
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+            return null;
+        }
+    }
+}
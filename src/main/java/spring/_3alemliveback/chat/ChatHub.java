@@ -0,0 +1,172 @@
+package spring._3alemliveback.chat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import spring._3alemliveback.entities.MessageChat;
+import spring._3alemliveback.repo.MessageChatRepository;
+import spring._3alemliveback.util.TransactionUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chat des sessions en direct (ws /ws/formations/{id}/chat). Un {@link ChatRoom} par formation
+ * EN_COURS, ouvert à la première connexion et fermé par terminerFormation ; tous les salons et
+ * toutes les connexions partagent un pool de app.chat.threads threads, sans thread dédié par
+ * client. Un client dont la file d'envoi (app.chat.send-queue-size) déborde est déconnecté.
+ * Une seule instance : avec deux, chacune ouvrirait son propre salon pour la formation ; un message ne
+ * parviendrait qu'aux participants connectés à la même instance, et les deux salons reprendraient la
+ * même numérotation, en conflit sur la clé (formation, séquence) de la transcription.
+ */
+@Component
+@Slf4j
+public class ChatHub {
+
+    private final ConcurrentHashMap<Long, ChatRoom> salons = new ConcurrentHashMap<>();
+    // Formations dont la session est finie : une connexion acceptée juste avant la fin ne rouvre pas
+    // de salon (une entrée par formation terminée ou supprimée, oubliée au redémarrage)
+    private final Set<Long> clos = ConcurrentHashMap.newKeySet();
+    private final MessageChatRepository messageChatRepository;
+    private final ChatTranscriptWriter transcription;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final Counter clientsLents;
+    private final int tailleHistorique;
+    private final int capaciteFile;
+    private final int tailleMaxTrame;
+    private final int longueurMax;
+    private final long intervalleMinMs;
+
+    public ChatHub(MessageChatRepository messageChatRepository,
+                   ChatTranscriptWriter transcription,
+                   ObjectMapper objectMapper,
+                   MeterRegistry registry,
+                   @Value("${app.chat.threads:8}") int threads,
+                   @Value("${app.chat.history-size:50}") int tailleHistorique,
+                   @Value("${app.chat.send-queue-size:256}") int capaciteFile,
+                   @Value("${app.chat.max-frame-chars:65536}") int tailleMaxTrame,
+                   @Value("${app.chat.max-length:1000}") int longueurMax,
+                   @Value("${app.chat.min-interval-ms:250}") long intervalleMinMs) {
+        this.messageChatRepository = messageChatRepository;
+        this.transcription = transcription;
+        this.objectMapper = objectMapper;
+        this.tailleHistorique = tailleHistorique;
+        // L'historique envoyé à l'arrivée doit tenir dans la file
+        this.capaciteFile = Math.max(capaciteFile, tailleHistorique + 1);
+        this.tailleMaxTrame = tailleMaxTrame;
+        this.longueurMax = longueurMax;
+        this.intervalleMinMs = intervalleMinMs;
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, tache -> {
+            Thread thread = new Thread(tache, "chat-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.clientsLents = Counter.builder("chat.slow_consumers.dropped")
+                .description("Connexions de chat coupées car leur file d'envoi était pleine")
+                .register(registry);
+        Gauge.builder("chat.connections", salons,
+                        s -> s.values().stream().mapToInt(ChatRoom::nombreConnexions).sum())
+                .description("Connexions WebSocket de chat ouvertes")
+                .register(registry);
+    }
+
+    /**
+     * Connexion acceptée par la poignée de main : rattachée au salon de la formation.
+     *
+     * @return null si la session s'est terminée depuis la poignée de main (connexion fermée)
+     */
+    ChatConnexion rejoindre(WebSocketSession session, ChatParticipant participant) {
+        // compute et remove sont atomiques par clé : un salon ouvert avant fermerSalon en est retiré
+        ChatRoom salon = salons.compute(participant.formationId(),
+                (id, ouvert) -> ouvert != null || clos.contains(id) ? ouvert : ouvrir(id));
+        if (salon == null) {
+            try {
+                session.close(ChatRoom.FIN_DE_SESSION);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Fermeture de la session {} : {}", session.getId(), e.getMessage());
+            }
+            return null;
+        }
+        ChatConnexion connexion = new ChatConnexion(session, participant, salon, capaciteFile, executor, tailleMaxTrame);
+        salon.rejoindre(connexion);
+        return connexion;
+    }
+
+    void recevoir(ChatConnexion connexion, String texte) {
+        String contenu = texte.strip();
+        if (contenu.isEmpty() || !connexion.accepter(System.currentTimeMillis(), intervalleMinMs)) {
+            return;
+        }
+        if (contenu.length() > longueurMax) {
+            connexion.fermer(CloseStatus.POLICY_VIOLATION.withReason("Message trop long"));
+            return;
+        }
+        connexion.salon().publier(connexion.participant(), contenu);
+    }
+
+    void quitter(ChatConnexion connexion) {
+        connexion.salon().quitter(connexion);
+    }
+
+    /**
+     * Fin de la session en direct (formation terminée ou supprimée) : après commit, la transcription
+     * est enregistrée et les participants déconnectés.
+     */
+    public void fermerSalon(Long formationId) {
+        TransactionUtils.afterCommit(() -> {
+            clos.add(formationId);
+            ChatRoom salon = salons.remove(formationId);
+            if (salon != null) {
+                salon.fermer();
+            }
+        });
+    }
+
+    private ChatRoom ouvrir(Long formationId) {
+        List<MessageChat> derniers = new ArrayList<>();
+        if (tailleHistorique > 0) {
+            derniers.addAll(messageChatRepository.findByFormationIdOrderBySequenceDesc(
+                    formationId, PageRequest.of(0, tailleHistorique)));
+            Collections.reverse(derniers);
+        }
+        return new ChatRoom(formationId, derniers, executor, this::json, transcription, clientsLents, tailleHistorique);
+    }
+
+    private String json(Object valeur) {
+        try {
+            return objectMapper.writeValueAsString(valeur);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation du message de chat impossible", e);
+        }
+    }
+
+    @PreDestroy
+    public void arreter() throws InterruptedException {
+        salons.values().forEach(ChatRoom::fermer);
+        salons.clear();
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        transcription.vider();
+    }
+}
@@ -0,0 +1,7 @@
+package spring._3alemliveback.chat;
+
+/**
+ * Utilisateur admis dans le salon d'une formation (formateur ou inscrit), établi à la poignée de main.
+ */
+public record ChatParticipant(Long formationId, Long userId, String auteur) {
+}
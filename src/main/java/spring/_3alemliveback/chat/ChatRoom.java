@@ -0,0 +1,188 @@
+package spring._3alemliveback.chat;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import spring._3alemliveback.dto.chat.ChatMessageDTO;
+import spring._3alemliveback.entities.MessageChat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Salon d'une formation en cours. Un seul écrivain : arrivées, départs et messages sont des
+ * commandes exécutées dans l'ordre par une boucle planifiée sur le pool partagé, jamais par deux
+ * threads à la fois. La liste des connexions, l'historique et la numérotation n'ont donc besoin
+ * d'aucun verrou ; chaque message est sérialisé une seule fois puis déposé dans la file de
+ * chaque connexion.
+ */
+@Slf4j
+final class ChatRoom {
+
+    static final CloseStatus FIN_DE_SESSION = CloseStatus.NORMAL.withReason("Session terminée");
+    static final CloseStatus CLIENT_TROP_LENT = CloseStatus.SESSION_NOT_RELIABLE.withReason("Client trop lent");
+
+    // Commandes traitées par passage avant de rendre le thread au pool
+    private static final int COMMANDES_PAR_PASSAGE = 256;
+
+    private final Long formationId;
+    private final Executor executor;
+    private final Function<Object, String> serialiseur;
+    private final ChatTranscriptWriter transcription;
+    private final Counter clientsLents;
+    private final int tailleHistorique;
+    private final ConcurrentLinkedQueue<Runnable> boite = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean planifie = new AtomicBoolean();
+    private final AtomicInteger nombreConnexions = new AtomicInteger();
+
+    // État de l'écrivain
+    private final List<ChatConnexion> connexions = new ArrayList<>();
+    private final ArrayDeque<String> historique;
+    private long sequence;
+    private boolean ferme;
+
+    ChatRoom(Long formationId, List<MessageChat> derniers, Executor executor, Function<Object, String> serialiseur,
+             ChatTranscriptWriter transcription, Counter clientsLents, int tailleHistorique) {
+        this.formationId = formationId;
+        this.executor = executor;
+        this.serialiseur = serialiseur;
+        this.transcription = transcription;
+        this.clientsLents = clientsLents;
+        this.tailleHistorique = tailleHistorique;
+        this.historique = new ArrayDeque<>(tailleHistorique);
+        // Salon rouvert après un redémarrage : la numérotation et l'historique reprennent
+        for (MessageChat message : derniers) {
+            ajouterHistorique(serialiseur.apply(versDto(message)));
+            sequence = Math.max(sequence, message.getSequence());
+        }
+    }
+
+    int nombreConnexions() {
+        return nombreConnexions.get();
+    }
+
+    void rejoindre(ChatConnexion connexion) {
+        soumettre(() -> {
+            if (ferme) {
+                connexion.fermer(FIN_DE_SESSION);
+                return;
+            }
+            connexions.add(connexion);
+            nombreConnexions.incrementAndGet();
+            // Historique récent avant tout nouveau message : même file, même ordre
+            for (String json : historique) {
+                connexion.offrir(json);
+            }
+        });
+    }
+
+    void quitter(ChatConnexion connexion) {
+        soumettre(() -> {
+            if (connexions.remove(connexion)) {
+                nombreConnexions.decrementAndGet();
+            }
+        });
+    }
+
+    void publier(ChatParticipant auteur, String texte) {
+        soumettre(() -> {
+            if (ferme) {
+                return;
+            }
+            MessageChat message = MessageChat.builder()
+                    .formationId(formationId)
+                    .sequence(++sequence)
+                    .userId(auteur.userId())
+                    .auteur(auteur.auteur())
+                    .texte(texte)
+                    .envoyeLe(LocalDateTime.now())
+                    .build();
+            transcription.ajouter(message);
+            String json = serialiseur.apply(versDto(message));
+            ajouterHistorique(json);
+            connexions.removeIf(connexion -> {
+                if (connexion.offrir(json)) {
+                    return false;
+                }
+                // File pleine : on coupe ce client plutôt que de ralentir ou de bufferiser pour tout le salon
+                clientsLents.increment();
+                nombreConnexions.decrementAndGet();
+                connexion.fermer(CLIENT_TROP_LENT);
+                return true;
+            });
+        });
+    }
+
+    /**
+     * Fin de session : transcription enregistrée puis connexions fermées.
+     */
+    void fermer() {
+        soumettre(() -> {
+            if (ferme) {
+                return;
+            }
+            ferme = true;
+            transcription.vider();
+            connexions.forEach(connexion -> connexion.fermer(FIN_DE_SESSION));
+            connexions.clear();
+            nombreConnexions.set(0);
+            log.info("Salon de chat de la formation {} fermé après {} message(s)", formationId, sequence);
+        });
+    }
+
+    private void soumettre(Runnable commande) {
+        boite.add(commande);
+        planifier();
+    }
+
+    private void planifier() {
+        if (planifie.compareAndSet(false, true)) {
+            executor.execute(this::boucle);
+        }
+    }
+
+    private void boucle() {
+        try {
+            Runnable commande;
+            for (int i = 0; i < COMMANDES_PAR_PASSAGE && (commande = boite.poll()) != null; i++) {
+                try {
+                    commande.run();
+                } catch (RuntimeException e) {
+                    log.error("Salon de chat {} : commande en échec", formationId, e);
+                }
+            }
+        } finally {
+            planifie.set(false);
+        }
+        if (!boite.isEmpty()) {
+            planifier();
+        }
+    }
+
+    private void ajouterHistorique(String json) {
+        if (tailleHistorique == 0) {
+            return;
+        }
+        if (historique.size() == tailleHistorique) {
+            historique.removeFirst();
+        }
+        historique.addLast(json);
+    }
+
+    private static ChatMessageDTO versDto(MessageChat message) {
+        return ChatMessageDTO.builder()
+                .sequence(message.getSequence())
+                .userId(message.getUserId())
+                .auteur(message.getAuteur())
+                .texte(message.getTexte())
+                .envoyeLe(message.getEnvoyeLe())
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package spring._3alemliveback.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring._3alemliveback.entities.MessageChat;
+import spring._3alemliveback.repo.MessageChatRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Écriture différée des transcriptions : les salons déposent leurs messages ici, ils sont insérés
+ * par lots (app.chat.flush-ms) et à la fin de chaque session. Base indisponible : les messages
+ * restent en attente, dans la limite de app.chat.max-pending.
+ */
+@Component
+@Slf4j
+public class ChatTranscriptWriter {
+
+    private final MessageChatRepository messageChatRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentLinkedQueue<MessageChat> enAttente = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger taille = new AtomicInteger();
+    private final int tailleLot;
+    private final int maxEnAttente;
+    private final Counter perdus;
+
+    public ChatTranscriptWriter(MessageChatRepository messageChatRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry registry,
+                                @Value("${app.chat.flush-batch-size:500}") int tailleLot,
+                                @Value("${app.chat.max-pending:100000}") int maxEnAttente) {
+        this.messageChatRepository = messageChatRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tailleLot = tailleLot;
+        this.maxEnAttente = maxEnAttente;
+        this.perdus = Counter.builder("chat.transcript.dropped")
+                .description("Messages de chat non enregistrés (file d'écriture pleine)")
+                .register(registry);
+    }
+
+    void ajouter(MessageChat message) {
+        if (taille.incrementAndGet() > maxEnAttente) {
+            taille.decrementAndGet();
+            perdus.increment();
+            return;
+        }
+        enAttente.add(message);
+    }
+
+    /**
+     * Insère tout ce qui est en attente. Appelé périodiquement et à la fermeture d'un salon.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.flush-ms:2000}")
+    public synchronized void vider() {
+        while (!enAttente.isEmpty()) {
+            List<MessageChat> lot = new ArrayList<>(tailleLot);
+            MessageChat message;
+            while (lot.size() < tailleLot && (message = enAttente.poll()) != null) {
+                lot.add(message);
+            }
+            taille.addAndGet(-lot.size());
+            try {
+                transactionTemplate.executeWithoutResult(status -> messageChatRepository.saveAll(lot));
+            } catch (DataIntegrityViolationException e) {
+                // Lot rejeté par la base (doublon de numéro d'ordre...) : le réessayer ne changerait rien
+                log.error("Lot de {} message(s) de chat abandonné : {}", lot.size(), e.getMessage());
+            } catch (RuntimeException e) {
+                log.warn("Enregistrement du chat reporté ({} message(s)) : {}", lot.size(), e.getMessage());
+                lot.forEach(this::ajouter);
+                return;
+            }
+        }
+    }
+}
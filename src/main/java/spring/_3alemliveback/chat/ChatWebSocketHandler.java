@@ -0,0 +1,64 @@
+package spring._3alemliveback.chat;
+
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * Messages texte des participants : chaque trame reçue est un message (texte brut) ; les trames
+ * envoyées sont des tableaux JSON de {@link spring._3alemliveback.dto.chat.ChatMessageDTO}.
+ */
+@Component
+@Slf4j
+public class ChatWebSocketHandler extends TextWebSocketHandler {
+
+    static final String PARTICIPANT = "chat.participant";
+    private static final String CONNEXION = "chat.connexion";
+    // Envoi bloquant de Tomcat : au-delà, l'envoi échoue et la connexion est fermée (20 s par défaut)
+    private static final String DELAI_ENVOI_TOMCAT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final ChatHub chatHub;
+    private final long delaiEnvoiMs;
+
+    public ChatWebSocketHandler(ChatHub chatHub,
+                                @Value("${app.chat.send-timeout-ms:5000}") long delaiEnvoiMs) {
+        this.chatHub = chatHub;
+        this.delaiEnvoiMs = delaiEnvoiMs;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession natif && natif.getNativeSession(Session.class) != null) {
+            natif.getNativeSession(Session.class).getUserProperties().put(DELAI_ENVOI_TOMCAT, delaiEnvoiMs);
+        }
+        ChatParticipant participant = (ChatParticipant) session.getAttributes().get(PARTICIPANT);
+        session.getAttributes().put(CONNEXION, chatHub.rejoindre(session, participant));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        ChatConnexion connexion = (ChatConnexion) session.getAttributes().get(CONNEXION);
+        if (connexion != null) {
+            chatHub.recevoir(connexion, message.getPayload());
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("Erreur de transport sur la session de chat {} : {}", session.getId(), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        ChatConnexion connexion = (ChatConnexion) session.getAttributes().remove(CONNEXION);
+        if (connexion != null) {
+            chatHub.quitter(connexion);
+        }
+    }
+}
@@ -5,18 +5,39 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 
 @Configuration
 public class JacksonConfig {
 
     @Bean
+    @Primary
     public ObjectMapper objectMapper() {
-        return Jackson2ObjectMapperBuilder.json()
+        return configurer(Jackson2ObjectMapperBuilder.json()).build();
+    }
+
+    /**
+     * CBOR et Smile : mêmes réglages que le JSON ; les byte[] (images, CV) y sont écrits
+     * en binaire brut au lieu d'une chaîne Base64. Remplacent les convertisseurs par défaut de Spring MVC.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(configurer(Jackson2ObjectMapperBuilder.cbor()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(configurer(Jackson2ObjectMapperBuilder.smile()).build());
+    }
+
+    private static Jackson2ObjectMapperBuilder configurer(Jackson2ObjectMapperBuilder builder) {
+        return builder
                 .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
                 .modules(new JavaTimeModule())
                 // Cette ligne est la clé pour éviter les références circulaires
-                .featuresToEnable(SerializationFeature.WRITE_SELF_REFERENCES_AS_NULL)
-                .build();
+                .featuresToEnable(SerializationFeature.WRITE_SELF_REFERENCES_AS_NULL);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package spring._3alemliveback.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import spring._3alemliveback.chat.ChatHandshakeInterceptor;
+import spring._3alemliveback.chat.ChatWebSocketHandler;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final ChatWebSocketHandler chatWebSocketHandler;
+    private final ChatHandshakeInterceptor chatHandshakeInterceptor;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(chatWebSocketHandler, "/ws/formations/*/chat")
+                .addInterceptors(chatHandshakeInterceptor)
+                .setAllowedOrigins("http://localhost:4200");
+    }
+}
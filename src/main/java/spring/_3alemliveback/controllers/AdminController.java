@@ -0,0 +1,25 @@
+package spring._3alemliveback.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import spring._3alemliveback.dto.admin.AdminStatsResponse;
+import spring._3alemliveback.services.AnalyticsService;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final AnalyticsService analyticsService;
+
+    // Tableau de bord : compteurs courants et évolution sur les "jours" derniers jours (366 au plus)
+    @GetMapping("/stats")
+    public ResponseEntity<AdminStatsResponse> getStats(@RequestParam(defaultValue = "30") int jours) {
+        return analyticsService.getStats(jours)
+                .map(ResponseEntity::ok)
+                // Premier chargement en cours, juste après le démarrage
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+}
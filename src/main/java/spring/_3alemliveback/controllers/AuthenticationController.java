@@ -1,16 +1,29 @@
 package spring._3alemliveback.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import spring._3alemliveback.dto.common.BatchRequest;
+import spring._3alemliveback.dto.common.BatchResponse;
 import spring._3alemliveback.dto.register.*;
 import spring._3alemliveback.entities.User;
+import spring._3alemliveback.exceptions.UserNotFoundException;
 import spring._3alemliveback.mapper.UserMapper;
 import spring._3alemliveback.services.AuthenticationService;
+import spring._3alemliveback.util.ConditionalGet;
+import spring._3alemliveback.util.MediaFormats;
+import spring._3alemliveback.util.MergePatch;
+import spring._3alemliveback.util.ImageResponses;
+import spring._3alemliveback.util.ResourceVersion;
 
 import java.security.Principal;
 import java.util.List;
@@ -68,10 +81,21 @@ public class AuthenticationController {
      */
     @GetMapping("/users/experts")
     //@PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<UserDto>> getAllExperts() {
-        List<User> activeExperts = authenticationService.getAllExperts();
-        List<UserDto> activeExpertDtos = userMapper.toDtoList(activeExperts);
-        return ResponseEntity.ok(activeExpertDtos);
+    public ResponseEntity<StreamingResponseBody> getAllExperts(@RequestParam(required = false) String fields,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType format = MediaFormats.negocier(accept);
+        return ResponseEntity.ok()
+                .contentType(format)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(fields != null ? authenticationService.streamAllExperts(format, fields) : authenticationService.streamAllExperts(format));
+    }
+    /**
+     * Lecture de plusieurs utilisateurs en un appel : {"ids": [...]} (100 au plus).
+     * Les identifiants inconnus sont listés dans "introuvables".
+     */
+    @PostMapping("/users/batch")
+    public ResponseEntity<BatchResponse<UserDto>> getUsersByIds(@RequestBody BatchRequest request) {
+        return ResponseEntity.ok(authenticationService.getUsersByIds(request));
     }
     @GetMapping("/users/formateur")
     //@PreAuthorize("hasRole('ADMIN')")
@@ -82,15 +106,22 @@ public class AuthenticationController {
     }
     @GetMapping("/user/{id}")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<UserDto> getUserById(@PathVariable Long id) {
-        Optional<User> userOptional = authenticationService.getUserById(id);
-
-        if (userOptional.isPresent()) {
-            UserDto userDto = userMapper.toDto(userOptional.get());
-            return ResponseEntity.ok(userDto);
-        } else {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<?> getUserById(@PathVariable Long id, @RequestParam(required = false) String fields,
+                                         WebRequest request) {
+        ResourceVersion version = authenticationService.getVersionUtilisateur(id);
+        if (fields != null) {
+            String cle = UserFields.PROJECTION.selection(fields).cle();
+            return ConditionalGet.repondre(request, version.variante(cle), () -> authenticationService.getUserById(id, fields));
         }
+        return ConditionalGet.repondre(request, version,
+                () -> authenticationService.getUserById(id)
+                        .map(userMapper::toDto)
+                        .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé")));
+    }
+
+    @GetMapping("/user/{id}/avatar")
+    public ResponseEntity<byte[]> getUserAvatar(@PathVariable Long id) {
+        return ImageResponses.of(authenticationService.getProfileImage(id));
     }
 
     @PutMapping("/profile")
@@ -104,6 +135,18 @@ public class AuthenticationController {
         return ResponseEntity.ok(updatedUserDto);
     }
 
+    /**
+     * Mise à jour partielle du profil (application/merge-patch+json) : seuls les champs fournis sont
+     * modifiés, photo et CV ne sont pas renvoyés à chaque édition. If-Match (ETag de GET /profile) optionnel.
+     */
+    @PatchMapping(value = "/profile", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<UserDto> patchUserProfile(@RequestBody JsonNode patch,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                    Principal connectedUser) {
+        User updatedUser = authenticationService.patchUserProfile(connectedUser.getName(), patch, ifMatch);
+        return ResponseEntity.ok(userMapper.toDto(updatedUser));
+    }
+
     @GetMapping("/user/by-email")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<UserDto> getUserByEmail(Principal connectedUser) {
@@ -120,16 +163,18 @@ public class AuthenticationController {
 
     @GetMapping("/profile")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<UserDto> getUserProfile(Principal connectedUser) {
+    public ResponseEntity<?> getUserProfile(Principal connectedUser, @RequestParam(required = false) String fields,
+                                            WebRequest request) {
         String email = connectedUser.getName();
-        Optional<User> userOptional = authenticationService.getUserByEmail(email);
-
-        if (userOptional.isPresent()) {
-            UserDto userDto = userMapper.toDto(userOptional.get());
-            return ResponseEntity.ok(userDto);
-        } else {
-            return ResponseEntity.notFound().build();
+        ResourceVersion version = authenticationService.getVersionUtilisateurParEmail(email);
+        if (fields != null) {
+            String cle = UserFields.PROJECTION.selection(fields).cle();
+            return ConditionalGet.repondre(request, version.variante(cle), () -> authenticationService.getUserByEmail(email, fields));
         }
+        return ConditionalGet.repondre(request, version,
+                () -> authenticationService.getUserByEmail(email)
+                        .map(userMapper::toDto)
+                        .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé")));
     }
 
     @GetMapping("/verify")
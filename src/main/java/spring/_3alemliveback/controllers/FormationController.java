@@ -1,17 +1,58 @@
 package spring._3alemliveback.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import spring._3alemliveback.dto.common.BatchRequest;
+import spring._3alemliveback.dto.common.BatchResponse;
+import spring._3alemliveback.dto.common.PageResponse;
+import spring._3alemliveback.dto.formation.AvisPageResponse;
 import spring._3alemliveback.dto.formation.AvisRequest;
+import spring._3alemliveback.dto.formation.DisponibilitesResponse;
+import spring._3alemliveback.dto.formation.ExpertStatsResponse;
+import spring._3alemliveback.dto.formation.FormationChangesResponse;
 import spring._3alemliveback.dto.formation.FormationDTO;
+import spring._3alemliveback.dto.formation.FormationFields;
 import spring._3alemliveback.dto.formation.FormationRequest;
 import spring._3alemliveback.dto.formation.FormationResponseDTO;
+import spring._3alemliveback.dto.formation.FormationSearchResultDTO;
+import spring._3alemliveback.dto.formation.InscriptionResponse;
+import spring._3alemliveback.dto.formation.RecommandationDTO;
+import spring._3alemliveback.dto.formation.TopRatedFormationDTO;
+import spring._3alemliveback.dto.live.PresenceParticipantDTO;
+import spring._3alemliveback.dto.live.QuestionLiveDTO;
+import spring._3alemliveback.dto.live.QuestionRequest;
+import spring._3alemliveback.dto.live.SondageDTO;
+import spring._3alemliveback.dto.live.SondageRequest;
+import spring._3alemliveback.dto.live.VoteRequest;
+import spring._3alemliveback.dto.search.SuggestionDTO;
 import spring._3alemliveback.entities.Avis;
 import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.InscriptionStatus;
+import spring._3alemliveback.services.AttendanceService;
+import spring._3alemliveback.services.CatalogSyncService;
 import spring._3alemliveback.services.FormationService;
+import spring._3alemliveback.services.IdempotencyService;
+import spring._3alemliveback.services.LiveInteractionService;
+import spring._3alemliveback.services.RatingService;
+import spring._3alemliveback.services.RecommendationService;
+import spring._3alemliveback.services.SuggestionService;
+import spring._3alemliveback.util.ConditionalGet;
+import spring._3alemliveback.util.MediaFormats;
+import spring._3alemliveback.util.MergePatch;
+import spring._3alemliveback.util.ImageResponses;
+import spring._3alemliveback.util.ResourceVersion;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,15 +62,28 @@ import java.util.List;
 public class FormationController {
 
     private final FormationService formationService;
+    private final SuggestionService suggestionService;
+    private final RatingService ratingService;
+    private final RecommendationService recommendationService;
+    private final CatalogSyncService catalogSyncService;
+    private final IdempotencyService idempotencyService;
+    private final LiveInteractionService liveInteractionService;
+    private final AttendanceService attendanceService;
 
     // Pour les requêtes POST/PUT, l'email peut être un @RequestParam
     // ou inclus dans le corps de la requête (nécessiterait d'ajuster les DTOs ou d'utiliser un wrapper DTO)
     // Nous utilisons @RequestParam pour la cohérence et la simplicité ici.
 
+    // Idempotency-Key optionnel : une reprise renvoie la réponse mémorisée sans recréer la formation ni l'événement Meet
     @PostMapping
-    public ResponseEntity<Formation> createFormation(@RequestBody FormationRequest formationRequest, @RequestParam String userEmail) {
-        Formation formation = formationService.createFormation(formationRequest, userEmail);
-        return new ResponseEntity<>(formation, HttpStatus.CREATED);
+    public ResponseEntity<?> createFormation(@RequestBody FormationRequest formationRequest, @RequestParam String userEmail,
+                                             @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return idempotencyService.executer(idempotencyKey, "POST /api/formations", userEmail, List.of(formationRequest, userEmail),
+                MediaFormats.negocier(accept), () -> {
+            Formation formation = formationService.createFormation(formationRequest, userEmail);
+            return new ResponseEntity<>(formation, HttpStatus.CREATED);
+        });
     }
 
     @PutMapping("/approve/{id}")
@@ -47,34 +101,138 @@ public class FormationController {
     }
 
     @PostMapping("/inscription/{id}")
-    public ResponseEntity<Formation> inscriptionFormation(@PathVariable Long id, @RequestParam String userEmail) {
-        Formation formation = formationService.inscriptionFormation(id, userEmail);
-        return ResponseEntity.ok(formation);
+    public ResponseEntity<?> inscriptionFormation(@PathVariable Long id, @RequestParam String userEmail,
+                                                  @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return idempotencyService.executer(idempotencyKey, "POST /api/formations/inscription", userEmail, List.of(id, userEmail),
+                MediaFormats.negocier(accept), () -> {
+            InscriptionResponse inscription = formationService.inscriptionFormation(id, userEmail);
+            // 202 Accepted : la demande est mise en file, l'apprenant sera notifié lors de sa promotion
+            HttpStatus status = inscription.getStatut() == InscriptionStatus.LISTE_ATTENTE ? HttpStatus.ACCEPTED : HttpStatus.OK;
+            return new ResponseEntity<>(inscription, status);
+        });
+    }
+
+    @DeleteMapping("/inscription/{id}")
+    public ResponseEntity<InscriptionResponse> desinscriptionFormation(@PathVariable Long id, @RequestParam String userEmail) {
+        return ResponseEntity.ok(formationService.desinscriptionFormation(id, userEmail));
+    }
+
+    @GetMapping("/{id}/liste-attente")
+    public ResponseEntity<InscriptionResponse> getPositionListeAttente(@PathVariable Long id, @RequestParam String userEmail) {
+        return ResponseEntity.ok(formationService.getPositionListeAttente(id, userEmail));
     }
 
     @GetMapping("/approved")
-    public ResponseEntity<List<FormationDTO>> getAllApprovedFormations() {
-        List<FormationDTO> formations = formationService.getAllApprovedFormations();
+    public ResponseEntity<StreamingResponseBody> getAllApprovedFormations(@RequestParam(required = false) String fields,
+                                                                          WebRequest request) {
+        ResourceVersion version = formationService.getVersionFormationsApprouvees();
+        if (fields != null) {
+            // Clé normalisée : "titre,id" et "id, titre" partagent un ETag, un champ inconnu est refusé avant le 304
+            String cle = FormationFields.PROJECTION.selection(fields).cle();
+            return ConditionalGet.repondreSelonFormat(request, version.variante(cle),
+                    format -> formationService.streamFormationsApprouvees(format, fields));
+        }
+        return ConditionalGet.repondreSelonFormat(request, version, formationService::streamFormationsApprouvees);
+    }
+
+    /**
+     * Synchronisation incrémentale : formations du catalogue modifiées ou supprimées depuis {@code since}
+     * (nextCursor de l'appel précédent ; absent pour une synchronisation complète).
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<FormationChangesResponse> getChangements(@RequestParam(required = false) String since,
+                                                                   @RequestParam(defaultValue = "200") int limit) {
+        return ResponseEntity.ok(catalogSyncService.getChangements(since, limit));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<FormationSearchResultDTO>> rechercherFormations(
+            @RequestParam("q") String terme,
+            @RequestParam(required = false) FormationCategory categorie,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(formationService.rechercherFormations(terme, categorie, page, size));
+    }
+
+    /**
+     * Autocomplétion (titres, catégories, experts) servie depuis la mémoire, sans requête SQL.
+     */
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<SuggestionDTO>> suggerer(@RequestParam("q") String prefixe,
+                                                        @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(suggestionService.suggerer(prefixe, limit));
+    }
+
+    @GetMapping("/top-rated")
+    public ResponseEntity<List<TopRatedFormationDTO>> getTopRated(@RequestParam(required = false) FormationCategory categorie,
+                                                                  @RequestParam(defaultValue = "10") int limit) {
+        List<TopRatedFormationDTO> formations = categorie != null
+                ? ratingService.getTopRated(categorie, limit)
+                : ratingService.getTopRated(limit);
         return ResponseEntity.ok(formations);
     }
 
+    /**
+     * Fil "recommandé pour vous" d'un apprenant, d'après les formations qu'il suit.
+     */
+    @GetMapping("/recommended")
+    public ResponseEntity<List<RecommandationDTO>> getRecommandationsPourApprenant(@RequestParam String userEmail,
+                                                                                   @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(recommendationService.getRecommandationsPourApprenant(userEmail, limit));
+    }
+
+    /**
+     * "Les apprenants ont aussi suivi" : servi depuis la mémoire, sans requête SQL.
+     */
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<RecommandationDTO>> getRecommandations(@PathVariable Long id,
+                                                                      @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(recommendationService.getRecommandations(id, limit));
+    }
+
     @GetMapping("/pending")
-    public ResponseEntity<List<FormationResponseDTO>> getAllPendingFormations() {
-        List<FormationResponseDTO> formations = formationService.getAllPendingFormations();
-        return ResponseEntity.ok(formations);
+    public ResponseEntity<StreamingResponseBody> getAllPendingFormations(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType format = MediaFormats.negocier(accept);
+        return ResponseEntity.ok()
+                .contentType(format)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(formationService.streamFormationsEnAttente(format));
     }
 
     @GetMapping("/my-formations")
-    public ResponseEntity<List<FormationDTO>> getMyFormations(@RequestParam String userEmail) {
+    public ResponseEntity<List<?>> getMyFormations(@RequestParam String userEmail,
+                                                   @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(formationService.getMyFormations(userEmail, fields));
+        }
         List<FormationDTO> formations = formationService.getMyFormations(userEmail);
         return ResponseEntity.ok(formations);
     }
+    @GetMapping("/my-stats")
+    public ResponseEntity<ExpertStatsResponse> getMyStats(@RequestParam String userEmail) {
+        return ResponseEntity.ok(formationService.getMyStats(userEmail));
+    }
+
     @GetMapping("/my-inscriptions")
     public ResponseEntity<List<FormationDTO>> getMyInscriptions(@RequestParam String userEmail) {
         List<FormationDTO> formations = formationService.getMyInscriptions(userEmail);
         return ResponseEntity.ok(formations);
     }
 
+    /**
+     * Créneaux occupés d'un expert sur une fenêtre (366 jours au plus), ex.
+     * ?debut=2025-06-01T00:00:00&fin=2025-07-01T00:00:00
+     */
+    @GetMapping("/experts/{expertId}/disponibilites")
+    public ResponseEntity<DisponibilitesResponse> getDisponibilites(
+            @PathVariable Long expertId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime debut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin) {
+        return ResponseEntity.ok(formationService.getDisponibilites(expertId, debut, fin));
+    }
+
     @PutMapping("/demarrer/{id}")
     public ResponseEntity<Formation> demarrerFormation(@PathVariable Long id, @RequestParam String userEmail) {
         Formation formation = formationService.demarrerFormation(id, userEmail);
@@ -88,30 +246,136 @@ public class FormationController {
     }
 
     @PostMapping("/{id}/avis")
-    public ResponseEntity<Avis> ajouterAvis(
+    public ResponseEntity<?> ajouterAvis(
             @PathVariable Long id,
             @RequestBody AvisRequest avisRequest,
-            @RequestParam String userEmail) {
-        Avis avis = formationService.ajouterAvis(id, avisRequest, userEmail);
-        return new ResponseEntity<>(avis, HttpStatus.CREATED);
+            @RequestParam String userEmail,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return idempotencyService.executer(idempotencyKey, "POST /api/formations/avis", userEmail, List.of(id, avisRequest, userEmail),
+                MediaFormats.negocier(accept), () -> {
+            Avis avis = formationService.ajouterAvis(id, avisRequest, userEmail);
+            return new ResponseEntity<>(avis, HttpStatus.CREATED);
+        });
     }
 
     @GetMapping("/{id}/avis")
-    public ResponseEntity<List<Avis>> getAvisByFormation(@PathVariable Long id) {
-        List<Avis> avis = formationService.getAvisByFormation(id);
-        return ResponseEntity.ok(avis);
+    public ResponseEntity<AvisPageResponse> getAvisByFormation(@PathVariable Long id,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer note,
+                                                               @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(formationService.getAvisByFormation(id, cursor, note, limit));
+    }
+
+    @GetMapping("/{id}/image")
+    public ResponseEntity<byte[]> getImageFormation(@PathVariable Long id) {
+        return ImageResponses.of(formationService.getImageFormation(id));
     }
     @GetMapping("/{id}") // Map GET requests to /api/formations/{id}
-    public ResponseEntity<FormationDTO> getFormationById(@PathVariable Long id) { // Get the ID from the path variable
-        FormationDTO formation = formationService.getFormationById(id); // Call the new service method
-        return ResponseEntity.ok(formation); // Return the DTO with OK status
+    public ResponseEntity<?> getFormationById(@PathVariable Long id, @RequestParam(required = false) String fields,
+                                              WebRequest request) { // Get the ID from the path variable
+        // 304 dès que la version correspond : ni chargement de l'entité, ni encodage Base64 de l'image
+        ResourceVersion version = formationService.getVersionFormation(id);
+        if (fields != null) {
+            String cle = FormationFields.PROJECTION.selection(fields).cle();
+            return ConditionalGet.repondre(request, version.variante(cle), () -> formationService.getFormationById(id, fields));
+        }
+        return ConditionalGet.repondre(request, version, () -> formationService.getFormationById(id));
     }
+
+    /**
+     * Flux Server-Sent Events : événements "places", "statut" et "avis" de la formation, et pendant
+     * la session en direct "sondages" et "questions" (instantanés, cf. LiveInteractionService).
+     * À la reconnexion, EventSource renvoie Last-Event-ID et les événements manqués sont rejoués.
+     */
+    @GetMapping(value = "/{id}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter live(@PathVariable Long id,
+                           @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return formationService.suivreFormation(id, lastEventId);
+    }
+
+    // Sondages et questions de la session en direct : état initial ici, évolutions sur /{id}/live
+    @GetMapping("/{id}/sondages")
+    public ResponseEntity<List<SondageDTO>> getSondages(@PathVariable Long id) {
+        return ResponseEntity.ok(liveInteractionService.getSondages(id));
+    }
+
+    @PostMapping("/{id}/sondages")
+    public ResponseEntity<SondageDTO> creerSondage(@PathVariable Long id, @RequestBody SondageRequest request,
+                                                   @RequestParam String userEmail) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(liveInteractionService.creerSondage(id, request, userEmail));
+    }
+
+    @PostMapping("/{id}/sondages/{sondageId}/votes")
+    public ResponseEntity<Void> voter(@PathVariable Long id, @PathVariable Long sondageId,
+                                      @RequestBody VoteRequest request, @RequestParam String userEmail) {
+        liveInteractionService.voter(id, sondageId, request, userEmail);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/{id}/sondages/{sondageId}/fermer")
+    public ResponseEntity<SondageDTO> fermerSondage(@PathVariable Long id, @PathVariable Long sondageId,
+                                                    @RequestParam String userEmail) {
+        return ResponseEntity.ok(liveInteractionService.fermerSondage(id, sondageId, userEmail));
+    }
+
+    @GetMapping("/{id}/questions")
+    public ResponseEntity<List<QuestionLiveDTO>> getQuestions(@PathVariable Long id) {
+        return ResponseEntity.ok(liveInteractionService.getQuestions(id));
+    }
+
+    @PostMapping("/{id}/questions")
+    public ResponseEntity<QuestionLiveDTO> poserQuestion(@PathVariable Long id, @RequestBody QuestionRequest request,
+                                                         @RequestParam String userEmail) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(liveInteractionService.poserQuestion(id, request, userEmail));
+    }
+
+    @PostMapping("/{id}/questions/{questionId}/votes")
+    public ResponseEntity<Void> voterQuestion(@PathVariable Long id, @PathVariable Long questionId,
+                                              @RequestParam String userEmail) {
+        liveInteractionService.voterQuestion(id, questionId, userEmail);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Battement de présence envoyé par le client toutes les 15 à 30 s pendant la session en direct
+    @PostMapping("/{id}/presence")
+    public ResponseEntity<Void> battementPresence(@PathVariable Long id, @RequestParam String userEmail) {
+        attendanceService.battement(id, userEmail);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/{id}/presences")
+    public ResponseEntity<List<PresenceParticipantDTO>> getPresences(@PathVariable Long id, @RequestParam String userEmail) {
+        return ResponseEntity.ok(attendanceService.getPresences(id, userEmail));
+    }
+
+    /**
+     * Lecture de plusieurs formations en un appel : {"ids": [...]} (100 au plus).
+     * Les identifiants inconnus sont listés dans "introuvables".
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResponse<FormationDTO>> getFormationsByIds(@RequestBody BatchRequest request) {
+        return ResponseEntity.ok(formationService.getFormationsByIds(request));
+    }
+
     @DeleteMapping("/{id}") // Map DELETE requests to /api/formations/{id}
     public ResponseEntity<Void> deleteFormation(@PathVariable Long id, @RequestParam String userEmail) {
         formationService.deleteFormation(id, userEmail); // Call the service method
         return ResponseEntity.noContent().build(); // Return 204 No Content on success
     }
 
+    /**
+     * Mise à jour partielle (application/merge-patch+json) : seuls les champs fournis sont modifiés.
+     * If-Match (ETag du GET) optionnel : 412 si la formation a changé depuis, 409 en cas d'écriture concurrente.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<FormationDTO> patchFormation(@PathVariable Long id,
+                                                       @RequestBody JsonNode patch,
+                                                       @RequestParam String userEmail,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return ResponseEntity.ok(formationService.patchFormation(id, patch, ifMatch, userEmail));
+    }
+
     // **NEW ENDPOINT: Update Formation**
     @PutMapping("/{id}") // Map PUT requests to /api/formations/{id} for update
     public ResponseEntity<FormationDTO> updateFormation(@PathVariable Long id,
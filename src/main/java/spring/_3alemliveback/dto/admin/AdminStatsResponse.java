@@ -0,0 +1,34 @@
+package spring._3alemliveback.dto.admin;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.Role;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminStatsResponse {
+    // Date de la dernière prise en compte du journal des modifications
+    private LocalDateTime miseAJour;
+    private Map<FormationStatus, Long> formationsParStatut;
+    private Map<FormationCategory, Long> formationsParCategorie;
+    private Map<FormationStatus, Map<FormationCategory, Long>> formationsParStatutEtCategorie;
+    private long inscriptions;
+    // Somme de prix x participants des formations existantes
+    private double revenu;
+    private NoteMoyenneDTO noteGlobale;
+    private Map<FormationCategory, NoteMoyenneDTO> notesParCategorie;
+    private Map<Role, Long> utilisateursParRole;
+    private EntonnoirExpertsDTO entonnoirExperts;
+    // Une entrée par jour, du plus ancien au plus récent
+    private List<StatistiqueJourDTO> evolution;
+}
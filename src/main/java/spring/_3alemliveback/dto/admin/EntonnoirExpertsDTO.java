@@ -0,0 +1,20 @@
+package spring._3alemliveback.dto.admin;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntonnoirExpertsDTO {
+    private long inscrits;
+    // Email confirmé
+    private long verifies;
+    // Compte validé par un admin
+    private long actives;
+    private double tauxVerification;
+    private double tauxActivation;
+}
@@ -0,0 +1,15 @@
+package spring._3alemliveback.dto.admin;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteMoyenneDTO {
+    private double moyenne;
+    private long nombreAvis;
+}
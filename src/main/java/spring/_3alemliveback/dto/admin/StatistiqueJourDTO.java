@@ -0,0 +1,24 @@
+package spring._3alemliveback.dto.admin;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatistiqueJourDTO {
+    private LocalDate jour;
+    private long formationsCreees;
+    // Inscriptions moins désinscriptions
+    private long inscriptionsNettes;
+    private double revenuNet;
+    private long avis;
+    private double noteMoyenne;
+    private long expertsInscrits;
+    private long apprenantsInscrits;
+}
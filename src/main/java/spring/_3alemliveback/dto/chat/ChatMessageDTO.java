@@ -0,0 +1,20 @@
+package spring._3alemliveback.dto.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageDTO {
+    private Long sequence;
+    private Long userId;
+    private String auteur;
+    private String texte;
+    private LocalDateTime envoyeLe;
+}
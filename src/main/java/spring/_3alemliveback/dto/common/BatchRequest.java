@@ -0,0 +1,40 @@
+package spring._3alemliveback.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Corps des lectures par lot : {"ids": [1, 2, 3]}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRequest {
+
+    public static final int TAILLE_MAX = 100;
+
+    private List<Long> ids;
+
+    /**
+     * @return identifiants sans doublons ni null, dans l'ordre de la requête
+     */
+    public List<Long> idsDistincts() {
+        if (ids == null) {
+            return List.of();
+        }
+        List<Long> distincts = new ArrayList<>(new LinkedHashSet<>(ids.stream().filter(Objects::nonNull).toList()));
+        if (distincts.size() > TAILLE_MAX) {
+            throw new InvalidOperationException("Trop d'identifiants : " + distincts.size() + " (maximum " + TAILLE_MAX + ")");
+        }
+        return distincts;
+    }
+}
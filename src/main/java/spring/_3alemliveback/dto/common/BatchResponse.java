@@ -0,0 +1,41 @@
+package spring._3alemliveback.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réponse d'une lecture par lot : résultats indexés par identifiant (ordre de la requête)
+ * et identifiants introuvables, plutôt qu'un 404 pour l'ensemble.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse<T> {
+    private Map<Long, T> resultats;
+    private List<Long> introuvables;
+
+    public static <T> BatchResponse<T> of(List<Long> ids, Map<Long, T> trouves) {
+        Map<Long, T> resultats = new LinkedHashMap<>();
+        List<Long> introuvables = new ArrayList<>();
+        for (Long id : ids) {
+            T resultat = trouves.get(id);
+            if (resultat != null) {
+                resultats.put(id, resultat);
+            } else {
+                introuvables.add(id);
+            }
+        }
+        return BatchResponse.<T>builder()
+                .resultats(resultats)
+                .introuvables(introuvables)
+                .build();
+    }
+}
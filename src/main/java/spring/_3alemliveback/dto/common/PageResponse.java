@@ -0,0 +1,35 @@
+package spring._3alemliveback.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Enveloppe de pagination stable pour les réponses JSON
+ * (évite de sérialiser directement les Slice de Spring Data). Pas de total : les listes paginées
+ * ne lancent pas de requête de comptage, hasNext indique s'il reste une page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponse<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+
+    public static <S, T> PageResponse<T> fromSlice(Slice<S> slice, Function<S, T> mapper) {
+        return PageResponse.<T>builder()
+                .content(slice.getContent().stream().map(mapper).toList())
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .hasNext(slice.hasNext())
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvisPageResponse {
+    private List<AvisResumeDTO> avis;
+    private String nextCursor; // À renvoyer tel quel pour la page suivante, null s'il n'y en a plus
+    private boolean hasMore;
+}
@@ -0,0 +1,40 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Avis allégé pour les listes : aucun champ de l'entité User n'est sérialisé,
+ * l'image de profil est référencée par URL.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvisResumeDTO {
+    private Long id;
+    private Integer note;
+    private String commentaire;
+    private LocalDateTime dateCreation;
+    private Long utilisateurId;
+    private String utilisateurNom;
+    private String utilisateurPrenom;
+    private String avatarUrl;
+
+    public static AvisResumeDTO fromView(AvisResumeView view) {
+        return AvisResumeDTO.builder()
+                .id(view.getId())
+                .note(view.getNote())
+                .commentaire(view.getCommentaire())
+                .dateCreation(view.getDateCreation())
+                .utilisateurId(view.getUtilisateurId())
+                .utilisateurNom(view.getUtilisateurNom())
+                .utilisateurPrenom(view.getUtilisateurPrenom())
+                .avatarUrl(Boolean.TRUE.equals(view.getAvatar()) ? MediaUrls.utilisateur(view.getUtilisateurId()) : null)
+                .build();
+    }
+}
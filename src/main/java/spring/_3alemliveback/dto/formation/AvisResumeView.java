@@ -0,0 +1,14 @@
+package spring._3alemliveback.dto.formation;
+
+import java.time.LocalDateTime;
+
+public interface AvisResumeView {
+    Long getId();
+    Integer getNote();
+    String getCommentaire();
+    LocalDateTime getDateCreation();
+    Long getUtilisateurId();
+    String getUtilisateurNom();
+    String getUtilisateurPrenom();
+    Boolean getAvatar(); // Vrai si l'utilisateur a une image de profil (sans la charger)
+}
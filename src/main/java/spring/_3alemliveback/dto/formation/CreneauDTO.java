@@ -0,0 +1,22 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreneauDTO {
+    private Long formationId;
+    private LocalDateTime dateDebut;
+    private LocalDateTime dateFin;
+
+    public static CreneauDTO fromView(CreneauView view) {
+        return new CreneauDTO(view.getId(), view.getDateDebut(), view.getDateFin());
+    }
+}
@@ -0,0 +1,13 @@
+package spring._3alemliveback.dto.formation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Créneau occupé par une formation dans le planning de son formateur.
+ */
+public interface CreneauView {
+    Long getId();
+    String getTitre();
+    LocalDateTime getDateDebut();
+    LocalDateTime getDateFin();
+}
@@ -0,0 +1,21 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisponibilitesResponse {
+    private Long expertId;
+    private LocalDateTime debut;
+    private LocalDateTime fin;
+    // Créneaux occupés qui chevauchent la fenêtre, triés par date de début ; le reste est libre
+    private List<CreneauDTO> occupe;
+}
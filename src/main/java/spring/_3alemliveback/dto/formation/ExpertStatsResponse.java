@@ -0,0 +1,27 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpertStatsResponse {
+    private Long expertId;
+    // Totaux hors formations rejetées
+    private int nombreFormations;
+    private int sessionsAVenir;
+    private long inscrits;
+    private long places;
+    private double tauxRemplissage;
+    private double noteMoyenne;
+    private long nombreAvis;
+    private double revenuEstime;
+    // Formations de la plus récente à la plus ancienne
+    private List<FormationExpertStatsDTO> formations;
+}
@@ -0,0 +1,13 @@
+package spring._3alemliveback.dto.formation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne du journal de modifications du catalogue : formation modifiée ou supprimée (tombstone).
+ */
+public interface FormationChangeView {
+    Long getId();
+    LocalDateTime getHorodatage();
+    Boolean getSupprime();
+    Long getJournalXid();
+}
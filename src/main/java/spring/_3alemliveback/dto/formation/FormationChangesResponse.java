@@ -0,0 +1,23 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormationChangesResponse {
+    // Formations du catalogue créées ou modifiées depuis le curseur (à insérer ou remplacer)
+    private List<FormationDTO> modifiees;
+    // Formations à retirer de la copie locale : supprimées ou sorties du catalogue (statut)
+    private List<Long> supprimees;
+    private String nextCursor;
+    private boolean hasMore;
+    // Curseur trop ancien (tombstones purgées) : la copie locale doit être vidée avant d'appliquer la réponse
+    private boolean resynchronisation;
+}
@@ -9,10 +9,10 @@ import spring._3alemliveback.entities.Formation;
 import spring._3alemliveback.entities.User;
 import spring._3alemliveback.enums.FormationCategory;
 import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.MeetStatus;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,12 +30,16 @@ public class FormationDTO {
     private Integer nombreMaxParticipants;
     private Double prix;
     private String urlMeet;
-    private String imageFormation; // Stockée comme chaîne Base64
+    private MeetStatus meetStatut; // EN_ATTENTE tant que le lien n'est pas créé
+    private byte[] imageFormation; // Base64 en JSON, octets bruts en CBOR/Smile
+    private String imageUrl; // Renseignée à la place de imageFormation dans les listes
     private FormationCategory categorie;
     private FormationStatus statut;
     private FormateurDTO formateur;
     private List<AvisDTO> avis;
     private int nombreParticipants;
+    private Double noteMoyenne;
+    private long nombreAvis;
     private List<ParticipantDTO> participantsDetails; // Optionnel, utiliser seulement si nécessaire
 
     /**
@@ -47,7 +51,14 @@ public class FormationDTO {
         if (formation == null) {
             return null;
         }
+        return fromEntity(formation, formation.getParticipants() != null ? formation.getParticipants().size() : 0);
+    }
 
+    /**
+     * Variante des lectures par lot : le nombre de participants est compté en SQL
+     * au lieu de charger la collection de chaque formation.
+     */
+    public static FormationDTO fromEntity(Formation formation, int nombreParticipants) {
         FormationDTOBuilder builder = FormationDTO.builder()
                 .id(formation.getId())
                 .titre(formation.getTitre())
@@ -58,13 +69,18 @@ public class FormationDTO {
                 .nombreMaxParticipants(formation.getNombreMaxParticipants())
                 .prix(formation.getPrix())
                 .urlMeet(formation.getUrlMeet())
+                .meetStatut(formation.getMeetStatut())
                 .categorie(formation.getCategorie())
                 .statut(formation.getStatut())
-                .nombreParticipants(formation.getParticipants() != null ? formation.getParticipants().size() : 0);
+                .nombreParticipants(nombreParticipants)
+                .nombreAvis(formation.getRatingCount())
+                .noteMoyenne(formation.getRatingCount() > 0
+                        ? Math.round((double) formation.getRatingSum() / formation.getRatingCount() * 100) / 100d
+                        : null);
 
-        // Conversion de l'image en Base64 (si elle existe)
+        // Image (si elle existe) : encodée en Base64 par Jackson en JSON uniquement
         if (formation.getImageFormation() != null && formation.getImageFormation().length > 0) {
-            builder.imageFormation(Base64.getEncoder().encodeToString(formation.getImageFormation()));
+            builder.imageFormation(formation.getImageFormation());
         }
 
         // Conversion du formateur
@@ -93,6 +109,42 @@ public class FormationDTO {
         return builder.build();
     }
 
+    /**
+     * Convertit une ligne de projection en FormationDTO de liste : formateur résumé,
+     * images référencées par URL, avis non inclus (cf. GET /api/formations/{id}/avis).
+     */
+    public static FormationDTO fromSummary(FormationSummaryRow row) {
+        return FormationDTO.builder()
+                .id(row.getId())
+                .titre(row.getTitre())
+                .description(row.getDescription())
+                .dateDebut(row.getDateDebut())
+                .dateFin(row.getDateFin())
+                .duree(row.getDuree())
+                .nombreMaxParticipants(row.getNombreMaxParticipants())
+                .prix(row.getPrix())
+                .urlMeet(row.getUrlMeet())
+                .categorie(row.getCategorie())
+                .statut(row.getStatut())
+                .imageUrl(row.isImage() ? MediaUrls.formation(row.getId()) : null)
+                .formateur(row.getFormateurId() == null ? null : FormateurDTO.builder()
+                        .id(row.getFormateurId())
+                        .nom(row.getFormateurNom())
+                        .prenom(row.getFormateurPrenom())
+                        .avatarUrl(row.isFormateurAvatar() ? MediaUrls.utilisateur(row.getFormateurId()) : null)
+                        .build())
+                .nombreParticipants(row.getNombreParticipants())
+                .noteMoyenne(row.getNoteMoyenne())
+                .nombreAvis(row.getRatingCount())
+                .build();
+    }
+
+    public static List<FormationDTO> fromSummaries(List<FormationSummaryRow> rows) {
+        return rows.stream()
+                .map(FormationDTO::fromSummary)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Convertit une liste d'entités Formation en liste de FormationDTO
      * @param formations Liste d'entités Formation à convertir
@@ -121,7 +173,8 @@ public class FormationDTO {
         private String email;
         private String phone;
         private String profileDescription;
-        private String imageProfile; // Encodée en Base64
+        private byte[] imageProfile; // Base64 en JSON, octets bruts en CBOR/Smile
+        private String avatarUrl;
         private List<String> domaines;
         private List<String> certifications;
         private String niveauEtude;
@@ -148,9 +201,9 @@ public class FormationDTO {
                     .linkedinUrl(user.getLinkedinUrl())
                     .portfolioUrl(user.getPortfolioUrl());
 
-            // Conversion de l'image de profil en Base64 (si elle existe)
+            // Image de profil (si elle existe)
             if (user.getProfileImage() != null && user.getProfileImage().length > 0) {
-                builder.imageProfile(Base64.getEncoder().encodeToString(user.getProfileImage()));
+                builder.imageProfile(user.getProfileImage());
             }
 
             return builder.build();
@@ -172,7 +225,7 @@ public class FormationDTO {
         private Long utilisateurId;
         private String utilisateurNom;
         private String utilisateurPrenom;
-        private String imageProfile; // Encodée en Base64, optionnelle
+        private byte[] imageProfile; // Base64 en JSON, octets bruts en CBOR/Smile ; optionnelle
 
         public static AvisDTO fromEntity(Avis avis) {
             if (avis == null) {
@@ -193,8 +246,7 @@ public class FormationDTO {
                 // Optionnellement, ajouter l'image de profil
                 if (avis.getUtilisateur().getProfileImage() != null &&
                         avis.getUtilisateur().getProfileImage().length > 0) {
-                    builder.imageProfile(Base64.getEncoder().encodeToString(
-                            avis.getUtilisateur().getProfileImage()));
+                    builder.imageProfile(avis.getUtilisateur().getProfileImage());
                 }
             }
 
@@ -215,7 +267,7 @@ public class FormationDTO {
         private String nom;
         private String prenom;
         private String email;
-        private String imageProfile; // Encodée en Base64
+        private byte[] imageProfile; // Base64 en JSON, octets bruts en CBOR/Smile
 
         public static ParticipantDTO fromEntity(User user) {
             if (user == null) {
@@ -228,9 +280,9 @@ public class FormationDTO {
                     .prenom(user.getPrenom())
                     .email(user.getEmail());
 
-            // Conversion de l'image de profil en Base64 (si elle existe)
+            // Image de profil (si elle existe)
             if (user.getProfileImage() != null && user.getProfileImage().length > 0) {
-                builder.imageProfile(Base64.getEncoder().encodeToString(user.getProfileImage()));
+                builder.imageProfile(user.getProfileImage());
             }
 
             return builder.build();
@@ -0,0 +1,32 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import spring._3alemliveback.enums.FormationStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormationExpertStatsDTO {
+    private Long formationId;
+    private String titre;
+    private FormationStatus statut;
+    private LocalDateTime dateDebut;
+    private LocalDateTime dateFin;
+    private Integer places;
+    private long inscrits;
+    // inscrits / places, entre 0 et 1
+    private double tauxRemplissage;
+    private double noteMoyenne;
+    private long nombreAvis;
+    private Double prix;
+    // prix x inscrits
+    private double revenuEstime;
+    // Approuvée et pas encore commencée
+    private boolean sessionAVenir;
+}
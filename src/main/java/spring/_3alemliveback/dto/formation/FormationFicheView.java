@@ -0,0 +1,16 @@
+package spring._3alemliveback.dto.formation;
+
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+
+/**
+ * Colonnes utilisées pour classer les recommandations (aucun LOB ni jointure).
+ */
+public interface FormationFicheView {
+    Long getId();
+    String getTitre();
+    FormationCategory getCategorie();
+    FormationStatus getStatut();
+    Long getRatingSum();
+    Long getRatingCount();
+}
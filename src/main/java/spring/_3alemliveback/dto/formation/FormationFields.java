@@ -0,0 +1,49 @@
+package spring._3alemliveback.dto.formation;
+
+import spring._3alemliveback.util.SparseProjection;
+
+/**
+ * Champs sélectionnables via ?fields= sur les lectures de formations (noms identiques à FormationDTO).
+ * Les avis ne sont pas sélectionnables : ils sont paginés par GET /api/formations/{id}/avis.
+ */
+public final class FormationFields {
+
+    public static final SparseProjection PROJECTION = new SparseProjection("Formation f", "LEFT JOIN f.formateur fo")
+            .champ("id", "f.id")
+            .champ("titre", "f.titre")
+            .champ("description", "f.description")
+            .champ("dateDebut", "f.dateDebut")
+            .champ("dateFin", "f.dateFin")
+            .champ("duree", "f.duree")
+            .champ("nombreMaxParticipants", "f.nombreMaxParticipants")
+            .champ("prix", "f.prix")
+            .champ("urlMeet", "f.urlMeet")
+            .champ("meetStatut", "f.meetStatut")
+            .champ("categorie", "f.categorie")
+            .champ("statut", "f.statut")
+            .champ("nombreParticipants", "SIZE(f.participants)")
+            .champ("nombreAvis", "f.ratingCount")
+            .champ("noteMoyenne", false,
+                    c -> ((Number) c[1]).longValue() > 0
+                            ? Math.round(((Number) c[0]).doubleValue() / ((Number) c[1]).longValue() * 100) / 100d
+                            : null,
+                    "f.ratingSum", "f.ratingCount")
+            .champ("imageUrl", false,
+                    c -> Boolean.TRUE.equals(c[1]) ? MediaUrls.formation((Long) c[0]) : null,
+                    "f.id", "CASE WHEN f.imageFormation IS NULL THEN false ELSE true END")
+            // Image complète (LOB) lue uniquement si demandée explicitement
+            .champ("imageFormation", false,
+                    c -> c[0],
+                    "f.imageFormation")
+            .champ("formateur", true,
+                    c -> c[0] == null ? null : FormationDTO.FormateurDTO.builder()
+                            .id((Long) c[0])
+                            .nom((String) c[1])
+                            .prenom((String) c[2])
+                            .avatarUrl(Boolean.TRUE.equals(c[3]) ? MediaUrls.utilisateur((Long) c[0]) : null)
+                            .build(),
+                    "fo.id", "fo.nom", "fo.prenom", "CASE WHEN fo.profileImage IS NULL THEN false ELSE true END");
+
+    private FormationFields() {
+    }
+}
@@ -0,0 +1,13 @@
+package spring._3alemliveback.dto.formation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Empreinte d'une liste de formations : nombre de lignes et dernières modifications
+ * (formations et formateurs affichés).
+ */
+public interface FormationListVersionView {
+    Long getNombre();
+    LocalDateTime getUpdatedAt();
+    LocalDateTime getFormateurUpdatedAt();
+}
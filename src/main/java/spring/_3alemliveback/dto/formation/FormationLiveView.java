@@ -0,0 +1,14 @@
+package spring._3alemliveback.dto.formation;
+
+import spring._3alemliveback.enums.FormationStatus;
+
+/**
+ * État initial d'un flux /live : statut, capacité et agrégats de notation.
+ */
+public interface FormationLiveView {
+    Long getId();
+    FormationStatus getStatut();
+    Integer getNombreMaxParticipants();
+    Long getRatingSum();
+    Long getRatingCount();
+}
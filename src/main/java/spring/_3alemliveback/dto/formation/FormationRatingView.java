@@ -0,0 +1,11 @@
+package spring._3alemliveback.dto.formation;
+
+import spring._3alemliveback.enums.FormationCategory;
+
+public interface FormationRatingView {
+    Long getId();
+    String getTitre();
+    FormationCategory getCategorie();
+    Long getRatingSum();
+    Long getRatingCount();
+}
@@ -26,6 +26,25 @@ public class FormationResponseDTO {
     private String formateurNom;
     private Integer participantsCount;
 
+    public static FormationResponseDTO fromSummary(FormationSummaryRow row) {
+        return FormationResponseDTO.builder()
+                .id(row.getId())
+                .titre(row.getTitre())
+                .description(row.getDescription())
+                .dateDebut(row.getDateDebut())
+                .dateFin(row.getDateFin())
+                .duree(row.getDuree())
+                .nombreMaxParticipants(row.getNombreMaxParticipants())
+                .prix(row.getPrix())
+                .urlMeet(row.getUrlMeet())
+                .categorie(row.getCategorie())
+                .statut(row.getStatut())
+                .formateurId(row.getFormateurId())
+                .formateurNom(row.getFormateurId() != null ? row.getFormateurNom() + " " + row.getFormateurPrenom() : null)
+                .participantsCount(row.getNombreParticipants())
+                .build();
+    }
+
     public static FormationResponseDTO fromEntity(Formation formation) {
         return FormationResponseDTO.builder()
                 .id(formation.getId())
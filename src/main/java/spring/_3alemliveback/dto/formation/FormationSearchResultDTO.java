@@ -0,0 +1,41 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import spring._3alemliveback.enums.FormationCategory;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormationSearchResultDTO {
+    private Long id;
+    private String titre;
+    private String extrait; // Début de la description
+    private LocalDateTime dateDebut;
+    private LocalDateTime dateFin;
+    private Double prix;
+    private FormationCategory categorie;
+    private Long formateurId;
+    private String formateurNom;
+    private Float score;
+
+    public static FormationSearchResultDTO fromView(FormationSearchView view) {
+        return FormationSearchResultDTO.builder()
+                .id(view.getId())
+                .titre(view.getTitre())
+                .extrait(view.getExtrait())
+                .dateDebut(view.getDateDebut())
+                .dateFin(view.getDateFin())
+                .prix(view.getPrix())
+                .categorie(view.getCategorie() != null ? FormationCategory.valueOf(view.getCategorie()) : null)
+                .formateurId(view.getFormateurId())
+                .formateurNom(view.getFormateurNom())
+                .score(view.getRang())
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package spring._3alemliveback.dto.formation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection native de la recherche plein texte : uniquement les colonnes scalaires
+ * nécessaires à l'affichage d'un résultat (ni image, ni collections).
+ */
+public interface FormationSearchView {
+    Long getId();
+    String getTitre();
+    String getExtrait();
+    LocalDateTime getDateDebut();
+    LocalDateTime getDateFin();
+    Double getPrix();
+    String getCategorie();
+    Long getFormateurId();
+    String getFormateurNom();
+    Float getRang();
+}
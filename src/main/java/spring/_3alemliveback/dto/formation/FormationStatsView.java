@@ -0,0 +1,17 @@
+package spring._3alemliveback.dto.formation;
+
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+
+/**
+ * Contribution d'une formation aux statistiques admin.
+ */
+public interface FormationStatsView {
+    Long getId();
+    FormationStatus getStatut();
+    FormationCategory getCategorie();
+    Double getPrix();
+    Integer getParticipants();
+    Long getRatingSum();
+    Long getRatingCount();
+}
@@ -0,0 +1,74 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.Getter;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection par constructeur (JPQL "SELECT new ...") des listes de formations :
+ * colonnes scalaires, résumé du formateur, nombre de participants et agrégats de notation
+ * en une seule requête SQL, sans initialiser aucune collection ni lire les LOB.
+ */
+@Getter
+public class FormationSummaryRow {
+
+    // Liste de sélection partagée par les requêtes de FormationRepository
+    public static final String SELECT = "SELECT new spring._3alemliveback.dto.formation.FormationSummaryRow(" +
+            "f.id, f.titre, f.description, f.dateDebut, f.dateFin, f.duree, f.nombreMaxParticipants, f.prix, " +
+            "f.urlMeet, f.categorie, f.statut, fo.id, fo.nom, fo.prenom, " +
+            "CASE WHEN fo.profileImage IS NULL THEN false ELSE true END, " +
+            "SIZE(f.participants), f.ratingSum, f.ratingCount, " +
+            "CASE WHEN f.imageFormation IS NULL THEN false ELSE true END) ";
+
+    private final Long id;
+    private final String titre;
+    private final String description;
+    private final LocalDateTime dateDebut;
+    private final LocalDateTime dateFin;
+    private final Integer duree;
+    private final Integer nombreMaxParticipants;
+    private final Double prix;
+    private final String urlMeet;
+    private final FormationCategory categorie;
+    private final FormationStatus statut;
+    private final Long formateurId;
+    private final String formateurNom;
+    private final String formateurPrenom;
+    private final boolean formateurAvatar;
+    private final int nombreParticipants;
+    private final long ratingSum;
+    private final long ratingCount;
+    private final boolean image;
+
+    public FormationSummaryRow(Long id, String titre, String description, LocalDateTime dateDebut, LocalDateTime dateFin,
+                               Integer duree, Integer nombreMaxParticipants, Double prix, String urlMeet,
+                               FormationCategory categorie, FormationStatus statut,
+                               Long formateurId, String formateurNom, String formateurPrenom, Boolean formateurAvatar,
+                               Number nombreParticipants, Number ratingSum, Number ratingCount, Boolean image) {
+        this.id = id;
+        this.titre = titre;
+        this.description = description;
+        this.dateDebut = dateDebut;
+        this.dateFin = dateFin;
+        this.duree = duree;
+        this.nombreMaxParticipants = nombreMaxParticipants;
+        this.prix = prix;
+        this.urlMeet = urlMeet;
+        this.categorie = categorie;
+        this.statut = statut;
+        this.formateurId = formateurId;
+        this.formateurNom = formateurNom;
+        this.formateurPrenom = formateurPrenom;
+        this.formateurAvatar = Boolean.TRUE.equals(formateurAvatar);
+        this.nombreParticipants = nombreParticipants != null ? nombreParticipants.intValue() : 0;
+        this.ratingSum = ratingSum != null ? ratingSum.longValue() : 0L;
+        this.ratingCount = ratingCount != null ? ratingCount.longValue() : 0L;
+        this.image = Boolean.TRUE.equals(image);
+    }
+
+    public Double getNoteMoyenne() {
+        return ratingCount == 0 ? null : Math.round((double) ratingSum / ratingCount * 100) / 100d;
+    }
+}
@@ -0,0 +1,13 @@
+package spring._3alemliveback.dto.formation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versions d'une formation et de son formateur, seules colonnes lues pour valider un GET conditionnel.
+ */
+public interface FormationVersionView {
+    Long getVersion();
+    LocalDateTime getUpdatedAt();
+    Long getFormateurVersion();
+    LocalDateTime getFormateurUpdatedAt();
+}
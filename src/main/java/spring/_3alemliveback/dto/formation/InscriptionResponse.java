@@ -0,0 +1,20 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import spring._3alemliveback.enums.InscriptionStatus;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InscriptionResponse {
+    private Long formationId;
+    private InscriptionStatus statut;
+    private Long positionAttente; // Rang dans la liste d'attente (1 = prochain promu), null si inscrit
+    private Long tailleListeAttente;
+    private Integer placesRestantes;
+    private String message;
+}
@@ -0,0 +1,16 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Événement SSE "avis"
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveAvisDTO {
+    private double noteMoyenne;
+    private long nombreAvis;
+}
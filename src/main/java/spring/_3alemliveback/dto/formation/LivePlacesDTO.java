@@ -0,0 +1,18 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Événement SSE "places"
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LivePlacesDTO {
+    private int inscrits;
+    private Integer places;
+    private Integer placesRestantes;
+    private boolean complet;
+}
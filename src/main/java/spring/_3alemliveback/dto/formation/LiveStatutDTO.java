@@ -0,0 +1,16 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import spring._3alemliveback.enums.FormationStatus;
+
+// Événement SSE "statut" ; statut null : formation supprimée, le flux se termine
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveStatutDTO {
+    private FormationStatus statut;
+}
@@ -0,0 +1,18 @@
+package spring._3alemliveback.dto.formation;
+
+/**
+ * URLs des ressources binaires servies séparément des DTO (images de profil et de formation).
+ */
+public final class MediaUrls {
+
+    private MediaUrls() {
+    }
+
+    public static String utilisateur(Long userId) {
+        return "/api/v1/auth/user/" + userId + "/avatar";
+    }
+
+    public static String formation(Long formationId) {
+        return "/api/formations/" + formationId + "/image";
+    }
+}
@@ -0,0 +1,15 @@
+package spring._3alemliveback.dto.formation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Colonnes nécessaires à la création de l'événement Calendar d'une formation.
+ */
+public interface MeetDemandeView {
+    Long getId();
+    String getTitre();
+    String getDescription();
+    LocalDateTime getDateDebut();
+    LocalDateTime getDateFin();
+    int getTentatives();
+}
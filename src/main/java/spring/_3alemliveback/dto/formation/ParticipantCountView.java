@@ -0,0 +1,9 @@
+package spring._3alemliveback.dto.formation;
+
+/**
+ * Nombre de participants d'une formation (GROUP BY sur formation_participants).
+ */
+public interface ParticipantCountView {
+    Long getFormationId();
+    Long getNombre();
+}
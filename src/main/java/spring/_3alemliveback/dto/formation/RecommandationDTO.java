@@ -0,0 +1,22 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import spring._3alemliveback.enums.FormationCategory;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommandationDTO {
+    private Long id;
+    private String titre;
+    private FormationCategory categorie;
+    private double noteMoyenne;
+    private long nombreAvis;
+    // Apprenants ayant suivi les deux formations (0 pour les suggestions de repli "mieux notées")
+    private int coInscrits;
+    private double score;
+}
@@ -0,0 +1,19 @@
+package spring._3alemliveback.dto.formation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import spring._3alemliveback.enums.FormationCategory;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopRatedFormationDTO {
+    private Long id;
+    private String titre;
+    private FormationCategory categorie;
+    private double noteMoyenne;
+    private long nombreAvis;
+}
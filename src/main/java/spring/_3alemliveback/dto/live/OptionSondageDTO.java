@@ -0,0 +1,15 @@
+package spring._3alemliveback.dto.live;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OptionSondageDTO {
+    private String libelle;
+    private long votes;
+}
@@ -0,0 +1,20 @@
+package spring._3alemliveback.dto.live;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceParticipantDTO {
+    private Long userId;
+    private LocalDateTime arrivee;
+    private LocalDateTime depart;
+    private long minutesPresent;
+    private long intervalles; // Nombre de connexions distinctes (coupures de plus de app.attendance.gap-seconds)
+}
@@ -0,0 +1,11 @@
+package spring._3alemliveback.dto.live;
+
+import java.time.LocalDateTime;
+
+public interface PresenceResumeView {
+    Long getUserId();
+    LocalDateTime getArrivee();
+    LocalDateTime getDepart();
+    Long getSecondes();
+    Long getIntervalles();
+}
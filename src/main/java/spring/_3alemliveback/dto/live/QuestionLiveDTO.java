@@ -0,0 +1,21 @@
+package spring._3alemliveback.dto.live;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionLiveDTO {
+    private Long id;
+    private Long userId;
+    private String auteur;
+    private String texte;
+    private long votes;
+    private LocalDateTime creeeLe;
+}
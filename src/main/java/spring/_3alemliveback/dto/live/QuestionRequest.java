@@ -0,0 +1,14 @@
+package spring._3alemliveback.dto.live;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionRequest {
+    private String texte;
+}
@@ -0,0 +1,20 @@
+package spring._3alemliveback.dto.live;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SondageDTO {
+    private Long id;
+    private String question;
+    private boolean ouvert;
+    private List<OptionSondageDTO> options;
+    private long totalVotes;
+}
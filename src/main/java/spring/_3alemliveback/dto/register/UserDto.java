@@ -13,6 +13,13 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 public class UserDto {
+
+    // Projection des listes en flux (UserRepository) : colonnes scalaires seulement, sans entité ;
+    // domaines et certifications sont complétés par lot
+    public static final String SELECT_SANS_COLLECTIONS = "SELECT new spring._3alemliveback.dto.register.UserDto(" +
+            "u.id, u.nom, u.prenom, u.email, u.phone, u.role, u.isActive, u.isVerified, u.profileDescription, " +
+            "u.profileImage, u.niveauEtude, u.experience, u.linkedinUrl, u.portfolioUrl, u.cvPdf) ";
+
     private Long id;
     private String nom;
     private String prenom;
@@ -31,4 +38,10 @@ public class UserDto {
     private String portfolioUrl;
     private byte[] cvPdf;
 
+    public UserDto(Long id, String nom, String prenom, String email, String phone, Role role,
+                   boolean isActive, boolean isVerified, String profileDescription, byte[] profileImage,
+                   String niveauEtude, String experience, String linkedinUrl, String portfolioUrl, byte[] cvPdf) {
+        this(id, nom, prenom, email, phone, role, isActive, isVerified, profileDescription, profileImage,
+                null, null, niveauEtude, experience, linkedinUrl, portfolioUrl, cvPdf);
+    }
 }
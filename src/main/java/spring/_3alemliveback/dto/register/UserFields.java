@@ -0,0 +1,39 @@
+package spring._3alemliveback.dto.register;
+
+import spring._3alemliveback.dto.formation.MediaUrls;
+import spring._3alemliveback.util.SparseProjection;
+
+/**
+ * Champs sélectionnables via ?fields= sur les lectures d'utilisateurs (noms identiques au JSON de UserDto).
+ * domaines et certifications (collections) restent servis par la représentation complète.
+ */
+public final class UserFields {
+
+    public static final SparseProjection PROJECTION = new SparseProjection("User u", "")
+            .champ("id", "u.id")
+            .champ("nom", "u.nom")
+            .champ("prenom", "u.prenom")
+            .champ("email", "u.email")
+            .champ("phone", "u.phone")
+            .champ("role", "u.role")
+            .champ("active", "u.isActive")
+            .champ("verified", "u.isVerified")
+            .champ("profileDescription", "u.profileDescription")
+            .champ("niveauEtude", "u.niveauEtude")
+            .champ("experience", "u.experience")
+            .champ("linkedinUrl", "u.linkedinUrl")
+            .champ("portfolioUrl", "u.portfolioUrl")
+            .champ("avatarUrl", false,
+                    c -> Boolean.TRUE.equals(c[1]) ? MediaUrls.utilisateur((Long) c[0]) : null,
+                    "u.id", "CASE WHEN u.profileImage IS NULL THEN false ELSE true END")
+            // LOB lus uniquement si demandés explicitement
+            .champ("profileImage", false,
+                    c -> c[0],
+                    "u.profileImage")
+            .champ("cvPdf", false,
+                    c -> c[0],
+                    "u.cvPdf");
+
+    private UserFields() {
+    }
+}
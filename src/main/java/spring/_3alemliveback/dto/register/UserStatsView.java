@@ -0,0 +1,17 @@
+package spring._3alemliveback.dto.register;
+
+import spring._3alemliveback.enums.Role;
+
+import java.time.LocalDateTime;
+
+/**
+ * État d'un compte pour les statistiques admin (rôle, vérification, activation).
+ */
+public interface UserStatsView {
+    Long getId();
+    Role getRole();
+    boolean getVerified();
+    boolean getActive();
+    LocalDateTime getUpdatedAt();
+    Long getJournalXid();
+}
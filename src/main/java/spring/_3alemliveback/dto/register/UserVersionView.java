@@ -0,0 +1,9 @@
+package spring._3alemliveback.dto.register;
+
+import java.time.LocalDateTime;
+
+public interface UserVersionView {
+    Long getId();
+    Long getVersion();
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,7 @@
+package spring._3alemliveback.dto.search;
+
+public interface ExpertNomView {
+    Long getId();
+    String getNom();
+    String getPrenom();
+}
@@ -0,0 +1,6 @@
+package spring._3alemliveback.dto.search;
+
+public interface FormationTitreView {
+    Long getId();
+    String getTitre();
+}
@@ -0,0 +1,18 @@
+package spring._3alemliveback.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import spring._3alemliveback.enums.SuggestionType;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private SuggestionType type;
+    private Long id;       // Formation ou expert, null pour une catégorie
+    private String code;   // Nom de l'enum pour une catégorie
+    private String libelle;
+}
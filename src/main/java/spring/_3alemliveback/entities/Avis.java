@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "avis")
+@Table(name = "avis",
+        indexes = @Index(name = "idx_avis_formation_date", columnList = "formation_id, date_creation, id"))
 public class Avis {
 
     @Id
@@ -7,8 +7,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 import spring._3alemliveback.enums.FormationCategory;
 import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.MeetStatus;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -19,7 +23,13 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "formations")
+// UPDATE limité aux colonnes modifiées : l'image (LOB) n'est réécrite que si elle change
+@DynamicUpdate
+@Table(name = "formations",
+        indexes = {
+                @Index(name = "idx_formations_updated_at", columnList = "updated_at, id"),
+                @Index(name = "idx_formations_journal_xid", columnList = "journal_xid, id")
+        })
 public class Formation {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -43,9 +53,54 @@ public class Formation {
     @Enumerated(EnumType.STRING)
     private FormationCategory categorie;
 
+    // Agrégats de notation maintenus par UPDATE atomique dans ajouterAvis (jamais réécrits par Hibernate)
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "rating_sum", nullable = false, insertable = false, updatable = false)
+    private long ratingSum = 0L;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "rating_count", nullable = false, insertable = false, updatable = false)
+    private long ratingCount = 0L;
+
     @Enumerated(EnumType.STRING)
     private FormationStatus statut;
 
+    // Lien Meet créé en tâche de fond (MeetProvisioningService) : ces colonnes ne sont ensuite
+    // modifiées que par les UPDATE du worker, jamais réécrites par Hibernate
+    @Enumerated(EnumType.STRING)
+    @Column(name = "meet_statut", updatable = false)
+    private MeetStatus meetStatut;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "meet_tentatives", nullable = false, insertable = false, updatable = false)
+    private int meetTentatives = 0;
+
+    @Column(name = "meet_prochaine_tentative", insertable = false, updatable = false)
+    private LocalDateTime meetProchaineTentative;
+
+    // Validateurs des GET conditionnels (ETag / Last-Modified). updatedAt est aussi avancé par les
+    // écritures SQL directes (inscriptions, notes) qui ne passent pas par l'entité.
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    // Dernière transaction qui a écrit la ligne, posée par un trigger (schema.sql) : ordre du journal
+    // des modifications lu par CatalogSyncService et AnalyticsService
+    @JsonIgnore
+    @Column(name = "journal_xid", insertable = false, updatable = false)
+    private Long journalXid;
+
+    // Copie dénormalisée de "prénom nom" du formateur, alimente la colonne générée search_vector
+    @JsonIgnore
+    @Column(name = "formateur_nom")
+    private String formateurNom;
+
     @ManyToOne
     @JoinColumn(name = "formateur_id")
     // Si tu veux filtrer certaines propriétés de User mais garder la relation
@@ -57,7 +112,8 @@ public class Formation {
     @JoinTable(
             name = "formation_participants",
             joinColumns = @JoinColumn(name = "formation_id"),
-            inverseJoinColumns = @JoinColumn(name = "user_id")
+            inverseJoinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(name = "idx_formation_participants_formation_user", columnList = "formation_id, user_id")
     )
     // On ignore complètement cette collection lors de la sérialisation
     @JsonIgnore
@@ -0,0 +1,37 @@
+package spring._3alemliveback.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trace d'une formation supprimée, conservée pour la synchronisation incrémentale
+ * (GET /api/formations/changes) puis purgée après la durée de rétention.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "formation_tombstones",
+        indexes = {
+                @Index(name = "idx_formation_tombstones_deleted_at", columnList = "deleted_at, formation_id"),
+                @Index(name = "idx_formation_tombstones_journal_xid", columnList = "journal_xid, formation_id")
+        })
+public class FormationTombstone {
+
+    @Id
+    @Column(name = "formation_id")
+    private Long formationId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    // Transaction de la suppression (trigger, schema.sql)
+    @Column(name = "journal_xid", insertable = false, updatable = false)
+    private Long journalXid;
+}
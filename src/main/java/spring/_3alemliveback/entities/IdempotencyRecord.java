@@ -0,0 +1,48 @@
+package spring._3alemliveback.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Réponse mémorisée pour un en-tête Idempotency-Key. Tant que statut_http est null la requête
+ * est en cours et expires_at sert de bail : passé ce délai, la clé peut être reprise.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "idempotency_keys",
+        indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+
+    // Portée (opération) + SHA-256 de l'appelant et de la clé fournie par le client
+    @Id
+    @Column(name = "cle", length = 200)
+    private String cle;
+
+    // SHA-256 des paramètres de la requête : une clé réutilisée pour une autre requête est refusée
+    @Column(name = "empreinte", nullable = false, length = 64)
+    private String empreinte;
+
+    @Column(name = "statut_http")
+    private Integer statutHttp;
+
+    // Format négocié à la première exécution (JSON, CBOR, Smile), rejoué avec le corps
+    @Column(name = "type_contenu", length = 100)
+    private String typeContenu;
+
+    @Column(name = "corps")
+    private byte[] corps;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
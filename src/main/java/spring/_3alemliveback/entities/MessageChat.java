@@ -0,0 +1,67 @@
+package spring._3alemliveback.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Message du chat d'une session en direct. Clé naturelle (formation, numéro d'ordre attribué par
+ * le salon) : pas de séquence IDENTITY, les insertions sont regroupées en lots JDBC.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(MessageChat.Cle.class)
+@Table(name = "messages_chat")
+public class MessageChat implements Persistable<MessageChat.Cle> {
+
+    @Id
+    @Column(name = "formation_id")
+    private Long formationId;
+
+    @Id
+    private Long sequence;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 100)
+    private String auteur;
+
+    @Column(nullable = false, length = 2000)
+    private String texte;
+
+    @Column(name = "envoye_le", nullable = false)
+    private LocalDateTime envoyeLe;
+
+    @Override
+    public Cle getId() {
+        return new Cle(formationId, sequence);
+    }
+
+    // Toujours insérés, jamais modifiés : persist direct, sans le SELECT d'un merge
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cle implements Serializable {
+        private Long formationId;
+        private Long sequence;
+    }
+}
@@ -0,0 +1,55 @@
+package spring._3alemliveback.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Livraison durable d'un événement métier à un abonné : une ligne par (événement, abonné durable),
+ * écrite dans la transaction qui publie l'événement. prochaine_tentative sert de bail pendant une
+ * livraison ; elle est remise à null une fois l'événement traité ou abandonné.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_evenements",
+        indexes = @Index(name = "idx_outbox_evenements_prochaine_tentative", columnList = "prochaine_tentative"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Nom simple du record (FormationCreated...)
+    @Column(name = "type", nullable = false, length = 100)
+    private String type;
+
+    // DomainEventListener.nom()
+    @Column(name = "abonne", nullable = false, length = 100)
+    private String abonne;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "prochaine_tentative")
+    private LocalDateTime prochaineTentative;
+
+    // Nombre d'échecs de livraison
+    @Column(name = "tentatives", nullable = false)
+    private int tentatives;
+
+    @Column(name = "traite_le")
+    private LocalDateTime traiteLe;
+
+    @Column(name = "erreur", length = 1000)
+    private String erreur;
+}
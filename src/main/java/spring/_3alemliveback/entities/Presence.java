@@ -0,0 +1,55 @@
+package spring._3alemliveback.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Intervalle de présence d'un participant à une session en direct, reconstitué à partir des
+ * battements de son client. Écrit uniquement par PresenceBatchRepository (upsert par lots) :
+ * la fin d'un intervalle encore ouvert avance à chaque écriture.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(Presence.Cle.class)
+@Table(name = "presences")
+public class Presence {
+
+    @Id
+    @Column(name = "formation_id")
+    private Long formationId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    private LocalDateTime debut;
+
+    @Column(nullable = false)
+    private LocalDateTime fin;
+
+    @Column(nullable = false)
+    private long secondes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cle implements Serializable {
+        private Long formationId;
+        private Long userId;
+        private LocalDateTime debut;
+    }
+}
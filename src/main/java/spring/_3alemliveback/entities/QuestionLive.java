@@ -0,0 +1,50 @@
+package spring._3alemliveback.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Question d'un apprenant pendant une session en direct. Les votes "+1" sont comptés en
+ * mémoire et recopiés ici, par lot, à la fin de la session.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "questions_live", indexes = @Index(name = "idx_questions_live_formation", columnList = "formation_id"))
+public class QuestionLive {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "formation_id", nullable = false)
+    private Long formationId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 100)
+    private String auteur;
+
+    @Column(nullable = false, length = 1000)
+    private String texte;
+
+    @Column(nullable = false)
+    private long votes;
+
+    @Column(name = "creee_le", nullable = false)
+    private LocalDateTime creeeLe;
+}
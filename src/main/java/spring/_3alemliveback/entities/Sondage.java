@@ -0,0 +1,60 @@
+package spring._3alemliveback.entities;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OrderColumn;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sondage posé par le formateur pendant une session en direct. Les votes sont comptés en mémoire
+ * (LiveInteractionService) : les compteurs des options ne sont écrits qu'à la clôture.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "sondages", indexes = @Index(name = "idx_sondages_formation", columnList = "formation_id"))
+public class Sondage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "formation_id", nullable = false)
+    private Long formationId;
+
+    @Column(nullable = false, length = 300)
+    private String question;
+
+    @Builder.Default
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "sondage_options", joinColumns = @JoinColumn(name = "sondage_id"))
+    @OrderColumn(name = "position")
+    private List<SondageOption> options = new ArrayList<>();
+
+    @Column(nullable = false)
+    private boolean ouvert;
+
+    @Column(name = "cree_le", nullable = false)
+    private LocalDateTime creeLe;
+
+    @Column(name = "clos_le")
+    private LocalDateTime closLe;
+}
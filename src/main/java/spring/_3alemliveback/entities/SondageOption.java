@@ -0,0 +1,20 @@
+package spring._3alemliveback.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class SondageOption {
+
+    @Column(nullable = false, length = 200)
+    private String libelle;
+
+    @Column(nullable = false)
+    private long votes;
+}
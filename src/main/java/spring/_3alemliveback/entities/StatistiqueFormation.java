@@ -0,0 +1,64 @@
+package spring._3alemliveback.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import spring._3alemliveback.enums.FormationStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne de synthèse d'une formation pour le tableau de bord de son expert : quelques colonnes
+ * (ni description, ni image, ni collections), compteurs tenus à jour dans les transactions
+ * d'inscription, d'avis et de changement de statut. Écrite uniquement par les requêtes SQL
+ * de StatistiqueFormationRepository.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "statistiques_formations",
+        indexes = @Index(name = "idx_statistiques_formations_formateur", columnList = "formateur_id, date_debut"))
+public class StatistiqueFormation {
+
+    @Id
+    @Column(name = "formation_id")
+    private Long formationId;
+
+    @Column(name = "formateur_id", nullable = false)
+    private Long formateurId;
+
+    private String titre;
+
+    @Enumerated(EnumType.STRING)
+    private FormationStatus statut;
+
+    @Column(name = "date_debut")
+    private LocalDateTime dateDebut;
+
+    @Column(name = "date_fin")
+    private LocalDateTime dateFin;
+
+    // Copie de nombre_max_participants
+    private Integer places;
+
+    private Double prix;
+
+    @Column(nullable = false)
+    private long inscrits;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "rating_count", nullable = false)
+    private long ratingCount;
+}
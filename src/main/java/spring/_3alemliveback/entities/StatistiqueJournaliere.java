@@ -0,0 +1,49 @@
+package spring._3alemliveback.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Agrégats d'activité d'une journée (tableau de bord admin), cumulés par AnalyticsService à partir
+ * du journal des modifications. Les compteurs d'inscriptions et de revenu sont nets (désinscriptions déduites).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "statistiques_journalieres")
+public class StatistiqueJournaliere {
+
+    @Id
+    private LocalDate jour;
+
+    @Column(name = "formations_creees", nullable = false)
+    private long formationsCreees;
+
+    @Column(name = "inscriptions_nettes", nullable = false)
+    private long inscriptionsNettes;
+
+    @Column(name = "revenu_centimes", nullable = false)
+    private long revenuCentimes;
+
+    @Column(nullable = false)
+    private long avis;
+
+    @Column(name = "somme_notes", nullable = false)
+    private long sommeNotes;
+
+    @Column(name = "experts_inscrits", nullable = false)
+    private long expertsInscrits;
+
+    @Column(name = "apprenants_inscrits", nullable = false)
+    private long apprenantsInscrits;
+}
@@ -11,12 +11,16 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import spring._3alemliveback.config.Base64Deserializer;
 import spring._3alemliveback.enums.Role;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
@@ -26,7 +30,13 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "users")
+// UPDATE limité aux colonnes modifiées : photo et CV ne sont réécrits que s'ils changent
+@DynamicUpdate
+@Table(name = "users",
+        indexes = {
+                @Index(name = "idx_users_updated_at", columnList = "updated_at, id"),
+                @Index(name = "idx_users_journal_xid", columnList = "journal_xid, id")
+        })
 public class User implements UserDetails {
 
     @Id
@@ -76,6 +86,21 @@ public class User implements UserDetails {
     @ManyToMany(mappedBy = "participants")
     @JsonIgnore
     private List<Formation> formations;
+
+    // Validateurs des GET conditionnels (ETag / Last-Modified)
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    // Dernière transaction qui a écrit la ligne, posée par un trigger (schema.sql) : ordre du journal
+    // des modifications lu par CatalogSyncService et AnalyticsService
+    @JsonIgnore
+    @Column(name = "journal_xid", insertable = false, updatable = false)
+    private Long journalXid;
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,42 @@
+package spring._3alemliveback.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Place d'un apprenant dans la liste d'attente (FIFO) d'une formation complète.
+ * La position est un numéro de séquence croissant par formation : le rang réel
+ * d'un apprenant est le nombre d'entrées dont la position est inférieure ou égale à la sienne.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "formation_waitlist",
+        indexes = @Index(name = "idx_waitlist_formation_position", columnList = "formation_id, position"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_waitlist_formation_user", columnNames = {"formation_id", "user_id"}))
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "formation_id", nullable = false)
+    private Formation formation;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private Long position;
+
+    private LocalDateTime dateAjout;
+}
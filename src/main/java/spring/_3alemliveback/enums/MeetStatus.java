@@ -0,0 +1,11 @@
+package spring._3alemliveback.enums;
+
+/**
+ * État du lien Google Meet d'une formation, créé en tâche de fond (MeetProvisioningService).
+ */
+public enum MeetStatus {
+    EN_ATTENTE,
+    EN_COURS,
+    PROVISIONNE,
+    ECHEC
+}
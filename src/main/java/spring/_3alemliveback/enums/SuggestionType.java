@@ -0,0 +1,7 @@
+package spring._3alemliveback.enums;
+
+public enum SuggestionType {
+    FORMATION,
+    CATEGORIE,
+    EXPERT
+}
@@ -0,0 +1,13 @@
+package spring._3alemliveback.events;
+
+import java.time.Instant;
+
+/**
+ * Avis déposé par un participant sur une formation terminée.
+ */
+public record AvisAdded(Long avisId, Long formationId, Long userId, int note, Instant horodatage) implements DomainEvent {
+
+    public AvisAdded(Long avisId, Long formationId, Long userId, int note) {
+        this(avisId, formationId, userId, note, Instant.now());
+    }
+}
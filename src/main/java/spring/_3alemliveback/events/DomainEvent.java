@@ -0,0 +1,15 @@
+package spring._3alemliveback.events;
+
+import java.time.Instant;
+
+/**
+ * Événement métier publié par un service dans sa transaction (cf. {@link DomainEventBus}).
+ * Les événements sont des records immuables, sérialisables en JSON pour la table outbox.
+ */
+public sealed interface DomainEvent
+        permits FormationCreated, FormationApproved, FormationStarted, Enrolled, WaitlistPromoted, AvisAdded,
+        UserRegistered, UserVerified, ExpertActivated {
+
+    // Instant de publication, base de la métrique de retard domain.events.lag
+    Instant horodatage();
+}
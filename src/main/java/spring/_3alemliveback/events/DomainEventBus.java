@@ -0,0 +1,258 @@
+package spring._3alemliveback.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import spring._3alemliveback.entities.OutboxEvent;
+import spring._3alemliveback.repo.OutboxEventRepository;
+import spring._3alemliveback.util.TransactionUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bus des événements métier : les services publient dans leur transaction et ne font que
+ * l'écriture en base ; les effets de bord (emails, appels externes...) sont exécutés par les
+ * {@link DomainEventListener} après commit, sur un pool borné. Un événement d'une transaction
+ * annulée n'est jamais livré.
+ * <ul>
+ *     <li>abonnés durables, si app.events.outbox.enabled=true : une ligne outbox_evenements par abonné est
+ *     écrite dans la transaction métier. Livraison au moins une fois : un échec, un refus du pool ou un
+ *     arrêt de l'instance est rattrapé par {@link OutboxRelay} ;</li>
+ *     <li>autres abonnés : livraison au mieux, perdue si le pool est saturé ou l'instance arrêtée ;</li>
+ *     <li>métriques par abonné : domain.events.lag (âge de l'événement au début du traitement),
+ *     domain.events.latency (durée du traitement, par résultat), domain.events.rejected.</li>
+ * </ul>
+ * Aucun ordre n'est garanti entre deux événements : les index en mémoire, sensibles à l'ordre des
+ * mises à jour, restent alimentés par TransactionUtils.afterCommit.
+ */
+@Component
+@Slf4j
+public class DomainEventBus {
+
+    private static final Duration PAUSE_INITIALE = Duration.ofSeconds(30);
+    private static final int LONGUEUR_ERREUR_MAX = 1000;
+
+    private final Map<Class<? extends DomainEvent>, List<DomainEventListener<?>>> abonnes = new HashMap<>();
+    private final Map<String, DomainEventListener<?>> abonnesParNom = new HashMap<>();
+    private final Map<String, Class<? extends DomainEvent>> types = new HashMap<>();
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+    private final ThreadPoolExecutor executor;
+    private final boolean outboxActive;
+    private final Duration bail;
+    private final int tentativesMax;
+
+    public DomainEventBus(List<DomainEventListener<?>> listeners,
+                          OutboxEventRepository outboxRepository,
+                          ObjectMapper objectMapper,
+                          MeterRegistry registry,
+                          @Value("${app.events.threads:4}") int threads,
+                          @Value("${app.events.queue-capacity:1000}") int capacite,
+                          @Value("${app.events.outbox.enabled:false}") boolean outboxActive,
+                          @Value("${app.events.outbox.lease-seconds:60}") long bailSecondes,
+                          @Value("${app.events.outbox.max-attempts:8}") int tentativesMax) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+        this.outboxActive = outboxActive;
+        this.bail = Duration.ofSeconds(bailSecondes);
+        this.tentativesMax = tentativesMax;
+        for (Class<?> type : DomainEvent.class.getPermittedSubclasses()) {
+            types.put(type.getSimpleName(), type.asSubclass(DomainEvent.class));
+        }
+        for (DomainEventListener<?> listener : listeners) {
+            if (abonnesParNom.putIfAbsent(listener.nom(), listener) != null) {
+                throw new IllegalStateException("Deux abonnés aux événements métier portent le nom " + listener.nom());
+            }
+            abonnes.computeIfAbsent(listener.typeEvenement(), t -> new ArrayList<>()).add(listener);
+        }
+        AtomicInteger numero = new AtomicInteger();
+        // File bornée : en cas de saturation, refus immédiat plutôt que de bloquer le thread qui valide la transaction
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacite), tache -> {
+                    Thread thread = new Thread(tache, "domain-events-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("domain.events.queue", executor, e -> e.getQueue().size())
+                .description("Livraisons en attente d'un thread")
+                .register(registry);
+        log.info("Bus d'événements métier : {} abonné(s), outbox {}", abonnesParNom.size(), outboxActive ? "activée" : "désactivée");
+    }
+
+    /**
+     * À appeler dans la transaction métier ; hors transaction, la livraison est soumise aussitôt.
+     */
+    public void publier(DomainEvent evenement) {
+        List<DomainEventListener<?>> cibles = abonnes.getOrDefault(evenement.getClass(), List.of());
+        if (cibles.isEmpty()) {
+            return;
+        }
+        List<Livraison> livraisons = new ArrayList<>(cibles.size());
+        for (DomainEventListener<?> listener : cibles) {
+            Long outboxId = null;
+            if (outboxActive && listener.durable()) {
+                LocalDateTime maintenant = LocalDateTime.now();
+                outboxId = outboxRepository.save(OutboxEvent.builder()
+                        .type(evenement.getClass().getSimpleName())
+                        .abonne(listener.nom())
+                        .payload(serialiser(evenement))
+                        .createdAt(maintenant)
+                        // Livraison directe après commit ; le relais ne reprend la ligne qu'à l'expiration du bail
+                        .prochaineTentative(maintenant.plus(bail))
+                        .build()).getId();
+            }
+            livraisons.add(new Livraison(listener, evenement, outboxId, 0));
+        }
+        TransactionUtils.afterCommit(() -> livraisons.forEach(this::soumettre));
+    }
+
+    /**
+     * Nouvelle tentative d'une ligne outbox réservée par {@link OutboxRelay}.
+     */
+    void relivrer(OutboxEvent ligne) {
+        DomainEventListener<?> listener = abonnesParNom.get(ligne.getAbonne());
+        Class<? extends DomainEvent> type = types.get(ligne.getType());
+        // Un abonné peut avoir changé de type d'événement depuis l'écriture de la ligne
+        if (listener == null || type == null || !listener.typeEvenement().equals(type)) {
+            log.error("Livraison outbox {} abandonnée : abonné {} ou type {} inconnu", ligne.getId(), ligne.getAbonne(), ligne.getType());
+            outboxRepository.enregistrerEchec(ligne.getId(), ligne.getTentatives(), null, "Abonné ou type inconnu");
+            return;
+        }
+        DomainEvent evenement;
+        try {
+            evenement = objectMapper.readValue(ligne.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            log.error("Livraison outbox {} abandonnée : événement illisible", ligne.getId(), e);
+            outboxRepository.enregistrerEchec(ligne.getId(), ligne.getTentatives(), null, tronquer(e.getMessage()));
+            return;
+        }
+        soumettre(new Livraison(listener, evenement, ligne.getId(), ligne.getTentatives()));
+    }
+
+    Duration bail() {
+        return bail;
+    }
+
+    boolean outboxActive() {
+        return outboxActive;
+    }
+
+    private record Livraison(DomainEventListener<?> listener, DomainEvent evenement, Long outboxId, int tentatives) {
+    }
+
+    private void soumettre(Livraison livraison) {
+        try {
+            executor.execute(() -> livrer(livraison));
+        } catch (RejectedExecutionException e) {
+            registry.counter("domain.events.rejected", "listener", livraison.listener().nom()).increment();
+            if (livraison.outboxId() != null) {
+                log.warn("Pool des événements saturé : {} pour {} repris plus tard via l'outbox",
+                        livraison.evenement().getClass().getSimpleName(), livraison.listener().nom());
+            } else {
+                log.error("Pool des événements saturé : {} perdu pour {}",
+                        livraison.evenement().getClass().getSimpleName(), livraison.listener().nom());
+            }
+        }
+    }
+
+    private void livrer(Livraison livraison) {
+        String listener = livraison.listener().nom();
+        String type = livraison.evenement().getClass().getSimpleName();
+        Duration retard = Duration.between(livraison.evenement().horodatage(), Instant.now());
+        Timer.builder("domain.events.lag")
+                .tag("listener", listener)
+                .tag("event", type)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(retard.isNegative() ? Duration.ZERO : retard);
+
+        long debut = System.nanoTime();
+        try {
+            appeler(livraison.listener(), livraison.evenement());
+            mesurer(listener, type, "success", debut);
+            if (livraison.outboxId() != null) {
+                outboxRepository.marquerTraite(livraison.outboxId(), LocalDateTime.now());
+            }
+        } catch (Exception e) {
+            mesurer(listener, type, "failure", debut);
+            if (livraison.outboxId() == null) {
+                log.error("Échec de {} sur {} : {}", listener, type, e.getMessage(), e);
+                return;
+            }
+            int tentatives = livraison.tentatives() + 1;
+            if (tentatives >= tentativesMax) {
+                log.error("Livraison outbox {} ({} -> {}) abandonnée après {} tentative(s)",
+                        livraison.outboxId(), type, listener, tentatives, e);
+                outboxRepository.enregistrerEchec(livraison.outboxId(), tentatives, null, tronquer(e.getMessage()));
+            } else {
+                log.warn("Échec de {} sur {} (tentative {}), nouvelle tentative prévue : {}", listener, type, tentatives, e.getMessage());
+                outboxRepository.enregistrerEchec(livraison.outboxId(), tentatives,
+                        LocalDateTime.now().plus(delaiAvantNouvelleTentative(tentatives)), tronquer(e.getMessage()));
+            }
+        }
+    }
+
+    private static <E extends DomainEvent> void appeler(DomainEventListener<E> listener, DomainEvent evenement) throws Exception {
+        listener.traiter(listener.typeEvenement().cast(evenement));
+    }
+
+    private void mesurer(String listener, String type, String resultat, long debut) {
+        Timer.builder("domain.events.latency")
+                .tag("listener", listener)
+                .tag("event", type)
+                .tag("outcome", resultat)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+    }
+
+    private String serialiser(DomainEvent evenement) {
+        try {
+            return objectMapper.writeValueAsString(evenement);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Événement non sérialisable : " + evenement.getClass().getSimpleName(), e);
+        }
+    }
+
+    // 30 s, 1 min, 2 min... plafonné à environ 2 h
+    private static Duration delaiAvantNouvelleTentative(int tentatives) {
+        return PAUSE_INITIALE.multipliedBy(1L << Math.min(tentatives - 1, 8));
+    }
+
+    private static String tronquer(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= LONGUEUR_ERREUR_MAX ? message : message.substring(0, LONGUEUR_ERREUR_MAX);
+    }
+
+    /**
+     * Les livraisons encore en file sont perdues, sauf celles des abonnés durables (reprises au démarrage suivant).
+     */
+    @PreDestroy
+    public void arreter() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("{} livraison(s) d'événements abandonnée(s) à l'arrêt", executor.shutdownNow().size());
+        }
+    }
+}
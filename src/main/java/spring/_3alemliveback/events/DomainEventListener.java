@@ -0,0 +1,30 @@
+package spring._3alemliveback.events;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Abonné à un type d'événement : tout bean qui implémente cette interface est enregistré
+ * auprès du {@link DomainEventBus}. Exécuté après commit, sur le pool du bus.
+ */
+public interface DomainEventListener<E extends DomainEvent> {
+
+    Class<E> typeEvenement();
+
+    /**
+     * @throws Exception échec du traitement : relivré plus tard si l'abonné est durable
+     */
+    void traiter(E evenement) throws Exception;
+
+    /**
+     * Vrai pour une livraison au moins une fois via la table outbox (si app.events.outbox.enabled) :
+     * le traitement peut alors être rejoué après un arrêt de l'instance et doit tolérer un doublon.
+     */
+    default boolean durable() {
+        return false;
+    }
+
+    // Identifiant de l'abonné dans les métriques et la table outbox : ne pas le changer à la légère
+    default String nom() {
+        return ClassUtils.getUserClass(this).getSimpleName();
+    }
+}
@@ -0,0 +1,15 @@
+package spring._3alemliveback.events;
+
+import java.time.Instant;
+
+/**
+ * Apprenant inscrit directement à une formation. Une promotion depuis la liste d'attente publie
+ * {@link WaitlistPromoted} : sans abonné, cet événement n'écrit aucune ligne outbox.
+ */
+public record Enrolled(Long formationId, Long userId, String email, String formationTitre,
+                       Instant horodatage) implements DomainEvent {
+
+    public Enrolled(Long formationId, Long userId, String email, String formationTitre) {
+        this(formationId, userId, email, formationTitre, Instant.now());
+    }
+}
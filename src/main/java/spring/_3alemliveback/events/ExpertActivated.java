@@ -0,0 +1,13 @@
+package spring._3alemliveback.events;
+
+import java.time.Instant;
+
+/**
+ * Compte expert validé par un admin : l'expert peut créer des formations.
+ */
+public record ExpertActivated(Long userId, String email, Instant horodatage) implements DomainEvent {
+
+    public ExpertActivated(Long userId, String email) {
+        this(userId, email, Instant.now());
+    }
+}
@@ -0,0 +1,14 @@
+package spring._3alemliveback.events;
+
+import java.time.Instant;
+
+/**
+ * Formation approuvée par un admin : ouverte aux inscriptions.
+ */
+public record FormationApproved(Long formationId, Long formateurId, String formateurEmail, String titre,
+                                Instant horodatage) implements DomainEvent {
+
+    public FormationApproved(Long formationId, Long formateurId, String formateurEmail, String titre) {
+        this(formationId, formateurId, formateurEmail, titre, Instant.now());
+    }
+}
@@ -0,0 +1,13 @@
+package spring._3alemliveback.events;
+
+import java.time.Instant;
+
+/**
+ * Formation créée par un expert, en attente d'approbation.
+ */
+public record FormationCreated(Long formationId, Long formateurId, String titre, Instant horodatage) implements DomainEvent {
+
+    public FormationCreated(Long formationId, Long formateurId, String titre) {
+        this(formationId, formateurId, titre, Instant.now());
+    }
+}
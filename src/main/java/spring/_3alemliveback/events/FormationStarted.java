@@ -0,0 +1,13 @@
+package spring._3alemliveback.events;
+
+import java.time.Instant;
+
+/**
+ * Session démarrée par son formateur.
+ */
+public record FormationStarted(Long formationId, String titre, String urlMeet, Instant horodatage) implements DomainEvent {
+
+    public FormationStarted(Long formationId, String titre, String urlMeet) {
+        this(formationId, titre, urlMeet, Instant.now());
+    }
+}
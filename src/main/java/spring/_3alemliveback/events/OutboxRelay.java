@@ -0,0 +1,72 @@
+package spring._3alemliveback.events;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring._3alemliveback.entities.OutboxEvent;
+import spring._3alemliveback.repo.OutboxEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reprise des livraisons durables non confirmées : échec de l'abonné, pool saturé, ou instance
+ * arrêtée avant la fin du traitement (bail expiré). Actif seulement si app.events.outbox.enabled=true.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxRepository;
+    private final DomainEventBus bus;
+    private final TransactionTemplate transactionTemplate;
+    private final int tailleLot;
+    private final Duration retention;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+                       DomainEventBus bus,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${app.events.outbox.batch-size:100}") int tailleLot,
+                       @Value("${app.events.outbox.retention-days:7}") long retentionJours) {
+        this.outboxRepository = outboxRepository;
+        this.bus = bus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tailleLot = tailleLot;
+        this.retention = Duration.ofDays(retentionJours);
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.outbox.poll-delay-ms:5000}")
+    public void relancer() {
+        if (!bus.outboxActive()) {
+            return;
+        }
+        LocalDateTime maintenant = LocalDateTime.now();
+        // Réservation validée aussitôt : le traitement se fait sur le pool du bus, sans verrou retenu
+        List<OutboxEvent> lignes = transactionTemplate.execute(status -> {
+            List<Long> ids = outboxRepository.reserver(maintenant, tailleLot);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            outboxRepository.prolongerBail(ids, maintenant.plus(bus.bail()));
+            return outboxRepository.findAllById(ids);
+        });
+        if (lignes == null || lignes.isEmpty()) {
+            return;
+        }
+        log.info("Outbox : {} livraison(s) d'événements reprise(s)", lignes.size());
+        lignes.forEach(bus::relivrer);
+    }
+
+    @Scheduled(cron = "${app.events.outbox.purge-cron:0 45 3 * * *}")
+    public void purger() {
+        if (!bus.outboxActive()) {
+            return;
+        }
+        int purgees = outboxRepository.purgerAvant(LocalDateTime.now().minus(retention));
+        log.info("{} livraison(s) d'événements traitée(s) purgée(s) de l'outbox", purgees);
+    }
+}
@@ -0,0 +1,16 @@
+package spring._3alemliveback.events;
+
+import spring._3alemliveback.enums.Role;
+
+import java.time.Instant;
+
+/**
+ * Compte créé, en attente de vérification de l'email. Le jeton de vérification n'est pas
+ * transporté (ni donc écrit dans l'outbox) : l'abonné lit le jeton courant.
+ */
+public record UserRegistered(Long userId, String email, Role role, Instant horodatage) implements DomainEvent {
+
+    public UserRegistered(Long userId, String email, Role role) {
+        this(userId, email, role, Instant.now());
+    }
+}
@@ -0,0 +1,15 @@
+package spring._3alemliveback.events;
+
+import spring._3alemliveback.enums.Role;
+
+import java.time.Instant;
+
+/**
+ * Email confirmé. Un apprenant est alors actif ; un expert attend la validation d'un admin.
+ */
+public record UserVerified(Long userId, String email, Role role, Instant horodatage) implements DomainEvent {
+
+    public UserVerified(Long userId, String email, Role role) {
+        this(userId, email, role, Instant.now());
+    }
+}
@@ -0,0 +1,14 @@
+package spring._3alemliveback.events;
+
+import java.time.Instant;
+
+/**
+ * Apprenant inscrit automatiquement depuis la liste d'attente, une place s'étant libérée.
+ */
+public record WaitlistPromoted(Long formationId, Long userId, String email, String formationTitre,
+                               Instant horodatage) implements DomainEvent {
+
+    public WaitlistPromoted(Long formationId, Long userId, String email, String formationTitre) {
+        this(formationId, userId, email, formationTitre, Instant.now());
+    }
+}
@@ -0,0 +1,32 @@
+package spring._3alemliveback.events.listeners;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import spring._3alemliveback.events.DomainEventListener;
+import spring._3alemliveback.events.ExpertActivated;
+import spring._3alemliveback.services.EmailService;
+
+/**
+ * Prévient l'expert que son compte a été validé par un admin.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExpertActivatedEmailListener implements DomainEventListener<ExpertActivated> {
+
+    private final EmailService emailService;
+
+    @Override
+    public Class<ExpertActivated> typeEvenement() {
+        return ExpertActivated.class;
+    }
+
+    @Override
+    public boolean durable() {
+        return true;
+    }
+
+    @Override
+    public void traiter(ExpertActivated evenement) {
+        emailService.sendExpertActivationEmail(evenement.email());
+    }
+}
@@ -0,0 +1,34 @@
+package spring._3alemliveback.events.listeners;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import spring._3alemliveback.events.DomainEventListener;
+import spring._3alemliveback.events.FormationApproved;
+import spring._3alemliveback.services.EmailService;
+
+/**
+ * Prévient le formateur que sa formation est ouverte aux inscriptions.
+ */
+@Component
+@RequiredArgsConstructor
+public class FormationApprovedEmailListener implements DomainEventListener<FormationApproved> {
+
+    private final EmailService emailService;
+
+    @Override
+    public Class<FormationApproved> typeEvenement() {
+        return FormationApproved.class;
+    }
+
+    @Override
+    public boolean durable() {
+        return true;
+    }
+
+    @Override
+    public void traiter(FormationApproved evenement) {
+        if (evenement.formateurEmail() != null) {
+            emailService.sendFormationApprovedEmail(evenement.formateurEmail(), evenement.titre());
+        }
+    }
+}
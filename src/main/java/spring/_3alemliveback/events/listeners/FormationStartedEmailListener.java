@@ -0,0 +1,54 @@
+package spring._3alemliveback.events.listeners;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import spring._3alemliveback.events.DomainEventListener;
+import spring._3alemliveback.events.FormationStarted;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.services.EmailService;
+
+import java.util.List;
+
+/**
+ * Envoie le lien de la session à chaque participant quand le formateur la démarre.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class FormationStartedEmailListener implements DomainEventListener<FormationStarted> {
+
+    private final FormationRepository formationRepository;
+    private final EmailService emailService;
+
+    @Override
+    public Class<FormationStarted> typeEvenement() {
+        return FormationStarted.class;
+    }
+
+    @Override
+    public boolean durable() {
+        return true;
+    }
+
+    @Override
+    public void traiter(FormationStarted evenement) {
+        List<String> destinataires = formationRepository.findParticipantEmails(evenement.formationId());
+        int echecs = 0;
+        RuntimeException derniere = null;
+        for (String email : destinataires) {
+            try {
+                emailService.sendFormationStartedEmail(email, evenement.titre(), evenement.urlMeet());
+            } catch (RuntimeException e) {
+                echecs++;
+                derniere = e;
+                log.warn("Échec de l'envoi du lien de session à {} : {}", email, e.getMessage());
+            }
+        }
+        // Relivraison seulement si aucun envoi n'a abouti (panne du serveur mail) : pas de doublon partiel
+        if (derniere != null && echecs == destinataires.size()) {
+            throw derniere;
+        }
+        log.info("Démarrage de la formation {} notifié à {} participant(s)", evenement.formationId(), destinataires.size() - echecs);
+    }
+}
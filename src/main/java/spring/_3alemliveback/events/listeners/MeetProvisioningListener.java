@@ -0,0 +1,28 @@
+package spring._3alemliveback.events.listeners;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import spring._3alemliveback.events.DomainEventListener;
+import spring._3alemliveback.events.FormationCreated;
+import spring._3alemliveback.services.MeetProvisioningService;
+
+/**
+ * Crée le lien Meet d'une nouvelle formation sans attendre le passage planifié du worker,
+ * qui reste le filet de sécurité (d'où un abonné non durable).
+ */
+@Component
+@RequiredArgsConstructor
+public class MeetProvisioningListener implements DomainEventListener<FormationCreated> {
+
+    private final MeetProvisioningService meetProvisioningService;
+
+    @Override
+    public Class<FormationCreated> typeEvenement() {
+        return FormationCreated.class;
+    }
+
+    @Override
+    public void traiter(FormationCreated evenement) {
+        meetProvisioningService.provisionner();
+    }
+}
@@ -0,0 +1,43 @@
+package spring._3alemliveback.events.listeners;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import spring._3alemliveback.events.DomainEventListener;
+import spring._3alemliveback.events.UserRegistered;
+import spring._3alemliveback.repo.UserRepository;
+import spring._3alemliveback.services.EmailService;
+
+/**
+ * Email de vérification envoyé après l'inscription, hors du thread de la requête.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class VerificationEmailListener implements DomainEventListener<UserRegistered> {
+
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+
+    @Override
+    public Class<UserRegistered> typeEvenement() {
+        return UserRegistered.class;
+    }
+
+    @Override
+    public boolean durable() {
+        return true;
+    }
+
+    @Override
+    public void traiter(UserRegistered evenement) {
+        // Jeton courant : il a pu être remplacé par un renvoi, ou le compte déjà vérifié
+        String token = userRepository.findVerificationTokenById(evenement.userId()).orElse(null);
+        if (token == null) {
+            log.info("Compte {} déjà vérifié ou supprimé : email de vérification non envoyé", evenement.email());
+            return;
+        }
+        emailService.sendVerificationEmail(evenement.email(), token);
+        log.info("Email de vérification envoyé à: {}", evenement.email());
+    }
+}
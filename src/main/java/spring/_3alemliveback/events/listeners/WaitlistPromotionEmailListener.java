@@ -0,0 +1,32 @@
+package spring._3alemliveback.events.listeners;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import spring._3alemliveback.events.DomainEventListener;
+import spring._3alemliveback.events.WaitlistPromoted;
+import spring._3alemliveback.services.EmailService;
+
+/**
+ * Prévient un apprenant inscrit automatiquement depuis la liste d'attente.
+ */
+@Component
+@RequiredArgsConstructor
+public class WaitlistPromotionEmailListener implements DomainEventListener<WaitlistPromoted> {
+
+    private final EmailService emailService;
+
+    @Override
+    public Class<WaitlistPromoted> typeEvenement() {
+        return WaitlistPromoted.class;
+    }
+
+    @Override
+    public boolean durable() {
+        return true;
+    }
+
+    @Override
+    public void traiter(WaitlistPromoted evenement) {
+        emailService.sendWaitlistPromotionEmail(evenement.email(), evenement.formationTitre());
+    }
+}
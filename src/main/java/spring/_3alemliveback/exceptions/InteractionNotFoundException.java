@@ -0,0 +1,12 @@
+package spring._3alemliveback.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Sondage ou question inconnu dans la session en direct de la formation
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class InteractionNotFoundException extends RuntimeException {
+    public InteractionNotFoundException(String message) {
+        super(message);
+    }
+}
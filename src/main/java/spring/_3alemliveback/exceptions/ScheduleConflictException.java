@@ -0,0 +1,14 @@
+package spring._3alemliveback.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Créneau qui chevauche une autre formation du même formateur.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ScheduleConflictException extends RuntimeException {
+    public ScheduleConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,396 @@
+package spring._3alemliveback.index;
+
+import spring._3alemliveback.enums.FormationCategory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Recommandations "les apprenants ont aussi suivi" : matrice creuse de co-inscriptions (nombre
+ * d'apprenants communs à deux formations) tenue à jour à chaque inscription, et top-K des formations
+ * les plus co-suivies précalculé pour chaque formation. Une lecture ne fait que re-classer ces K
+ * candidats (similarité cosinus, catégorie, note lissée) : quelques microsecondes, sans accès à la base.
+ * <p>
+ * Toutes les structures sont indexées par des long primitifs ({@link LongIntHashMap},
+ * {@link LongObjectHashMap}). Un apprenant inscrit à plus de {@code inscriptionsMax} formations ne
+ * contribue pas à la matrice : coût quadratique pour un signal faible (comptes de test, robots).
+ * <p>
+ * Thread-safe : tous les accès se font sous le verrou de l'instance.
+ */
+public class CoEnrollmentIndex {
+
+    /**
+     * Données de classement d'une formation.
+     *
+     * @param recommandable formation ouverte aux inscriptions (approuvée)
+     */
+    public record Fiche(String titre, FormationCategory categorie, long sommeNotes, long nombreAvis, boolean recommandable) {
+
+        public double moyenne() {
+            return nombreAvis == 0 ? 0d : (double) sommeNotes / nombreAvis;
+        }
+
+        // Moyenne bayésienne : ramenée vers la note a priori tant que les avis sont peu nombreux
+        double noteLissee() {
+            return (sommeNotes + NOTE_A_PRIORI * POIDS_A_PRIORI) / (nombreAvis + POIDS_A_PRIORI);
+        }
+    }
+
+    public record Recommandation(long formationId, Fiche fiche, int coInscrits, double score) {
+    }
+
+    private static final double NOTE_A_PRIORI = 3.0;
+    private static final double POIDS_A_PRIORI = 5.0;
+    private static final double BONUS_CATEGORIE = 1.25;
+    private static final long[] AUCUNE = new long[0];
+    private static final Comparator<Recommandation> ORDRE = Comparator
+            .comparingDouble(Recommandation::score).reversed()
+            .thenComparingLong(Recommandation::formationId);
+
+    private final int k;
+    private final int inscriptionsMax;
+    // Apprenant → formations suivies, tableau trié remplacé à chaque modification
+    private final LongObjectHashMap<long[]> inscriptions = new LongObjectHashMap<>();
+    private final LongObjectHashMap<LongIntHashMap> coInscriptions = new LongObjectHashMap<>();
+    private final LongIntHashMap effectifs = new LongIntHashMap();
+    private final LongObjectHashMap<Top> tops = new LongObjectHashMap<>();
+    private final LongObjectHashMap<Fiche> fiches = new LongObjectHashMap<>();
+    private long nombreInscriptions;
+
+    /**
+     * @param k               taille des tops précalculés (candidats re-classés à la lecture)
+     * @param inscriptionsMax au-delà, un apprenant est ignoré dans la matrice de co-inscriptions
+     */
+    public CoEnrollmentIndex(int k, int inscriptionsMax) {
+        this.k = Math.max(k, 1);
+        this.inscriptionsMax = inscriptionsMax;
+    }
+
+    /**
+     * Chargement initial : toutes les inscriptions d'un apprenant. Les tops ne sont calculés
+     * qu'une fois par formation, dans {@link #finaliser()}.
+     */
+    public synchronized void chargerApprenant(long apprenantId, long[] formations) {
+        long[] triees = Arrays.stream(formations).sorted().distinct().toArray();
+        if (triees.length == 0) {
+            return;
+        }
+        inscriptions.put(apprenantId, triees);
+        for (long formationId : triees) {
+            effectifs.ajouter(formationId, 1);
+        }
+        nombreInscriptions += triees.length;
+        if (triees.length <= inscriptionsMax) {
+            contribuer(triees, 1, false);
+        }
+    }
+
+    public synchronized void finaliser() {
+        coInscriptions.forEach((formationId, co) -> tops.put(formationId, Top.meilleurs(co, k)));
+    }
+
+    /**
+     * Répercute une inscription. Idempotent : sans effet si l'inscription est déjà connue.
+     */
+    public synchronized boolean ajouter(long formationId, long apprenantId) {
+        long[] avant = inscriptions.get(apprenantId);
+        if (avant == null) {
+            avant = AUCUNE;
+        }
+        int position = Arrays.binarySearch(avant, formationId);
+        if (position >= 0) {
+            return false;
+        }
+        int insertion = -position - 1;
+        long[] apres = new long[avant.length + 1];
+        System.arraycopy(avant, 0, apres, 0, insertion);
+        apres[insertion] = formationId;
+        System.arraycopy(avant, insertion, apres, insertion + 1, avant.length - insertion);
+        inscriptions.put(apprenantId, apres);
+        effectifs.ajouter(formationId, 1);
+        nombreInscriptions++;
+
+        if (avant.length < inscriptionsMax) {
+            for (long autre : avant) {
+                incrementer(formationId, autre, 1, true);
+            }
+        } else if (avant.length == inscriptionsMax) {
+            // L'apprenant dépasse le seuil : ses co-inscriptions sont retirées de la matrice
+            contribuer(avant, -1, true);
+        }
+        return true;
+    }
+
+    /**
+     * Répercute une désinscription. Idempotent : sans effet si l'inscription est inconnue.
+     */
+    public synchronized boolean retirer(long formationId, long apprenantId) {
+        long[] avant = inscriptions.get(apprenantId);
+        int position = avant == null ? -1 : Arrays.binarySearch(avant, formationId);
+        if (position < 0) {
+            return false;
+        }
+        long[] apres = new long[avant.length - 1];
+        System.arraycopy(avant, 0, apres, 0, position);
+        System.arraycopy(avant, position + 1, apres, position, apres.length - position);
+        inscriptions.put(apprenantId, apres.length == 0 ? null : apres);
+        effectifs.ajouter(formationId, -1);
+        nombreInscriptions--;
+
+        if (avant.length <= inscriptionsMax) {
+            for (long autre : apres) {
+                incrementer(formationId, autre, -1, true);
+            }
+        } else if (apres.length == inscriptionsMax) {
+            // Retour sous le seuil : l'apprenant contribue de nouveau
+            contribuer(apres, 1, true);
+        }
+        return true;
+    }
+
+    public synchronized void definirFiche(long formationId, Fiche fiche) {
+        fiches.put(formationId, fiche);
+    }
+
+    /**
+     * Totaux des notes après un nouvel avis (valeurs absolues : rejouer l'opération ne change rien).
+     */
+    public synchronized void definirNotes(long formationId, long sommeNotes, long nombreAvis) {
+        Fiche fiche = fiches.get(formationId);
+        if (fiche != null) {
+            fiches.put(formationId, new Fiche(fiche.titre(), fiche.categorie(), sommeNotes, nombreAvis,
+                    fiche.recommandable()));
+        }
+    }
+
+    /**
+     * Formation supprimée : elle n'est plus proposée ; ses co-inscriptions disparaissent à la reconstruction.
+     */
+    public synchronized void retirerFormation(long formationId) {
+        fiches.remove(formationId);
+    }
+
+    /**
+     * Formations les plus souvent suivies avec {@code formationId}, hors formations non recommandables.
+     */
+    public synchronized List<Recommandation> similaires(long formationId, int limite) {
+        Top top = tops.get(formationId);
+        if (top == null) {
+            return List.of();
+        }
+        Fiche source = fiches.get(formationId);
+        int effectif = effectifs.get(formationId);
+        List<Recommandation> resultats = new ArrayList<>(top.ids.length);
+        for (int i = 0; i < top.ids.length; i++) {
+            Fiche fiche = fiches.get(top.ids[i]);
+            if (fiche != null && fiche.recommandable()) {
+                resultats.add(new Recommandation(top.ids[i], fiche, top.comptes[i],
+                        score(top.comptes[i], effectif, effectifs.get(top.ids[i]), source, fiche)));
+            }
+        }
+        resultats.sort(ORDRE);
+        return resultats.size() > limite ? List.copyOf(resultats.subList(0, limite)) : resultats;
+    }
+
+    /**
+     * Fil "recommandé pour vous" : somme des scores des candidats de chaque formation suivie,
+     * hors formations déjà suivies. Vide pour un apprenant sans inscription.
+     */
+    public synchronized List<Recommandation> pourApprenant(long apprenantId, int limite) {
+        long[] suivies = inscriptions.get(apprenantId);
+        if (suivies == null) {
+            return List.of();
+        }
+        // Par candidat : {score cumulé, co-inscrits cumulés}
+        LongObjectHashMap<double[]> cumuls = new LongObjectHashMap<>(suivies.length * k);
+        for (long formationId : suivies) {
+            Top top = tops.get(formationId);
+            if (top == null) {
+                continue;
+            }
+            Fiche source = fiches.get(formationId);
+            int effectif = effectifs.get(formationId);
+            for (int i = 0; i < top.ids.length; i++) {
+                long candidat = top.ids[i];
+                Fiche fiche = fiches.get(candidat);
+                if (fiche == null || !fiche.recommandable() || Arrays.binarySearch(suivies, candidat) >= 0) {
+                    continue;
+                }
+                double[] cumul = cumuls.computeIfAbsent(candidat, c -> new double[2]);
+                cumul[0] += score(top.comptes[i], effectif, effectifs.get(candidat), source, fiche);
+                cumul[1] += top.comptes[i];
+            }
+        }
+        List<Recommandation> resultats = new ArrayList<>(cumuls.size());
+        cumuls.forEach((candidat, cumul) ->
+                resultats.add(new Recommandation(candidat, fiches.get(candidat), (int) cumul[1], cumul[0])));
+        resultats.sort(ORDRE);
+        return resultats.size() > limite ? List.copyOf(resultats.subList(0, limite)) : resultats;
+    }
+
+    /**
+     * @return formations suivies par l'apprenant, triées (tableau partagé, à ne pas modifier)
+     */
+    public synchronized long[] formationsDe(long apprenantId) {
+        long[] suivies = inscriptions.get(apprenantId);
+        return suivies == null ? AUCUNE : suivies;
+    }
+
+    public synchronized long nombreInscriptions() {
+        return nombreInscriptions;
+    }
+
+    public synchronized int nombreFormations() {
+        return effectifs.size();
+    }
+
+    private static double score(int coInscrits, int effectifSource, int effectifCandidat, Fiche source, Fiche candidat) {
+        if (effectifSource == 0 || effectifCandidat == 0) {
+            return 0d;
+        }
+        // Cosinus : une formation très suivie n'est pas proposée partout pour sa seule popularité
+        double score = coInscrits / Math.sqrt((double) effectifSource * effectifCandidat);
+        if (source != null && source.categorie() != null && source.categorie() == candidat.categorie()) {
+            score *= BONUS_CATEGORIE;
+        }
+        return score * candidat.noteLissee() / NOTE_A_PRIORI;
+    }
+
+    private void contribuer(long[] formations, int delta, boolean majTops) {
+        for (int i = 0; i < formations.length; i++) {
+            for (int j = i + 1; j < formations.length; j++) {
+                incrementer(formations[i], formations[j], delta, majTops);
+            }
+        }
+    }
+
+    private void incrementer(long a, long b, int delta, boolean majTops) {
+        int compte = incrementerDemi(a, b, delta);
+        incrementerDemi(b, a, delta);
+        if (majTops) {
+            ajusterTop(a, b, compte, delta > 0);
+            ajusterTop(b, a, compte, delta > 0);
+        }
+    }
+
+    private int incrementerDemi(long formationId, long autre, int delta) {
+        LongIntHashMap co = coInscriptions.computeIfAbsent(formationId, id -> new LongIntHashMap());
+        int compte = co.ajouter(autre, delta);
+        if (co.size() == 0) {
+            coInscriptions.remove(formationId);
+        }
+        return compte;
+    }
+
+    /**
+     * Maintient le top-K de {@code formationId} après le passage de {@code autre} à {@code compte}.
+     * Seule une baisse d'un membre alors que des candidats restent hors du top impose un recalcul complet.
+     */
+    private void ajusterTop(long formationId, long autre, int compte, boolean hausse) {
+        Top top = tops.get(formationId);
+        if (top == null) {
+            top = Top.VIDE;
+        }
+        int position = top.position(autre);
+        if (position >= 0) {
+            LongIntHashMap co = coInscriptions.get(formationId);
+            int membresRestants = compte > 0 ? top.ids.length : top.ids.length - 1;
+            if (!hausse && co != null && co.size() > membresRestants) {
+                tops.put(formationId, Top.meilleurs(co, k));
+                return;
+            }
+            top = top.sans(position);
+            if (compte > 0) {
+                top = top.avec(autre, compte, k);
+            }
+        } else if (hausse && compte > 0) {
+            top = top.avec(autre, compte, k);
+        } else {
+            return;
+        }
+        tops.put(formationId, top.ids.length == 0 ? null : top);
+    }
+
+    /**
+     * Top-K immuable : co-inscrits décroissants, puis identifiant croissant.
+     */
+    private static final class Top {
+        static final Top VIDE = new Top(AUCUNE, new int[0]);
+
+        final long[] ids;
+        final int[] comptes;
+
+        Top(long[] ids, int[] comptes) {
+            this.ids = ids;
+            this.comptes = comptes;
+        }
+
+        static Top meilleurs(LongIntHashMap co, int k) {
+            long[] ids = new long[Math.min(k, co.size())];
+            int[] comptes = new int[ids.length];
+            int[] taille = {0};
+            co.forEach((id, compte) -> {
+                int n = taille[0];
+                // Rejet immédiat de la plupart des entrées une fois le top rempli
+                if (n == ids.length && !avant(id, compte, ids[n - 1], comptes[n - 1])) {
+                    return;
+                }
+                int i = n == ids.length ? n - 1 : n;
+                while (i > 0 && avant(id, compte, ids[i - 1], comptes[i - 1])) {
+                    ids[i] = ids[i - 1];
+                    comptes[i] = comptes[i - 1];
+                    i--;
+                }
+                ids[i] = id;
+                comptes[i] = compte;
+                taille[0] = Math.min(n + 1, ids.length);
+            });
+            return new Top(ids, comptes);
+        }
+
+        int position(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Top sans(int position) {
+            long[] nouveauxIds = new long[ids.length - 1];
+            int[] nouveauxComptes = new int[nouveauxIds.length];
+            System.arraycopy(ids, 0, nouveauxIds, 0, position);
+            System.arraycopy(ids, position + 1, nouveauxIds, position, nouveauxIds.length - position);
+            System.arraycopy(comptes, 0, nouveauxComptes, 0, position);
+            System.arraycopy(comptes, position + 1, nouveauxComptes, position, nouveauxComptes.length - position);
+            return new Top(nouveauxIds, nouveauxComptes);
+        }
+
+        Top avec(long id, int compte, int k) {
+            int position = 0;
+            while (position < ids.length && !avant(id, compte, ids[position], comptes[position])) {
+                position++;
+            }
+            if (position >= k) {
+                return this;
+            }
+            int taille = Math.min(ids.length + 1, k);
+            long[] nouveauxIds = new long[taille];
+            int[] nouveauxComptes = new int[taille];
+            System.arraycopy(ids, 0, nouveauxIds, 0, position);
+            System.arraycopy(comptes, 0, nouveauxComptes, 0, position);
+            nouveauxIds[position] = id;
+            nouveauxComptes[position] = compte;
+            System.arraycopy(ids, position, nouveauxIds, position + 1, taille - position - 1);
+            System.arraycopy(comptes, position, nouveauxComptes, position + 1, taille - position - 1);
+            return new Top(nouveauxIds, nouveauxComptes);
+        }
+
+        private static boolean avant(long id, int compte, long autreId, int autreCompte) {
+            return compte > autreCompte || (compte == autreCompte && id < autreId);
+        }
+    }
+}
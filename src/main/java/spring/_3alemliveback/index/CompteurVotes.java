@@ -0,0 +1,58 @@
+package spring._3alemliveback.index;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Votes d'un sondage (un compteur par choix) ou d'une question (un seul compteur), un vote par
+ * utilisateur. Sans verrou : {@link LongAdder} répartit les incréments concurrents sur des
+ * cellules distinctes, les lectures (instantanés périodiques) additionnent les cellules. Un
+ * instantané pris pendant une rafale peut omettre les tout derniers votes, jamais en compter en trop.
+ */
+public final class CompteurVotes {
+
+    private final LongAdder[] compteurs;
+    private final Set<Long> votants = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param initiaux valeurs déjà enregistrées (rechargement après redémarrage)
+     */
+    public CompteurVotes(long[] initiaux) {
+        this.compteurs = new LongAdder[initiaux.length];
+        for (int i = 0; i < initiaux.length; i++) {
+            compteurs[i] = new LongAdder();
+            compteurs[i].add(initiaux[i]);
+        }
+    }
+
+    public int taille() {
+        return compteurs.length;
+    }
+
+    /**
+     * @return false si cet utilisateur a déjà voté
+     */
+    public boolean voter(Long votant, int choix) {
+        if (choix < 0 || choix >= compteurs.length) {
+            throw new IllegalArgumentException("Choix inexistant : " + choix);
+        }
+        if (!votants.add(votant)) {
+            return false;
+        }
+        compteurs[choix].increment();
+        return true;
+    }
+
+    public long valeur(int choix) {
+        return compteurs[choix].sum();
+    }
+
+    public long[] valeurs() {
+        long[] valeurs = new long[compteurs.length];
+        for (int i = 0; i < compteurs.length; i++) {
+            valeurs[i] = compteurs[i].sum();
+        }
+        return valeurs;
+    }
+}
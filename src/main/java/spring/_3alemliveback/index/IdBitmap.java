@@ -0,0 +1,157 @@
+package spring._3alemliveback.index;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * Ensemble compressé d'identifiants (découpage à la Roaring) : les identifiants sont groupés
+ * par tranche de 65 536 valeurs ; chaque tranche est stockée en tableau trié de 16 bits
+ * tant qu'elle est creuse, puis en bitmap de 8 Ko au-delà de 4 096 éléments.
+ * Appartenance et cardinalité en temps constant (à la recherche de tranche près).
+ * <p>
+ * Non thread-safe : les accès sont synchronisés par l'appelant (cf. {@link MembershipIndex}).
+ */
+public class IdBitmap {
+
+    private static final int SEUIL_TABLEAU = 4096;
+
+    private final TreeMap<Long, Tranche> tranches = new TreeMap<>();
+    private int cardinalite;
+
+    public boolean add(long id) {
+        Tranche tranche = tranches.get(id >>> 16);
+        if (tranche == null) {
+            tranche = new TrancheTableau();
+            tranches.put(id >>> 16, tranche);
+        }
+        int avant = tranche.cardinalite();
+        Tranche resultat = tranche.ajouter((char) id);
+        if (resultat != tranche) {
+            tranches.put(id >>> 16, resultat);
+        }
+        boolean ajoute = resultat.cardinalite() > avant;
+        if (ajoute) {
+            cardinalite++;
+        }
+        return ajoute;
+    }
+
+    public boolean remove(long id) {
+        Tranche tranche = tranches.get(id >>> 16);
+        if (tranche == null || !tranche.retirer((char) id)) {
+            return false;
+        }
+        if (tranche.cardinalite() == 0) {
+            tranches.remove(id >>> 16);
+        }
+        cardinalite--;
+        return true;
+    }
+
+    public boolean contains(long id) {
+        Tranche tranche = tranches.get(id >>> 16);
+        return tranche != null && tranche.contient((char) id);
+    }
+
+    public int cardinality() {
+        return cardinalite;
+    }
+
+    private interface Tranche {
+        /**
+         * @return la tranche elle-même, ou sa conversion en bitmap si elle devient dense
+         */
+        Tranche ajouter(char valeur);
+
+        boolean retirer(char valeur);
+
+        boolean contient(char valeur);
+
+        int cardinalite();
+    }
+
+    private static final class TrancheTableau implements Tranche {
+        private char[] valeurs = new char[4];
+        private int taille;
+
+        @Override
+        public Tranche ajouter(char valeur) {
+            int i = Arrays.binarySearch(valeurs, 0, taille, valeur);
+            if (i >= 0) {
+                return this;
+            }
+            if (taille == SEUIL_TABLEAU) {
+                TrancheBitmap bitmap = new TrancheBitmap();
+                for (int j = 0; j < taille; j++) {
+                    bitmap.ajouter(valeurs[j]);
+                }
+                return bitmap.ajouter(valeur);
+            }
+            int position = -i - 1;
+            if (taille == valeurs.length) {
+                valeurs = Arrays.copyOf(valeurs, Math.min(valeurs.length * 2, SEUIL_TABLEAU));
+            }
+            System.arraycopy(valeurs, position, valeurs, position + 1, taille - position);
+            valeurs[position] = valeur;
+            taille++;
+            return this;
+        }
+
+        @Override
+        public boolean retirer(char valeur) {
+            int i = Arrays.binarySearch(valeurs, 0, taille, valeur);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(valeurs, i + 1, valeurs, i, taille - i - 1);
+            taille--;
+            return true;
+        }
+
+        @Override
+        public boolean contient(char valeur) {
+            return Arrays.binarySearch(valeurs, 0, taille, valeur) >= 0;
+        }
+
+        @Override
+        public int cardinalite() {
+            return taille;
+        }
+    }
+
+    private static final class TrancheBitmap implements Tranche {
+        private final long[] mots = new long[1024];
+        private int cardinalite;
+
+        @Override
+        public Tranche ajouter(char valeur) {
+            long masque = 1L << valeur;
+            if ((mots[valeur >>> 6] & masque) == 0) {
+                mots[valeur >>> 6] |= masque;
+                cardinalite++;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean retirer(char valeur) {
+            long masque = 1L << valeur;
+            if ((mots[valeur >>> 6] & masque) == 0) {
+                return false;
+            }
+            mots[valeur >>> 6] &= ~masque;
+            cardinalite--;
+            return true;
+        }
+
+        @Override
+        public boolean contient(char valeur) {
+            return (mots[valeur >>> 6] & (1L << valeur)) != 0;
+        }
+
+        @Override
+        public int cardinalite() {
+            return cardinalite;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package spring._3alemliveback.index;
+
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.Role;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Compteurs du tableau de bord admin, tenus en mémoire : chaque formation et chaque compte y
+ * contribue selon son dernier état connu ; un changement retire l'ancienne contribution puis
+ * ajoute la nouvelle. Compteurs indexés par les enums ({@link EnumMap} de tableaux) : lecture
+ * en temps constant, quel que soit le volume de données.
+ * <p>
+ * Non thread-safe : un seul écrivain (AnalyticsService), qui publie des instantanés immuables.
+ */
+public class LiveStats {
+
+    public record ContributionFormation(FormationStatus statut, FormationCategory categorie, long participants,
+                                        long revenuCentimes, long sommeNotes, long nombreAvis) {
+    }
+
+    public record EtatCompte(Role role, boolean verifie, boolean actif) {
+    }
+
+    // Dernière case des compteurs par catégorie : formations sans catégorie
+    private static final int SANS_CATEGORIE = FormationCategory.values().length;
+
+    private final EnumMap<FormationStatus, long[]> formations = new EnumMap<>(FormationStatus.class);
+    // {somme des notes, nombre d'avis}
+    private final EnumMap<FormationCategory, long[]> notes = new EnumMap<>(FormationCategory.class);
+    // {inscrits, vérifiés, vérifiés et activés}
+    private final EnumMap<Role, long[]> comptes = new EnumMap<>(Role.class);
+    private long participants;
+    private long revenuCentimes;
+    private long sommeNotes;
+    private long nombreAvis;
+
+    public LiveStats() {
+        for (FormationStatus statut : FormationStatus.values()) {
+            formations.put(statut, new long[SANS_CATEGORIE + 1]);
+        }
+        for (FormationCategory categorie : FormationCategory.values()) {
+            notes.put(categorie, new long[2]);
+        }
+        for (Role role : Role.values()) {
+            comptes.put(role, new long[3]);
+        }
+    }
+
+    public void remplacer(ContributionFormation ancienne, ContributionFormation nouvelle) {
+        if (ancienne != null) {
+            appliquer(ancienne, -1);
+        }
+        if (nouvelle != null) {
+            appliquer(nouvelle, 1);
+        }
+    }
+
+    public void remplacer(EtatCompte ancien, EtatCompte nouveau) {
+        if (ancien != null) {
+            appliquer(ancien, -1);
+        }
+        if (nouveau != null) {
+            appliquer(nouveau, 1);
+        }
+    }
+
+    private void appliquer(ContributionFormation c, int signe) {
+        if (c.statut() != null) {
+            formations.get(c.statut())[c.categorie() == null ? SANS_CATEGORIE : c.categorie().ordinal()] += signe;
+        }
+        if (c.categorie() != null) {
+            long[] note = notes.get(c.categorie());
+            note[0] += signe * c.sommeNotes();
+            note[1] += signe * c.nombreAvis();
+        }
+        participants += signe * c.participants();
+        revenuCentimes += signe * c.revenuCentimes();
+        sommeNotes += signe * c.sommeNotes();
+        nombreAvis += signe * c.nombreAvis();
+    }
+
+    private void appliquer(EtatCompte e, int signe) {
+        if (e.role() == null) {
+            return;
+        }
+        long[] compteurs = comptes.get(e.role());
+        compteurs[0] += signe;
+        if (e.verifie()) {
+            compteurs[1] += signe;
+            if (e.actif()) {
+                compteurs[2] += signe;
+            }
+        }
+    }
+
+    public Map<FormationStatus, Long> formationsParStatut() {
+        Map<FormationStatus, Long> resultat = new EnumMap<>(FormationStatus.class);
+        formations.forEach((statut, parCategorie) -> {
+            long total = 0;
+            for (long n : parCategorie) {
+                total += n;
+            }
+            resultat.put(statut, total);
+        });
+        return resultat;
+    }
+
+    public Map<FormationCategory, Long> formationsParCategorie() {
+        Map<FormationCategory, Long> resultat = new EnumMap<>(FormationCategory.class);
+        for (FormationCategory categorie : FormationCategory.values()) {
+            long total = 0;
+            for (long[] parCategorie : formations.values()) {
+                total += parCategorie[categorie.ordinal()];
+            }
+            resultat.put(categorie, total);
+        }
+        return resultat;
+    }
+
+    public Map<FormationStatus, Map<FormationCategory, Long>> formationsParStatutEtCategorie() {
+        Map<FormationStatus, Map<FormationCategory, Long>> resultat = new EnumMap<>(FormationStatus.class);
+        formations.forEach((statut, parCategorie) -> {
+            Map<FormationCategory, Long> ligne = new EnumMap<>(FormationCategory.class);
+            for (FormationCategory categorie : FormationCategory.values()) {
+                ligne.put(categorie, parCategorie[categorie.ordinal()]);
+            }
+            resultat.put(statut, ligne);
+        });
+        return resultat;
+    }
+
+    /**
+     * @return {somme des notes, nombre d'avis} des formations de la catégorie
+     */
+    public long[] notes(FormationCategory categorie) {
+        return notes.get(categorie).clone();
+    }
+
+    /**
+     * @return {inscrits, vérifiés, vérifiés et activés} pour le rôle
+     */
+    public long[] comptes(Role role) {
+        return comptes.get(role).clone();
+    }
+
+    public long participants() {
+        return participants;
+    }
+
+    public long revenuCentimes() {
+        return revenuCentimes;
+    }
+
+    public long sommeNotes() {
+        return sommeNotes;
+    }
+
+    public long nombreAvis() {
+        return nombreAvis;
+    }
+}
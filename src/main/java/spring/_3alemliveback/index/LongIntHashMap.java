@@ -0,0 +1,143 @@
+package spring._3alemliveback.index;
+
+/**
+ * Table de hachage long → int à adressage ouvert (sondage linéaire), sans objet par entrée :
+ * deux tableaux primitifs, soit 12 octets par case. Une valeur ramenée à 0 supprime l'entrée.
+ * La clé 0 est réservée (case vide) : les identifiants générés par la base commencent à 1.
+ * <p>
+ * Non thread-safe : les accès sont synchronisés par l'appelant (cf. {@link CoEnrollmentIndex}).
+ */
+public class LongIntHashMap {
+
+    @FunctionalInterface
+    public interface Visiteur {
+        void visiter(long cle, int valeur);
+    }
+
+    private long[] cles;
+    private int[] valeurs;
+    private int taille;
+    private int masque;
+
+    public LongIntHashMap() {
+        this(8);
+    }
+
+    public LongIntHashMap(int capaciteInitiale) {
+        int capacite = Integer.highestOneBit(Math.max(4, capaciteInitiale * 2 - 1)) << 1;
+        cles = new long[capacite];
+        valeurs = new int[capacite];
+        masque = capacite - 1;
+    }
+
+    /**
+     * @return la valeur associée, 0 si la clé est absente
+     */
+    public int get(long cle) {
+        for (int i = indice(cle); ; i = (i + 1) & masque) {
+            long c = cles[i];
+            if (c == cle) {
+                return valeurs[i];
+            }
+            if (c == 0) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Ajoute {@code delta} à la valeur de la clé (0 si absente) ; l'entrée est retirée si le résultat vaut 0.
+     * @return la nouvelle valeur
+     */
+    public int ajouter(long cle, int delta) {
+        if (cle == 0) {
+            throw new IllegalArgumentException("Clé 0 réservée");
+        }
+        int i = indice(cle);
+        while (cles[i] != 0 && cles[i] != cle) {
+            i = (i + 1) & masque;
+        }
+        if (cles[i] == 0) {
+            if (delta == 0) {
+                return 0;
+            }
+            cles[i] = cle;
+            valeurs[i] = delta;
+            if (++taille * 3 > cles.length * 2) {
+                agrandir();
+            }
+            return delta;
+        }
+        int valeur = valeurs[i] + delta;
+        if (valeur == 0) {
+            supprimerCase(i);
+        } else {
+            valeurs[i] = valeur;
+        }
+        return valeur;
+    }
+
+    public void remove(long cle) {
+        for (int i = indice(cle); cles[i] != 0; i = (i + 1) & masque) {
+            if (cles[i] == cle) {
+                supprimerCase(i);
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return taille;
+    }
+
+    public void forEach(Visiteur visiteur) {
+        for (int i = 0; i < cles.length; i++) {
+            if (cles[i] != 0) {
+                visiteur.visiter(cles[i], valeurs[i]);
+            }
+        }
+    }
+
+    // Suppression sans marqueur : les entrées suivantes de la séquence sont recalées (backward shift)
+    private void supprimerCase(int trou) {
+        taille--;
+        for (int i = (trou + 1) & masque; cles[i] != 0; i = (i + 1) & masque) {
+            int ideal = indice(cles[i]);
+            // L'entrée peut combler le trou si sa case idéale n'est pas dans ]trou, i]
+            if (((i - ideal) & masque) >= ((i - trou) & masque)) {
+                cles[trou] = cles[i];
+                valeurs[trou] = valeurs[i];
+                trou = i;
+            }
+        }
+        cles[trou] = 0;
+        valeurs[trou] = 0;
+    }
+
+    private void agrandir() {
+        long[] anciennesCles = cles;
+        int[] anciennesValeurs = valeurs;
+        cles = new long[anciennesCles.length * 2];
+        valeurs = new int[cles.length];
+        masque = cles.length - 1;
+        for (int j = 0; j < anciennesCles.length; j++) {
+            if (anciennesCles[j] != 0) {
+                int i = indice(anciennesCles[j]);
+                while (cles[i] != 0) {
+                    i = (i + 1) & masque;
+                }
+                cles[i] = anciennesCles[j];
+                valeurs[i] = anciennesValeurs[j];
+            }
+        }
+    }
+
+    private int indice(long cle) {
+        return (int) ((cle * 0x9E3779B97F4A7C15L) >>> 32) & masque;
+    }
+
+    @Override
+    public String toString() {
+        return "LongIntHashMap{taille=" + taille + ", capacite=" + cles.length + "}";
+    }
+}
@@ -0,0 +1,149 @@
+package spring._3alemliveback.index;
+
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Table de hachage long → objet à adressage ouvert : pas de clé {@code Long} ni d'entrée allouée
+ * par élément. Même organisation que {@link LongIntHashMap} (clé 0 réservée).
+ * <p>
+ * Non thread-safe : les accès sont synchronisés par l'appelant.
+ */
+public class LongObjectHashMap<V> {
+
+    @FunctionalInterface
+    public interface Visiteur<V> {
+        void visiter(long cle, V valeur);
+    }
+
+    private long[] cles;
+    private Object[] valeurs;
+    private int taille;
+    private int masque;
+
+    public LongObjectHashMap() {
+        this(8);
+    }
+
+    public LongObjectHashMap(int capaciteInitiale) {
+        int capacite = Integer.highestOneBit(Math.max(4, capaciteInitiale * 2 - 1)) << 1;
+        cles = new long[capacite];
+        valeurs = new Object[capacite];
+        masque = capacite - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long cle) {
+        for (int i = indice(cle); ; i = (i + 1) & masque) {
+            long c = cles[i];
+            if (c == cle) {
+                return (V) valeurs[i];
+            }
+            if (c == 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Associe la valeur à la clé ; une valeur null retire l'entrée.
+     */
+    public void put(long cle, V valeur) {
+        if (cle == 0) {
+            throw new IllegalArgumentException("Clé 0 réservée");
+        }
+        if (valeur == null) {
+            remove(cle);
+            return;
+        }
+        int i = indice(cle);
+        while (cles[i] != 0 && cles[i] != cle) {
+            i = (i + 1) & masque;
+        }
+        if (cles[i] == 0) {
+            cles[i] = cle;
+            valeurs[i] = valeur;
+            if (++taille * 3 > cles.length * 2) {
+                agrandir();
+            }
+        } else {
+            valeurs[i] = valeur;
+        }
+    }
+
+    public V computeIfAbsent(long cle, LongFunction<V> creation) {
+        V valeur = get(cle);
+        if (valeur == null) {
+            valeur = creation.apply(cle);
+            put(cle, valeur);
+        }
+        return valeur;
+    }
+
+    public void remove(long cle) {
+        for (int i = indice(cle); cles[i] != 0; i = (i + 1) & masque) {
+            if (cles[i] == cle) {
+                supprimerCase(i);
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return taille;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Visiteur<V> visiteur) {
+        for (int i = 0; i < cles.length; i++) {
+            if (cles[i] != 0) {
+                visiteur.visiter(cles[i], (V) valeurs[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<V> consommateur) {
+        for (int i = 0; i < cles.length; i++) {
+            if (cles[i] != 0) {
+                consommateur.accept((V) valeurs[i]);
+            }
+        }
+    }
+
+    private void supprimerCase(int trou) {
+        taille--;
+        for (int i = (trou + 1) & masque; cles[i] != 0; i = (i + 1) & masque) {
+            int ideal = indice(cles[i]);
+            if (((i - ideal) & masque) >= ((i - trou) & masque)) {
+                cles[trou] = cles[i];
+                valeurs[trou] = valeurs[i];
+                trou = i;
+            }
+        }
+        cles[trou] = 0;
+        valeurs[trou] = null;
+    }
+
+    private void agrandir() {
+        long[] anciennesCles = cles;
+        Object[] anciennesValeurs = valeurs;
+        cles = new long[anciennesCles.length * 2];
+        valeurs = new Object[cles.length];
+        masque = cles.length - 1;
+        for (int j = 0; j < anciennesCles.length; j++) {
+            if (anciennesCles[j] != 0) {
+                int i = indice(anciennesCles[j]);
+                while (cles[i] != 0) {
+                    i = (i + 1) & masque;
+                }
+                cles[i] = anciennesCles[j];
+                valeurs[i] = anciennesValeurs[j];
+            }
+        }
+    }
+
+    private int indice(long cle) {
+        return (int) ((cle * 0x9E3779B97F4A7C15L) >>> 32) & masque;
+    }
+}
@@ -0,0 +1,110 @@
+package spring._3alemliveback.index;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Participants de chaque formation sous forme de {@link IdBitmap}, construits à la demande
+ * depuis la base et conservés selon une politique LRU bornée.
+ * <p>
+ * Un chargement pendant lequel une écriture a eu lieu n'est pas mis en cache (compteur
+ * de modifications) : le bitmap pourrait ne pas refléter cette écriture.
+ */
+public class MembershipIndex {
+
+    private final Function<Long, Collection<Long>> chargeur;
+    private final LinkedHashMap<Long, IdBitmap> bitmaps;
+    private long modifications;
+
+    /**
+     * @param capacite nombre maximal de formations gardées en mémoire
+     * @param chargeur renvoie les identifiants des participants d'une formation
+     */
+    public MembershipIndex(int capacite, Function<Long, Collection<Long>> chargeur) {
+        this.chargeur = chargeur;
+        this.bitmaps = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, IdBitmap> eldest) {
+                return size() > capacite;
+            }
+        };
+    }
+
+    public boolean contient(long formationId, long userId) {
+        IdBitmap bitmap = bitmap(formationId);
+        synchronized (bitmap) {
+            return bitmap.contains(userId);
+        }
+    }
+
+    public int compter(long formationId) {
+        IdBitmap bitmap = bitmap(formationId);
+        synchronized (bitmap) {
+            return bitmap.cardinality();
+        }
+    }
+
+    /**
+     * Répercute une inscription validée. Sans effet si la formation n'est pas en cache.
+     */
+    public void ajouter(long formationId, long userId) {
+        IdBitmap bitmap = enregistrerModification(formationId);
+        if (bitmap != null) {
+            synchronized (bitmap) {
+                bitmap.add(userId);
+            }
+        }
+    }
+
+    /**
+     * Répercute une désinscription validée. Sans effet si la formation n'est pas en cache.
+     */
+    public void retirer(long formationId, long userId) {
+        IdBitmap bitmap = enregistrerModification(formationId);
+        if (bitmap != null) {
+            synchronized (bitmap) {
+                bitmap.remove(userId);
+            }
+        }
+    }
+
+    public synchronized void invalider(long formationId) {
+        bitmaps.remove(formationId);
+        modifications++;
+    }
+
+    public synchronized int size() {
+        return bitmaps.size();
+    }
+
+    private IdBitmap bitmap(long formationId) {
+        long debut;
+        synchronized (this) {
+            IdBitmap enCache = bitmaps.get(formationId);
+            if (enCache != null) {
+                return enCache;
+            }
+            debut = modifications;
+        }
+        // Requête hors verrou : les autres formations restent accessibles pendant le chargement
+        IdBitmap charge = new IdBitmap();
+        chargeur.apply(formationId).forEach(charge::add);
+        synchronized (this) {
+            IdBitmap enCache = bitmaps.get(formationId);
+            if (enCache != null) {
+                return enCache;
+            }
+            if (modifications == debut) {
+                bitmaps.put(formationId, charge);
+            }
+            return charge;
+        }
+    }
+
+    private synchronized IdBitmap enregistrerModification(long formationId) {
+        modifications++;
+        return bitmaps.get(formationId);
+    }
+}
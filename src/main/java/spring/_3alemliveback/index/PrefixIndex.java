@@ -0,0 +1,265 @@
+package spring._3alemliveback.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index de préfixes en mémoire pour l'autocomplétion.
+ * <p>
+ * Chaque document (clé unique, ex. "F:42") est indexé sous son libellé normalisé
+ * (minuscules, sans accents) et sous chaque suffixe commençant à un début de mot,
+ * de sorte que "secu" trouve "Formation Sécurité réseau". Les termes sont rangés dans un trie
+ * compressé (une arête porte une chaîne) dont chaque nœud conserve les {@code capacite}
+ * meilleurs documents distincts de son sous-arbre selon {@code rang}. Une recherche descend
+ * le long du préfixe, en O(longueur du préfixe), puis renvoie la liste du nœud atteint : le
+ * top-k est exact quel que soit le nombre de documents qui partagent le préfixe.
+ * <p>
+ * Un ajout propose le document à chaque nœud du chemin (O(capacite) par nœud). Un retrait ne
+ * recalcule que les nœuds dont le top contenait le document, à partir des tops de leurs enfants.
+ * Les lectures partagent un verrou ; les écritures, rares, le prennent en exclusif.
+ */
+public class PrefixIndex<T> {
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUM = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private record Document<T>(String cle, T valeur, Set<String> termes) {
+    }
+
+    private final int capacite;
+    private final Comparator<Document<T>> ordre;
+    private final Noeud racine = new Noeud("");
+    private final Map<String, Document<T>> documents = new HashMap<>();
+    private final ReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    /**
+     * @param capacite nombre maximal de résultats qu'une recherche peut renvoyer
+     * @param rang     ordre des résultats, le meilleur d'abord ; la clé du document départage les ex aequo
+     */
+    public PrefixIndex(int capacite, Comparator<? super T> rang) {
+        this.capacite = capacite;
+        this.ordre = Comparator.<Document<T>, T>comparing(Document::valeur, rang).thenComparing(Document::cle);
+    }
+
+    /**
+     * Ajoute ou remplace un document.
+     */
+    public void put(String documentKey, String libelle, T valeur) {
+        Document<T> document = new Document<>(documentKey, valeur, termes(libelle));
+        verrou.writeLock().lock();
+        try {
+            Document<T> ancien = documents.put(documentKey, document);
+            if (ancien != null) {
+                ancien.termes().forEach(terme -> retirer(racine, terme, ancien));
+            }
+            document.termes().forEach(terme -> inserer(racine, terme, document));
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void remove(String documentKey) {
+        verrou.writeLock().lock();
+        try {
+            Document<T> ancien = documents.remove(documentKey);
+            if (ancien != null) {
+                ancien.termes().forEach(terme -> retirer(racine, terme, ancien));
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        verrou.writeLock().lock();
+        try {
+            documents.clear();
+            racine.enfants.clear();
+            racine.terminaux.clear();
+            racine.top.clear();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        verrou.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Renvoie au plus {@code limit} documents distincts dont un mot commence par {@code prefixe},
+     * les mieux classés d'abord. {@code limit} est borné par la capacité de l'index.
+     */
+    public List<T> search(String prefixe, int limit) {
+        String reste = normaliser(prefixe);
+        if (reste.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        verrou.readLock().lock();
+        try {
+            Noeud noeud = racine;
+            while (!reste.isEmpty()) {
+                Noeud enfant = noeud.enfants.get(reste.charAt(0));
+                if (enfant == null) {
+                    return List.of();
+                }
+                if (reste.startsWith(enfant.etiquette)) {
+                    reste = reste.substring(enfant.etiquette.length());
+                } else if (enfant.etiquette.startsWith(reste)) {
+                    reste = "";
+                } else {
+                    return List.of();
+                }
+                noeud = enfant;
+            }
+            List<Document<T>> top = noeud.top;
+            List<T> resultats = new ArrayList<>(Math.min(limit, top.size()));
+            for (int i = 0; i < top.size() && i < limit; i++) {
+                resultats.add(top.get(i).valeur());
+            }
+            return resultats;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    public static String normaliser(String texte) {
+        if (texte == null) {
+            return "";
+        }
+        String sansAccents = DIACRITIQUES.matcher(Normalizer.normalize(texte, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUM.matcher(sansAccents.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    private static Set<String> termes(String libelle) {
+        String normalise = normaliser(libelle);
+        Set<String> termes = new LinkedHashSet<>();
+        if (normalise.isEmpty()) {
+            return termes;
+        }
+        termes.add(normalise);
+        for (int i = normalise.indexOf(' '); i >= 0; i = normalise.indexOf(' ', i + 1)) {
+            termes.add(normalise.substring(i + 1));
+        }
+        return termes;
+    }
+
+    private void inserer(Noeud noeud, String reste, Document<T> document) {
+        proposer(noeud, document);
+        if (reste.isEmpty()) {
+            noeud.terminaux.add(document);
+            return;
+        }
+        Noeud enfant = noeud.enfants.get(reste.charAt(0));
+        if (enfant == null) {
+            Noeud feuille = new Noeud(reste);
+            feuille.terminaux.add(document);
+            feuille.top.add(document);
+            noeud.enfants.put(reste.charAt(0), feuille);
+            return;
+        }
+        int commun = prefixeCommun(enfant.etiquette, reste);
+        if (commun < enfant.etiquette.length()) {
+            // L'arête diverge au milieu : un nœud intermédiaire reprend la partie commune
+            Noeud milieu = new Noeud(enfant.etiquette.substring(0, commun));
+            enfant.etiquette = enfant.etiquette.substring(commun);
+            milieu.enfants.put(enfant.etiquette.charAt(0), enfant);
+            milieu.top.addAll(enfant.top);
+            noeud.enfants.put(milieu.etiquette.charAt(0), milieu);
+            enfant = milieu;
+        }
+        inserer(enfant, reste.substring(commun), document);
+    }
+
+    /**
+     * @return vrai si le nœud ne porte plus rien et doit être détaché de son parent
+     */
+    private boolean retirer(Noeud noeud, String reste, Document<T> document) {
+        if (reste.isEmpty()) {
+            noeud.terminaux.remove(document);
+        } else {
+            Noeud enfant = noeud.enfants.get(reste.charAt(0));
+            if (enfant == null || !reste.startsWith(enfant.etiquette)) {
+                return false;
+            }
+            if (retirer(enfant, reste.substring(enfant.etiquette.length()), document)) {
+                noeud.enfants.remove(reste.charAt(0));
+            } else if (enfant.terminaux.isEmpty() && enfant.enfants.size() == 1) {
+                // Un nœud de passage sans terme propre est refondu dans son unique enfant
+                Noeud petitEnfant = enfant.enfants.values().iterator().next();
+                petitEnfant.etiquette = enfant.etiquette + petitEnfant.etiquette;
+                noeud.enfants.put(reste.charAt(0), petitEnfant);
+            }
+        }
+        if (noeud.top.contains(document)) {
+            recalculer(noeud);
+        }
+        return noeud != racine && noeud.terminaux.isEmpty() && noeud.enfants.isEmpty();
+    }
+
+    private void proposer(Noeud noeud, Document<T> document) {
+        List<Document<T>> top = noeud.top;
+        if (top.contains(document)) {
+            return;
+        }
+        int position = Collections.binarySearch(top, document, ordre);
+        position = position < 0 ? -position - 1 : position;
+        if (position >= capacite) {
+            return;
+        }
+        top.add(position, document);
+        if (top.size() > capacite) {
+            top.remove(top.size() - 1);
+        }
+    }
+
+    /**
+     * Un document du top d'un nœud figure forcément dans le top de l'enfant qui le contient :
+     * les tops des enfants et les termes propres suffisent à reconstruire celui du nœud.
+     */
+    private void recalculer(Noeud noeud) {
+        Set<Document<T>> candidats = new LinkedHashSet<>(noeud.terminaux);
+        noeud.enfants.values().forEach(enfant -> candidats.addAll(enfant.top));
+        List<Document<T>> tries = new ArrayList<>(candidats);
+        tries.sort(ordre);
+        noeud.top.clear();
+        noeud.top.addAll(tries.subList(0, Math.min(capacite, tries.size())));
+    }
+
+    private static int prefixeCommun(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private final class Noeud {
+        private String etiquette;
+        private final Map<Character, Noeud> enfants = new HashMap<>(4);
+        // Documents dont un terme se termine exactement sur ce nœud
+        private final List<Document<T>> terminaux = new ArrayList<>(1);
+        // Meilleurs documents distincts du sous-arbre, triés selon l'ordre de l'index
+        private final List<Document<T>> top = new ArrayList<>();
+
+        Noeud(String etiquette) {
+            this.etiquette = etiquette;
+        }
+    }
+}
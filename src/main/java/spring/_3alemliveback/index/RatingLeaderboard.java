@@ -0,0 +1,199 @@
+package spring._3alemliveback.index;
+
+import spring._3alemliveback.enums.FormationCategory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+
+/**
+ * Classements "mieux notées" en mémoire : un top-N borné par catégorie de formation
+ * et un top-N global dérivé (le top global est forcément contenu dans l'union des tops par catégorie).
+ * <p>
+ * Les écritures (nouvel avis, suppression) mettent à jour la catégorie concernée puis
+ * publient des instantanés immuables ; les lectures ne font que renvoyer ces listes.
+ * Lorsqu'une formation du classement baisse au point de pouvoir être dépassée par une formation
+ * non suivie, la catégorie est rechargée via {@code chargeur} (requête bornée à N lignes).
+ */
+public class RatingLeaderboard {
+
+    public record Entry(long formationId, String titre, FormationCategory categorie, long somme, long nombre) {
+        public double moyenne() {
+            return nombre == 0 ? 0d : (double) somme / nombre;
+        }
+    }
+
+    // Meilleure moyenne d'abord, puis le plus d'avis, puis l'identifiant pour un ordre total
+    private static final Comparator<Entry> ORDRE = Comparator
+            .comparingDouble(Entry::moyenne).reversed()
+            .thenComparing(Comparator.comparingLong(Entry::nombre).reversed())
+            .thenComparingLong(Entry::formationId);
+
+    private final int capacite;
+    private final BiFunction<FormationCategory, Integer, List<Entry>> chargeur;
+    private final Map<FormationCategory, Classement> classements = new EnumMap<>(FormationCategory.class);
+    private volatile List<Entry> topGlobal = List.of();
+
+    /**
+     * @param capacite taille N de chaque classement
+     * @param chargeur renvoie les N meilleures formations notées d'une catégorie depuis la base
+     */
+    public RatingLeaderboard(int capacite, BiFunction<FormationCategory, Integer, List<Entry>> chargeur) {
+        this.capacite = capacite;
+        this.chargeur = chargeur;
+        for (FormationCategory categorie : FormationCategory.values()) {
+            classements.put(categorie, new Classement());
+        }
+    }
+
+    public int getCapacite() {
+        return capacite;
+    }
+
+    /**
+     * (Re)charge toutes les catégories depuis la base.
+     */
+    public void chargerTout() {
+        for (FormationCategory categorie : FormationCategory.values()) {
+            recharger(categorie);
+        }
+        publierGlobal();
+    }
+
+    /**
+     * Prend en compte les nouveaux agrégats d'une formation (après un avis).
+     */
+    public void mettreAJour(Entry entry) {
+        if (entry.categorie() == null || entry.nombre() == 0) {
+            return;
+        }
+        Classement classement = classements.get(entry.categorie());
+        boolean rechargement;
+        synchronized (classement) {
+            rechargement = classement.mettreAJour(entry);
+        }
+        if (rechargement) {
+            recharger(entry.categorie());
+        }
+        publierGlobal();
+    }
+
+    /**
+     * Retire une formation (suppression, changement de catégorie).
+     */
+    public void retirer(long formationId, FormationCategory categorie) {
+        if (categorie == null) {
+            return;
+        }
+        Classement classement = classements.get(categorie);
+        boolean rechargement;
+        synchronized (classement) {
+            rechargement = classement.retirer(formationId);
+        }
+        if (rechargement) {
+            recharger(categorie);
+        }
+        publierGlobal();
+    }
+
+    /**
+     * Top-N d'une catégorie : lecture d'un instantané, O(1).
+     */
+    public List<Entry> top(FormationCategory categorie) {
+        return classements.get(categorie).instantane;
+    }
+
+    /**
+     * Top-N toutes catégories confondues : lecture d'un instantané, O(1).
+     */
+    public List<Entry> topGlobal() {
+        return topGlobal;
+    }
+
+    private void recharger(FormationCategory categorie) {
+        List<Entry> meilleures = chargeur.apply(categorie, capacite);
+        Classement classement = classements.get(categorie);
+        synchronized (classement) {
+            classement.remplacer(meilleures);
+        }
+    }
+
+    private synchronized void publierGlobal() {
+        List<Entry> candidats = new ArrayList<>();
+        classements.values().forEach(c -> candidats.addAll(c.instantane));
+        candidats.sort(ORDRE);
+        topGlobal = List.copyOf(candidats.subList(0, Math.min(capacite, candidats.size())));
+    }
+
+    /**
+     * Top-N borné d'une catégorie. Accès en écriture sous le verrou de l'instance.
+     */
+    private final class Classement {
+        private final TreeSet<Entry> tries = new TreeSet<>(ORDRE);
+        private final Map<Long, Entry> parId = new HashMap<>();
+        // Vrai si la base peut contenir des formations notées hors du classement
+        private boolean tronque;
+        private volatile List<Entry> instantane = List.of();
+
+        /**
+         * @return vrai si la catégorie doit être rechargée depuis la base
+         */
+        boolean mettreAJour(Entry entry) {
+            Entry ancienne = parId.remove(entry.formationId());
+            if (ancienne != null) {
+                tries.remove(ancienne);
+                tries.add(entry);
+                parId.put(entry.formationId(), entry);
+                // Une formation suivie qui tombe en dernière place a pu être dépassée par une formation non suivie
+                boolean rechargement = tronque && ORDRE.compare(entry, ancienne) > 0 && tries.last() == entry;
+                publier();
+                return rechargement;
+            }
+            if (tries.size() < capacite) {
+                tries.add(entry);
+                parId.put(entry.formationId(), entry);
+            } else if (ORDRE.compare(entry, tries.last()) < 0) {
+                Entry evincee = tries.pollLast();
+                parId.remove(evincee.formationId());
+                tries.add(entry);
+                parId.put(entry.formationId(), entry);
+                tronque = true;
+            } else {
+                tronque = true;
+                return false;
+            }
+            publier();
+            return false;
+        }
+
+        boolean retirer(long formationId) {
+            Entry ancienne = parId.remove(formationId);
+            if (ancienne == null) {
+                return false;
+            }
+            tries.remove(ancienne);
+            publier();
+            return tronque;
+        }
+
+        void remplacer(List<Entry> meilleures) {
+            tries.clear();
+            parId.clear();
+            for (Entry entry : meilleures) {
+                tries.add(entry);
+                parId.put(entry.formationId(), entry);
+            }
+            tronque = meilleures.size() >= capacite;
+            publier();
+        }
+
+        private void publier() {
+            instantane = List.copyOf(tries);
+        }
+    }
+}
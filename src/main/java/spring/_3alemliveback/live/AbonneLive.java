@@ -0,0 +1,123 @@
+package spring._3alemliveback.live;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Abonné au flux d'une formation : file d'envoi bornée alimentée par le diffuseur (sous son verrou,
+ * dans l'ordre des séquences) et vidée par une tâche du pool d'envoi, comme ChatConnexion. Un envoi
+ * bloqué sur un client lent ne retient ni le diffuseur ni le planificateur.
+ */
+@Slf4j
+final class AbonneLive {
+
+    private final SseEmitter emetteur;
+    private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> file;
+    private final Executor executor;
+    private final AtomicBoolean envoiPlanifie = new AtomicBoolean();
+    // Plus rien à envoyer : coupé, parti ou en erreur
+    private volatile boolean ferme;
+    // Fin normale : la file est vidée avant de clore le flux
+    private volatile boolean fin;
+    private volatile boolean clos;
+    private volatile Throwable cause;
+
+    AbonneLive(SseEmitter emetteur, int capacite, Executor executor) {
+        this.emetteur = emetteur;
+        this.file = new ArrayBlockingQueue<>(capacite);
+        this.executor = executor;
+    }
+
+    /**
+     * @return false si l'abonné est fermé ou si sa file est pleine (client qui ne suit pas le débit)
+     */
+    boolean offrir(SseEmitter.SseEventBuilder evenement) {
+        if (ferme || fin || !file.offer(evenement)) {
+            return false;
+        }
+        planifier();
+        return true;
+    }
+
+    /**
+     * Fin du flux après l'envoi des messages déjà en file.
+     */
+    void terminer() {
+        fin = true;
+        planifier();
+    }
+
+    /**
+     * Flux clos en erreur par le thread d'envoi : jamais sous le verrou du diffuseur, où un
+     * complete() attendrait la fin d'un envoi bloqué.
+     */
+    void couper(Throwable cause) {
+        this.cause = cause;
+        ferme = true;
+        file.clear();
+        planifier();
+    }
+
+    /**
+     * Flux déjà clos par le conteneur (client parti, délai dépassé) : plus d'envoi ni de complete().
+     */
+    void abandonner() {
+        clos = true;
+        ferme = true;
+        file.clear();
+    }
+
+    // Plus rien ne peut lui être déposé
+    boolean ferme() {
+        return ferme || fin;
+    }
+
+    private void planifier() {
+        if (!clos && envoiPlanifie.compareAndSet(false, true)) {
+            executor.execute(this::envoyer);
+        }
+    }
+
+    private void envoyer() {
+        try {
+            SseEmitter.SseEventBuilder evenement;
+            while (!ferme && (evenement = file.poll()) != null) {
+                emetteur.send(evenement);
+            }
+            if (ferme) {
+                clore(cause);
+            } else if (fin && file.isEmpty()) {
+                clore(null);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client parti : le rappel du conteneur retire l'abonné du diffuseur
+            log.debug("Envoi SSE interrompu : {}", e.getMessage());
+            ferme = true;
+            file.clear();
+            clore(e);
+        } finally {
+            envoiPlanifie.set(false);
+        }
+        // Message ou fin déposé entre le dernier poll et la libération du drapeau
+        if (!clos && (ferme || fin || !file.isEmpty())) {
+            planifier();
+        }
+    }
+
+    private void clore(Throwable erreur) {
+        if (clos) {
+            return;
+        }
+        clos = true;
+        if (erreur == null) {
+            emetteur.complete();
+        } else {
+            emetteur.completeWithError(erreur);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package spring._3alemliveback.live;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import spring._3alemliveback.dto.formation.LiveAvisDTO;
+import spring._3alemliveback.dto.formation.LivePlacesDTO;
+import spring._3alemliveback.dto.formation.LiveStatutDTO;
+import spring._3alemliveback.enums.FormationStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * Diffuseur d'une formation : état courant, abonnés SSE et derniers messages émis. Les
+ * modifications ne font que marquer l'état en attente ; {@link #diffuser()}, planifié une fois
+ * par rafale, émet au plus un message par type avec l'état le plus récent.
+ * <p>
+ * Identifiant des messages "époque-séquence" : l'époque change à chaque création du diffuseur,
+ * un Last-Event-ID d'une autre époque reçoit donc l'état complet au lieu d'un rejeu partiel.
+ * Les messages sont déposés sous le verrou, dans l'ordre des séquences, dans la file de chaque
+ * {@link AbonneLive} ; aucun envoi réseau ni lecture en base ne se fait sous le verrou.
+ * <p>
+ * Créé sans état, puis {@link #initialiser} une fois l'état lu en base : une notification reçue
+ * pendant cette lecture trouve déjà le diffuseur et n'est pas perdue.
+ */
+@Slf4j
+final class FormationBroadcaster {
+
+    private record Message(long sequence, String nom, String json) {
+    }
+
+    private static final String PLACES = "places";
+    private static final String STATUT = "statut";
+    private static final String AVIS = "avis";
+    private static final long DELAI_RECONNEXION_MS = 3000;
+
+    private final Long formationId;
+    private final String epoque = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final Function<Object, String> serialiseur;
+    private final int tailleHistorique;
+    private final Counter clientsLents;
+    private final List<AbonneLive> abonnes = new ArrayList<>();
+    private final ArrayDeque<Message> historique = new ArrayDeque<>();
+    // Dernier message de chaque type publié par un autre module (sondages, questions), pour les nouveaux abonnés
+    private final Map<String, String> publications = new LinkedHashMap<>();
+    private long sequence;
+    private boolean ferme;
+    private boolean initialise;
+    // Statut ou capacité modifié pendant la lecture de l'état initial : à relire
+    private boolean etatARelire;
+
+    private FormationStatus statut;
+    private Integer places;
+    private int inscrits;
+    private long ratingSum;
+    private long ratingCount;
+
+    private boolean placesEnAttente;
+    private IntSupplier compteur;
+    // Numéros des lectures du nombre d'inscrits : une lecture plus ancienne terminée en retard est ignorée
+    private long lectures;
+    private long lectureAppliquee;
+    private boolean statutEnAttente;
+    private boolean avisEnAttente;
+    private boolean diffusionPlanifiee;
+
+    FormationBroadcaster(Long formationId, Function<Object, String> serialiseur, int tailleHistorique, Counter clientsLents) {
+        this.formationId = formationId;
+        this.serialiseur = serialiseur;
+        this.tailleHistorique = tailleHistorique;
+        this.clientsLents = clientsLents;
+    }
+
+    /**
+     * État lu en base après l'enregistrement du diffuseur ; les abonnés déjà là reçoivent l'état complet.
+     * Les avis notifiés entre-temps gardent le plus complet, les inscrits sont relus à la diffusion suivante.
+     * @return faux si le statut ou la capacité a changé pendant la lecture : relire l'état
+     */
+    synchronized boolean initialiser(FormationLiveHub.Etat etat) {
+        if (etatARelire) {
+            etatARelire = false;
+            return false;
+        }
+        if (ferme || initialise) {
+            return true;
+        }
+        initialise = true;
+        statut = etat.statut();
+        places = etat.places();
+        inscrits = etat.inscrits();
+        if (etat.ratingCount() >= ratingCount) {
+            ratingSum = etat.ratingSum();
+            ratingCount = etat.ratingCount();
+        }
+        // Déjà contenus dans l'état complet envoyé ci-dessous
+        statutEnAttente = false;
+        avisEnAttente = false;
+        placesEnAttente = compteur != null;
+        Iterator<AbonneLive> it = abonnes.iterator();
+        while (it.hasNext()) {
+            AbonneLive abonne = it.next();
+            if (!envoyerEtat(abonne)) {
+                it.remove();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return vrai si une diffusion doit être planifiée (modification reçue avant l'initialisation)
+     */
+    synchronized boolean aDiffuser() {
+        return (placesEnAttente || statutEnAttente || avisEnAttente) && planifier();
+    }
+
+    /**
+     * Rejoue les messages manqués si Last-Event-ID est encore dans l'historique, sinon envoie l'état
+     * complet (à l'initialisation si l'état n'est pas encore lu).
+     * @return faux si le diffuseur vient d'être fermé (dernier abonné parti) : en créer un nouveau
+     */
+    synchronized boolean ajouter(AbonneLive abonne, String lastEventId) {
+        if (ferme) {
+            return false;
+        }
+        abonnes.add(abonne);
+        if (!initialise) {
+            return true;
+        }
+        long derniereVue = sequenceVue(lastEventId);
+        boolean depose = true;
+        if (derniereVue >= 0 && (historique.isEmpty() ? derniereVue == sequence : derniereVue >= historique.peekFirst().sequence() - 1)) {
+            for (Message message : historique) {
+                if (depose && message.sequence() > derniereVue) {
+                    depose = deposer(abonne, evenement(message.sequence(), message.nom(), message.json()));
+                }
+            }
+        } else {
+            depose = envoyerEtat(abonne);
+        }
+        if (!depose) {
+            abonnes.remove(abonne);
+        }
+        return true;
+    }
+
+    /**
+     * @return vrai si le diffuseur n'a plus d'abonné et doit être retiré (il est alors fermé)
+     */
+    synchronized boolean retirer(AbonneLive abonne) {
+        abonnes.remove(abonne);
+        abonne.abandonner();
+        if (abonnes.isEmpty()) {
+            ferme = true;
+        }
+        return ferme;
+    }
+
+    /**
+     * @return vrai si une diffusion doit être planifiée (première modification de la rafale)
+     */
+    synchronized boolean placesModifiees(IntSupplier compteur) {
+        placesEnAttente = true;
+        this.compteur = compteur;
+        return planifier();
+    }
+
+    synchronized boolean formationModifiee(FormationStatus statut, Integer places) {
+        if (!initialise) {
+            etatARelire = true;
+        }
+        if (statut != this.statut) {
+            this.statut = statut;
+            statutEnAttente = true;
+        }
+        if (!Objects.equals(places, this.places)) {
+            this.places = places;
+            placesEnAttente = true;
+        }
+        return planifier();
+    }
+
+    synchronized boolean avisAjoute(long ratingSum, long ratingCount) {
+        // Deux avis validés en parallèle peuvent arriver dans le désordre : on garde le plus complet
+        if (ratingCount > this.ratingCount) {
+            this.ratingSum = ratingSum;
+            this.ratingCount = ratingCount;
+            avisEnAttente = true;
+        }
+        return planifier();
+    }
+
+    void diffuser() {
+        IntSupplier lecture;
+        long numero;
+        synchronized (this) {
+            diffusionPlanifiee = false;
+            lecture = compteur;
+            compteur = null;
+            numero = ++lectures;
+        }
+        // Lecture en base hors du verrou : abonnements et notifications ne l'attendent pas
+        int lus = lecture == null ? 0 : lecture.getAsInt();
+        synchronized (this) {
+            emettreEnAttente(lecture != null, lus, numero);
+        }
+    }
+
+    private void emettreEnAttente(boolean relu, int lus, long numero) {
+        if (ferme) {
+            return;
+        }
+        // Une diffusion planifiée pendant cette lecture a pu en appliquer une plus récente
+        if (relu && numero > lectureAppliquee) {
+            lectureAppliquee = numero;
+            inscrits = lus;
+            placesEnAttente = true;
+        }
+        if (placesEnAttente) {
+            placesEnAttente = false;
+            emettre(PLACES, places());
+        }
+        if (statutEnAttente) {
+            statutEnAttente = false;
+            emettre(STATUT, new LiveStatutDTO(statut));
+        }
+        if (avisEnAttente) {
+            avisEnAttente = false;
+            emettre(AVIS, avis());
+        }
+    }
+
+    /**
+     * Message d'un autre module, déjà sérialisé : émis tel quel et conservé pour l'état complet.
+     */
+    synchronized void publier(String nom, String json) {
+        if (ferme) {
+            return;
+        }
+        publications.put(nom, json);
+        if (initialise) {
+            emettreJson(nom, json);
+        }
+    }
+
+    /**
+     * Formation supprimée : dernier message "statut" (null) puis fin des flux.
+     */
+    synchronized void fermer() {
+        if (initialise) {
+            emettre(STATUT, new LiveStatutDTO(null));
+        }
+        ferme = true;
+        abonnes.forEach(AbonneLive::terminer);
+        abonnes.clear();
+    }
+
+    // Commentaire SSE : garde la connexion ouverte derrière les proxys et détecte les clients partis
+    synchronized void battement() {
+        abonnes.removeIf(abonne -> !deposer(abonne, SseEmitter.event().comment("ping")));
+    }
+
+    synchronized void terminer() {
+        ferme = true;
+        abonnes.forEach(AbonneLive::terminer);
+        abonnes.clear();
+    }
+
+    synchronized int nombreAbonnes() {
+        return abonnes.size();
+    }
+
+    Long formationId() {
+        return formationId;
+    }
+
+    private boolean planifier() {
+        if (ferme || !initialise || diffusionPlanifiee) {
+            return false;
+        }
+        diffusionPlanifiee = true;
+        return true;
+    }
+
+    private void emettre(String nom, Object contenu) {
+        emettreJson(nom, serialiseur.apply(contenu));
+    }
+
+    private void emettreJson(String nom, String json) {
+        Message message = new Message(++sequence, nom, json);
+        historique.addLast(message);
+        if (historique.size() > tailleHistorique) {
+            historique.removeFirst();
+        }
+        abonnes.removeIf(abonne -> !deposer(abonne, evenement(message.sequence(), message.nom(), message.json())));
+    }
+
+    private boolean envoyerEtat(AbonneLive abonne) {
+        boolean depose = deposer(abonne, evenement(sequence, PLACES, serialiseur.apply(places())).reconnectTime(DELAI_RECONNEXION_MS))
+                && deposer(abonne, evenement(sequence, STATUT, serialiseur.apply(new LiveStatutDTO(statut))))
+                && deposer(abonne, evenement(sequence, AVIS, serialiseur.apply(avis())));
+        for (Map.Entry<String, String> publication : publications.entrySet()) {
+            depose = depose && deposer(abonne, evenement(sequence, publication.getKey(), publication.getValue()));
+        }
+        return depose;
+    }
+
+    /**
+     * @return faux si l'abonné est à retirer : client parti, ou file pleine (il est alors coupé et
+     * reprendra par Last-Event-ID à la reconnexion)
+     */
+    private boolean deposer(AbonneLive abonne, SseEmitter.SseEventBuilder evenement) {
+        if (abonne.offrir(evenement)) {
+            return true;
+        }
+        if (!abonne.ferme()) {
+            clientsLents.increment();
+            log.debug("Abonné au flux de la formation {} trop lent : déconnecté", formationId);
+            abonne.couper(new IllegalStateException("File d'envoi SSE pleine"));
+        }
+        return false;
+    }
+
+    private SseEmitter.SseEventBuilder evenement(long sequence, String nom, String json) {
+        return SseEmitter.event().id(epoque + "-" + sequence).name(nom).data(json);
+    }
+
+    private LivePlacesDTO places() {
+        Integer restantes = places == null ? null : Math.max(places - inscrits, 0);
+        return LivePlacesDTO.builder()
+                .inscrits(inscrits)
+                .places(places)
+                .placesRestantes(restantes)
+                .complet(restantes != null && restantes == 0)
+                .build();
+    }
+
+    private LiveAvisDTO avis() {
+        return LiveAvisDTO.builder()
+                .noteMoyenne(ratingCount > 0 ? Math.round((double) ratingSum / ratingCount * 100) / 100d : 0)
+                .nombreAvis(ratingCount)
+                .build();
+    }
+
+    // Séquence du Last-Event-ID s'il vient de cette époque, -1 sinon
+    private long sequenceVue(String lastEventId) {
+        if (lastEventId == null) {
+            return -1;
+        }
+        int separateur = lastEventId.lastIndexOf('-');
+        if (separateur <= 0 || !lastEventId.substring(0, separateur).equals(epoque)) {
+            return -1;
+        }
+        try {
+            long vue = Long.parseLong(lastEventId.substring(separateur + 1));
+            return vue <= sequence ? vue : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
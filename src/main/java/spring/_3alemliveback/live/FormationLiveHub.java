@@ -0,0 +1,238 @@
+package spring._3alemliveback.live;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.util.TransactionUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Flux SSE des places, du statut et des avis d'une formation (GET /api/formations/{id}/live).
+ * Un {@link FormationBroadcaster} par formation suivie, créé au premier abonné et retiré au
+ * dernier ; les connexions sont des requêtes asynchrones (aucun thread retenu par client). Les
+ * diffusions passent par un petit pool planifié, les envois par un pool de app.live.send-threads
+ * threads ; un client dont la file d'envoi (app.live.send-queue-size) déborde est déconnecté.
+ * <ul>
+ *     <li>coalescence : une rafale de modifications (inscriptions en masse...) produit au plus un
+ *     message par type toutes les app.live.coalesce-ms ;</li>
+ *     <li>reprise : les derniers messages sont gardés (app.live.replay-size) et rejoués à partir de
+ *     Last-Event-ID lors de la reconnexion automatique d'EventSource.</li>
+ * </ul>
+ * Les notifications sont à appeler dans la transaction de la modification : diffusées après commit.
+ * Une seule instance : une modification n'est diffusée qu'aux abonnés de l'instance qui l'a traitée,
+ * et une reconnexion aboutissant sur une autre instance ne retrouve pas son Last-Event-ID à rejouer.
+ */
+@Component
+@Slf4j
+public class FormationLiveHub {
+
+    public record Etat(FormationStatus statut, Integer places, int inscrits, long ratingSum, long ratingCount) {
+    }
+
+    private final ConcurrentHashMap<Long, FormationBroadcaster> diffuseurs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService planificateur;
+    private final ExecutorService envois;
+    private final ObjectMapper objectMapper;
+    private final Counter clientsLents;
+    private final long delaiMaxMs;
+    private final long coalescenceMs;
+    private final int tailleHistorique;
+    private final int capaciteFile;
+
+    public FormationLiveHub(ObjectMapper objectMapper,
+                            MeterRegistry registry,
+                            @Value("${app.live.threads:2}") int threads,
+                            @Value("${app.live.timeout-ms:1800000}") long delaiMaxMs,
+                            @Value("${app.live.coalesce-ms:250}") long coalescenceMs,
+                            @Value("${app.live.replay-size:32}") int tailleHistorique,
+                            @Value("${app.live.heartbeat-seconds:25}") long battementSecondes,
+                            @Value("${app.live.send-threads:4}") int threadsEnvoi,
+                            @Value("${app.live.send-queue-size:64}") int capaciteFile) {
+        this.objectMapper = objectMapper;
+        this.delaiMaxMs = delaiMaxMs;
+        this.coalescenceMs = coalescenceMs;
+        this.tailleHistorique = tailleHistorique;
+        // Le rejeu ou l'état complet envoyé à l'arrivée doit tenir dans la file
+        this.capaciteFile = Math.max(capaciteFile, tailleHistorique + 8);
+        AtomicInteger numero = new AtomicInteger();
+        this.planificateur = Executors.newScheduledThreadPool(threads, tache -> {
+            Thread thread = new Thread(tache, "formation-live-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger numeroEnvoi = new AtomicInteger();
+        this.envois = Executors.newFixedThreadPool(threadsEnvoi, tache -> {
+            Thread thread = new Thread(tache, "formation-live-send-" + numeroEnvoi.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.clientsLents = Counter.builder("formation.live.slow_consumers.dropped")
+                .description("Connexions SSE coupées car leur file d'envoi était pleine")
+                .register(registry);
+        planificateur.scheduleWithFixedDelay(() -> diffuseurs.values().forEach(FormationBroadcaster::battement),
+                battementSecondes, battementSecondes, TimeUnit.SECONDS);
+        Gauge.builder("formation.live.subscribers", diffuseurs,
+                        d -> d.values().stream().mapToInt(FormationBroadcaster::nombreAbonnes).sum())
+                .description("Connexions SSE ouvertes")
+                .register(registry);
+    }
+
+    /**
+     * @param lastEventId en-tête Last-Event-ID d'une reconnexion, null sinon
+     * @param chargement  état initial lu en base, appelé seulement si la formation n'est pas encore suivie
+     */
+    public SseEmitter abonner(Long formationId, String lastEventId, Supplier<Etat> chargement) {
+        SseEmitter emetteur = new SseEmitter(delaiMaxMs);
+        AbonneLive abonne = new AbonneLive(emetteur, capaciteFile, envois);
+        while (true) {
+            FormationBroadcaster diffuseur = diffuseurs.get(formationId);
+            boolean cree = false;
+            if (diffuseur == null) {
+                FormationBroadcaster nouveau = new FormationBroadcaster(formationId, this::json, tailleHistorique, clientsLents);
+                diffuseur = diffuseurs.putIfAbsent(formationId, nouveau);
+                if (diffuseur == null) {
+                    diffuseur = nouveau;
+                    cree = true;
+                }
+            }
+            // Rappels posés avant l'ajout : un échec d'envoi pendant l'ajout retire déjà l'abonné
+            FormationBroadcaster courant = diffuseur;
+            Runnable retrait = () -> retirer(courant, abonne);
+            emetteur.onCompletion(retrait);
+            emetteur.onTimeout(retrait);
+            emetteur.onError(e -> retrait.run());
+            if (diffuseur.ajouter(abonne, lastEventId)) {
+                if (cree) {
+                    initialiser(diffuseur, chargement);
+                }
+                return emetteur;
+            }
+            // Fermé entre la lecture et l'ajout (dernier abonné parti) : retiré de la map, on recommence
+            diffuseurs.remove(formationId, diffuseur);
+        }
+    }
+
+    /**
+     * État lu une fois le diffuseur enregistré : une notification validée pendant la lecture le trouve.
+     * Un changement de statut ou de capacité pendant la lecture la fait recommencer.
+     */
+    private void initialiser(FormationBroadcaster diffuseur, Supplier<Etat> chargement) {
+        try {
+            while (!diffuseur.initialiser(chargement.get())) {
+                log.debug("Formation {} modifiée pendant la lecture de son état : relecture", diffuseur.formationId());
+            }
+        } catch (RuntimeException e) {
+            // Formation introuvable... : les abonnés arrivés entre-temps sont libérés
+            diffuseurs.remove(diffuseur.formationId(), diffuseur);
+            diffuseur.terminer();
+            throw e;
+        }
+        if (diffuseur.aDiffuser()) {
+            planifier(diffuseur);
+        }
+    }
+
+    /**
+     * Inscription ou désinscription : le nombre d'inscrits n'est relu qu'une fois par rafale.
+     */
+    public void placesModifiees(Long formationId, IntSupplier inscrits) {
+        TransactionUtils.afterCommit(() -> {
+            FormationBroadcaster diffuseur = diffuseurs.get(formationId);
+            if (diffuseur != null && diffuseur.placesModifiees(inscrits)) {
+                planifier(diffuseur);
+            }
+        });
+    }
+
+    /**
+     * Changement de statut (démarrage, fin...) ou de capacité.
+     */
+    public void formationModifiee(Long formationId, FormationStatus statut, Integer places) {
+        TransactionUtils.afterCommit(() -> {
+            FormationBroadcaster diffuseur = diffuseurs.get(formationId);
+            if (diffuseur != null && diffuseur.formationModifiee(statut, places)) {
+                planifier(diffuseur);
+            }
+        });
+    }
+
+    public void avisAjoute(Long formationId, long ratingSum, long ratingCount) {
+        TransactionUtils.afterCommit(() -> {
+            FormationBroadcaster diffuseur = diffuseurs.get(formationId);
+            if (diffuseur != null && diffuseur.avisAjoute(ratingSum, ratingCount)) {
+                planifier(diffuseur);
+            }
+        });
+    }
+
+    /**
+     * Instantané d'un autre module (sondages, questions...) sous le type d'événement donné. Sans
+     * abonné, rien n'est sérialisé ; l'appelant limite lui-même la fréquence.
+     */
+    public void publier(Long formationId, String evenement, Supplier<Object> contenu) {
+        FormationBroadcaster diffuseur = diffuseurs.get(formationId);
+        if (diffuseur != null) {
+            diffuseur.publier(evenement, json(contenu.get()));
+        }
+    }
+
+    public void formationSupprimee(Long formationId) {
+        TransactionUtils.afterCommit(() -> {
+            FormationBroadcaster diffuseur = diffuseurs.remove(formationId);
+            if (diffuseur != null) {
+                planificateur.execute(diffuseur::fermer);
+            }
+        });
+    }
+
+    private void planifier(FormationBroadcaster diffuseur) {
+        planificateur.schedule(() -> {
+            try {
+                diffuseur.diffuser();
+            } catch (RuntimeException e) {
+                log.error("Diffusion impossible pour la formation {}", diffuseur.formationId(), e);
+            }
+        }, coalescenceMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void retirer(FormationBroadcaster diffuseur, AbonneLive abonne) {
+        if (diffuseur.retirer(abonne)) {
+            diffuseurs.remove(diffuseur.formationId(), diffuseur);
+        }
+    }
+
+    private String json(Object contenu) {
+        try {
+            return objectMapper.writeValueAsString(contenu);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Message SSE non sérialisable", e);
+        }
+    }
+
+    @PreDestroy
+    public void arreter() throws InterruptedException {
+        planificateur.shutdownNow();
+        diffuseurs.values().forEach(FormationBroadcaster::terminer);
+        diffuseurs.clear();
+        envois.shutdown();
+        if (!envois.awaitTermination(10, TimeUnit.SECONDS)) {
+            envois.shutdownNow();
+        }
+    }
+}
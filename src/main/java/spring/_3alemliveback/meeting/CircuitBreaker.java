@@ -0,0 +1,83 @@
+package spring._3alemliveback.meeting;
+
+import java.time.Duration;
+
+/**
+ * Disjoncteur : après {@code seuilEchecs} échecs consécutifs, les appels sont refusés pendant
+ * {@code dureeOuverture} ; un seul appel d'essai est ensuite autorisé (semi-ouvert) et referme
+ * le circuit s'il réussit.
+ */
+public class CircuitBreaker {
+
+    public enum Etat {
+        FERME,
+        OUVERT,
+        SEMI_OUVERT
+    }
+
+    private final int seuilEchecs;
+    private final long dureeOuvertureNanos;
+    private Etat etat = Etat.FERME;
+    private int echecsConsecutifs;
+    private long ouvertDepuis;
+    private boolean essaiEnCours;
+
+    public CircuitBreaker(int seuilEchecs, Duration dureeOuverture) {
+        this.seuilEchecs = seuilEchecs;
+        this.dureeOuvertureNanos = dureeOuverture.toNanos();
+    }
+
+    /**
+     * À appeler avant chaque appel ; en semi-ouvert, réserve l'unique appel d'essai.
+     */
+    public synchronized boolean autoriser() {
+        if (etat == Etat.OUVERT && System.nanoTime() - ouvertDepuis >= dureeOuvertureNanos) {
+            etat = Etat.SEMI_OUVERT;
+            essaiEnCours = false;
+        }
+        if (etat == Etat.SEMI_OUVERT) {
+            if (essaiEnCours) {
+                return false;
+            }
+            essaiEnCours = true;
+            return true;
+        }
+        return etat == Etat.FERME;
+    }
+
+    /**
+     * Sans effet sur l'état : indique si un appel serait accepté maintenant.
+     */
+    public synchronized boolean disponible() {
+        return etat == Etat.FERME
+                || (etat == Etat.SEMI_OUVERT && !essaiEnCours)
+                || (etat == Etat.OUVERT && System.nanoTime() - ouvertDepuis >= dureeOuvertureNanos);
+    }
+
+    public synchronized void succes() {
+        etat = Etat.FERME;
+        echecsConsecutifs = 0;
+        essaiEnCours = false;
+    }
+
+    /**
+     * Appel terminé sans rien indiquer de la disponibilité (erreur applicative) : l'état ne change pas,
+     * l'essai semi-ouvert éventuel est rendu pour un prochain appel.
+     */
+    public synchronized void ignorer() {
+        essaiEnCours = false;
+    }
+
+    public synchronized void echec() {
+        echecsConsecutifs++;
+        if (etat == Etat.SEMI_OUVERT || echecsConsecutifs >= seuilEchecs) {
+            etat = Etat.OUVERT;
+            ouvertDepuis = System.nanoTime();
+            essaiEnCours = false;
+        }
+    }
+
+    public synchronized Etat etat() {
+        return etat;
+    }
+}
@@ -0,0 +1,11 @@
+package spring._3alemliveback.meeting;
+
+import java.time.LocalDateTime;
+
+/**
+ * Réunion à créer pour une formation. L'identifiant de formation sert de clé de déduplication
+ * côté fournisseur : une reprise ne crée pas de seconde réunion.
+ */
+public record DemandeMeet(Long formationId, String titre, String description,
+                          LocalDateTime dateDebut, LocalDateTime dateFin) {
+}
@@ -0,0 +1,45 @@
+package spring._3alemliveback.meeting;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fournisseur de développement : lien au format Meet calculé à partir de l'identifiant de la
+ * formation, sans appel réseau. Le même identifiant donne toujours le même lien.
+ */
+@Component
+@ConditionalOnProperty(name = "app.meet.provider", havingValue = "local")
+public class LocalMeetingProvider implements MeetingProvider {
+
+    @Override
+    public String nom() {
+        return "local";
+    }
+
+    @Override
+    public Map<Long, String> creerLiens(List<DemandeMeet> demandes) {
+        Map<Long, String> liens = new HashMap<>();
+        for (DemandeMeet demande : demandes) {
+            liens.put(demande.formationId(), "https://meet.google.com/" + code(demande.formationId()));
+        }
+        return liens;
+    }
+
+    // Code "abc-defg-hij" : 10 lettres tirées d'un mélange de l'identifiant
+    static String code(long formationId) {
+        long melange = formationId * 0x9E3779B97F4A7C15L;
+        StringBuilder code = new StringBuilder(12);
+        for (int i = 0; i < 10; i++) {
+            if (i == 3 || i == 7) {
+                code.append('-');
+            }
+            code.append((char) ('a' + Math.floorMod(melange, 26)));
+            melange = Long.rotateRight(melange, 6) ^ (melange >>> 17);
+        }
+        return code.toString();
+    }
+}
@@ -0,0 +1,175 @@
+package spring._3alemliveback.meeting;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accès protégé au {@link MeetingProvider} configuré :
+ * <ul>
+ *     <li>délai maximal par appel, sur un pool borné (un fournisseur bloqué n'accapare pas plus de threads) ;</li>
+ *     <li>reprises limitées, avec pause croissante, des erreurs de transport uniquement : un dépassement de
+ *     délai a pu aboutir côté fournisseur et n'est pas rejoué immédiatement (doublons d'événements) ;</li>
+ *     <li>disjoncteur : pendant une panne, les appels sont refusés sans attendre. Seuls les dépassements de
+ *     délai et les erreurs de transport (IOException) comptent comme échecs : un lot sans aucun lien ou
+ *     une erreur applicative ne disent rien de la disponibilité du fournisseur ;</li>
+ *     <li>métriques Micrometer meeting.provider.calls (latence par résultat) et meeting.provider.circuit.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class MeetingGateway {
+
+    private static final Duration PAUSE_INITIALE = Duration.ofMillis(500);
+
+    private final MeetingProvider provider;
+    private final MeterRegistry registry;
+    private final CircuitBreaker circuit;
+    private final ThreadPoolExecutor executor;
+    private final Duration delaiMax;
+    private final int reprises;
+
+    public MeetingGateway(MeetingProvider provider,
+                          MeterRegistry registry,
+                          @Value("${app.meet.call-timeout-ms:30000}") long delaiMaxMs,
+                          @Value("${app.meet.call-retries:2}") int reprises,
+                          @Value("${app.meet.max-concurrent-calls:2}") int appelsSimultanes,
+                          @Value("${app.meet.circuit.failure-threshold:5}") int seuilEchecs,
+                          @Value("${app.meet.circuit.open-seconds:60}") long ouvertureSecondes) {
+        this.provider = provider;
+        this.registry = registry;
+        this.delaiMax = Duration.ofMillis(delaiMaxMs);
+        this.reprises = reprises;
+        this.circuit = new CircuitBreaker(seuilEchecs, Duration.ofSeconds(ouvertureSecondes));
+        AtomicInteger numero = new AtomicInteger();
+        // Pas de file d'attente : si tous les threads sont occupés (appels bloqués), refus immédiat
+        this.executor = new ThreadPoolExecutor(appelsSimultanes, appelsSimultanes, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), tache -> {
+                    Thread thread = new Thread(tache, "meeting-provider-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("meeting.provider.circuit", circuit, c -> c.etat().ordinal())
+                .tag("provider", provider.nom())
+                .description("État du disjoncteur : 0 fermé, 1 ouvert, 2 semi-ouvert")
+                .register(registry);
+        log.info("Fournisseur de réunions : {}", provider.nom());
+    }
+
+    /**
+     * Faux si le fournisseur est désactivé ou le circuit ouvert : inutile de réserver des formations.
+     */
+    public boolean disponible() {
+        return provider.actif() && circuit.disponible();
+    }
+
+    /**
+     * @return URL par formation ; vide si le fournisseur est indisponible ou en échec
+     */
+    public Map<Long, String> creerLiens(List<DemandeMeet> demandes) {
+        if (demandes.isEmpty() || !provider.actif()) {
+            return Map.of();
+        }
+        for (int tentative = 1; ; tentative++) {
+            if (!circuit.autoriser()) {
+                registry.counter("meeting.provider.rejected", "provider", provider.nom()).increment();
+                log.warn("Fournisseur de réunions {} indisponible (circuit ouvert) : {} demande(s) reportée(s)",
+                        provider.nom(), demandes.size());
+                return Map.of();
+            }
+            long debut = System.nanoTime();
+            Future<Map<Long, String>> appel;
+            try {
+                appel = executor.submit(() -> provider.creerLiens(demandes));
+            } catch (RejectedExecutionException e) {
+                // Tous les threads sont pris par des appels restés sans réponse : même panne qu'un dépassement de délai
+                circuit.echec();
+                mesurer(debut, "rejected");
+                log.warn("Tous les appels au fournisseur {} sont bloqués : lot reporté", provider.nom());
+                return Map.of();
+            }
+            try {
+                Map<Long, String> liens = appel.get(delaiMax.toMillis(), TimeUnit.MILLISECONDS);
+                // Le fournisseur a répondu : le circuit se referme même si aucune réunion du lot n'a été créée
+                circuit.succes();
+                mesurer(debut, liens.isEmpty() ? "empty" : "success");
+                return liens;
+            } catch (TimeoutException e) {
+                appel.cancel(true);
+                circuit.echec();
+                mesurer(debut, "timeout");
+                log.warn("Fournisseur de réunions {} : pas de réponse en {} ms", provider.nom(), delaiMax.toMillis());
+                return Map.of();
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof IOException)) {
+                    // Erreur applicative : ni panne du fournisseur ni reprise utile
+                    circuit.ignorer();
+                    mesurer(debut, "error");
+                    log.error("Erreur lors de l'appel au fournisseur de réunions {} : {}",
+                            provider.nom(), e.getCause().getMessage(), e.getCause());
+                    return Map.of();
+                }
+                circuit.echec();
+                boolean delaiReseau = e.getCause() instanceof SocketTimeoutException;
+                mesurer(debut, delaiReseau ? "timeout" : "failure");
+                if (delaiReseau || tentative > reprises) {
+                    log.error("Échec du fournisseur de réunions {} ({} tentative(s)) : {}",
+                            provider.nom(), tentative, e.getCause().getMessage(), e.getCause());
+                    return Map.of();
+                }
+                log.warn("Échec du fournisseur de réunions {} (tentative {}), nouvelle tentative : {}",
+                        provider.nom(), tentative, e.getCause().getMessage());
+                if (!pause(tentative)) {
+                    return Map.of();
+                }
+            } catch (InterruptedException e) {
+                appel.cancel(true);
+                Thread.currentThread().interrupt();
+                return Map.of();
+            }
+        }
+    }
+
+    private void mesurer(long debut, String resultat) {
+        Timer.builder("meeting.provider.calls")
+                .tag("provider", provider.nom())
+                .tag("outcome", resultat)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+    }
+
+    // 500 ms, 1 s, 2 s...
+    private static boolean pause(int tentative) {
+        try {
+            Thread.sleep(PAUSE_INITIALE.toMillis() << Math.min(tentative - 1, 6));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executor.shutdownNow();
+    }
+}
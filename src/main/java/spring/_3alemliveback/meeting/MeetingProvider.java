@@ -0,0 +1,27 @@
+package spring._3alemliveback.meeting;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fournisseur de liens de visioconférence (app.meet.provider = google | local | none).
+ * Appelé uniquement via {@link MeetingGateway}, qui applique délai maximal, reprises et disjoncteur.
+ */
+public interface MeetingProvider {
+
+    String nom();
+
+    /**
+     * @return false si le fournisseur ne crée aucun lien : les formations restent en attente
+     */
+    default boolean actif() {
+        return true;
+    }
+
+    /**
+     * Crée les réunions d'un lot de formations.
+     * @return URL par identifiant de formation ; une formation absente de la map a échoué
+     * @throws Exception échec de l'appel entier (réseau, authentification...)
+     */
+    Map<Long, String> creerLiens(List<DemandeMeet> demandes) throws Exception;
+}
@@ -0,0 +1,31 @@
+package spring._3alemliveback.meeting;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Création de liens désactivée : les formations restent avec meetStatut=EN_ATTENTE et seront
+ * traitées si un autre fournisseur est configuré ensuite.
+ */
+@Component
+@ConditionalOnProperty(name = "app.meet.provider", havingValue = "none")
+public class NoopMeetingProvider implements MeetingProvider {
+
+    @Override
+    public String nom() {
+        return "none";
+    }
+
+    @Override
+    public boolean actif() {
+        return false;
+    }
+
+    @Override
+    public Map<Long, String> creerLiens(List<DemandeMeet> demandes) {
+        return Map.of();
+    }
+}
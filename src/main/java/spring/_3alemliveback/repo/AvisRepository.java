@@ -1,11 +1,15 @@
 package spring._3alemliveback.repo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import spring._3alemliveback.dto.formation.AvisResumeView;
 import spring._3alemliveback.entities.Avis;
 import spring._3alemliveback.entities.Formation;
 import spring._3alemliveback.entities.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +18,25 @@ public interface AvisRepository extends JpaRepository<Avis, Long> {
     List<Avis> findByFormation(Formation formation);
     List<Avis> findByUtilisateur(User utilisateur);
     Optional<Avis> findByFormationAndUtilisateur(Formation formation, User utilisateur);
+
+    /**
+     * Page d'avis d'une formation en pagination par clé (date_creation, id) décroissante,
+     * servie par l'index idx_avis_formation_date. Seules les colonnes affichées sont lues.
+     */
+    @Query("""
+            SELECT a.id AS id, a.note AS note, a.commentaire AS commentaire, a.dateCreation AS dateCreation,
+                   u.id AS utilisateurId, u.nom AS utilisateurNom, u.prenom AS utilisateurPrenom,
+                   CASE WHEN u.profileImage IS NULL THEN false ELSE true END AS avatar
+            FROM Avis a JOIN a.utilisateur u
+            WHERE a.formation.id = :formationId
+              AND (:note IS NULL OR a.note = :note)
+              AND (a.dateCreation < :curseurDate OR (a.dateCreation = :curseurDate AND a.id < :curseurId))
+            ORDER BY a.dateCreation DESC, a.id DESC
+            LIMIT :limite
+            """)
+    List<AvisResumeView> findPageByFormation(@Param("formationId") Long formationId,
+                                             @Param("note") Integer note,
+                                             @Param("curseurDate") LocalDateTime curseurDate,
+                                             @Param("curseurId") Long curseurId,
+                                             @Param("limite") int limite);
 }
\ No newline at end of file
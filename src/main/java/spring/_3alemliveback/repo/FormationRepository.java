@@ -1,10 +1,33 @@
 package spring._3alemliveback.repo;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+import spring._3alemliveback.dto.formation.CreneauView;
+import spring._3alemliveback.dto.formation.FormationChangeView;
+import spring._3alemliveback.dto.formation.FormationFicheView;
+import spring._3alemliveback.dto.formation.FormationListVersionView;
+import spring._3alemliveback.dto.formation.FormationLiveView;
+import spring._3alemliveback.dto.formation.FormationRatingView;
+import spring._3alemliveback.dto.formation.FormationSearchView;
+import spring._3alemliveback.dto.formation.FormationStatsView;
+import spring._3alemliveback.dto.formation.FormationSummaryRow;
+import spring._3alemliveback.dto.formation.FormationVersionView;
+import spring._3alemliveback.dto.formation.MeetDemandeView;
+import spring._3alemliveback.dto.formation.ParticipantCountView;
+import spring._3alemliveback.dto.search.FormationTitreView;
 import spring._3alemliveback.entities.Formation;
 import spring._3alemliveback.entities.User;
 import spring._3alemliveback.enums.FormationCategory;
 import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.util.JsonArrayStreamer;
 
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -15,27 +38,258 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface FormationRepository extends JpaRepository<Formation, Long> {
     List<Formation> findByFormateur(User formateur);
+
+    // Verrou de ligne : sérialise les inscriptions / désinscriptions concurrentes sur une même formation
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Formation f WHERE f.id = :id")
+    Optional<Formation> findByIdForUpdate(@Param("id") Long id);
+
     List<Formation> findByStatut(FormationStatus statut);
     @Query("SELECT f FROM Formation f LEFT JOIN FETCH f.formateur WHERE f.statut = :statut")
     List<Formation> findByStatutWithFormateur(@Param("statut") FormationStatus statut);
     List<Formation> findByFormateurAndStatut(User formateur, FormationStatus statut);
+
+    // Chargement léger de l'index d'autocomplétion (aucune colonne LOB ni jointure)
+    @Query("SELECT f.id AS id, f.titre AS titre FROM Formation f WHERE f.statut = :statut")
+    List<FormationTitreView> findTitresByStatut(@Param("statut") FormationStatus statut);
     @Query(value = "SELECT f.* FROM formations f " +
             "JOIN formation_participants fp ON f.id = fp.formation_id " +
             "WHERE f.statut = 'APPROUVEE' AND fp.user_id = :userId",
             nativeQuery = true)
     List<Formation> findApprovedFormationsByParticipantId(@Param("userId") Long userId);
 
+    // Appartenance aux formations : requêtes sur la table de jointure, sans charger les entités User
+    @Query(value = "SELECT fp.user_id FROM formation_participants fp WHERE fp.formation_id = :formationId", nativeQuery = true)
+    List<Long> findParticipantIds(@Param("formationId") Long formationId);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM formation_participants fp " +
+            "WHERE fp.formation_id = :formationId AND fp.user_id = :userId)", nativeQuery = true)
+    boolean existsParticipant(@Param("formationId") Long formationId, @Param("userId") Long userId);
+
+    @Query(value = "SELECT count(*) FROM formation_participants fp WHERE fp.formation_id = :formationId", nativeQuery = true)
+    long countParticipants(@Param("formationId") Long formationId);
+
+    @Query(value = "SELECT u.email FROM formation_participants fp JOIN users u ON u.id = fp.user_id " +
+            "WHERE fp.formation_id = :formationId", nativeQuery = true)
+    List<String> findParticipantEmails(@Param("formationId") Long formationId);
+
+    @Query(value = "SELECT fp.formation_id AS \"formationId\", count(*) AS \"nombre\" FROM formation_participants fp " +
+            "WHERE fp.formation_id IN (:formationIds) GROUP BY fp.formation_id", nativeQuery = true)
+    List<ParticipantCountView> countParticipantsByFormationIds(@Param("formationIds") Collection<Long> formationIds);
+
+    // Avis et profils sont ensuite chargés par lots (hibernate.default_batch_fetch_size)
+    @Query("SELECT f FROM Formation f LEFT JOIN FETCH f.formateur WHERE f.id IN :ids")
+    List<Formation> findAllWithFormateurByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "INSERT INTO formation_participants (formation_id, user_id) VALUES (:formationId, :userId)", nativeQuery = true)
+    int ajouterParticipant(@Param("formationId") Long formationId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM formation_participants WHERE formation_id = :formationId AND user_id = :userId", nativeQuery = true)
+    int retirerParticipant(@Param("formationId") Long formationId, @Param("userId") Long userId);
+
+    // Listes en projection (une seule requête SQL, cf. FormationSummaryRow)
+    @Query(FormationSummaryRow.SELECT + "FROM Formation f LEFT JOIN f.formateur fo WHERE fo.id = :formateurId ORDER BY f.dateDebut DESC")
+    List<FormationSummaryRow> findSummariesByFormateurId(@Param("formateurId") Long formateurId);
+
+    // Curseur pour le streaming JSON (cf. JsonArrayStreamer)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = JsonArrayStreamer.FETCH_SIZE))
+    @Query(FormationSummaryRow.SELECT + "FROM Formation f LEFT JOIN f.formateur fo WHERE f.statut = :statut ORDER BY f.dateDebut ASC")
+    Stream<FormationSummaryRow> streamSummariesByStatut(@Param("statut") FormationStatus statut);
+
+    @Query(FormationSummaryRow.SELECT + "FROM Formation f LEFT JOIN f.formateur fo WHERE f.id IN :ids")
+    List<FormationSummaryRow> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    // Statistiques admin : participants comptés par sous-requête, sans charger la collection
+    @Query("SELECT f.id AS id, f.statut AS statut, f.categorie AS categorie, f.prix AS prix, " +
+            "SIZE(f.participants) AS participants, f.ratingSum AS ratingSum, f.ratingCount AS ratingCount " +
+            "FROM Formation f WHERE f.id IN :ids")
+    List<FormationStatsView> findStatsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Journal des modifications du catalogue : formations et tombstones triées par (journal_xid, id),
+     * strictement après le curseur et avant l'horizon (exclu, voir {@link #findHorizonJournal()}).
+     * La comparaison de lignes est poussée dans chaque branche et suit les index (journal_xid, id)
+     * et (journal_xid, formation_id).
+     */
+    @Query(value = """
+            SELECT c.id AS "id", c.horodatage AS "horodatage", c.supprime AS "supprime", c.journal_xid AS "journalXid"
+            FROM (SELECT f.id, f.updated_at AS horodatage, false AS supprime, f.journal_xid FROM formations f
+                  UNION ALL
+                  SELECT t.formation_id, t.deleted_at, true, t.journal_xid FROM formation_tombstones t) c
+            WHERE (c.journal_xid, c.id) > (:xid, :id) AND c.journal_xid < :horizon
+            ORDER BY c.journal_xid, c.id
+            LIMIT :limite
+            """, nativeQuery = true)
+    List<FormationChangeView> findChangements(@Param("xid") long xid, @Param("id") long id,
+                                              @Param("horizon") long horizon, @Param("limite") int limite);
+
+    /**
+     * Plus petite transaction encore en cours (xmin de l'instantané) : toutes celles qui la précèdent
+     * sont terminées et toute écriture à venir portera un journal_xid supérieur ou égal. Lue avant le
+     * journal, la borne reste sûre même si l'instantané du journal est plus récent.
+     */
+    @Query(value = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", nativeQuery = true)
+    long findHorizonJournal();
+
+    @Query(FormationSummaryRow.SELECT + "FROM Formation f JOIN f.participants p LEFT JOIN f.formateur fo " +
+            "WHERE p.id = :userId AND f.statut = :statut ORDER BY f.dateDebut ASC")
+    List<FormationSummaryRow> findSummariesByParticipantIdAndStatut(@Param("userId") Long userId,
+                                                                     @Param("statut") FormationStatus statut);
+
     // Compter les formations par catégorie
     Long countByCategorie(FormationCategory categorie);
 
-    // Trouver les formations les mieux notées
-    @Query("SELECT f, AVG(a.note) as avgRating FROM Formation f JOIN f.avis a GROUP BY f ORDER BY avgRating DESC LIMIT :limit")
-    List<Object[]> findTopRatedFormations(@Param("limit") int limit);
+    // Agrégats de notation : incrément atomique côté base, sans relire ni réécrire la ligne
+    @Modifying
+    @Query(value = "UPDATE formations SET rating_sum = rating_sum + :note, rating_count = rating_count + 1, " +
+            "updated_at = :maintenant WHERE id = :id", nativeQuery = true)
+    int incrementerNote(@Param("id") Long formationId, @Param("note") int note, @Param("maintenant") LocalDateTime maintenant);
+
+    // Avance updated_at après une écriture qui ne passe pas par l'entité (table de jointure, agrégats)
+    @Modifying
+    @Query(value = "UPDATE formations SET updated_at = :maintenant WHERE id = :id", nativeQuery = true)
+    int marquerModifiee(@Param("id") Long formationId, @Param("maintenant") LocalDateTime maintenant);
+
+    // Validation des GET conditionnels : quelques colonnes, sans LOB ni collections
+    @Query("SELECT f.version AS version, f.updatedAt AS updatedAt, fo.version AS formateurVersion, fo.updatedAt AS formateurUpdatedAt " +
+            "FROM Formation f LEFT JOIN f.formateur fo WHERE f.id = :id")
+    Optional<FormationVersionView> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT COUNT(f) AS nombre, MAX(f.updatedAt) AS updatedAt, MAX(fo.updatedAt) AS formateurUpdatedAt " +
+            "FROM Formation f LEFT JOIN f.formateur fo WHERE f.statut = :statut")
+    FormationListVersionView findListVersionByStatut(@Param("statut") FormationStatus statut);
+
+    @Query("SELECT f.id AS id, f.titre AS titre, f.categorie AS categorie, f.ratingSum AS ratingSum, f.ratingCount AS ratingCount " +
+            "FROM Formation f WHERE f.id = :id")
+    Optional<FormationRatingView> findRatingById(@Param("id") Long formationId);
+
+    @Query("SELECT f.id AS id, f.statut AS statut, f.nombreMaxParticipants AS nombreMaxParticipants, " +
+            "f.ratingSum AS ratingSum, f.ratingCount AS ratingCount FROM Formation f WHERE f.id = :id")
+    Optional<FormationLiveView> findLiveById(@Param("id") Long formationId);
+
+    // Reconstruction de l'index de recommandations (CoEnrollmentIndex) -------------------------------
+
+    @Query("SELECT f.id AS id, f.titre AS titre, f.categorie AS categorie, f.statut AS statut, " +
+            "f.ratingSum AS ratingSum, f.ratingCount AS ratingCount FROM Formation f")
+    List<FormationFicheView> findFichesRecommandation();
+
+    // Inscriptions groupées par apprenant, lues par curseur : [user_id, formation_id]
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query(value = "SELECT fp.user_id, fp.formation_id FROM formation_participants fp ORDER BY fp.user_id", nativeQuery = true)
+    Stream<Object[]> streamInscriptionsParApprenant();
+
+    // Trouver les formations les mieux notées d'une catégorie (rechargement du classement en mémoire)
+    @Query("SELECT f.id AS id, f.titre AS titre, f.categorie AS categorie, f.ratingSum AS ratingSum, f.ratingCount AS ratingCount " +
+            "FROM Formation f WHERE f.categorie = :categorie AND f.ratingCount > 0 " +
+            "ORDER BY CAST(f.ratingSum AS double) / f.ratingCount DESC, f.ratingCount DESC, f.id ASC LIMIT :limit")
+    List<FormationRatingView> findTopRatedByCategorie(@Param("categorie") FormationCategory categorie, @Param("limit") int limit);
+
+    /**
+     * Recalcule rating_sum / rating_count depuis la table avis (rattrapage des données existantes).
+     * Seules les lignes divergentes sont réécrites.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE formations f
+            SET rating_sum = agg.somme, rating_count = agg.nombre
+            FROM (SELECT f2.id, COALESCE(SUM(a.note), 0) AS somme, COUNT(a.id) AS nombre
+                  FROM formations f2 LEFT JOIN avis a ON a.formation_id = f2.id
+                  GROUP BY f2.id) agg
+            WHERE agg.id = f.id
+              AND (f.rating_sum <> agg.somme OR f.rating_count <> agg.nombre)
+            """, nativeQuery = true)
+    int recalculerAgregatsNotes();
+
+    /**
+     * Recherche plein texte (titre, nom du formateur, description) sur la colonne générée
+     * search_vector indexée en GIN. Racinisation française et insensibilité aux accents
+     * via immutable_unaccent (cf. schema.sql). Les résultats sont triés par pertinence.
+     * Renvoie un Slice : pas de second comptage plein texte par page, seulement une ligne de plus
+     * pour savoir s'il existe une page suivante.
+     */
+    @Query(value = """
+            SELECT f.id AS "id", f.titre AS "titre", left(f.description, 280) AS "extrait",
+                   f.date_debut AS "dateDebut", f.date_fin AS "dateFin", f.prix AS "prix",
+                   f.categorie AS "categorie", f.formateur_id AS "formateurId", f.formateur_nom AS "formateurNom",
+                   ts_rank_cd(f.search_vector, q.query) AS "rang"
+            FROM formations f,
+                 websearch_to_tsquery('french', immutable_unaccent(:terme)) AS q(query)
+            WHERE f.statut = 'APPROUVEE'
+              AND f.search_vector @@ q.query
+              AND (CAST(:categorie AS text) IS NULL OR f.categorie = CAST(:categorie AS text))
+            ORDER BY "rang" DESC, f.id DESC
+            """,
+            nativeQuery = true)
+    Slice<FormationSearchView> searchApprouvees(@Param("terme") String terme,
+                                                @Param("categorie") String categorie,
+                                                Pageable pageable);
+
+    // Provisionnement des liens Meet (MeetProvisioningService) ---------------------------------------
+
+    // SKIP LOCKED : plusieurs instances se partagent les formations en attente sans se bloquer.
+    // Une ligne EN_COURS dont le bail a expiré (instance arrêtée) est reprise.
+    @Query(value = "SELECT f.id FROM formations f WHERE f.meet_statut IN ('EN_ATTENTE', 'EN_COURS') " +
+            "AND (f.meet_prochaine_tentative IS NULL OR f.meet_prochaine_tentative <= :maintenant) " +
+            "AND f.date_fin > :maintenant ORDER BY f.id LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> reserverDemandesMeet(@Param("maintenant") LocalDateTime maintenant, @Param("limite") int limite);
+
+    @Modifying
+    @Query(value = "UPDATE formations SET meet_statut = 'EN_COURS', meet_tentatives = meet_tentatives + 1, " +
+            "meet_prochaine_tentative = :bail WHERE id IN (:ids)", nativeQuery = true)
+    int marquerMeetEnCours(@Param("ids") Collection<Long> ids, @Param("bail") LocalDateTime bail);
+
+    @Query("SELECT f.id AS id, f.titre AS titre, f.description AS description, f.dateDebut AS dateDebut, " +
+            "f.dateFin AS dateFin, f.meetTentatives AS tentatives FROM Formation f WHERE f.id IN :ids")
+    List<MeetDemandeView> findDemandesMeet(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "UPDATE formations SET url_meet = :url, meet_statut = 'PROVISIONNE', meet_prochaine_tentative = NULL, " +
+            "updated_at = :maintenant WHERE id = :id", nativeQuery = true)
+    int enregistrerLienMeet(@Param("id") Long id, @Param("url") String url, @Param("maintenant") LocalDateTime maintenant);
+
+    @Modifying
+    @Query(value = "UPDATE formations SET meet_statut = :statut, meet_prochaine_tentative = :prochaineTentative " +
+            "WHERE id = :id", nativeQuery = true)
+    int enregistrerEchecMeet(@Param("id") Long id, @Param("statut") String statut,
+                             @Param("prochaineTentative") LocalDateTime prochaineTentative);
+
+    // Planning des formateurs ----------------------------------------------------------------------
+
+    /**
+     * Formations du formateur (hors rejetées) dont le créneau chevauche [debut, fin). Expression et
+     * prédicat identiques à la contrainte formations_creneau_formateur_excl (schema.sql) : la recherche
+     * parcourt son index GiST, en O(log n + k) pour k créneaux trouvés.
+     */
+    @Query(value = "SELECT f.id AS \"id\", f.titre AS \"titre\", f.date_debut AS \"dateDebut\", f.date_fin AS \"dateFin\" " +
+            "FROM formations f WHERE f.formateur_id = :formateurId " +
+            "AND f.statut <> 'REJETEE' AND f.date_debut < f.date_fin " +
+            "AND tsrange(f.date_debut, f.date_fin, '[)') && tsrange(:debut, :fin, '[)') " +
+            "AND f.id <> :exclu ORDER BY f.date_debut", nativeQuery = true)
+    List<CreneauView> findCreneauxOccupes(@Param("formateurId") Long formateurId, @Param("debut") LocalDateTime debut,
+                                          @Param("fin") LocalDateTime fin, @Param("exclu") long exclu);
+
+    boolean existsByFormateur_IdAndStatutAndIdNot(Long formateurId, FormationStatus statut, Long id);
+
+    @Query("SELECT f.imageFormation FROM Formation f WHERE f.id = :id")
+    Optional<byte[]> findImageById(@Param("id") Long id);
+
+    // Nom du formateur dénormalisé pour l'index plein texte
+    @Modifying
+    @Query("UPDATE Formation f SET f.formateurNom = :nom, f.updatedAt = :maintenant WHERE f.formateur.id = :formateurId")
+    int updateFormateurNom(@Param("formateurId") Long formateurId, @Param("nom") String nom,
+                           @Param("maintenant") LocalDateTime maintenant);
 
     // Trouver les formateurs par catégorie
     @Query("SELECT DISTINCT f.formateur FROM Formation f WHERE f.categorie = :categorie")
@@ -0,0 +1,20 @@
+package spring._3alemliveback.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import spring._3alemliveback.entities.FormationTombstone;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface FormationTombstoneRepository extends JpaRepository<FormationTombstone, Long> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM FormationTombstone t WHERE t.deletedAt < :limite")
+    int purgerAvant(@Param("limite") LocalDateTime limite);
+}
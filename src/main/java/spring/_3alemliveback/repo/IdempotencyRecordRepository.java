@@ -0,0 +1,46 @@
+package spring._3alemliveback.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import spring._3alemliveback.entities.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Réserve la clé (ou reprend une clé expirée) dans sa propre transaction, validée aussitôt.
+     * @return 1 si la clé est réservée par l'appelant, 0 si elle est déjà prise
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (cle, empreinte, statut_http, corps, created_at, expires_at) " +
+            "VALUES (:cle, :empreinte, NULL, NULL, :maintenant, :bail) " +
+            "ON CONFLICT (cle) DO UPDATE SET empreinte = EXCLUDED.empreinte, statut_http = NULL, type_contenu = NULL, corps = NULL, " +
+            "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at < :maintenant", nativeQuery = true)
+    int reserver(@Param("cle") String cle, @Param("empreinte") String empreinte,
+                 @Param("maintenant") LocalDateTime maintenant, @Param("bail") LocalDateTime bail);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.statutHttp = :statut, r.typeContenu = :typeContenu, r.corps = :corps, " +
+            "r.expiresAt = :expiration WHERE r.cle = :cle")
+    int terminer(@Param("cle") String cle, @Param("statut") int statut, @Param("typeContenu") String typeContenu,
+                 @Param("corps") byte[] corps, @Param("expiration") LocalDateTime expiration);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.cle = :cle AND r.statutHttp IS NULL")
+    int liberer(@Param("cle") String cle);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :limite")
+    int purgerAvant(@Param("limite") LocalDateTime limite);
+}
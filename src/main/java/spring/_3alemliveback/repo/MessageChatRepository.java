@@ -0,0 +1,15 @@
+package spring._3alemliveback.repo;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import spring._3alemliveback.entities.MessageChat;
+
+import java.util.List;
+
+@Repository
+public interface MessageChatRepository extends JpaRepository<MessageChat, MessageChat.Cle> {
+
+    // Derniers messages d'un salon (réouverture après redémarrage), parcours de la clé primaire
+    List<MessageChat> findByFormationIdOrderBySequenceDesc(Long formationId, Pageable pageable);
+}
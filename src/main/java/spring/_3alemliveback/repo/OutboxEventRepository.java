@@ -0,0 +1,46 @@
+package spring._3alemliveback.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import spring._3alemliveback.entities.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // SKIP LOCKED : plusieurs instances se partagent les livraisons en attente sans se bloquer
+    @Query(value = "SELECT o.id FROM outbox_evenements o WHERE o.prochaine_tentative <= :maintenant " +
+            "ORDER BY o.prochaine_tentative LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> reserver(@Param("maintenant") LocalDateTime maintenant, @Param("limite") int limite);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.prochaineTentative = :bail WHERE o.id IN :ids")
+    int prolongerBail(@Param("ids") Collection<Long> ids, @Param("bail") LocalDateTime bail);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.traiteLe = :maintenant, o.prochaineTentative = NULL, o.erreur = NULL WHERE o.id = :id")
+    int marquerTraite(@Param("id") Long id, @Param("maintenant") LocalDateTime maintenant);
+
+    /**
+     * @param prochaineTentative null pour abandonner la livraison (la ligne reste pour diagnostic)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.tentatives = :tentatives, o.prochaineTentative = :prochaineTentative, " +
+            "o.erreur = :erreur WHERE o.id = :id")
+    int enregistrerEchec(@Param("id") Long id, @Param("tentatives") int tentatives,
+                         @Param("prochaineTentative") LocalDateTime prochaineTentative, @Param("erreur") String erreur);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvent o WHERE o.traiteLe < :limite")
+    int purgerAvant(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,44 @@
+package spring._3alemliveback.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Écriture des présences par lots JDBC (une requête préparée, N jeux de paramètres ; regroupés en
+ * INSERT multi-lignes par le pilote avec reWriteBatchedInserts). Upsert : un intervalle encore
+ * ouvert est réécrit à chaque vidage, sa fin ne peut qu'avancer.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PresenceBatchRepository {
+
+    public record Intervalle(Long formationId, Long userId, LocalDateTime debut, LocalDateTime fin) {
+    }
+
+    private static final int TAILLE_LOT = 1000;
+    private static final String UPSERT = """
+            INSERT INTO presences (formation_id, user_id, debut, fin, secondes)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (formation_id, user_id, debut) DO UPDATE SET
+                fin = GREATEST(presences.fin, EXCLUDED.fin),
+                secondes = GREATEST(presences.secondes, EXCLUDED.secondes)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void enregistrer(List<Intervalle> intervalles) {
+        jdbcTemplate.batchUpdate(UPSERT, intervalles, TAILLE_LOT, (ps, intervalle) -> {
+            ps.setLong(1, intervalle.formationId());
+            ps.setLong(2, intervalle.userId());
+            ps.setTimestamp(3, Timestamp.valueOf(intervalle.debut()));
+            ps.setTimestamp(4, Timestamp.valueOf(intervalle.fin()));
+            ps.setLong(5, Duration.between(intervalle.debut(), intervalle.fin()).toSeconds());
+        });
+    }
+}
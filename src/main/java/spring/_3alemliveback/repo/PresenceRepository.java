@@ -0,0 +1,25 @@
+package spring._3alemliveback.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import spring._3alemliveback.dto.live.PresenceResumeView;
+import spring._3alemliveback.entities.Presence;
+
+import java.util.List;
+
+@Repository
+public interface PresenceRepository extends JpaRepository<Presence, Presence.Cle> {
+
+    // Une ligne par participant, parcours de la clé primaire (formation_id, user_id, debut)
+    @Query("SELECT p.userId AS userId, MIN(p.debut) AS arrivee, MAX(p.fin) AS depart, " +
+            "SUM(p.secondes) AS secondes, COUNT(p) AS intervalles " +
+            "FROM Presence p WHERE p.formationId = :formationId GROUP BY p.userId ORDER BY p.userId")
+    List<PresenceResumeView> resumer(@Param("formationId") Long formationId);
+
+    @Modifying
+    @Query("DELETE FROM Presence p WHERE p.formationId = :formationId")
+    void deleteByFormationId(@Param("formationId") Long formationId);
+}
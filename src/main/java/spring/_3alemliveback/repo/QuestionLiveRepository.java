@@ -0,0 +1,20 @@
+package spring._3alemliveback.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import spring._3alemliveback.entities.QuestionLive;
+
+import java.util.List;
+
+@Repository
+public interface QuestionLiveRepository extends JpaRepository<QuestionLive, Long> {
+
+    List<QuestionLive> findByFormationIdOrderByVotesDescIdAsc(Long formationId);
+
+    @Modifying
+    @Query("DELETE FROM QuestionLive q WHERE q.formationId = :formationId")
+    void deleteByFormationId(@Param("formationId") Long formationId);
+}
@@ -0,0 +1,15 @@
+package spring._3alemliveback.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import spring._3alemliveback.entities.Sondage;
+
+import java.util.List;
+
+@Repository
+public interface SondageRepository extends JpaRepository<Sondage, Long> {
+
+    List<Sondage> findByFormationIdOrderByIdAsc(Long formationId);
+
+    List<Sondage> findByFormationIdAndOuvertTrue(Long formationId);
+}
@@ -0,0 +1,53 @@
+package spring._3alemliveback.repo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+import spring._3alemliveback.util.JsonArrayStreamer;
+import spring._3alemliveback.util.SparseProjection;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Exécution des projections partielles (?fields=) construites par {@link SparseProjection}.
+ * Les clauses WHERE sont fournies par les services, les valeurs passent toujours par des paramètres.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SparseQueryRepository {
+
+    private final EntityManager entityManager;
+
+    public List<Map<String, Object>> lister(SparseProjection.Selection selection, String suite, Map<String, Object> parametres) {
+        return requete(selection, suite, parametres).getResultStream()
+                .map(selection::ligne)
+                .toList();
+    }
+
+    public Optional<Map<String, Object>> trouver(SparseProjection.Selection selection, String suite, Map<String, Object> parametres) {
+        return requete(selection, suite, parametres).setMaxResults(1).getResultStream()
+                .findFirst()
+                .map(selection::ligne);
+    }
+
+    /**
+     * Variante curseur, à consommer dans une transaction (cf. JsonArrayStreamer).
+     */
+    public Stream<Map<String, Object>> streamer(SparseProjection.Selection selection, String suite, Map<String, Object> parametres) {
+        return requete(selection, suite, parametres)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, Integer.parseInt(JsonArrayStreamer.FETCH_SIZE))
+                .getResultStream()
+                .map(selection::ligne);
+    }
+
+    private TypedQuery<Object[]> requete(SparseProjection.Selection selection, String suite, Map<String, Object> parametres) {
+        TypedQuery<Object[]> requete = entityManager.createQuery(selection.jpql(suite), Object[].class);
+        parametres.forEach(requete::setParameter);
+        return requete;
+    }
+}
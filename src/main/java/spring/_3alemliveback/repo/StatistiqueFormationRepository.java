@@ -0,0 +1,92 @@
+package spring._3alemliveback.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import spring._3alemliveback.entities.StatistiqueFormation;
+
+import java.util.List;
+
+@Repository
+public interface StatistiqueFormationRepository extends JpaRepository<StatistiqueFormation, Long> {
+
+    // Tableau de bord d'un expert : un seul parcours de l'index (formateur_id, date_debut)
+    List<StatistiqueFormation> findByFormateurIdOrderByDateDebutDesc(Long formateurId);
+
+    /**
+     * Recopie titre, statut, dates, places et prix depuis la formation (entité flushée au préalable).
+     * À la création de la ligne, les compteurs sont initialisés depuis les données existantes.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO statistiques_formations (formation_id, formateur_id, titre, statut, date_debut, date_fin,
+                                                 places, prix, inscrits, rating_sum, rating_count)
+            SELECT f.id, f.formateur_id, f.titre, f.statut, f.date_debut, f.date_fin, f.nombre_max_participants, f.prix,
+                   (SELECT count(*) FROM formation_participants fp WHERE fp.formation_id = f.id), f.rating_sum, f.rating_count
+            FROM formations f WHERE f.id = :id AND f.formateur_id IS NOT NULL
+            ON CONFLICT (formation_id) DO UPDATE SET
+                formateur_id = EXCLUDED.formateur_id,
+                titre = EXCLUDED.titre,
+                statut = EXCLUDED.statut,
+                date_debut = EXCLUDED.date_debut,
+                date_fin = EXCLUDED.date_fin,
+                places = EXCLUDED.places,
+                prix = EXCLUDED.prix
+            """, nativeQuery = true)
+    int synchroniser(@Param("id") Long formationId);
+
+    @Modifying
+    @Query(value = "UPDATE statistiques_formations SET inscrits = inscrits + :delta WHERE formation_id = :id", nativeQuery = true)
+    int ajouterInscrits(@Param("id") Long formationId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE statistiques_formations SET rating_sum = rating_sum + :note, rating_count = rating_count + 1 " +
+            "WHERE formation_id = :id", nativeQuery = true)
+    int ajouterNote(@Param("id") Long formationId, @Param("note") int note);
+
+    @Modifying
+    @Query(value = "DELETE FROM statistiques_formations WHERE formation_id = :id", nativeQuery = true)
+    int supprimer(@Param("id") Long formationId);
+
+    /**
+     * Rattrapage complet (formations antérieures au read model, écritures hors application) :
+     * seules les lignes différentes des données sources sont réécrites.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO statistiques_formations (formation_id, formateur_id, titre, statut, date_debut, date_fin,
+                                                 places, prix, inscrits, rating_sum, rating_count)
+            SELECT f.id, f.formateur_id, f.titre, f.statut, f.date_debut, f.date_fin, f.nombre_max_participants, f.prix,
+                   coalesce(p.nombre, 0), f.rating_sum, f.rating_count
+            FROM formations f
+            LEFT JOIN (SELECT formation_id, count(*) AS nombre FROM formation_participants GROUP BY formation_id) p
+                   ON p.formation_id = f.id
+            WHERE f.formateur_id IS NOT NULL
+            ON CONFLICT (formation_id) DO UPDATE SET
+                formateur_id = EXCLUDED.formateur_id,
+                titre = EXCLUDED.titre,
+                statut = EXCLUDED.statut,
+                date_debut = EXCLUDED.date_debut,
+                date_fin = EXCLUDED.date_fin,
+                places = EXCLUDED.places,
+                prix = EXCLUDED.prix,
+                inscrits = EXCLUDED.inscrits,
+                rating_sum = EXCLUDED.rating_sum,
+                rating_count = EXCLUDED.rating_count
+            WHERE (statistiques_formations.formateur_id, statistiques_formations.titre, statistiques_formations.statut,
+                   statistiques_formations.date_debut, statistiques_formations.date_fin, statistiques_formations.places,
+                   statistiques_formations.prix, statistiques_formations.inscrits, statistiques_formations.rating_sum,
+                   statistiques_formations.rating_count)
+                  IS DISTINCT FROM
+                  (EXCLUDED.formateur_id, EXCLUDED.titre, EXCLUDED.statut, EXCLUDED.date_debut, EXCLUDED.date_fin,
+                   EXCLUDED.places, EXCLUDED.prix, EXCLUDED.inscrits, EXCLUDED.rating_sum, EXCLUDED.rating_count)
+            """, nativeQuery = true)
+    int reconstruire();
+
+    @Modifying
+    @Query(value = "DELETE FROM statistiques_formations s WHERE NOT EXISTS (SELECT 1 FROM formations f WHERE f.id = s.formation_id)",
+            nativeQuery = true)
+    int purgerOrphelines();
+}
@@ -0,0 +1,42 @@
+package spring._3alemliveback.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import spring._3alemliveback.entities.StatistiqueJournaliere;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface StatistiqueJournaliereRepository extends JpaRepository<StatistiqueJournaliere, LocalDate> {
+
+    List<StatistiqueJournaliere> findByJourGreaterThanEqualOrderByJourAsc(LocalDate depuis);
+
+    // Ajout des variations d'une journée, en une instruction (ligne créée au premier ajout)
+    @Modifying
+    @Query(value = """
+            INSERT INTO statistiques_journalieres AS s (jour, formations_creees, inscriptions_nettes, revenu_centimes,
+                                                        avis, somme_notes, experts_inscrits, apprenants_inscrits)
+            VALUES (:jour, :formationsCreees, :inscriptionsNettes, :revenuCentimes,
+                    :avis, :sommeNotes, :expertsInscrits, :apprenantsInscrits)
+            ON CONFLICT (jour) DO UPDATE SET
+                formations_creees = s.formations_creees + EXCLUDED.formations_creees,
+                inscriptions_nettes = s.inscriptions_nettes + EXCLUDED.inscriptions_nettes,
+                revenu_centimes = s.revenu_centimes + EXCLUDED.revenu_centimes,
+                avis = s.avis + EXCLUDED.avis,
+                somme_notes = s.somme_notes + EXCLUDED.somme_notes,
+                experts_inscrits = s.experts_inscrits + EXCLUDED.experts_inscrits,
+                apprenants_inscrits = s.apprenants_inscrits + EXCLUDED.apprenants_inscrits
+            """, nativeQuery = true)
+    int ajouter(@Param("jour") LocalDate jour,
+                @Param("formationsCreees") long formationsCreees,
+                @Param("inscriptionsNettes") long inscriptionsNettes,
+                @Param("revenuCentimes") long revenuCentimes,
+                @Param("avis") long avis,
+                @Param("sommeNotes") long sommeNotes,
+                @Param("expertsInscrits") long expertsInscrits,
+                @Param("apprenantsInscrits") long apprenantsInscrits);
+}
@@ -1,18 +1,36 @@
 package spring._3alemliveback.repo;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import spring._3alemliveback.dto.register.UserDto;
+import spring._3alemliveback.dto.register.UserStatsView;
+import spring._3alemliveback.dto.register.UserVersionView;
+import spring._3alemliveback.dto.search.ExpertNomView;
 import spring._3alemliveback.entities.User;
 import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.util.JsonArrayStreamer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
+
+    // Validation des GET conditionnels, sans charger l'utilisateur ni ses collections
+    @Query("SELECT u.id AS id, u.version AS version, u.updatedAt AS updatedAt FROM User u WHERE u.id = :id")
+    Optional<UserVersionView> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT u.id AS id, u.version AS version, u.updatedAt AS updatedAt FROM User u WHERE u.email = :email")
+    Optional<UserVersionView> findVersionByEmail(@Param("email") String email);
     Optional<User> findByVerificationToken(String token);
 
     boolean existsByEmail(String email);
@@ -21,6 +39,37 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.role = :role AND u.isVerified = true AND u.isActive = false")
     List<User> findByRoleAndIsVerifiedTrueAndIsActiveFalse(Role role);
     List<User> findByRoleAndIsVerifiedTrue(Role role);
+    // Variante curseur pour le streaming JSON (cf. JsonArrayStreamer) : projection, aucune entité
+    // n'entre dans le contexte de persistance et les collections EAGER ne sont pas chargées ligne à ligne
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = JsonArrayStreamer.FETCH_SIZE))
+    @Query(UserDto.SELECT_SANS_COLLECTIONS + "FROM User u WHERE u.role = :role AND u.isVerified = true ORDER BY u.id")
+    Stream<UserDto> streamDtosByRoleAndIsVerifiedTrue(@Param("role") Role role);
+
+    // Collections des listes en flux, une requête par lot : [id utilisateur, valeur]
+    @Query("SELECT u.id, d FROM User u JOIN u.domaines d WHERE u.id IN :ids")
+    List<Object[]> findDomainesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.id, c FROM User u JOIN u.certifications c WHERE u.id IN :ids")
+    List<Object[]> findCertificationsByIds(@Param("ids") Collection<Long> ids);
     @Query("SELECT u FROM User u WHERE u.role = :role AND u.isVerified = true AND u.isActive = true")
     List<User> findByRoleAndIsVerifiedTrueAndIsActiveTrue(Role role);
+
+    @Query("SELECT u.id AS id, u.nom AS nom, u.prenom AS prenom FROM User u WHERE u.role = :role AND u.isVerified = true AND u.isActive = true")
+    List<ExpertNomView> findNomsActifsByRole(@Param("role") Role role);
+
+    // Journal des comptes modifiés après (xid, id) et avant l'horizon (FormationRepository.findHorizonJournal)
+    @Query("SELECT u.id AS id, u.role AS role, u.isVerified AS verified, u.isActive AS active, u.updatedAt AS updatedAt, " +
+            "u.journalXid AS journalXid FROM User u " +
+            "WHERE (u.journalXid > :xid OR (u.journalXid = :xid AND u.id > :id)) AND u.journalXid < :horizon " +
+            "ORDER BY u.journalXid, u.id LIMIT :limite")
+    List<UserStatsView> findChangements(@Param("xid") long xid, @Param("id") long id,
+                                        @Param("horizon") long horizon, @Param("limite") int limite);
+
+    // Jeton de vérification courant (null une fois le compte vérifié)
+    @Query("SELECT u.verificationToken FROM User u WHERE u.id = :id")
+    Optional<String> findVerificationTokenById(@Param("id") Long id);
+
+    // Lecture de la seule image de profil (sans les collections EAGER de User)
+    @Query("SELECT u.profileImage FROM User u WHERE u.id = :id")
+    Optional<byte[]> findProfileImageById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package spring._3alemliveback.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import spring._3alemliveback.entities.WaitlistEntry;
+
+import java.util.Optional;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // Tête de file : utilise l'index (formation_id, position)
+    @Query("SELECT w FROM WaitlistEntry w JOIN FETCH w.user WHERE w.formation.id = :formationId ORDER BY w.position ASC LIMIT 1")
+    Optional<WaitlistEntry> findHeadByFormationId(@Param("formationId") Long formationId);
+
+    Optional<WaitlistEntry> findByFormationIdAndUserId(Long formationId, Long userId);
+
+    boolean existsByFormationIdAndUserId(Long formationId, Long userId);
+
+    @Query("SELECT COALESCE(MAX(w.position), 0) FROM WaitlistEntry w WHERE w.formation.id = :formationId")
+    Long findMaxPosition(@Param("formationId") Long formationId);
+
+    long countByFormationIdAndPositionLessThanEqual(Long formationId, Long position);
+
+    long countByFormationId(Long formationId);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.formation.id = :formationId")
+    void deleteByFormationId(@Param("formationId") Long formationId);
+}
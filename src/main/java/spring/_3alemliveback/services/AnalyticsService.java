@@ -0,0 +1,339 @@
+package spring._3alemliveback.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring._3alemliveback.dto.admin.AdminStatsResponse;
+import spring._3alemliveback.dto.admin.EntonnoirExpertsDTO;
+import spring._3alemliveback.dto.admin.NoteMoyenneDTO;
+import spring._3alemliveback.dto.admin.StatistiqueJourDTO;
+import spring._3alemliveback.dto.formation.FormationChangeView;
+import spring._3alemliveback.dto.formation.FormationStatsView;
+import spring._3alemliveback.dto.register.UserStatsView;
+import spring._3alemliveback.entities.StatistiqueJournaliere;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.index.LiveStats;
+import spring._3alemliveback.index.LiveStats.ContributionFormation;
+import spring._3alemliveback.index.LiveStats.EtatCompte;
+import spring._3alemliveback.index.LongObjectHashMap;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.StatistiqueJournaliereRepository;
+import spring._3alemliveback.repo.UserRepository;
+import spring._3alemliveback.util.JournalCursor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Statistiques du tableau de bord admin, maintenues incrémentalement : au lieu de recompter
+ * formations, inscriptions et comptes à chaque requête, une tâche planifiée lit le journal des
+ * modifications (journal_xid des formations, tombstones et comptes) depuis son dernier curseur,
+ * retire l'ancienne contribution de chaque ligne modifiée et ajoute la nouvelle. Les variations sont
+ * cumulées par jour dans statistiques_journalieres ; l'endpoint ne lit qu'un instantané en mémoire.
+ * <p>
+ * Une seule instance : le curseur vit en mémoire, et deux instances liraient chacune le même journal
+ * puis ajouteraient chacune les mêmes variations à statistiques_journalieres (comptées deux fois).
+ */
+@Service
+@Slf4j
+public class AnalyticsService {
+
+    public static final int JOURS_MAX = 366;
+    private static final int TAILLE_LOT = 500;
+
+    private final FormationRepository formationRepository;
+    private final UserRepository userRepository;
+    private final StatistiqueJournaliereRepository statistiqueRepository;
+    private final TransactionTemplate lecture;
+    private final TransactionTemplate ecriture;
+
+    // État du seul écrivain (tâche planifiée, exécutions jamais concurrentes)
+    private final LiveStats stats = new LiveStats();
+    private final LongObjectHashMap<ContributionFormation> formations = new LongObjectHashMap<>();
+    private final LongObjectHashMap<EtatCompte> comptes = new LongObjectHashMap<>();
+    private final TreeMap<LocalDate, StatistiqueJournaliere> historique = new TreeMap<>();
+    private JournalCursor curseurFormations = JournalCursor.DEBUT;
+    private JournalCursor curseurComptes = JournalCursor.DEBUT;
+    private boolean initialise;
+
+    // Instantané immuable lu par les requêtes HTTP, null tant que le premier chargement n'est pas terminé
+    private volatile AdminStatsResponse instantane;
+
+    public AnalyticsService(FormationRepository formationRepository,
+                            UserRepository userRepository,
+                            StatistiqueJournaliereRepository statistiqueRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.formationRepository = formationRepository;
+        this.userRepository = userRepository;
+        this.statistiqueRepository = statistiqueRepository;
+        this.lecture = new TransactionTemplate(transactionManager);
+        this.lecture.setReadOnly(true);
+        this.ecriture = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @param jours nombre de jours d'historique (1 à 366)
+     * @return vide tant que le premier chargement n'est pas terminé
+     */
+    public Optional<AdminStatsResponse> getStats(int jours) {
+        AdminStatsResponse courant = instantane;
+        if (courant == null) {
+            return Optional.empty();
+        }
+        List<StatistiqueJourDTO> evolution = courant.getEvolution();
+        int n = Math.min(Math.max(jours, 1), evolution.size());
+        return Optional.of(courant.toBuilder()
+                .evolution(evolution.subList(evolution.size() - n, evolution.size()))
+                .build());
+    }
+
+    /**
+     * Premier passage : état de référence de toutes les formations et de tous les comptes (aucune
+     * variation journalière enregistrée). Passages suivants : seules les lignes modifiées depuis le curseur.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.poll-delay-ms:5000}")
+    public void actualiser() {
+        try {
+            LocalDateTime maintenant = LocalDateTime.now();
+            Lot lot = lecture.execute(status -> lire(formationRepository.findHorizonJournal(), maintenant));
+            if (initialise && !lot.variations.isEmpty()) {
+                ecriture.executeWithoutResult(status -> lot.variations.values().forEach(v ->
+                        statistiqueRepository.ajouter(v.getJour(), v.getFormationsCreees(), v.getInscriptionsNettes(),
+                                v.getRevenuCentimes(), v.getAvis(), v.getSommeNotes(),
+                                v.getExpertsInscrits(), v.getApprenantsInscrits())));
+            }
+            // Mémoire modifiée seulement une fois les variations enregistrées : un échec rejoue le même lot
+            appliquer(lot, maintenant);
+            if (!initialise) {
+                List<StatistiqueJournaliere> jours = lecture.execute(status ->
+                        statistiqueRepository.findByJourGreaterThanEqualOrderByJourAsc(LocalDate.now().minusDays(JOURS_MAX - 1)));
+                jours.forEach(j -> historique.put(j.getJour(), j));
+                initialise = true;
+                log.info("Statistiques admin chargées : {} formation(s), {} compte(s)", formations.size(), comptes.size());
+            }
+            publier(maintenant);
+        } catch (RuntimeException e) {
+            log.error("Actualisation des statistiques admin impossible, nouvel essai au prochain passage", e);
+        }
+    }
+
+    private record ChangementFormation(long id, ContributionFormation nouvelle) {
+    }
+
+    private record ChangementCompte(long id, EtatCompte nouveau) {
+    }
+
+    private static final class Lot {
+        final List<ChangementFormation> formations = new ArrayList<>();
+        final List<ChangementCompte> comptes = new ArrayList<>();
+        final Map<LocalDate, StatistiqueJournaliere> variations = new HashMap<>();
+        JournalCursor curseurFormations;
+        JournalCursor curseurComptes;
+    }
+
+    /**
+     * Journal lu jusqu'à la plus ancienne transaction en cours : une transaction validée tard est
+     * comptée au passage suivant, jamais sautée.
+     */
+    private Lot lire(long horizon, LocalDateTime maintenant) {
+        Lot lot = new Lot();
+        lot.curseurFormations = lireFormations(lot, curseurFormations, horizon, maintenant);
+        lot.curseurComptes = lireComptes(lot, curseurComptes, horizon, maintenant);
+        return lot;
+    }
+
+    private JournalCursor lireFormations(Lot lot, JournalCursor curseur, long horizon, LocalDateTime maintenant) {
+        while (true) {
+            List<FormationChangeView> page = formationRepository.findChangements(curseur.xid(), curseur.id(), horizon, TAILLE_LOT);
+            List<Long> modifiees = page.stream()
+                    .filter(l -> !Boolean.TRUE.equals(l.getSupprime()))
+                    .map(FormationChangeView::getId)
+                    .toList();
+            Map<Long, FormationStatsView> vues = modifiees.isEmpty() ? Map.of()
+                    : formationRepository.findStatsByIds(modifiees).stream()
+                            .collect(Collectors.toMap(FormationStatsView::getId, Function.identity()));
+            for (FormationChangeView ligne : page) {
+                FormationStatsView vue = vues.get(ligne.getId());
+                ContributionFormation nouvelle = vue == null ? null : contribution(vue);
+                // Une formation apparaît au plus une fois dans le journal : "formations" n'a pas encore changé
+                ContributionFormation ancienne = formations.get(ligne.getId());
+                lot.formations.add(new ChangementFormation(ligne.getId(), nouvelle));
+                if (initialise) {
+                    StatistiqueJournaliere jour = variation(lot, ligne.getHorodatage());
+                    if (ancienne == null && nouvelle != null) {
+                        jour.setFormationsCreees(jour.getFormationsCreees() + 1);
+                    }
+                    jour.setInscriptionsNettes(jour.getInscriptionsNettes() + participants(nouvelle) - participants(ancienne));
+                    jour.setRevenuCentimes(jour.getRevenuCentimes() + revenu(nouvelle) - revenu(ancienne));
+                    jour.setAvis(jour.getAvis() + avis(nouvelle) - avis(ancienne));
+                    jour.setSommeNotes(jour.getSommeNotes() + notes(nouvelle) - notes(ancienne));
+                }
+            }
+            if (page.size() < TAILLE_LOT) {
+                // Tout le journal avant l'horizon a été lu
+                return JournalCursor.avant(horizon, maintenant);
+            }
+            FormationChangeView derniere = page.get(page.size() - 1);
+            curseur = new JournalCursor(derniere.getJournalXid(), derniere.getId(), maintenant);
+        }
+    }
+
+    private JournalCursor lireComptes(Lot lot, JournalCursor curseur, long horizon, LocalDateTime maintenant) {
+        while (true) {
+            List<UserStatsView> page = userRepository.findChangements(curseur.xid(), curseur.id(), horizon, TAILLE_LOT);
+            for (UserStatsView compte : page) {
+                EtatCompte nouveau = new EtatCompte(compte.getRole(), compte.getVerified(), compte.getActive());
+                lot.comptes.add(new ChangementCompte(compte.getId(), nouveau));
+                if (initialise && comptes.get(compte.getId()) == null) {
+                    StatistiqueJournaliere jour = variation(lot, compte.getUpdatedAt());
+                    if (nouveau.role() == Role.EXPERT) {
+                        jour.setExpertsInscrits(jour.getExpertsInscrits() + 1);
+                    } else if (nouveau.role() == Role.USER) {
+                        jour.setApprenantsInscrits(jour.getApprenantsInscrits() + 1);
+                    }
+                }
+            }
+            if (page.size() < TAILLE_LOT) {
+                return JournalCursor.avant(horizon, maintenant);
+            }
+            UserStatsView dernier = page.get(page.size() - 1);
+            curseur = new JournalCursor(dernier.getJournalXid(), dernier.getId(), maintenant);
+        }
+    }
+
+    private void appliquer(Lot lot, LocalDateTime maintenant) {
+        for (ChangementFormation changement : lot.formations) {
+            stats.remplacer(formations.get(changement.id()), changement.nouvelle());
+            formations.put(changement.id(), changement.nouvelle());
+        }
+        for (ChangementCompte changement : lot.comptes) {
+            stats.remplacer(comptes.get(changement.id()), changement.nouveau());
+            comptes.put(changement.id(), changement.nouveau());
+        }
+        curseurFormations = lot.curseurFormations;
+        curseurComptes = lot.curseurComptes;
+        lot.variations.values().forEach(v -> historique.merge(v.getJour(), v, AnalyticsService::cumuler));
+        LocalDate premierJour = maintenant.toLocalDate().minusDays(JOURS_MAX - 1);
+        historique.headMap(premierJour).clear();
+    }
+
+    private void publier(LocalDateTime maintenant) {
+        Map<FormationCategory, NoteMoyenneDTO> notesParCategorie = new EnumMap<>(FormationCategory.class);
+        for (FormationCategory categorie : FormationCategory.values()) {
+            long[] note = stats.notes(categorie);
+            notesParCategorie.put(categorie, noteMoyenne(note[0], note[1]));
+        }
+        Map<Role, Long> utilisateursParRole = new EnumMap<>(Role.class);
+        for (Role role : Role.values()) {
+            utilisateursParRole.put(role, stats.comptes(role)[0]);
+        }
+        long[] experts = stats.comptes(Role.EXPERT);
+
+        // Une entrée par jour, y compris les jours sans activité
+        LocalDate aujourdhui = maintenant.toLocalDate();
+        List<StatistiqueJourDTO> evolution = new ArrayList<>(JOURS_MAX);
+        for (LocalDate jour = aujourdhui.minusDays(JOURS_MAX - 1); !jour.isAfter(aujourdhui); jour = jour.plusDays(1)) {
+            StatistiqueJournaliere s = historique.get(jour);
+            evolution.add(s == null ? StatistiqueJourDTO.builder().jour(jour).build() : jourDTO(s));
+        }
+
+        instantane = AdminStatsResponse.builder()
+                .miseAJour(maintenant)
+                .formationsParStatut(stats.formationsParStatut())
+                .formationsParCategorie(stats.formationsParCategorie())
+                .formationsParStatutEtCategorie(stats.formationsParStatutEtCategorie())
+                .inscriptions(stats.participants())
+                .revenu(stats.revenuCentimes() / 100.0)
+                .noteGlobale(noteMoyenne(stats.sommeNotes(), stats.nombreAvis()))
+                .notesParCategorie(notesParCategorie)
+                .utilisateursParRole(utilisateursParRole)
+                .entonnoirExperts(EntonnoirExpertsDTO.builder()
+                        .inscrits(experts[0])
+                        .verifies(experts[1])
+                        .actives(experts[2])
+                        .tauxVerification(taux(experts[1], experts[0]))
+                        .tauxActivation(taux(experts[2], experts[1]))
+                        .build())
+                .evolution(List.copyOf(evolution))
+                .build();
+    }
+
+    private static ContributionFormation contribution(FormationStatsView vue) {
+        long participants = vue.getParticipants() == null ? 0 : vue.getParticipants();
+        long prixCentimes = vue.getPrix() == null ? 0 : Math.round(vue.getPrix() * 100);
+        return new ContributionFormation(vue.getStatut(), vue.getCategorie(), participants,
+                prixCentimes * participants,
+                vue.getRatingSum() == null ? 0 : vue.getRatingSum(),
+                vue.getRatingCount() == null ? 0 : vue.getRatingCount());
+    }
+
+    private static StatistiqueJournaliere variation(Lot lot, LocalDateTime horodatage) {
+        return lot.variations.computeIfAbsent(horodatage.toLocalDate(),
+                jour -> StatistiqueJournaliere.builder().jour(jour).build());
+    }
+
+    private static StatistiqueJournaliere cumuler(StatistiqueJournaliere cible, StatistiqueJournaliere v) {
+        return StatistiqueJournaliere.builder()
+                .jour(cible.getJour())
+                .formationsCreees(cible.getFormationsCreees() + v.getFormationsCreees())
+                .inscriptionsNettes(cible.getInscriptionsNettes() + v.getInscriptionsNettes())
+                .revenuCentimes(cible.getRevenuCentimes() + v.getRevenuCentimes())
+                .avis(cible.getAvis() + v.getAvis())
+                .sommeNotes(cible.getSommeNotes() + v.getSommeNotes())
+                .expertsInscrits(cible.getExpertsInscrits() + v.getExpertsInscrits())
+                .apprenantsInscrits(cible.getApprenantsInscrits() + v.getApprenantsInscrits())
+                .build();
+    }
+
+    private static StatistiqueJourDTO jourDTO(StatistiqueJournaliere s) {
+        return StatistiqueJourDTO.builder()
+                .jour(s.getJour())
+                .formationsCreees(s.getFormationsCreees())
+                .inscriptionsNettes(s.getInscriptionsNettes())
+                .revenuNet(s.getRevenuCentimes() / 100.0)
+                .avis(s.getAvis())
+                .noteMoyenne(s.getAvis() > 0 ? (double) s.getSommeNotes() / s.getAvis() : 0)
+                .expertsInscrits(s.getExpertsInscrits())
+                .apprenantsInscrits(s.getApprenantsInscrits())
+                .build();
+    }
+
+    private static NoteMoyenneDTO noteMoyenne(long somme, long nombre) {
+        return NoteMoyenneDTO.builder()
+                .moyenne(nombre > 0 ? (double) somme / nombre : 0)
+                .nombreAvis(nombre)
+                .build();
+    }
+
+    private static double taux(long partie, long total) {
+        return total > 0 ? (double) partie / total : 0;
+    }
+
+    private static long participants(ContributionFormation c) {
+        return c == null ? 0 : c.participants();
+    }
+
+    private static long revenu(ContributionFormation c) {
+        return c == null ? 0 : c.revenuCentimes();
+    }
+
+    private static long avis(ContributionFormation c) {
+        return c == null ? 0 : c.nombreAvis();
+    }
+
+    private static long notes(ContributionFormation c) {
+        return c == null ? 0 : c.sommeNotes();
+    }
+}
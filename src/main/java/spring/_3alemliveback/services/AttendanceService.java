@@ -0,0 +1,358 @@
+package spring._3alemliveback.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring._3alemliveback.dto.formation.FormationLiveView;
+import spring._3alemliveback.dto.live.PresenceParticipantDTO;
+import spring._3alemliveback.dto.register.UserVersionView;
+import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.exceptions.AccessDeniedException;
+import spring._3alemliveback.exceptions.FormationNotFoundException;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+import spring._3alemliveback.exceptions.UserNotFoundException;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.PresenceBatchRepository;
+import spring._3alemliveback.repo.PresenceBatchRepository.Intervalle;
+import spring._3alemliveback.repo.PresenceRepository;
+import spring._3alemliveback.repo.UserRepository;
+import spring._3alemliveback.util.TransactionUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Présence des participants aux sessions en direct, à partir des battements envoyés par leur
+ * client toutes les 15 à 30 s. Un battement ne fait que prolonger en mémoire l'intervalle de
+ * présence du participant (ou en ouvrir un nouveau après une coupure de plus de
+ * app.attendance.gap-seconds) ; un passage planifié (app.attendance.flush-ms) écrit en un lot
+ * JDBC les intervalles modifiés depuis le précédent, y compris ceux encore ouverts. Un arrêt
+ * brutal perd donc au plus une période de vidage. Le vidage a son propre thread : il ne partage
+ * pas le pool des tâches @Scheduled (spring.task.scheduling.pool.size) avec les appels Google ou
+ * la reconstruction des recommandations, qui pourraient le retarder.
+ * <p>
+ * Une seule instance : si les battements d'un participant se répartissent entre deux instances, chacune
+ * ouvre son propre intervalle et les deux se chevauchent ; le SUM(secondes) de getPresences compte
+ * alors la même présence deux fois.
+ */
+@Service
+@Slf4j
+public class AttendanceService {
+
+    // Session terminée gardée en mémoire pour refuser sans requête les battements des clients restés ouverts
+    private static final Duration RETENTION_SESSION_FERMEE = Duration.ofHours(1);
+
+    /**
+     * Intervalle courant d'un participant (instants en ms), protégé par son propre moniteur.
+     */
+    private static final class Suivi {
+        private long debut;
+        private long dernier;
+        private boolean modifie = true;
+        private boolean retire;
+
+        private Suivi(long maintenant) {
+            this.debut = maintenant;
+            this.dernier = maintenant;
+        }
+    }
+
+    // Clé de l'upsert des présences
+    private record Cle(Long formationId, Long userId, LocalDateTime debut) {
+    }
+
+    private static final class Session {
+        private final Map<Long, Suivi> participants = new ConcurrentHashMap<>();
+        // Email -> id : pas de lecture en base à chaque battement
+        private final Map<String, Long> identifiants = new ConcurrentHashMap<>();
+        private volatile long fermeeLe;
+    }
+
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    // Intervalles interrompus par une coupure, à écrire au prochain vidage (au plus maxEnAttente)
+    private final ConcurrentLinkedQueue<Intervalle> clos = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nombreClos = new AtomicInteger();
+    // Lot refusé par la base, repris en tête du vidage suivant (accédé sous le verrou de vider())
+    private final List<Intervalle> enEchec = new ArrayList<>();
+    private final FormationRepository formationRepository;
+    private final UserRepository userRepository;
+    private final PresenceRepository presenceRepository;
+    private final PresenceBatchRepository presenceBatchRepository;
+    private final MembershipService membershipService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry registry;
+    private final Counter battements;
+    private final Counter abandonnes;
+    private final ScheduledExecutorService planificateur;
+    private final long coupureMs;
+    private final long vidageMs;
+    private final int maxEnAttente;
+
+    public AttendanceService(FormationRepository formationRepository,
+                             UserRepository userRepository,
+                             PresenceRepository presenceRepository,
+                             PresenceBatchRepository presenceBatchRepository,
+                             MembershipService membershipService,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry registry,
+                             @Value("${app.attendance.gap-seconds:75}") long coupureSecondes,
+                             @Value("${app.attendance.max-pending:200000}") int maxEnAttente,
+                             @Value("${app.attendance.flush-ms:10000}") long vidageMs) {
+        this.formationRepository = formationRepository;
+        this.userRepository = userRepository;
+        this.presenceRepository = presenceRepository;
+        this.presenceBatchRepository = presenceBatchRepository;
+        this.membershipService = membershipService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.registry = registry;
+        this.coupureMs = TimeUnit.SECONDS.toMillis(coupureSecondes);
+        this.maxEnAttente = maxEnAttente;
+        this.vidageMs = vidageMs;
+        this.battements = Counter.builder("attendance.heartbeats")
+                .description("Battements de présence acceptés")
+                .register(registry);
+        this.abandonnes = Counter.builder("attendance.intervals.dropped")
+                .description("Intervalles de présence abandonnés faute de pouvoir les écrire")
+                .register(registry);
+        this.planificateur = Executors.newSingleThreadScheduledExecutor(tache -> {
+            Thread thread = new Thread(tache, "attendance-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        planificateur.scheduleWithFixedDelay(() -> {
+            try {
+                vider();
+            } catch (RuntimeException e) {
+                log.error("Vidage des présences impossible", e);
+            }
+        }, vidageMs, vidageMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Battement d'un participant : aucune écriture en base, contrôle d'appartenance sur l'index en mémoire.
+     */
+    public void battement(Long formationId, String userEmail) {
+        Session session = session(formationId);
+        if (session.fermeeLe != 0) {
+            throw new InvalidOperationException("La session en direct de cette formation est terminée");
+        }
+        Long userId = identifiant(session, userEmail);
+        if (!membershipService.estParticipant(formationId, userId)) {
+            throw new AccessDeniedException("Vous n'êtes pas inscrit à cette formation");
+        }
+        long maintenant = System.currentTimeMillis();
+        while (true) {
+            Suivi suivi = session.participants.computeIfAbsent(userId, id -> new Suivi(maintenant));
+            synchronized (suivi) {
+                if (suivi.retire) {
+                    // Retiré par le vidage entre la lecture et le verrou : on en crée un nouveau
+                    continue;
+                }
+                if (maintenant - suivi.dernier > coupureMs) {
+                    // Coupure : l'intervalle précédent se termine à son dernier battement
+                    cloturer(intervalle(formationId, userId, suivi));
+                    suivi.debut = maintenant;
+                }
+                suivi.dernier = Math.max(suivi.dernier, maintenant);
+                suivi.modifie = true;
+                break;
+            }
+        }
+        battements.increment();
+    }
+
+    /**
+     * Présence par participant, pour le formateur (à app.attendance.flush-ms près pendant la session).
+     */
+    @Transactional(readOnly = true)
+    public List<PresenceParticipantDTO> getPresences(Long formationId, String userEmail) {
+        Formation formation = formationRepository.findById(formationId)
+                .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée"));
+        Long userId = userRepository.findVersionByEmail(userEmail)
+                .map(UserVersionView::getId)
+                .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé avec l'email : " + userEmail));
+        if (!formation.getFormateur().getId().equals(userId)) {
+            throw new AccessDeniedException("Vous n'êtes pas le formateur de cette formation");
+        }
+        return presenceRepository.resumer(formationId).stream()
+                .map(v -> PresenceParticipantDTO.builder()
+                        .userId(v.getUserId())
+                        .arrivee(v.getArrivee())
+                        .depart(v.getDepart())
+                        .minutesPresent(v.getSecondes() == null ? 0 : v.getSecondes() / 60)
+                        .intervalles(v.getIntervalles())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Fin de session (transaction de terminerFormation) : après commit, plus aucun battement
+     * accepté et tous les intervalles sont écrits.
+     */
+    public void fermerSession(Long formationId) {
+        TransactionUtils.afterCommit(() -> {
+            sessions.computeIfAbsent(formationId, id -> new Session()).fermeeLe = System.currentTimeMillis();
+            vider();
+        });
+    }
+
+    // Dans la transaction de suppression de la formation
+    public void supprimerSession(Long formationId) {
+        presenceRepository.deleteByFormationId(formationId);
+        TransactionUtils.afterCommit(() -> {
+            sessions.remove(formationId);
+            for (Intervalle intervalle : clos) {
+                if (intervalle.formationId().equals(formationId) && clos.remove(intervalle)) {
+                    nombreClos.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    // Vidage bloqué (base indisponible) : au-delà de maxEnAttente, les nouvelles coupures sont abandonnées
+    private void cloturer(Intervalle intervalle) {
+        if (nombreClos.incrementAndGet() > maxEnAttente) {
+            nombreClos.decrementAndGet();
+            abandonnes.increment();
+            return;
+        }
+        clos.add(intervalle);
+    }
+
+    public synchronized void vider() {
+        long debut = System.nanoTime();
+        long maintenant = System.currentTimeMillis();
+        // Lot précédent en échec d'abord : l'upsert ne fait qu'avancer les fins, l'ordre reste sans effet
+        List<Intervalle> intervalles = new ArrayList<>(enEchec);
+        enEchec.clear();
+        Intervalle intervalle;
+        while ((intervalle = clos.poll()) != null) {
+            nombreClos.decrementAndGet();
+            intervalles.add(intervalle);
+        }
+        sessions.forEach((formationId, session) -> {
+            boolean fermee = session.fermeeLe != 0;
+            session.participants.forEach((userId, suivi) -> {
+                synchronized (suivi) {
+                    if (suivi.modifie) {
+                        intervalles.add(intervalle(formationId, userId, suivi));
+                        suivi.modifie = false;
+                    }
+                    // Client silencieux au-delà de la coupure ou session terminée : intervalle définitif
+                    if (fermee || maintenant - suivi.dernier > coupureMs) {
+                        suivi.retire = true;
+                        session.participants.remove(userId, suivi);
+                    }
+                }
+            });
+            if (fermee && maintenant - session.fermeeLe > RETENTION_SESSION_FERMEE.toMillis()) {
+                sessions.remove(formationId, session);
+            }
+        });
+        if (intervalles.isEmpty()) {
+            return;
+        }
+        List<Intervalle> lot = fusionner(intervalles);
+        try {
+            transactionTemplate.executeWithoutResult(status -> presenceBatchRepository.enregistrer(lot));
+            log.debug("Présences : {} intervalle(s) écrit(s)", lot.size());
+        } catch (RuntimeException e) {
+            if (lot.size() <= maxEnAttente) {
+                log.warn("Écriture des présences reportée ({} intervalle(s)) : {}", lot.size(), e.getMessage());
+                enEchec.addAll(lot);
+            } else {
+                log.error("{} intervalle(s) de présence abandonné(s) : {}", lot.size(), e.getMessage());
+                abandonnes.increment(lot.size());
+            }
+        } finally {
+            Timer.builder("attendance.flush")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry)
+                    .record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Un intervalle repris d'un lot en échec et le même intervalle prolongé depuis partagent la clé
+     * de l'upsert : PostgreSQL refuse qu'une même commande ON CONFLICT modifie deux fois une ligne.
+     * Une seule entrée par clé, avec la fin la plus tardive.
+     */
+    private static List<Intervalle> fusionner(List<Intervalle> intervalles) {
+        Map<Cle, Intervalle> parCle = new LinkedHashMap<>();
+        for (Intervalle intervalle : intervalles) {
+            parCle.merge(new Cle(intervalle.formationId(), intervalle.userId(), intervalle.debut()), intervalle,
+                    (a, b) -> a.fin().isAfter(b.fin()) ? a : b);
+        }
+        return parCle.size() == intervalles.size() ? intervalles : new ArrayList<>(parCle.values());
+    }
+
+    @PreDestroy
+    public void arreter() throws InterruptedException {
+        planificateur.shutdown();
+        planificateur.awaitTermination(10, TimeUnit.SECONDS);
+        vider();
+    }
+
+    /**
+     * Session de la formation, créée au premier battement si la formation est EN_COURS.
+     */
+    private Session session(Long formationId) {
+        Session session = sessions.get(formationId);
+        if (session != null) {
+            return session;
+        }
+        return sessions.computeIfAbsent(formationId, id -> {
+            FormationStatus statut = formationRepository.findLiveById(id)
+                    .map(FormationLiveView::getStatut)
+                    .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée"));
+            if (statut != FormationStatus.EN_COURS) {
+                throw new InvalidOperationException("La présence n'est enregistrée que pendant la session en direct");
+            }
+            return new Session();
+        });
+    }
+
+    private Long identifiant(Session session, String userEmail) {
+        if (userEmail == null || userEmail.isBlank()) {
+            throw new UserNotFoundException("L'email de l'utilisateur ne peut pas être vide.");
+        }
+        return session.identifiants.computeIfAbsent(userEmail, email -> userRepository.findVersionByEmail(email)
+                .map(UserVersionView::getId)
+                .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé avec l'email : " + email)));
+    }
+
+    // Appelé sous le moniteur du suivi
+    private static Intervalle intervalle(Long formationId, Long userId, Suivi suivi) {
+        return new Intervalle(formationId, userId, horodatage(suivi.debut), horodatage(suivi.dernier));
+    }
+
+    private static LocalDateTime horodatage(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+}
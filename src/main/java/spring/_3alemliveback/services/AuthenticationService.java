@@ -1,5 +1,6 @@
 package spring._3alemliveback.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -7,26 +8,47 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j; // Importer Slf4j
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Importer Transactional
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import spring._3alemliveback.dto.common.BatchRequest;
+import spring._3alemliveback.dto.common.BatchResponse;
 import spring._3alemliveback.dto.register.*;
 import spring._3alemliveback.entities.Token;
 import spring._3alemliveback.entities.User;
 import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.events.DomainEventBus;
+import spring._3alemliveback.events.ExpertActivated;
+import spring._3alemliveback.events.UserRegistered;
+import spring._3alemliveback.events.UserVerified;
 import spring._3alemliveback.exceptions.EmailAlreadyExistsException;
+import spring._3alemliveback.exceptions.PreconditionFailedException;
 import spring._3alemliveback.exceptions.UserNotFoundException;
 import spring._3alemliveback.mapper.UserMapper;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.SparseQueryRepository;
 import spring._3alemliveback.repo.TokenRepository;
 import spring._3alemliveback.repo.UserRepository;
 import spring._3alemliveback.security.JwtService;
+import spring._3alemliveback.util.JsonArrayStreamer;
+import spring._3alemliveback.util.MergePatch;
+import spring._3alemliveback.util.ResourceVersion;
+import spring._3alemliveback.util.SparseProjection;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.UUID; // Importer UUID
 
 @Service
@@ -43,6 +65,12 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
+    private final DomainEventBus domainEventBus;
+    private final FormationRepository formationRepository;
+    private final SuggestionService suggestionService;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final SparseQueryRepository sparseQueryRepository;
+    private final ObjectMapper objectMapper;
 
     // Méthode d'enregistrement pour Apprenant
     @Transactional // Ajoutez Transactional
@@ -83,14 +111,8 @@ public class AuthenticationService {
         log.info("Tokens JWT générés et sauvegardés pour {}", savedUser.getEmail());
 
 
-        // Envoi du mail de vérification
-        try {
-            emailService.sendVerificationEmail(savedUser.getEmail(), savedUser.getVerificationToken());
-            log.info("Email de vérification envoyé à: {}", savedUser.getEmail());
-        } catch (Exception e) {
-            log.error("Échec de l'envoi de l'email de vérification à {}: {}", savedUser.getEmail(), e.getMessage(), e); // Logger l'exception complète
-            // Décidez comment gérer l'erreur d'envoi d'email (retirer l'utilisateur? marquer comme en attente d'email?)
-        }
+        // Mail de vérification envoyé après commit par VerificationEmailListener
+        domainEventBus.publier(new UserRegistered(savedUser.getId(), savedUser.getEmail(), savedUser.getRole()));
 
 
         return AuthenticationResponse.builder()
@@ -163,14 +185,8 @@ public class AuthenticationService {
         log.info("Tokens JWT générés et sauvegardés pour {}", savedUser.getEmail());
 
 
-        // Envoi du mail de vérification
-        try {
-            emailService.sendVerificationEmail(savedUser.getEmail(), savedUser.getVerificationToken());
-            log.info("Email de vérification envoyé à: {}", savedUser.getEmail());
-        } catch (Exception e) {
-            log.error("Échec de l'envoi de l'email de vérification à {}: {}", savedUser.getEmail(), e.getMessage(), e); // Logger l'exception complète
-            // Décidez comment gérer l'erreur d'envoi d'email
-        }
+        // Mail de vérification envoyé après commit par VerificationEmailListener
+        domainEventBus.publier(new UserRegistered(savedUser.getId(), savedUser.getEmail(), savedUser.getRole()));
 
 
         return AuthenticationResponse.builder()
@@ -248,6 +264,8 @@ public class AuthenticationService {
 
         user.setActive(true); // C'est maintenant que l'admin active l'expert
         userRepository.save(user);
+        suggestionService.synchroniserExpert(user);
+        domainEventBus.publier(new ExpertActivated(user.getId(), user.getEmail()));
         log.info("Compte expert activé par l'admin: {}", user.getEmail());
     }
 
@@ -273,13 +291,94 @@ public class AuthenticationService {
     }
     /**
      * Récupérer la liste des experts actifs (qui ont été validés par l'admin)
-     * @return Liste des experts actifs
+     * @return Liste des experts actifs, écrite en flux (curseur JDBC, transaction ouverte par le streamer)
      */
-    @Transactional(readOnly = true) // Lecture seule
-    public List<User> getAllExperts() {
+    public StreamingResponseBody streamAllExperts(MediaType format) {
         log.info("Récupération de tous les experts actifs");
-        return userRepository.findByRoleAndIsVerifiedTrue(Role.EXPERT);
+        return jsonArrayStreamer.streamParLots(format, () -> userRepository.streamDtosByRoleAndIsVerifiedTrue(Role.EXPERT),
+                this::completerCollections);
+    }
+
+    /**
+     * Domaines et certifications d'un lot de la liste en flux : deux requêtes par lot, pas par expert.
+     */
+    private List<UserDto> completerCollections(List<UserDto> lot) {
+        Map<Long, UserDto> parId = new HashMap<>();
+        for (UserDto dto : lot) {
+            dto.setDomaines(new ArrayList<>());
+            dto.setCertifications(new ArrayList<>());
+            parId.put(dto.getId(), dto);
+        }
+        userRepository.findDomainesByIds(parId.keySet())
+                .forEach(ligne -> parId.get((Long) ligne[0]).getDomaines().add((String) ligne[1]));
+        userRepository.findCertificationsByIds(parId.keySet())
+                .forEach(ligne -> parId.get((Long) ligne[0]).getCertifications().add((String) ligne[1]));
+        return lot;
+    }
+
+    /**
+     * Variante ?fields= : seules les colonnes des champs demandés sont lues (cf. UserFields).
+     */
+    public StreamingResponseBody streamAllExperts(MediaType format, String fields) {
+        SparseProjection.Selection selection = UserFields.PROJECTION.selection(fields);
+        return jsonArrayStreamer.stream(format, () -> sparseQueryRepository.streamer(selection,
+                "WHERE u.role = :role AND u.isVerified = true ORDER BY u.id", Map.of("role", Role.EXPERT)),
+                Function.identity());
+    }
+
+    @Transactional(readOnly = true) // Lecture seule
+    public Map<String, Object> getUserById(Long id, String fields) {
+        return sparseQueryRepository.trouver(UserFields.PROJECTION.selection(fields), "WHERE u.id = :id", Map.of("id", id))
+                .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé"));
+    }
+
+    @Transactional(readOnly = true) // Lecture seule
+    public Map<String, Object> getUserByEmail(String email, String fields) {
+        return sparseQueryRepository.trouver(UserFields.PROJECTION.selection(fields), "WHERE u.email = :email", Map.of("email", email))
+                .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé"));
+    }
+    @Transactional(readOnly = true) // Lecture seule
+    public byte[] getProfileImage(Long id) {
+        return userRepository.findProfileImageById(id)
+                .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé"));
+    }
+
+    /**
+     * Validateurs HTTP d'un profil, lus sans charger l'utilisateur ni ses collections EAGER.
+     */
+    @Transactional(readOnly = true) // Lecture seule
+    public ResourceVersion getVersionUtilisateur(Long id) {
+        return versionUtilisateur(userRepository.findVersionById(id));
+    }
+
+    @Transactional(readOnly = true) // Lecture seule
+    public ResourceVersion getVersionUtilisateurParEmail(String email) {
+        return versionUtilisateur(userRepository.findVersionByEmail(email));
+    }
+
+    private static ResourceVersion versionUtilisateur(Optional<UserVersionView> vue) {
+        UserVersionView v = vue.orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé"));
+        return versionUtilisateur(v.getId(), v.getVersion(), v.getUpdatedAt());
+    }
+
+    private static ResourceVersion versionUtilisateur(Long id, Long version, LocalDateTime updatedAt) {
+        return ResourceVersion.of("user-" + id + "-" + version, updatedAt);
     }
+
+    /**
+     * Lecture par lot : une requête IN, collections des profils chargées par lots.
+     */
+    @Transactional(readOnly = true)
+    public BatchResponse<UserDto> getUsersByIds(BatchRequest request) {
+        List<Long> ids = request.idsDistincts();
+        if (ids.isEmpty()) {
+            return BatchResponse.of(ids, Map.of());
+        }
+        Map<Long, UserDto> trouves = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, userMapper::toDto));
+        return BatchResponse.of(ids, trouves);
+    }
+
     @Transactional(readOnly = true) // Lecture seule
     public Optional<User> getUserById(Long id) {
         log.debug("Recherche utilisateur par ID: {}", id);
@@ -337,6 +436,7 @@ public class AuthenticationService {
 
 
         userRepository.save(user);
+        domainEventBus.publier(new UserVerified(user.getId(), user.getEmail(), user.getRole()));
         log.info("Compte vérifié et mis à jour avec succès pour: {}", user.getEmail()); // Utiliser le logger
     }
 
@@ -414,6 +514,8 @@ public class AuthenticationService {
                     return new UserNotFoundException("User not found");
                 });
 
+        String ancienNomComplet = FormationService.nomComplet(user);
+
         // Update user fields from the update request DTO
         if (updateRequest.getNom() != null) user.setNom(updateRequest.getNom());
         if (updateRequest.getPrenom() != null) user.setPrenom(updateRequest.getPrenom());
@@ -426,36 +528,12 @@ public class AuthenticationService {
 
         // Handle profile image update safely
         if (updateRequest.getProfileImage() != null) {
-            if (!updateRequest.getProfileImage().isEmpty()) {
-                try {
-                    byte[] decodedImage = java.util.Base64.getDecoder().decode(updateRequest.getProfileImage());
-                    user.setProfileImage(decodedImage);
-                    log.debug("Image de profil décodée et définie.");
-                } catch (IllegalArgumentException e) {
-                    log.error("Erreur de décodage Base64 pour l'image de profil.", e);
-                    throw new RuntimeException("Chaîne Base64 invalide pour l'image de profil", e);
-                }
-            } else {
-                user.setProfileImage(null);
-                log.debug("Image de profil définie à null.");
-            }
+            user.setProfileImage(decoderBase64(updateRequest.getProfileImage(), "l'image de profil"));
         }
 
         // Handle CV update safely
         if (updateRequest.getCvPdf() != null) {
-            if (!updateRequest.getCvPdf().isEmpty()) {
-                try {
-                    byte[] decodedCv = java.util.Base64.getDecoder().decode(updateRequest.getCvPdf());
-                    user.setCvPdf(decodedCv);
-                    log.debug("CV décodé et défini.");
-                } catch (IllegalArgumentException e) {
-                    log.error("Erreur de décodage Base64 pour le CV.", e);
-                    throw new RuntimeException("Chaîne Base64 invalide pour le CV", e);
-                }
-            } else {
-                user.setCvPdf(null);
-                log.debug("CV défini à null.");
-            }
+            user.setCvPdf(decoderBase64(updateRequest.getCvPdf(), "le CV"));
         }
 
         // Handle certifications update
@@ -472,7 +550,71 @@ public class AuthenticationService {
 
         // Save the updated user entity
         User updatedUser = userRepository.save(user);
+        synchroniserNomFormateur(updatedUser, ancienNomComplet);
         log.info("Profil utilisateur {} mis à jour avec succès.", userEmail);
         return updatedUser;
     }
+
+    /**
+     * Mise à jour partielle du profil (JSON Merge Patch) : seuls les champs fournis sont modifiés et,
+     * avec {@code @DynamicUpdate}, photo et CV ne sont réécrits que s'ils figurent dans le patch
+     * (null les efface). If-Match, optionnel, est comparé à l'ETag de GET /profile ; une modification
+     * concurrente entre lecture et flush échoue sur @Version.
+     */
+    @Transactional
+    public User patchUserProfile(String userEmail, JsonNode corps, String ifMatch) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+        if (ifMatch != null && !versionUtilisateur(user.getId(), user.getVersion(), user.getUpdatedAt()).correspond(ifMatch)) {
+            throw new PreconditionFailedException("Le profil a été modifié depuis sa lecture");
+        }
+
+        MergePatch<UserProfileUpdateRequest> patch = MergePatch.lire(objectMapper, corps, UserProfileUpdateRequest.class,
+                "nom", "prenom");
+        UserProfileUpdateRequest valeurs = patch.valeurs();
+        String ancienNomComplet = FormationService.nomComplet(user);
+
+        if (patch.contient("nom")) user.setNom(valeurs.getNom());
+        if (patch.contient("prenom")) user.setPrenom(valeurs.getPrenom());
+        if (patch.contient("phone")) user.setPhone(valeurs.getPhone());
+        if (patch.contient("profileDescription")) user.setProfileDescription(valeurs.getProfileDescription());
+        if (patch.contient("niveauEtude")) user.setNiveauEtude(valeurs.getNiveauEtude());
+        if (patch.contient("experience")) user.setExperience(valeurs.getExperience());
+        if (patch.contient("linkedinUrl")) user.setLinkedinUrl(valeurs.getLinkedinUrl());
+        if (patch.contient("portfolioUrl")) user.setPortfolioUrl(valeurs.getPortfolioUrl());
+        if (patch.contient("profileImage")) user.setProfileImage(decoderBase64(valeurs.getProfileImage(), "l'image de profil"));
+        if (patch.contient("cvPdf")) user.setCvPdf(decoderBase64(valeurs.getCvPdf(), "le CV"));
+        if (patch.contient("certifications")) user.setCertifications(valeurs.getCertifications());
+        if (patch.contient("domaines")) user.setDomaines(valeurs.getDomaines());
+
+        User updatedUser = userRepository.saveAndFlush(user);
+        synchroniserNomFormateur(updatedUser, ancienNomComplet);
+        log.info("Profil utilisateur {} modifié partiellement.", userEmail);
+        return updatedUser;
+    }
+
+    // Répercuter le nouveau nom sur les formations de l'expert (index de recherche plein texte)
+    private void synchroniserNomFormateur(User user, String ancienNomComplet) {
+        String nouveauNomComplet = FormationService.nomComplet(user);
+        if (user.getRole() == Role.EXPERT && !nouveauNomComplet.equals(ancienNomComplet)) {
+            int maj = formationRepository.updateFormateurNom(user.getId(), nouveauNomComplet, LocalDateTime.now());
+            log.debug("Nom du formateur mis à jour sur {} formation(s).", maj);
+            suggestionService.synchroniserExpert(user);
+        }
+    }
+
+    /**
+     * @return les octets décodés, null pour une chaîne vide ou null (fichier supprimé)
+     */
+    private static byte[] decoderBase64(String base64, String libelle) {
+        if (base64 == null || base64.isEmpty()) {
+            return null;
+        }
+        try {
+            return java.util.Base64.getDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            log.error("Erreur de décodage Base64 pour {}.", libelle, e);
+            throw new RuntimeException("Chaîne Base64 invalide pour " + libelle, e);
+        }
+    }
 }
\ No newline at end of file
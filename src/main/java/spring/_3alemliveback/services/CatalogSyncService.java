@@ -0,0 +1,121 @@
+package spring._3alemliveback.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import spring._3alemliveback.dto.formation.FormationChangeView;
+import spring._3alemliveback.dto.formation.FormationChangesResponse;
+import spring._3alemliveback.dto.formation.FormationDTO;
+import spring._3alemliveback.dto.formation.FormationSummaryRow;
+import spring._3alemliveback.entities.FormationTombstone;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.FormationTombstoneRepository;
+import spring._3alemliveback.util.JournalCursor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Synchronisation incrémentale du catalogue (formations approuvées) pour les clients qui en
+ * gardent une copie locale : seules les formations modifiées ou supprimées depuis un curseur
+ * sont renvoyées.
+ * <p>
+ * Le journal est ordonné par transaction (journal_xid) et lu jusqu'à la plus ancienne transaction
+ * encore en cours : une modification validée après une lecture n'est jamais derrière le curseur.
+ */
+@Service
+@Slf4j
+public class CatalogSyncService {
+
+    private static final int TAILLE_PAGE_MAX = 500;
+
+    private final FormationRepository formationRepository;
+    private final FormationTombstoneRepository tombstoneRepository;
+    private final Duration retention;
+
+    public CatalogSyncService(FormationRepository formationRepository,
+                              FormationTombstoneRepository tombstoneRepository,
+                              @Value("${app.sync.tombstone-retention-days:30}") long retentionJours) {
+        this.formationRepository = formationRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.retention = Duration.ofDays(retentionJours);
+    }
+
+    /**
+     * À appeler dans la transaction qui supprime la formation.
+     */
+    public void enregistrerSuppression(Long formationId) {
+        tombstoneRepository.save(FormationTombstone.builder()
+                .formationId(formationId)
+                .deletedAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * @param curseur nextCursor de la réponse précédente, null pour une synchronisation complète
+     */
+    @Transactional(readOnly = true)
+    public FormationChangesResponse getChangements(String curseur, int limit) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        JournalCursor depart = curseur == null || curseur.isBlank() ? JournalCursor.DEBUT : JournalCursor.decode(curseur);
+        boolean resynchronisation = false;
+        if (curseur != null && !curseur.isBlank() && depart.emis().isBefore(maintenant.minus(retention))) {
+            // Les tombstones antérieures ont pu être purgées : repartir de zéro
+            depart = JournalCursor.DEBUT;
+            resynchronisation = true;
+        }
+
+        int taille = Math.min(Math.max(limit, 1), TAILLE_PAGE_MAX);
+        long horizon = formationRepository.findHorizonJournal();
+        List<FormationChangeView> lignes = formationRepository.findChangements(depart.xid(), depart.id(), horizon, taille + 1);
+        boolean hasMore = lignes.size() > taille;
+        List<FormationChangeView> page = hasMore ? lignes.subList(0, taille) : lignes;
+
+        List<Long> modifiees = page.stream()
+                .filter(l -> !Boolean.TRUE.equals(l.getSupprime()))
+                .map(FormationChangeView::getId)
+                .toList();
+        Map<Long, FormationSummaryRow> resumes = modifiees.isEmpty() ? Map.of()
+                : formationRepository.findSummariesByIds(modifiees).stream()
+                        .collect(Collectors.toMap(FormationSummaryRow::getId, Function.identity()));
+
+        List<FormationDTO> catalogue = new ArrayList<>();
+        List<Long> supprimees = new ArrayList<>();
+        for (FormationChangeView ligne : page) {
+            FormationSummaryRow resume = resumes.get(ligne.getId());
+            if (resume != null && resume.getStatut() == FormationStatus.APPROUVEE) {
+                catalogue.add(FormationDTO.fromSummary(resume));
+            } else {
+                // Supprimée, ou statut hors catalogue (en attente, rejetée, démarrée...)
+                supprimees.add(ligne.getId());
+            }
+        }
+
+        FormationChangeView derniere = page.isEmpty() ? null : page.get(page.size() - 1);
+        JournalCursor suivant = hasMore
+                ? new JournalCursor(derniere.getJournalXid(), derniere.getId(), maintenant)
+                // Tout le journal avant l'horizon a été lu
+                : JournalCursor.avant(horizon, maintenant);
+        return FormationChangesResponse.builder()
+                .modifiees(catalogue)
+                .supprimees(supprimees)
+                .nextCursor(suivant.encode())
+                .hasMore(hasMore)
+                .resynchronisation(resynchronisation)
+                .build();
+    }
+
+    @Scheduled(cron = "${app.sync.tombstone-purge-cron:0 30 3 * * *}")
+    public void purgerTombstones() {
+        int purgees = tombstoneRepository.purgerAvant(LocalDateTime.now().minus(retention));
+        log.info("{} tombstone(s) de formation purgée(s)", purgees);
+    }
+}
@@ -8,7 +8,6 @@ import org.springframework.stereotype.Service;
 import spring._3alemliveback.dto.chatbot.ChatbotIntent;
 import spring._3alemliveback.dto.chatbot.ChatbotRequest;
 import spring._3alemliveback.dto.chatbot.ChatbotResponse;
-import spring._3alemliveback.entities.Formation;
 import spring._3alemliveback.entities.User;
 import spring._3alemliveback.enums.FormationCategory;
 import spring._3alemliveback.enums.Role;
@@ -30,6 +29,7 @@ public class ChatbotService {
     private final FormationRepository formationRepository;
     private final UserRepository userRepository;
     private final AvisRepository avisRepository;
+    private final RatingService ratingService;
 
     public ChatbotResponse processQuestion(ChatbotRequest request) {
         String question = request.getQuestion();
@@ -105,15 +105,12 @@ public class ChatbotService {
     }
 
     private List<Map<String, Object>> getTopRatedFormations() {
-        // Cette requête nécessite probablement une méthode personnalisée dans le repository
-        // ou une implémentation JPA spécifique pour calculer la moyenne des avis
-        List<Object[]> results = formationRepository.findTopRatedFormations(5); // Top 5
-
-        return results.stream().map(result -> {
+        // Classement maintenu en mémoire par RatingService : aucune agrégation sur la table avis
+        return ratingService.getTopRated(5).stream().map(formation -> {
             Map<String, Object> map = new HashMap<>();
-            map.put("id", ((Formation) result[0]).getId());
-            map.put("titre", ((Formation) result[0]).getTitre());
-            map.put("note_moyenne", (Double) result[1]);
+            map.put("id", formation.getId());
+            map.put("titre", formation.getTitre());
+            map.put("note_moyenne", formation.getNoteMoyenne());
             return map;
         }).collect(Collectors.toList());
     }
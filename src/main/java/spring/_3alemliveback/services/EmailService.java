@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
@@ -27,6 +28,61 @@ public class EmailService {
                 + "<a href=\"" + verificationLink + "\">Vérifier mon compte</a>"
                 + "<p>Si vous n'avez pas demandé cela, ignorez cet email.</p>";
 
+        sendHtmlEmail(toEmail, subject, content);
+    }
+
+    /**
+     * Notifie un apprenant qu'une place s'est libérée et qu'il a été inscrit depuis la liste d'attente.
+     */
+    public void sendWaitlistPromotionEmail(String toEmail, String formationTitre) {
+        String subject = "Une place s'est libérée : " + formationTitre;
+        String content = "<p>Bonjour,</p>"
+                + "<p>Bonne nouvelle ! Une place s'est libérée pour la formation <strong>" + HtmlUtils.htmlEscape(formationTitre) + "</strong>.</p>"
+                + "<p>Vous avez été automatiquement inscrit depuis la liste d'attente.</p>"
+                + "<p>Si vous ne souhaitez plus participer, pensez à vous désinscrire afin de libérer la place.</p>";
+
+        sendHtmlEmail(toEmail, subject, content);
+    }
+
+    /**
+     * Notifie un expert que son compte a été validé par un admin.
+     */
+    public void sendExpertActivationEmail(String toEmail) {
+        String subject = "Votre compte expert est activé";
+        String content = "<p>Bonjour,</p>"
+                + "<p>Votre compte expert a été validé par notre équipe.</p>"
+                + "<p>Vous pouvez dès maintenant proposer vos formations.</p>";
+
+        sendHtmlEmail(toEmail, subject, content);
+    }
+
+    /**
+     * Notifie un expert que sa formation a été approuvée et est ouverte aux inscriptions.
+     */
+    public void sendFormationApprovedEmail(String toEmail, String formationTitre) {
+        String subject = "Formation approuvée : " + formationTitre;
+        String content = "<p>Bonjour,</p>"
+                + "<p>Votre formation <strong>" + HtmlUtils.htmlEscape(formationTitre) + "</strong> a été approuvée.</p>"
+                + "<p>Elle est désormais visible dans le catalogue et ouverte aux inscriptions.</p>";
+
+        sendHtmlEmail(toEmail, subject, content);
+    }
+
+    /**
+     * Prévient un participant que la session a démarré.
+     */
+    public void sendFormationStartedEmail(String toEmail, String formationTitre, String urlMeet) {
+        String subject = "La formation commence : " + formationTitre;
+        String content = "<p>Bonjour,</p>"
+                + "<p>La session <strong>" + HtmlUtils.htmlEscape(formationTitre) + "</strong> vient de démarrer.</p>"
+                + (urlMeet != null
+                        ? "<a href=\"" + urlMeet + "\">Rejoindre la session</a>"
+                        : "<p>Le lien de la session est disponible sur la page de la formation.</p>");
+
+        sendHtmlEmail(toEmail, subject, content);
+    }
+
+    private void sendHtmlEmail(String toEmail, String subject, String content) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true);
@@ -0,0 +1,138 @@
+package spring._3alemliveback.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import spring._3alemliveback.dto.formation.ExpertStatsResponse;
+import spring._3alemliveback.dto.formation.FormationExpertStatsDTO;
+import spring._3alemliveback.entities.StatistiqueFormation;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.repo.StatistiqueFormationRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statistiques des experts (remplissage, notes, sessions à venir, revenu estimé), lues dans
+ * statistiques_formations au lieu de charger les formations avec leurs participants et avis.
+ * Les écritures se font dans la transaction de l'inscription, de l'avis ou du changement de
+ * statut qui les motive : le read model ne diverge pas des données sources.
+ */
+@Service
+@Slf4j
+public class ExpertStatsService {
+
+    private final StatistiqueFormationRepository statistiqueRepository;
+
+    @Value("${app.expert-stats.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    public ExpertStatsService(StatistiqueFormationRepository statistiqueRepository) {
+        this.statistiqueRepository = statistiqueRepository;
+    }
+
+    /**
+     * Rattrapage des formations créées avant le read model ou modifiées hors application.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialiser() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        int corrigees = statistiqueRepository.reconstruire();
+        int orphelines = statistiqueRepository.purgerOrphelines();
+        log.info("Statistiques experts recalculées : {} ligne(s) corrigée(s), {} orpheline(s) supprimée(s)", corrigees, orphelines);
+    }
+
+    /**
+     * Après création, modification ou changement de statut d'une formation.
+     */
+    @Transactional
+    public void synchroniserFormation(Long formationId) {
+        statistiqueRepository.synchroniser(formationId);
+    }
+
+    @Transactional
+    public void enregistrerInscriptions(Long formationId, int delta) {
+        statistiqueRepository.ajouterInscrits(formationId, delta);
+    }
+
+    @Transactional
+    public void enregistrerNote(Long formationId, int note) {
+        statistiqueRepository.ajouterNote(formationId, note);
+    }
+
+    @Transactional
+    public void retirerFormation(Long formationId) {
+        statistiqueRepository.supprimer(formationId);
+    }
+
+    @Transactional(readOnly = true)
+    public ExpertStatsResponse getStatistiques(Long expertId) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<FormationExpertStatsDTO> formations = new ArrayList<>();
+        int nombre = 0;
+        int aVenir = 0;
+        long inscrits = 0;
+        long places = 0;
+        long sommeNotes = 0;
+        long nombreAvis = 0;
+        double revenu = 0;
+        for (StatistiqueFormation s : statistiqueRepository.findByFormateurIdOrderByDateDebutDesc(expertId)) {
+            FormationExpertStatsDTO dto = toDto(s, maintenant);
+            formations.add(dto);
+            if (s.getStatut() == FormationStatus.REJETEE) {
+                continue;
+            }
+            nombre++;
+            if (dto.isSessionAVenir()) {
+                aVenir++;
+            }
+            inscrits += s.getInscrits();
+            places += s.getPlaces() == null ? 0 : s.getPlaces();
+            revenu += dto.getRevenuEstime();
+            sommeNotes += s.getRatingSum();
+            nombreAvis += s.getRatingCount();
+        }
+        return ExpertStatsResponse.builder()
+                .expertId(expertId)
+                .nombreFormations(nombre)
+                .sessionsAVenir(aVenir)
+                .inscrits(inscrits)
+                .places(places)
+                .tauxRemplissage(places > 0 ? (double) inscrits / places : 0)
+                .noteMoyenne(nombreAvis > 0 ? arrondir((double) sommeNotes / nombreAvis) : 0)
+                .nombreAvis(nombreAvis)
+                .revenuEstime(revenu)
+                .formations(formations)
+                .build();
+    }
+
+    private static FormationExpertStatsDTO toDto(StatistiqueFormation s, LocalDateTime maintenant) {
+        return FormationExpertStatsDTO.builder()
+                .formationId(s.getFormationId())
+                .titre(s.getTitre())
+                .statut(s.getStatut())
+                .dateDebut(s.getDateDebut())
+                .dateFin(s.getDateFin())
+                .places(s.getPlaces())
+                .inscrits(s.getInscrits())
+                .tauxRemplissage(s.getPlaces() != null && s.getPlaces() > 0 ? (double) s.getInscrits() / s.getPlaces() : 0)
+                .noteMoyenne(s.getRatingCount() > 0 ? arrondir((double) s.getRatingSum() / s.getRatingCount()) : 0)
+                .nombreAvis(s.getRatingCount())
+                .prix(s.getPrix())
+                .revenuEstime(s.getPrix() == null ? 0 : s.getPrix() * s.getInscrits())
+                .sessionAVenir(s.getStatut() == FormationStatus.APPROUVEE
+                        && s.getDateDebut() != null && s.getDateDebut().isAfter(maintenant))
+                .build();
+    }
+
+    private static double arrondir(double note) {
+        return Math.round(note * 100) / 100d;
+    }
+}
@@ -1,36 +1,85 @@
 package spring._3alemliveback.services;// package spring._3alemliveback.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Import Transactional
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import spring._3alemliveback.chat.ChatHub;
+import spring._3alemliveback.chat.ChatParticipant;
+import spring._3alemliveback.dto.common.BatchRequest;
+import spring._3alemliveback.dto.common.BatchResponse;
+import spring._3alemliveback.dto.common.PageResponse;
+import spring._3alemliveback.dto.formation.AvisPageResponse;
 import spring._3alemliveback.dto.formation.AvisRequest;
+import spring._3alemliveback.dto.formation.AvisResumeDTO;
+import spring._3alemliveback.dto.formation.AvisResumeView;
+import spring._3alemliveback.dto.formation.CreneauDTO;
+import spring._3alemliveback.dto.formation.CreneauView;
+import spring._3alemliveback.dto.formation.DisponibilitesResponse;
+import spring._3alemliveback.dto.formation.ExpertStatsResponse;
 import spring._3alemliveback.dto.formation.FormationDTO; // Import FormationDTO
+import spring._3alemliveback.dto.formation.FormationFields;
+import spring._3alemliveback.dto.formation.FormationListVersionView;
+import spring._3alemliveback.dto.formation.FormationLiveView;
 import spring._3alemliveback.dto.formation.FormationRequest;
 import spring._3alemliveback.dto.formation.FormationResponseDTO;
+import spring._3alemliveback.dto.formation.FormationSearchResultDTO;
+import spring._3alemliveback.dto.formation.FormationVersionView;
+import spring._3alemliveback.dto.formation.InscriptionResponse;
+import spring._3alemliveback.dto.formation.ParticipantCountView;
 import spring._3alemliveback.entities.Avis;
 import spring._3alemliveback.entities.Formation;
 import spring._3alemliveback.entities.User;
+import spring._3alemliveback.entities.WaitlistEntry;
+import spring._3alemliveback.enums.FormationCategory;
 import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.MeetStatus;
+import spring._3alemliveback.enums.InscriptionStatus;
 import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.events.AvisAdded;
+import spring._3alemliveback.events.DomainEventBus;
+import spring._3alemliveback.events.Enrolled;
+import spring._3alemliveback.events.WaitlistPromoted;
+import spring._3alemliveback.events.FormationApproved;
+import spring._3alemliveback.events.FormationCreated;
+import spring._3alemliveback.events.FormationStarted;
 import spring._3alemliveback.exceptions.AccessDeniedException;
 import spring._3alemliveback.exceptions.FormationNotFoundException; // Import FormationNotFoundException
 import spring._3alemliveback.exceptions.InvalidOperationException;
+import spring._3alemliveback.exceptions.PreconditionFailedException;
+import spring._3alemliveback.exceptions.ScheduleConflictException;
 import spring._3alemliveback.exceptions.UserNotFoundException;
+import spring._3alemliveback.live.FormationLiveHub;
 import spring._3alemliveback.repo.AvisRepository;
 import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.SparseQueryRepository;
 import spring._3alemliveback.repo.UserRepository;
-import spring._3alemliveback.services.GoogleMeetService;
-
-import java.io.IOException;
-import java.security.GeneralSecurityException;
+import spring._3alemliveback.repo.WaitlistEntryRepository;
+import spring._3alemliveback.util.JsonArrayStreamer;
+import spring._3alemliveback.util.KeysetCursor;
+import spring._3alemliveback.util.MergePatch;
+import spring._3alemliveback.util.ResourceVersion;
+import spring._3alemliveback.util.SparseProjection;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -41,7 +90,25 @@ public class FormationService {
     private final UserRepository userRepository;
     private final AvisRepository avisRepository;
     private static final Logger log = LoggerFactory.getLogger(FormationService.class);
-    private final GoogleMeetService googleMeetService;
+    private static final int TAILLE_PAGE_MAX = 100;
+    private static final int TAILLE_PAGE_AVIS_MAX = 50;
+    private static final Duration FENETRE_DISPONIBILITES_MAX = Duration.ofDays(366);
+    private static final String CONTRAINTE_CRENEAU = "formations_creneau_formateur_excl";
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final SuggestionService suggestionService;
+    private final RatingService ratingService;
+    private final MembershipService membershipService;
+    private final RecommendationService recommendationService;
+    private final ExpertStatsService expertStatsService;
+    private final DomainEventBus domainEventBus;
+    private final FormationLiveHub formationLiveHub;
+    private final ChatHub chatHub;
+    private final LiveInteractionService liveInteractionService;
+    private final AttendanceService attendanceService;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final CatalogSyncService catalogSyncService;
+    private final SparseQueryRepository sparseQueryRepository;
+    private final ObjectMapper objectMapper;
 
     /**
      * Récupère un utilisateur par son email.
@@ -64,20 +131,7 @@ public class FormationService {
         if (!currentUser.isVerified() || !currentUser.isActive()) {
             throw new AccessDeniedException("Votre compte doit être vérifié et activé pour créer des formations");
         }
-
-        String meetUrl = null;
-        try {
-            meetUrl = googleMeetService.createMeetLink(
-                    formationRequest.getTitre(),
-                    formationRequest.getDescription(),
-                    formationRequest.getDateDebut(),
-                    formationRequest.getDateFin()
-            );
-        } catch (IOException | GeneralSecurityException e) {
-            System.err.println("Erreur lors de la création du lien Google Meet: " + e.getMessage());
-            // Decide how to handle this error: re-throw, log and proceed, etc.
-            // For now, we log and let meetUrl be null.
-        }
+        verifierCreneauLibre(currentUser.getId(), formationRequest.getDateDebut(), formationRequest.getDateFin(), null);
 
         Formation formation = Formation.builder()
                 .titre(formationRequest.getTitre())
@@ -89,17 +143,22 @@ public class FormationService {
                 .prix(formationRequest.getPrix())
                 .categorie(formationRequest.getCategorie())
                 .imageFormation(formationRequest.getImageFormation())
-                .urlMeet(meetUrl) // Set the generated meet URL
+                // Lien Meet créé en tâche de fond par MeetProvisioningService
+                .meetStatut(MeetStatus.EN_ATTENTE)
                 .statut(FormationStatus.EN_ATTENTE)
                 .formateur(currentUser)
+                .formateurNom(nomComplet(currentUser))
                 .build();
-        return formationRepository.save(formation);
+        Formation saved = enregistrerCreneau(formation);
+        expertStatsService.synchroniserFormation(saved.getId());
+        domainEventBus.publier(new FormationCreated(saved.getId(), currentUser.getId(), saved.getTitre()));
+        return saved;
     }
     @Transactional
     public FormationDTO updateFormation(Long formationId, FormationRequest updatedFormationRequest, String userEmail) {
         User currentUser = getUserByEmail(userEmail); // Get the user performing the action
 
-        Formation existingFormation = formationRepository.findById(formationId)
+        Formation existingFormation = formationRepository.findByIdForUpdate(formationId)
                 .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée avec l'ID : " + formationId));
 
         // Check if the current user is the creator (formateur) of the formation
@@ -112,23 +171,38 @@ public class FormationService {
         //     throw new InvalidOperationException("Vous ne pouvez modifier que les formations en attente.");
         // }
 
+        verifierCreneauLibre(currentUser.getId(), updatedFormationRequest.getDateDebut(),
+                updatedFormationRequest.getDateFin(), formationId);
+
+        String ancienTitre = existingFormation.getTitre();
+        FormationCategory ancienneCategorie = existingFormation.getCategorie();
+
         // Update fields from the DTO to the entity
         // Use BeanUtils or manually set fields
-        BeanUtils.copyProperties(updatedFormationRequest, existingFormation, "id", "statut", "formateur", "participants", "avis");
+        BeanUtils.copyProperties(updatedFormationRequest, existingFormation, "id", "statut", "formateur", "participants", "avis",
+                "nombreMaxParticipants");
         // Manually set fields that need specific handling or are excluded by copyProperties
         existingFormation.setTitre(updatedFormationRequest.getTitre());
         existingFormation.setDescription(updatedFormationRequest.getDescription());
         existingFormation.setDateDebut(updatedFormationRequest.getDateDebut());
         existingFormation.setDateFin(updatedFormationRequest.getDateFin());
         existingFormation.setDuree(updatedFormationRequest.getDuree()); // Corrected typo if exists
-        existingFormation.setNombreMaxParticipants(updatedFormationRequest.getNombreMaxParticipants());
         existingFormation.setPrix(updatedFormationRequest.getPrix());
         existingFormation.setCategorie(updatedFormationRequest.getCategorie());
         existingFormation.setImageFormation(updatedFormationRequest.getImageFormation());
         // Optionally update the Meet link if date/time changed? More complex.
+        modifierCapacite(existingFormation, updatedFormationRequest.getNombreMaxParticipants());
 
         // Save the updated entity
-        Formation updatedFormation = formationRepository.save(existingFormation);
+        Formation updatedFormation = enregistrerCreneau(existingFormation);
+        suggestionService.synchroniserFormation(updatedFormation);
+        recommendationService.synchroniserFormation(updatedFormation);
+        expertStatsService.synchroniserFormation(formationId);
+        formationLiveHub.formationModifiee(formationId, updatedFormation.getStatut(), updatedFormation.getNombreMaxParticipants());
+        if (updatedFormation.getRatingCount() > 0
+                && (!Objects.equals(ancienTitre, updatedFormation.getTitre()) || ancienneCategorie != updatedFormation.getCategorie())) {
+            ratingService.synchroniserFormation(formationId, ancienneCategorie);
+        }
 
         log.info("Formation with ID {} updated by user {}", formationId, userEmail);
 
@@ -136,6 +210,172 @@ public class FormationService {
         return FormationDTO.fromEntity(updatedFormation);
     }
 
+    /**
+     * Mise à jour partielle (JSON Merge Patch) : seuls les champs fournis sont modifiés et, avec
+     * {@code @DynamicUpdate}, seules leurs colonnes figurent dans l'UPDATE (l'image n'est réécrite
+     * que si "imageFormation" est présent). La formation est verrouillée avant la comparaison
+     * If-Match : aucune écriture ni inscription ne peut s'intercaler entre la précondition et l'UPDATE.
+     *
+     * @param ifMatch ETag obtenu par GET /api/formations/{id}, optionnel
+     */
+    @Transactional
+    public FormationDTO patchFormation(Long formationId, JsonNode corps, String ifMatch, String userEmail) {
+        User currentUser = getUserByEmail(userEmail);
+        // Même sérialisation que les inscriptions (recalcul des places, liste d'attente)
+        Formation formation = formationRepository.findByIdForUpdate(formationId)
+                .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée avec l'ID : " + formationId));
+        if (!formation.getFormateur().getId().equals(currentUser.getId())) {
+            throw new AccessDeniedException("Vous n'êtes pas autorisé à modifier cette formation");
+        }
+        if (ifMatch != null && !versionFormation(formation).correspond(ifMatch)) {
+            throw new PreconditionFailedException("La formation a été modifiée depuis sa lecture");
+        }
+
+        MergePatch<FormationRequest> patch = MergePatch.lire(objectMapper, corps, FormationRequest.class,
+                "titre", "dateDebut", "dateFin", "nombreMaxParticipants", "categorie");
+        FormationRequest valeurs = patch.valeurs();
+        String ancienTitre = formation.getTitre();
+        FormationCategory ancienneCategorie = formation.getCategorie();
+
+        if (patch.contient("titre")) formation.setTitre(valeurs.getTitre());
+        if (patch.contient("description")) formation.setDescription(valeurs.getDescription());
+        if (patch.contient("dateDebut")) formation.setDateDebut(valeurs.getDateDebut());
+        if (patch.contient("dateFin")) formation.setDateFin(valeurs.getDateFin());
+        if (patch.contient("duree")) formation.setDuree(valeurs.getDuree());
+        if (patch.contient("prix")) formation.setPrix(valeurs.getPrix());
+        if (patch.contient("categorie")) formation.setCategorie(valeurs.getCategorie());
+        if (patch.contient("imageFormation")) formation.setImageFormation(valeurs.getImageFormation());
+        if (patch.contient("nombreMaxParticipants")) {
+            modifierCapacite(formation, valeurs.getNombreMaxParticipants());
+        }
+
+        if (patch.contient("dateDebut") || patch.contient("dateFin")) {
+            verifierCreneauLibre(currentUser.getId(), formation.getDateDebut(), formation.getDateFin(), formationId);
+        }
+
+        Formation updatedFormation = enregistrerCreneau(formation);
+        expertStatsService.synchroniserFormation(formationId);
+        formationLiveHub.formationModifiee(formationId, updatedFormation.getStatut(), updatedFormation.getNombreMaxParticipants());
+        if (patch.contient("titre") || patch.contient("categorie")) {
+            suggestionService.synchroniserFormation(updatedFormation);
+            recommendationService.synchroniserFormation(updatedFormation);
+        }
+        if (updatedFormation.getRatingCount() > 0
+                && (!Objects.equals(ancienTitre, updatedFormation.getTitre()) || ancienneCategorie != updatedFormation.getCategorie())) {
+            ratingService.synchroniserFormation(formationId, ancienneCategorie);
+        }
+        log.info("Formation {} modifiée partiellement par {}", formationId, userEmail);
+        return FormationDTO.fromEntity(updatedFormation);
+    }
+
+    /**
+     * Nouvelle capacité d'une formation verrouillée (findByIdForUpdate), par PUT comme par PATCH :
+     * jamais inférieure au nombre d'inscrits ; une augmentation promeut la liste d'attente.
+     */
+    private void modifierCapacite(Formation formation, Integer capacite) {
+        if (Objects.equals(capacite, formation.getNombreMaxParticipants())) {
+            return;
+        }
+        if (capacite != null) {
+            long inscrits = formationRepository.countParticipants(formation.getId());
+            if (capacite < inscrits) {
+                throw new InvalidOperationException("Impossible de descendre à " + capacite
+                        + " places : " + inscrits + " apprenants sont déjà inscrits");
+            }
+        }
+        formation.setNombreMaxParticipants(capacite);
+        if (capacite != null && formation.getStatut() == FormationStatus.APPROUVEE) {
+            promouvoirListeAttente(formation);
+        }
+    }
+
+    /**
+     * Refuse un créneau qui chevauche une autre formation du même formateur (hors formations rejetées).
+     * Une seule requête sur l'index GiST de la contrainte d'exclusion, qui couvre aussi les écritures concurrentes.
+     *
+     * @param formationId formation modifiée, exclue de la recherche ; null à la création
+     */
+    private void verifierCreneauLibre(Long formateurId, LocalDateTime debut, LocalDateTime fin, Long formationId) {
+        if (debut == null || fin == null) {
+            return;
+        }
+        if (!fin.isAfter(debut)) {
+            throw new InvalidOperationException("La date de fin doit être postérieure à la date de début");
+        }
+        List<CreneauView> conflits = formationRepository.findCreneauxOccupes(formateurId, debut, fin,
+                formationId == null ? 0L : formationId);
+        if (!conflits.isEmpty()) {
+            throw new ScheduleConflictException("Ce créneau chevauche vos formations : " + conflits.stream()
+                    .map(c -> "\"" + c.getTitre() + "\" (" + c.getDateDebut() + " - " + c.getDateFin() + ")")
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    // Flush immédiat : une violation de la contrainte de planning (écriture concurrente) devient un 409
+    private Formation enregistrerCreneau(Formation formation) {
+        try {
+            return formationRepository.saveAndFlush(formation);
+        } catch (DataIntegrityViolationException e) {
+            if (e.getMessage() != null && e.getMessage().contains(CONTRAINTE_CRENEAU)) {
+                throw new ScheduleConflictException("Ce créneau chevauche une autre de vos formations");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Créneaux occupés d'un expert sur [debut, fin) (formations en attente, approuvées, en cours ou terminées).
+     */
+    @Transactional(readOnly = true)
+    public DisponibilitesResponse getDisponibilites(Long expertId, LocalDateTime debut, LocalDateTime fin) {
+        if (!fin.isAfter(debut)) {
+            throw new InvalidOperationException("La date de fin doit être postérieure à la date de début");
+        }
+        if (Duration.between(debut, fin).compareTo(FENETRE_DISPONIBILITES_MAX) > 0) {
+            throw new InvalidOperationException("La fenêtre ne peut pas dépasser " + FENETRE_DISPONIBILITES_MAX.toDays() + " jours");
+        }
+        if (!userRepository.existsById(expertId)) {
+            throw new UserNotFoundException("Expert non trouvé avec l'ID : " + expertId);
+        }
+        List<CreneauDTO> occupe = formationRepository.findCreneauxOccupes(expertId, debut, fin, 0L).stream()
+                .map(CreneauDTO::fromView)
+                .toList();
+        return DisponibilitesResponse.builder()
+                .expertId(expertId)
+                .debut(debut)
+                .fin(fin)
+                .occupe(occupe)
+                .build();
+    }
+
+    /**
+     * Validateurs HTTP de GET /api/formations/{id} : une lecture de quatre colonnes, sans mapping.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getVersionFormation(Long formationId) {
+        FormationVersionView v = formationRepository.findVersionById(formationId)
+                .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée avec l'ID : " + formationId));
+        return versionFormation(formationId, v.getVersion(), v.getFormateurVersion(), v.getUpdatedAt(), v.getFormateurUpdatedAt());
+    }
+
+    private static ResourceVersion versionFormation(Formation formation) {
+        User formateur = formation.getFormateur();
+        return versionFormation(formation.getId(), formation.getVersion(), formateur.getVersion(),
+                formation.getUpdatedAt(), formateur.getUpdatedAt());
+    }
+
+    private static ResourceVersion versionFormation(Long formationId, Long version, Long formateurVersion,
+                                                    LocalDateTime updatedAt, LocalDateTime formateurUpdatedAt) {
+        return ResourceVersion.of("formation-" + formationId + "-" + version + "." + formateurVersion,
+                updatedAt, formateurUpdatedAt);
+    }
+
+    @Transactional(readOnly = true)
+    public ResourceVersion getVersionFormationsApprouvees() {
+        FormationListVersionView v = formationRepository.findListVersionByStatut(FormationStatus.APPROUVEE);
+        return ResourceVersion.of("formations-approuvees-" + v.getNombre(), v.getUpdatedAt(), v.getFormateurUpdatedAt());
+    }
+
     // **NEW METHOD: Get Formation by ID**
     @Transactional(readOnly = true) // Use readOnly = true for read operations
     public FormationDTO getFormationById(Long formationId) {
@@ -155,18 +395,51 @@ public class FormationService {
     }
 
 
+    /**
+     * Lecture par lot (tableaux de bord) : une requête IN pour les formations et leur formateur,
+     * un GROUP BY pour les participants, avis chargés par lots.
+     */
+    @Transactional(readOnly = true)
+    public BatchResponse<FormationDTO> getFormationsByIds(BatchRequest request) {
+        List<Long> ids = request.idsDistincts();
+        if (ids.isEmpty()) {
+            return BatchResponse.of(ids, Map.of());
+        }
+        Map<Long, Long> participants = formationRepository.countParticipantsByFormationIds(ids).stream()
+                .collect(Collectors.toMap(ParticipantCountView::getFormationId, ParticipantCountView::getNombre));
+        Map<Long, FormationDTO> trouvees = formationRepository.findAllWithFormateurByIdIn(ids).stream()
+                .collect(Collectors.toMap(Formation::getId,
+                        f -> FormationDTO.fromEntity(f, participants.getOrDefault(f.getId(), 0L).intValue())));
+        return BatchResponse.of(ids, trouvees);
+    }
+
+    @Transactional
     public Formation approveFormation(Long formationId /*, String adminEmail */) {
         Formation formation = formationRepository.findById(formationId)
                 .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée"));
         formation.setStatut(FormationStatus.APPROUVEE);
-        return formationRepository.save(formation);
+        Formation saved = formationRepository.save(formation);
+        suggestionService.synchroniserFormation(saved);
+        recommendationService.synchroniserFormation(saved);
+        expertStatsService.synchroniserFormation(formationId);
+        formationLiveHub.formationModifiee(formationId, saved.getStatut(), saved.getNombreMaxParticipants());
+        User formateur = saved.getFormateur();
+        domainEventBus.publier(new FormationApproved(formationId, formateur == null ? null : formateur.getId(),
+                formateur == null ? null : formateur.getEmail(), saved.getTitre()));
+        return saved;
     }
 
+    @Transactional
     public Formation rejectFormation(Long formationId /*, String adminEmail */) {
         Formation formation = formationRepository.findById(formationId)
                 .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée"));
         formation.setStatut(FormationStatus.REJETEE);
-        return formationRepository.save(formation);
+        Formation saved = formationRepository.save(formation);
+        suggestionService.synchroniserFormation(saved);
+        recommendationService.synchroniserFormation(saved);
+        expertStatsService.synchroniserFormation(formationId);
+        formationLiveHub.formationModifiee(formationId, saved.getStatut(), saved.getNombreMaxParticipants());
+        return saved;
     }
     @Transactional
     public void deleteFormation(Long formationId, String userEmail) {
@@ -185,55 +458,221 @@ public class FormationService {
         //     throw new InvalidOperationException("Vous ne pouvez supprimer que les formations en attente.");
         // }
 
+        waitlistEntryRepository.deleteByFormationId(formationId);
+        liveInteractionService.supprimerSession(formationId);
+        attendanceService.supprimerSession(formationId);
         formationRepository.delete(formation); // Delete the entity
+        catalogSyncService.enregistrerSuppression(formationId);
+        suggestionService.retirerFormation(formationId);
+        recommendationService.retirerFormation(formationId);
+        membershipService.retirerFormation(formationId);
+        ratingService.retirerFormation(formationId, formation.getCategorie());
+        expertStatsService.retirerFormation(formationId);
+        formationLiveHub.formationSupprimee(formationId);
+        chatHub.fermerSalon(formationId);
         log.info("Formation with ID {} deleted by user {}", formationId, userEmail);
     }
 
+    /**
+     * Inscrit un apprenant à une formation approuvée. Si la formation est complète,
+     * l'apprenant est placé en liste d'attente (FIFO) au lieu d'être refusé : il reçoit
+     * son rang et sera inscrit automatiquement dès qu'une place se libère.
+     * Une nouvelle demande d'un apprenant déjà en attente renvoie simplement son rang.
+     */
     @Transactional // Add Transactional as it modifies the participants collection
-    public Formation inscriptionFormation(Long formationId, String userEmail) {
+    public InscriptionResponse inscriptionFormation(Long formationId, String userEmail) {
         User currentUser = getUserByEmail(userEmail);
         if (currentUser.getRole() != Role.USER) {
             throw new AccessDeniedException("Seuls les apprenants peuvent s'inscrire aux formations");
         }
 
-        Formation formation = formationRepository.findById(formationId)
+        // Verrou sur la formation : le décompte des places et la file restent cohérents
+        Formation formation = formationRepository.findByIdForUpdate(formationId)
                 .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée"));
 
         if (formation.getStatut() != FormationStatus.APPROUVEE) {
             throw new AccessDeniedException("Cette formation n'est pas encore approuvée");
         }
-        // Access participants collection within the transaction
-        if (formation.getParticipants().size() >= formation.getNombreMaxParticipants()) {
-            throw new AccessDeniedException("Cette formation a atteint son nombre maximum de participants");
-        }
-        // Access participants collection within the transaction
-        if (formation.getParticipants().contains(currentUser)) {
+        if (membershipService.estParticipantEnBase(formationId, currentUser.getId())) {
             throw new AccessDeniedException("Vous êtes déjà inscrit à cette formation");
         }
 
-        formation.getParticipants().add(currentUser);
-        return formationRepository.save(formation);
+        Optional<WaitlistEntry> dejaEnAttente = waitlistEntryRepository.findByFormationIdAndUserId(formationId, currentUser.getId());
+        if (dejaEnAttente.isPresent()) {
+            return reponseListeAttente(formation, dejaEnAttente.get(), "Vous êtes déjà en liste d'attente pour cette formation");
+        }
+
+        long inscrits = formationRepository.countParticipants(formationId);
+        if (inscrits >= formation.getNombreMaxParticipants()) {
+            WaitlistEntry entry = waitlistEntryRepository.save(WaitlistEntry.builder()
+                    .formation(formation)
+                    .user(currentUser)
+                    .position(waitlistEntryRepository.findMaxPosition(formationId) + 1)
+                    .dateAjout(LocalDateTime.now())
+                    .build());
+            log.info("Utilisateur {} placé en liste d'attente pour la formation {}", userEmail, formationId);
+            return reponseListeAttente(formation, entry,
+                    "Formation complète : vous êtes en liste d'attente et serez notifié dès qu'une place se libère");
+        }
+
+        // Insertion directe dans la table de jointure : la collection participants n'est jamais chargée
+        membershipService.inscrire(formationId, currentUser.getId());
+        domainEventBus.publier(new Enrolled(formationId, currentUser.getId(), currentUser.getEmail(), formation.getTitre()));
+        return InscriptionResponse.builder()
+                .formationId(formationId)
+                .statut(InscriptionStatus.INSCRIT)
+                .placesRestantes((int) (formation.getNombreMaxParticipants() - inscrits - 1))
+                .message("Inscription confirmée")
+                .build();
     }
 
     /**
-     * Récupère toutes les formations approuvées
-     * @return Liste des formations sous forme de DTOs
+     * Désinscrit un apprenant (ou le retire de la liste d'attente). La place libérée
+     * est attribuée au premier de la liste d'attente dans la même transaction.
+     */
+    @Transactional
+    public InscriptionResponse desinscriptionFormation(Long formationId, String userEmail) {
+        User currentUser = getUserByEmail(userEmail);
+        Formation formation = formationRepository.findByIdForUpdate(formationId)
+                .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée"));
+
+        Optional<WaitlistEntry> entry = waitlistEntryRepository.findByFormationIdAndUserId(formationId, currentUser.getId());
+        if (entry.isPresent()) {
+            waitlistEntryRepository.delete(entry.get());
+            log.info("Utilisateur {} retiré de la liste d'attente de la formation {}", userEmail, formationId);
+            return InscriptionResponse.builder()
+                    .formationId(formationId)
+                    .statut(InscriptionStatus.DESINSCRIT)
+                    .message("Vous avez été retiré de la liste d'attente")
+                    .build();
+        }
+
+        if (formation.getStatut() != FormationStatus.APPROUVEE) {
+            throw new InvalidOperationException("Impossible de se désinscrire d'une formation démarrée ou terminée");
+        }
+        if (!membershipService.desinscrire(formationId, currentUser.getId())) {
+            throw new InvalidOperationException("Vous n'êtes pas inscrit à cette formation");
+        }
+
+        int promus = promouvoirListeAttente(formation);
+        log.info("Utilisateur {} désinscrit de la formation {} ({} promu(s) depuis la liste d'attente)", userEmail, formationId, promus);
+
+        return InscriptionResponse.builder()
+                .formationId(formationId)
+                .statut(InscriptionStatus.DESINSCRIT)
+                .placesRestantes((int) (formation.getNombreMaxParticipants() - formationRepository.countParticipants(formationId)))
+                .message("Désinscription effectuée")
+                .build();
+    }
+
+    /**
+     * Renvoie le rang d'un apprenant dans la liste d'attente d'une formation.
      */
     @Transactional(readOnly = true)
-    public List<FormationDTO> getAllApprovedFormations() {
-        List<Formation> formations = formationRepository.findByStatut(FormationStatus.APPROUVEE);
-        // DTO conversion inside the transaction
-        return FormationDTO.fromEntities(formations);
+    public InscriptionResponse getPositionListeAttente(Long formationId, String userEmail) {
+        User currentUser = getUserByEmail(userEmail);
+        Formation formation = formationRepository.findById(formationId)
+                .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée"));
+        WaitlistEntry entry = waitlistEntryRepository.findByFormationIdAndUserId(formationId, currentUser.getId())
+                .orElseThrow(() -> new InvalidOperationException("Vous n'êtes pas en liste d'attente pour cette formation"));
+        return reponseListeAttente(formation, entry, null);
     }
 
-    @Transactional(readOnly = true) // Add Transactional
-    public List<FormationResponseDTO> getAllPendingFormations() {
-        List<Formation> formations = formationRepository.findByStatutWithFormateur(FormationStatus.EN_ATTENTE);
-        log.debug("Nombre de formations trouvées: {}", formations.size());
-        // DTO conversion inside the transaction
-        return formations.stream()
-                .map(FormationResponseDTO::fromEntity)
-                .collect(Collectors.toList());
+    /**
+     * Attribue les places libres aux premiers de la liste d'attente. Doit être appelée
+     * avec la formation verrouillée (findByIdForUpdate) dans la transaction courante.
+     * @return le nombre d'apprenants promus
+     */
+    private int promouvoirListeAttente(Formation formation) {
+        int promus = 0;
+        long inscrits = formationRepository.countParticipants(formation.getId());
+        while (inscrits < formation.getNombreMaxParticipants()) {
+            Optional<WaitlistEntry> tete = waitlistEntryRepository.findHeadByFormationId(formation.getId());
+            if (tete.isEmpty()) {
+                break;
+            }
+            User promu = tete.get().getUser();
+            waitlistEntryRepository.delete(tete.get());
+            membershipService.inscrire(formation.getId(), promu.getId());
+            inscrits++;
+            promus++;
+
+            // Notification envoyée après commit par WaitlistPromotionEmailListener
+            domainEventBus.publier(new WaitlistPromoted(formation.getId(), promu.getId(), promu.getEmail(), formation.getTitre()));
+            log.info("Utilisateur {} promu depuis la liste d'attente de la formation {}", promu.getEmail(), formation.getId());
+        }
+        return promus;
+    }
+
+    private InscriptionResponse reponseListeAttente(Formation formation, WaitlistEntry entry, String message) {
+        return InscriptionResponse.builder()
+                .formationId(formation.getId())
+                .statut(InscriptionStatus.LISTE_ATTENTE)
+                .positionAttente(waitlistEntryRepository.countByFormationIdAndPositionLessThanEqual(formation.getId(), entry.getPosition()))
+                .tailleListeAttente(waitlistEntryRepository.countByFormationId(formation.getId()))
+                .placesRestantes(0)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Recherche plein texte paginée parmi les formations approuvées.
+     * @param terme Texte saisi par l'utilisateur (syntaxe websearch : "expression exacte", -exclusion, OR)
+     * @param categorie Filtre optionnel sur la catégorie
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<FormationSearchResultDTO> rechercherFormations(String terme, FormationCategory categorie, int page, int size) {
+        if (terme == null || terme.isBlank()) {
+            throw new InvalidOperationException("Le terme de recherche ne peut pas être vide");
+        }
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), TAILLE_PAGE_MAX));
+        return PageResponse.fromSlice(
+                formationRepository.searchApprouvees(terme.trim(), categorie != null ? categorie.name() : null, pageRequest),
+                FormationSearchResultDTO::fromView);
+    }
+
+    static String nomComplet(User user) {
+        String prenom = user.getPrenom() != null ? user.getPrenom() : "";
+        String nom = user.getNom() != null ? user.getNom() : "";
+        return (prenom + " " + nom).trim();
+    }
+
+    /**
+     * Récupère toutes les formations approuvées, écrites en flux sur la réponse
+     * (projection, curseur JDBC) : aucune liste n'est construite en mémoire.
+     */
+    public StreamingResponseBody streamFormationsApprouvees(MediaType format) {
+        return jsonArrayStreamer.stream(format, () -> formationRepository.streamSummariesByStatut(FormationStatus.APPROUVEE),
+                FormationDTO::fromSummary);
+    }
+
+    /**
+     * Variante ?fields= : seules les colonnes des champs demandés sont lues (cf. FormationFields).
+     */
+    public StreamingResponseBody streamFormationsApprouvees(MediaType format, String fields) {
+        SparseProjection.Selection selection = FormationFields.PROJECTION.selection(fields);
+        return jsonArrayStreamer.stream(format, () -> sparseQueryRepository.streamer(selection,
+                "WHERE f.statut = :statut ORDER BY f.dateDebut ASC", Map.of("statut", FormationStatus.APPROUVEE)),
+                Function.identity());
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getFormationById(Long formationId, String fields) {
+        return sparseQueryRepository.trouver(FormationFields.PROJECTION.selection(fields),
+                        "WHERE f.id = :id", Map.of("id", formationId))
+                .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée avec l'ID : " + formationId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getMyFormations(String userEmail, String fields) {
+        User currentUser = getUserByEmail(userEmail);
+        return sparseQueryRepository.lister(FormationFields.PROJECTION.selection(fields),
+                "WHERE f.formateur.id = :formateurId ORDER BY f.dateDebut DESC", Map.of("formateurId", currentUser.getId()));
+    }
+
+    public StreamingResponseBody streamFormationsEnAttente(MediaType format) {
+        return jsonArrayStreamer.stream(format, () -> formationRepository.streamSummariesByStatut(FormationStatus.EN_ATTENTE),
+                FormationResponseDTO::fromSummary);
     }
 
 
@@ -250,9 +689,56 @@ public class FormationService {
             throw new AccessDeniedException("Seuls les experts peuvent accéder à leurs formations");
         }
 
-        List<Formation> formations = formationRepository.findByFormateur(currentUser);
-        // DTO conversion inside the transaction
-        return FormationDTO.fromEntities(formations);
+        return FormationDTO.fromSummaries(formationRepository.findSummariesByFormateurId(currentUser.getId()));
+    }
+
+    /**
+     * Contrôle d'accès au chat en direct (poignée de main WebSocket) : formation EN_COURS,
+     * utilisateur formateur ou inscrit.
+     */
+    @Transactional(readOnly = true)
+    public ChatParticipant admettreAuChat(Long formationId, String email) {
+        User currentUser = getUserByEmail(email);
+        Formation formation = formationRepository.findById(formationId)
+                .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée"));
+        if (formation.getStatut() != FormationStatus.EN_COURS) {
+            throw new InvalidOperationException("Le chat n'est ouvert que pendant la session en direct");
+        }
+        boolean formateur = formation.getFormateur() != null && formation.getFormateur().getId().equals(currentUser.getId());
+        if (!formateur && !membershipService.estParticipant(formationId, currentUser.getId())) {
+            throw new AccessDeniedException("Vous n'êtes pas inscrit à cette formation");
+        }
+        String auteur = Stream.of(currentUser.getPrenom(), currentUser.getNom())
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(" "));
+        return new ChatParticipant(formationId, currentUser.getId(), auteur.isEmpty() ? currentUser.getEmail() : auteur);
+    }
+
+    /**
+     * Flux SSE des places restantes, du statut et des avis d'une formation (cf. {@link FormationLiveHub}).
+     * @param lastEventId en-tête Last-Event-ID envoyé par EventSource à la reconnexion
+     */
+    public SseEmitter suivreFormation(Long formationId, String lastEventId) {
+        return formationLiveHub.abonner(formationId, lastEventId, () -> {
+            FormationLiveView vue = formationRepository.findLiveById(formationId)
+                    .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée"));
+            return new FormationLiveHub.Etat(vue.getStatut(), vue.getNombreMaxParticipants(),
+                    membershipService.nombreParticipants(formationId), vue.getRatingSum(), vue.getRatingCount());
+        });
+    }
+
+    /**
+     * Tableau de bord d'un expert (remplissage, notes, sessions à venir, revenu estimé),
+     * lu dans le read model statistiques_formations sans charger participants ni avis.
+     */
+    public ExpertStatsResponse getMyStats(String expertEmail) {
+        User currentUser = getUserByEmail(expertEmail);
+
+        if (currentUser.getRole() != Role.EXPERT) {
+            throw new AccessDeniedException("Seuls les experts peuvent accéder à leurs statistiques");
+        }
+
+        return expertStatsService.getStatistiques(currentUser.getId());
     }
 
     /**
@@ -268,10 +754,8 @@ public class FormationService {
             throw new AccessDeniedException("Seuls les apprenants peuvent accéder à leurs inscriptions");
         }
 
-        // Assuming findApprovedFormationsByParticipantId returns Formation entities
-        List<Formation> formations = formationRepository.findApprovedFormationsByParticipantId(currentUser.getId());
-        // DTO conversion inside the transaction
-        return FormationDTO.fromEntities(formations);
+        return FormationDTO.fromSummaries(
+                formationRepository.findSummariesByParticipantIdAndStatut(currentUser.getId(), FormationStatus.APPROUVEE));
     }
 
     @Transactional // Add Transactional as it modifies the status
@@ -286,9 +770,19 @@ public class FormationService {
         if (formation.getStatut() != FormationStatus.APPROUVEE) {
             throw new InvalidOperationException("Seules les formations approuvées peuvent être démarrées");
         }
+        // Démarrage anticipé ou session précédente prolongée : une seule session en direct par formateur
+        if (formationRepository.existsByFormateur_IdAndStatutAndIdNot(currentUser.getId(), FormationStatus.EN_COURS, formationId)) {
+            throw new ScheduleConflictException("Une autre de vos formations est déjà en cours : terminez-la avant d'en démarrer une nouvelle");
+        }
 
         formation.setStatut(FormationStatus.EN_COURS);
-        return formationRepository.save(formation);
+        Formation saved = formationRepository.save(formation);
+        suggestionService.synchroniserFormation(saved);
+        recommendationService.synchroniserFormation(saved);
+        expertStatsService.synchroniserFormation(formationId);
+        formationLiveHub.formationModifiee(formationId, saved.getStatut(), saved.getNombreMaxParticipants());
+        domainEventBus.publier(new FormationStarted(formationId, saved.getTitre(), saved.getUrlMeet()));
+        return saved;
     }
 
     @Transactional // Add Transactional as it modifies the status
@@ -305,7 +799,13 @@ public class FormationService {
         }
 
         formation.setStatut(FormationStatus.TERMINEE);
-        return formationRepository.save(formation);
+        Formation saved = formationRepository.save(formation);
+        expertStatsService.synchroniserFormation(formationId);
+        formationLiveHub.formationModifiee(formationId, saved.getStatut(), saved.getNombreMaxParticipants());
+        chatHub.fermerSalon(formationId);
+        liveInteractionService.terminerSession(formationId);
+        attendanceService.fermerSession(formationId);
+        return saved;
     }
 
     @Transactional // Add Transactional as it creates a new Avis entity
@@ -317,8 +817,7 @@ public class FormationService {
         if (formation.getStatut() != FormationStatus.TERMINEE) {
             throw new InvalidOperationException("Vous ne pouvez ajouter un avis que sur des formations terminées");
         }
-        // Access participants collection within the transaction
-        if (!formation.getParticipants().contains(currentUser)) {
+        if (!membershipService.estParticipant(formationId, currentUser.getId())) {
             throw new AccessDeniedException("Vous n'êtes pas inscrit à cette formation");
         }
         Optional<Avis> existingAvis = avisRepository.findByFormationAndUtilisateur(formation, currentUser);
@@ -336,15 +835,47 @@ public class FormationService {
                 .utilisateur(currentUser)
                 .dateCreation(LocalDateTime.now())
                 .build();
-        return avisRepository.save(avis);
+        Avis saved = avisRepository.save(avis);
+        // Agrégats rating_sum / rating_count et classements mis à jour dans la même transaction
+        ratingService.enregistrerNote(formationId, avisRequest.getNote());
+        recommendationService.enregistrerNote(formationId);
+        expertStatsService.enregistrerNote(formationId, avisRequest.getNote());
+        domainEventBus.publier(new AvisAdded(saved.getId(), formationId, currentUser.getId(), avisRequest.getNote()));
+        return saved;
     }
 
+    /**
+     * Page d'avis d'une formation, du plus récent au plus ancien (pagination par clé).
+     * @param curseur nextCursor de la page précédente, null pour la première page
+     * @param note filtre optionnel sur le nombre d'étoiles
+     */
     @Transactional(readOnly = true) // Add Transactional
-    public List<Avis> getAvisByFormation(Long formationId) {
-        Formation formation = formationRepository.findById(formationId)
+    public AvisPageResponse getAvisByFormation(Long formationId, String curseur, Integer note, int limit) {
+        if (!formationRepository.existsById(formationId)) {
+            throw new FormationNotFoundException("Formation non trouvée");
+        }
+        if (note != null && (note < 1 || note > 5)) {
+            throw new InvalidOperationException("La note doit être comprise entre 1 et 5");
+        }
+        int taille = Math.min(Math.max(limit, 1), TAILLE_PAGE_AVIS_MAX);
+        KeysetCursor depart = curseur == null || curseur.isBlank() ? KeysetCursor.DEBUT_DESC : KeysetCursor.decode(curseur);
+
+        // Une ligne de plus que demandé pour savoir s'il existe une page suivante
+        List<AvisResumeView> lignes = avisRepository.findPageByFormation(formationId, note, depart.date(), depart.id(), taille + 1);
+        boolean hasMore = lignes.size() > taille;
+        List<AvisResumeView> page = hasMore ? lignes.subList(0, taille) : lignes;
+        AvisResumeView derniere = page.isEmpty() ? null : page.get(page.size() - 1);
+
+        return AvisPageResponse.builder()
+                .avis(page.stream().map(AvisResumeDTO::fromView).toList())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? new KeysetCursor(derniere.getDateCreation(), derniere.getId()).encode() : null)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public byte[] getImageFormation(Long formationId) {
+        return formationRepository.findImageById(formationId)
                 .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée"));
-        // Avis might be lazily loaded from Formation, ensure session is open if needed,
-        // or fetch Avis directly. findByFormation is likely fine within transaction.
-        return avisRepository.findByFormation(formation);
     }
 }
\ No newline at end of file
@@ -5,7 +5,12 @@ import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInsta
 import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpRequestInitializer;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
@@ -15,9 +20,14 @@ import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.CalendarScopes;
 import com.google.api.services.calendar.model.*;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import spring._3alemliveback.meeting.DemandeMeet;
+import spring._3alemliveback.meeting.MeetingProvider;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -26,63 +36,157 @@ import java.io.InputStreamReader;
 import java.security.GeneralSecurityException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Création des événements Google Calendar (avec lien Meet) des formations.
+ * <p>
+ * Un seul client Calendar est construit puis partagé : transport HTTP, secrets et credential
+ * (rafraîchi automatiquement et persisté dans tokens/) ne sont lus qu'une fois. Les créations
+ * sont envoyées en une requête batch Google par lot. L'identifiant de l'événement et celui de la
+ * demande de conférence sont dérivés de la formation : une reprise après une réponse perdue reçoit
+ * un 409 au lieu de créer un doublon, et l'événement existant est alors relu. Appelé uniquement via
+ * {@link spring._3alemliveback.meeting.MeetingGateway} (délai, reprises, disjoncteur), jamais
+ * depuis une requête HTTP. Fournisseur par défaut (app.meet.provider=google).
+ */
 @Service
-public class GoogleMeetService {
+@Slf4j
+@ConditionalOnProperty(name = "app.meet.provider", havingValue = "google", matchIfMissing = true)
+public class GoogleMeetService implements MeetingProvider {
 
     private static final String APPLICATION_NAME = "3alem Live Meet Integration";
     private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
     private static final String TOKENS_DIRECTORY_PATH = "tokens";
     private static final List<String> SCOPES = Collections.singletonList(CalendarScopes.CALENDAR);
-    private boolean devMode = false;
-    @Value("classpath:credentials.json")
-    private Resource credentialsFile;
+    private static final String UTILISATEUR_OAUTH = "user";
+    private static final int CONFLIT = 409;
+
+    private final Resource credentialsFile;
+    private final String rootUrl;
+    private final boolean autorisationInteractive;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+    private volatile Calendar calendar;
+
+    @Autowired
+    public GoogleMeetService(@Value("classpath:credentials.json") Resource credentialsFile,
+                             @Value("${app.meet.calendar-root-url:}") String rootUrl,
+                             @Value("${app.meet.interactive-auth:false}") boolean autorisationInteractive,
+                             @Value("${app.meet.connect-timeout-ms:5000}") int connectTimeoutMs,
+                             @Value("${app.meet.read-timeout-ms:20000}") int readTimeoutMs) {
+        this.credentialsFile = credentialsFile;
+        this.rootUrl = rootUrl;
+        this.autorisationInteractive = autorisationInteractive;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
 
     /**
-     * Crée un lien Google Meet pour une formation
-     * @param titre Titre de la formation
-     * @param description Description de la formation
-     * @param dateDebut Date de début de la formation
-     * @param dateFin Date de fin de la formation
-     * @return URL du Meet créé
+     * Client déjà construit (tests : API Calendar simulée en local).
      */
-    public String createMeetLink(String titre, String description, LocalDateTime dateDebut, LocalDateTime dateFin)
-            throws IOException, GeneralSecurityException {
-        // En mode développement, retourner un lien fictif
-      /**  if (devMode) {
-            // Créer un ID de réunion fictif basé sur le timestamp
-            String meetingId = "abc-defg-hij-" + System.currentTimeMillis();
-            return "https://meet.google.com/" + meetingId;
-        }**/
-
-        final NetHttpTransport HTTP_TRANSPORT = GoogleNetHttpTransport.newTrustedTransport();
-        Calendar service = new Calendar.Builder(HTTP_TRANSPORT, JSON_FACTORY, getCredentials(HTTP_TRANSPORT))
-                .setApplicationName(APPLICATION_NAME)
-                .build();
+    GoogleMeetService(Calendar calendar) {
+        this(null, "", false, 5000, 20000);
+        this.calendar = calendar;
+    }
+
+    @Override
+    public String nom() {
+        return "google";
+    }
+
+    @Override
+    public Map<Long, String> creerLiens(List<DemandeMeet> demandes) throws IOException, GeneralSecurityException {
+        return createMeetLinks(demandes);
+    }
+
+    /**
+     * Crée les événements d'un lot de formations en une seule requête batch.
+     * @return URL Meet par identifiant de formation ; une formation absente de la map a échoué
+     */
+    public Map<Long, String> createMeetLinks(List<DemandeMeet> demandes) throws IOException, GeneralSecurityException {
+        Map<Long, String> liens = new HashMap<>();
+        if (demandes.isEmpty()) {
+            return liens;
+        }
+        Calendar service = calendar();
+        List<DemandeMeet> existantes = new ArrayList<>();
+        BatchRequest batch = service.batch();
+        for (DemandeMeet demande : demandes) {
+            service.events()
+                    .insert("primary", evenement(demande))
+                    .setConferenceDataVersion(1)
+                    .queue(batch, rappel(demande, liens, existantes));
+        }
+        batch.execute();
+        if (!existantes.isEmpty()) {
+            // Créés par une tentative précédente dont la réponse n'est pas arrivée
+            BatchRequest lecture = service.batch();
+            for (DemandeMeet demande : existantes) {
+                service.events()
+                        .get("primary", identifiantEvenement(demande.formationId()))
+                        .queue(lecture, rappel(demande, liens, null));
+            }
+            lecture.execute();
+        }
+        return liens;
+    }
+
+    /**
+     * @param existantes reçoit les demandes refusées en 409 (événement déjà créé) ; null pour une relecture
+     */
+    private static JsonBatchCallback<Event> rappel(DemandeMeet demande, Map<Long, String> liens, List<DemandeMeet> existantes) {
+        return new JsonBatchCallback<>() {
+            @Override
+            public void onSuccess(Event evenement, HttpHeaders responseHeaders) {
+                String lien = lienVideo(evenement);
+                if (lien != null) {
+                    liens.put(demande.formationId(), lien);
+                } else {
+                    log.warn("Événement sans lien Meet pour la formation {}", demande.formationId());
+                }
+            }
 
-        Event event = new Event()
-                .setSummary(titre)
-                .setDescription(description)
+            @Override
+            public void onFailure(GoogleJsonError erreur, HttpHeaders responseHeaders) {
+                if (existantes != null && erreur.getCode() == CONFLIT) {
+                    existantes.add(demande);
+                    return;
+                }
+                log.warn("Échec de création du lien Meet pour la formation {} : {} {}",
+                        demande.formationId(), erreur.getCode(), erreur.getMessage());
+            }
+        };
+    }
+
+    // Caractères autorisés par Google : a-v et 0-9, de 5 à 1024
+    static String identifiantEvenement(Long formationId) {
+        return "formation" + formationId;
+    }
+
+    private Event evenement(DemandeMeet demande) {
+        return new Event()
+                .setId(identifiantEvenement(demande.formationId()))
+                .setSummary(demande.titre())
+                .setDescription(demande.description())
                 .setConferenceData(new ConferenceData()
                         .setCreateRequest(new CreateConferenceRequest()
-                                .setRequestId(String.valueOf(System.currentTimeMillis()))
+                                // Identique d'une tentative à l'autre : Google ne crée pas deux conférences
+                                .setRequestId("formation-" + demande.formationId())
                                 .setConferenceSolutionKey(new ConferenceSolutionKey()
                                         .setType("hangoutsMeet"))))
                 .setStart(new EventDateTime()
-                        .setDateTime(convertToDateTime(dateDebut)))
+                        .setDateTime(convertToDateTime(demande.dateDebut())))
                 .setEnd(new EventDateTime()
-                        .setDateTime(convertToDateTime(dateFin)));
-
-        Event createdEvent = service.events()
-                .insert("primary", event)
-                .setConferenceDataVersion(1)
-                .execute();
+                        .setDateTime(convertToDateTime(demande.dateFin())));
+    }
 
-        // Récupérer l'URL Meet du événement créé
+    // Récupérer l'URL Meet de l'événement créé
+    private static String lienVideo(Event createdEvent) {
         if (createdEvent.getConferenceData() != null &&
                 createdEvent.getConferenceData().getEntryPoints() != null) {
 
@@ -92,21 +196,52 @@ public class GoogleMeetService {
                 }
             }
         }
-
         return null;
     }
 
     /**
-     * Obtient les credentials pour l'API Google
+     * Client Calendar partagé (thread-safe), construit au premier appel. En cas d'échec
+     * (credential absent...), il sera retenté au lot suivant.
+     */
+    private Calendar calendar() throws IOException, GeneralSecurityException {
+        Calendar client = calendar;
+        if (client == null) {
+            synchronized (this) {
+                if (calendar == null) {
+                    NetHttpTransport transport = GoogleNetHttpTransport.newTrustedTransport();
+                    Credential credential = getCredentials(transport);
+                    // Délais explicites : par défaut le client attend 20 s par connexion, sans limite globale
+                    HttpRequestInitializer initializer = requete -> {
+                        credential.initialize(requete);
+                        requete.setConnectTimeout(connectTimeoutMs);
+                        requete.setReadTimeout(readTimeoutMs);
+                    };
+                    Calendar.Builder builder = new Calendar.Builder(transport, JSON_FACTORY, initializer)
+                            .setApplicationName(APPLICATION_NAME);
+                    if (!rootUrl.isBlank()) {
+                        builder.setRootUrl(rootUrl);
+                    }
+                    calendar = builder.build();
+                }
+                client = calendar;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Credential stocké dans tokens/ (rafraîchi automatiquement par le flow). L'autorisation
+     * interactive (navigateur + port 8888) n'est tentée que si app.meet.interactive-auth=true.
      */
     private Credential getCredentials(final NetHttpTransport HTTP_TRANSPORT) throws IOException {
         if (credentialsFile == null || !credentialsFile.exists()) {
             throw new FileNotFoundException("Resource not found: credentials.json");
         }
 
-
-        InputStream in = credentialsFile.getInputStream();
-        GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(JSON_FACTORY, new InputStreamReader(in));
+        GoogleClientSecrets clientSecrets;
+        try (InputStream in = credentialsFile.getInputStream()) {
+            clientSecrets = GoogleClientSecrets.load(JSON_FACTORY, new InputStreamReader(in));
+        }
 
         GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
                 HTTP_TRANSPORT, JSON_FACTORY, clientSecrets, SCOPES)
@@ -114,11 +249,19 @@ public class GoogleMeetService {
                 .setAccessType("offline")
                 .build();
 
-// Dans la méthode getCredentials
+        Credential credential = flow.loadCredential(UTILISATEUR_OAUTH);
+        if (credential != null) {
+            return credential;
+        }
+        if (!autorisationInteractive) {
+            throw new IllegalStateException("Aucun jeton OAuth Google dans " + TOKENS_DIRECTORY_PATH
+                    + " : lancer une fois l'application avec app.meet.interactive-auth=true pour autoriser l'accès");
+        }
         LocalServerReceiver receiver = new LocalServerReceiver.Builder()
                 .setPort(8888)
                 .setCallbackPath("/oauth2callback")
-                .build();        return new AuthorizationCodeInstalledApp(flow, receiver).authorize("user");
+                .build();
+        return new AuthorizationCodeInstalledApp(flow, receiver).authorize(UTILISATEUR_OAUTH);
     }
 
     /**
@@ -128,4 +271,4 @@ public class GoogleMeetService {
         Date date = Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
         return new DateTime(date);
     }
-}
\ No newline at end of file
+}
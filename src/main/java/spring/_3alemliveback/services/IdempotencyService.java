@@ -0,0 +1,232 @@
+package spring._3alemliveback.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import spring._3alemliveback.entities.IdempotencyRecord;
+import spring._3alemliveback.exceptions.IdempotencyConflictException;
+import spring._3alemliveback.exceptions.IdempotencyKeyReuseException;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+import spring._3alemliveback.repo.IdempotencyRecordRepository;
+import spring._3alemliveback.util.MediaFormats;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Requêtes POST rejouables via l'en-tête Idempotency-Key : la première exécution est mémorisée
+ * (table idempotency_keys + cache LRU des réponses récentes) et les reprises reçoivent la même
+ * réponse sans réexécuter le traitement. Les doublons simultanés sur une même instance attendent
+ * la première requête ; sur deux instances, la réservation en base départage (409 pour le second).
+ * Les clés sont propres à chaque appelant : deux utilisateurs peuvent choisir la même valeur sans
+ * recevoir la réponse l'un de l'autre. Le corps est mémorisé dans le format négocié (JSON, CBOR, Smile)
+ * avec son Content-Type, et rejoué à l'identique.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String HEADER_REJOUE = "Idempotent-Replayed";
+
+    private static final int LONGUEUR_MAX_CLE = 128;
+    // Durée de réservation d'une clé en cours : au-delà (instance tombée), la clé peut être reprise
+    private static final Duration BAIL_EN_COURS = Duration.ofMinutes(2);
+    private static final Duration ATTENTE_MAX = Duration.ofSeconds(30);
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Map<MediaType, ObjectMapper> mappers;
+    private final Duration retention;
+    private final LinkedHashMap<String, ReponseEnregistree> cache;
+    private final Map<String, CompletableFuture<ReponseEnregistree>> enCours = new ConcurrentHashMap<>();
+
+    public record ReponseEnregistree(String empreinte, int statut, String typeContenu, byte[] corps,
+                                     LocalDateTime expiration) {
+    }
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              MappingJackson2CborHttpMessageConverter cborConverter,
+                              MappingJackson2SmileHttpMessageConverter smileConverter,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHeures,
+                              @Value("${app.idempotency.cache-size:10000}") int tailleCache) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.mappers = Map.of(MediaType.APPLICATION_JSON, objectMapper,
+                MediaType.APPLICATION_CBOR, cborConverter.getObjectMapper(),
+                MediaFormats.SMILE, smileConverter.getObjectMapper());
+        this.retention = Duration.ofHours(ttlHeures);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ReponseEnregistree> eldest) {
+                return size() > tailleCache;
+            }
+        };
+    }
+
+    /**
+     * @param cle        valeur de l'en-tête Idempotency-Key ; sans clé le traitement est exécuté directement
+     * @param portee     opération concernée (ex. "POST /api/formations"), les clés sont propres à chaque portée
+     * @param appelant   auteur de la requête (email), les clés sont propres à chaque appelant
+     * @param requete    paramètres de la requête, dont l'empreinte doit être identique à chaque reprise
+     * @param format     format négocié (cf. MediaFormats.negocier), mémorisé avec la réponse
+     * @param traitement exécution réelle, appelée au plus une fois par clé
+     */
+    public ResponseEntity<?> executer(String cle, String portee, String appelant, Object requete, MediaType format,
+                                      Supplier<? extends ResponseEntity<?>> traitement) {
+        if (cle == null || cle.isBlank()) {
+            return traitement.get();
+        }
+        if (cle.length() > LONGUEUR_MAX_CLE) {
+            throw new InvalidOperationException(HEADER + " trop longue (maximum " + LONGUEUR_MAX_CLE + " caractères)");
+        }
+        // Empreinte de l'appelant et de la clé : l'identifiant reste dans les 200 caractères de la colonne
+        String id = portee + ":" + sha256((appelant + "\n" + cle).getBytes(StandardCharsets.UTF_8));
+        String empreinte = empreinte(requete);
+
+        ReponseEnregistree connue = lireCache(id);
+        if (connue != null) {
+            return rejouer(connue, empreinte);
+        }
+
+        CompletableFuture<ReponseEnregistree> promesse = new CompletableFuture<>();
+        CompletableFuture<ReponseEnregistree> premiere = enCours.putIfAbsent(id, promesse);
+        if (premiere != null) {
+            // Doublon simultané : pas de seconde exécution, on attend la réponse de la première
+            return rejouer(attendre(premiere), empreinte);
+        }
+        try {
+            LocalDateTime maintenant = LocalDateTime.now();
+            if (repository.reserver(id, empreinte, maintenant, maintenant.plus(BAIL_EN_COURS)) == 0) {
+                ReponseEnregistree enregistree = repository.findById(id)
+                        .filter(r -> r.getStatutHttp() != null)
+                        .map(r -> new ReponseEnregistree(r.getEmpreinte(), r.getStatutHttp(), r.getTypeContenu(),
+                                r.getCorps(), r.getExpiresAt()))
+                        .orElseThrow(() -> new IdempotencyConflictException("Requête déjà en cours de traitement pour cette " + HEADER));
+                memoriser(id, enregistree);
+                promesse.complete(enregistree);
+                return rejouer(enregistree, empreinte);
+            }
+
+            ResponseEntity<?> reponse;
+            try {
+                reponse = traitement.get();
+            } catch (RuntimeException e) {
+                // Échec : rien n'a été mémorisé, une reprise avec la même clé réexécutera le traitement
+                repository.liberer(id);
+                throw e;
+            }
+            ReponseEnregistree enregistree = new ReponseEnregistree(empreinte, reponse.getStatusCode().value(),
+                    format.toString(), serialiser(reponse.getBody(), format), LocalDateTime.now().plus(retention));
+            repository.terminer(id, enregistree.statut(), enregistree.typeContenu(), enregistree.corps(),
+                    enregistree.expiration());
+            memoriser(id, enregistree);
+            promesse.complete(enregistree);
+            // Les octets mémorisés eux-mêmes : une reprise reçoit exactement la même réponse
+            return ResponseEntity.status(reponse.getStatusCode())
+                    .headers(reponse.getHeaders())
+                    .contentType(format)
+                    .body(enregistree.corps());
+        } catch (RuntimeException e) {
+            promesse.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCours.remove(id, promesse);
+        }
+    }
+
+    @Scheduled(cron = "${app.idempotency.purge-cron:0 15 * * * *}")
+    public void purgerClesExpirees() {
+        int purgees = repository.purgerAvant(LocalDateTime.now());
+        log.info("{} clé(s) d'idempotence expirée(s) purgée(s)", purgees);
+    }
+
+    private ResponseEntity<byte[]> rejouer(ReponseEnregistree reponse, String empreinte) {
+        if (!reponse.empreinte().equals(empreinte)) {
+            throw new IdempotencyKeyReuseException(HEADER + " déjà utilisée pour une requête différente");
+        }
+        // Réponses mémorisées avant l'ajout de type_contenu : JSON
+        MediaType type = reponse.typeContenu() != null
+                ? MediaType.parseMediaType(reponse.typeContenu()) : MediaType.APPLICATION_JSON;
+        return ResponseEntity.status(reponse.statut())
+                .contentType(type)
+                .header(HEADER_REJOUE, "true")
+                .body(reponse.corps());
+    }
+
+    private ReponseEnregistree attendre(CompletableFuture<ReponseEnregistree> premiere) {
+        try {
+            return premiere.get(ATTENTE_MAX.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // La première requête a échoué : même erreur pour son doublon
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("Requête déjà en cours de traitement pour cette " + HEADER);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Requête déjà en cours de traitement pour cette " + HEADER);
+        }
+    }
+
+    private ReponseEnregistree lireCache(String id) {
+        synchronized (cache) {
+            ReponseEnregistree reponse = cache.get(id);
+            if (reponse != null && reponse.expiration().isBefore(LocalDateTime.now())) {
+                cache.remove(id);
+                return null;
+            }
+            return reponse;
+        }
+    }
+
+    private void memoriser(String id, ReponseEnregistree reponse) {
+        synchronized (cache) {
+            cache.put(id, reponse);
+        }
+    }
+
+    private byte[] serialiser(Object corps, MediaType format) {
+        try {
+            return mappers.getOrDefault(new MediaType(format.getType(), format.getSubtype()), objectMapper)
+                    .writeValueAsBytes(corps);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String empreinte(Object requete) {
+        return sha256(serialiser(requete, MediaType.APPLICATION_JSON));
+    }
+
+    private static String sha256(byte[] octets) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(octets));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
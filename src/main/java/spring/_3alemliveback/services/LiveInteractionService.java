@@ -0,0 +1,450 @@
+package spring._3alemliveback.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import spring._3alemliveback.dto.live.OptionSondageDTO;
+import spring._3alemliveback.dto.live.QuestionLiveDTO;
+import spring._3alemliveback.dto.live.QuestionRequest;
+import spring._3alemliveback.dto.live.SondageDTO;
+import spring._3alemliveback.dto.live.SondageRequest;
+import spring._3alemliveback.dto.live.VoteRequest;
+import spring._3alemliveback.dto.register.UserVersionView;
+import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.entities.QuestionLive;
+import spring._3alemliveback.entities.Sondage;
+import spring._3alemliveback.entities.SondageOption;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.exceptions.AccessDeniedException;
+import spring._3alemliveback.exceptions.FormationNotFoundException;
+import spring._3alemliveback.exceptions.InteractionNotFoundException;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+import spring._3alemliveback.exceptions.UserNotFoundException;
+import spring._3alemliveback.index.CompteurVotes;
+import spring._3alemliveback.live.FormationLiveHub;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.QuestionLiveRepository;
+import spring._3alemliveback.repo.SondageRepository;
+import spring._3alemliveback.repo.UserRepository;
+import spring._3alemliveback.util.TransactionUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Sondages et questions des sessions en direct (formations EN_COURS). Un vote ne touche pas la
+ * base : il incrémente un {@link CompteurVotes} en mémoire après un contrôle d'appartenance
+ * sur l'index des inscrits ({@link MembershipService#estParticipant}). Les instantanés sont
+ * diffusés sur le flux SSE de la formation (événements "sondages" et "questions") au plus une
+ * fois par app.polls.broadcast-ms ; les résultats sont écrits à la clôture d'un sondage et,
+ * pour les questions, par lot à la fin de la session.
+ * <p>
+ * Une seule instance : avec deux, chacune aurait ses propres compteurs et sa propre liste de votants
+ * (un apprenant pourrait voter une fois par instance), diffuserait des résultats partiels, et la
+ * clôture n'enregistrerait que les votes reçus par l'instance qui la traite. Après un redémarrage en
+ * pleine session, les votes non encore enregistrés et la liste des votants sont perdus.
+ */
+@Service
+@Slf4j
+public class LiveInteractionService {
+
+    private static final String EVENEMENT_SONDAGES = "sondages";
+    private static final String EVENEMENT_QUESTIONS = "questions";
+    private static final int OPTIONS_MIN = 2;
+    private static final int OPTIONS_MAX = 10;
+
+    private record SondageActif(Long id, String question, List<String> options, CompteurVotes votes, AtomicBoolean ouvert) {
+    }
+
+    private record QuestionActive(Long id, Long userId, String auteur, String texte, LocalDateTime creeeLe, CompteurVotes votes) {
+    }
+
+    /**
+     * Session en direct d'une formation, chargée au premier accès (création ou vote).
+     */
+    private static final class Salle {
+        private final Long formateurId;
+        private final Map<Long, SondageActif> sondages = new ConcurrentSkipListMap<>();
+        private final Map<Long, QuestionActive> questions = new ConcurrentHashMap<>();
+        // Email -> id des participants de la session : pas de lecture en base à chaque vote
+        private final Map<String, Long> identifiants = new ConcurrentHashMap<>();
+        private final AtomicBoolean sondagesModifies = new AtomicBoolean(true);
+        private final AtomicBoolean questionsModifiees = new AtomicBoolean(true);
+
+        private Salle(Long formateurId) {
+            this.formateurId = formateurId;
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Salle> salles = new ConcurrentHashMap<>();
+    private final FormationRepository formationRepository;
+    private final SondageRepository sondageRepository;
+    private final QuestionLiveRepository questionLiveRepository;
+    private final UserRepository userRepository;
+    private final MembershipService membershipService;
+    private final FormationLiveHub formationLiveHub;
+    private final int questionsDiffusees;
+
+    public LiveInteractionService(FormationRepository formationRepository,
+                                  SondageRepository sondageRepository,
+                                  QuestionLiveRepository questionLiveRepository,
+                                  UserRepository userRepository,
+                                  MembershipService membershipService,
+                                  FormationLiveHub formationLiveHub,
+                                  @Value("${app.polls.max-questions:50}") int questionsDiffusees) {
+        this.formationRepository = formationRepository;
+        this.sondageRepository = sondageRepository;
+        this.questionLiveRepository = questionLiveRepository;
+        this.userRepository = userRepository;
+        this.membershipService = membershipService;
+        this.formationLiveHub = formationLiveHub;
+        this.questionsDiffusees = questionsDiffusees;
+    }
+
+    @Transactional
+    public SondageDTO creerSondage(Long formationId, SondageRequest request, String userEmail) {
+        Salle salle = salle(formationId);
+        formateur(salle, userEmail);
+        String question = texte(request.getQuestion(), 300, "La question du sondage");
+        List<String> options = request.getOptions() == null ? List.of() : request.getOptions();
+        if (options.size() < OPTIONS_MIN || options.size() > OPTIONS_MAX) {
+            throw new InvalidOperationException("Un sondage propose de " + OPTIONS_MIN + " à " + OPTIONS_MAX + " choix");
+        }
+        Sondage sondage = sondageRepository.save(Sondage.builder()
+                .formationId(formationId)
+                .question(question)
+                .options(options.stream()
+                        .map(o -> new SondageOption(texte(o, 200, "Un choix"), 0))
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .ouvert(true)
+                .creeLe(LocalDateTime.now())
+                .build());
+        SondageActif actif = versActif(sondage);
+        TransactionUtils.afterCommit(() -> {
+            salle.sondages.put(actif.id(), actif);
+            salle.sondagesModifies.set(true);
+        });
+        return versDto(actif);
+    }
+
+    /**
+     * Vote en mémoire uniquement : aucune écriture en base, quel que soit le nombre de votants.
+     */
+    public void voter(Long formationId, Long sondageId, VoteRequest request, String userEmail) {
+        Salle salle = salle(formationId);
+        Long userId = participant(formationId, salle, userEmail);
+        SondageActif sondage = salle.sondages.get(sondageId);
+        if (sondage == null) {
+            throw new InteractionNotFoundException("Sondage non trouvé");
+        }
+        if (!sondage.ouvert().get()) {
+            throw new InvalidOperationException("Ce sondage est clos");
+        }
+        Integer option = request.getOption();
+        if (option == null || option < 0 || option >= sondage.votes().taille()) {
+            throw new InvalidOperationException("Choix inexistant");
+        }
+        if (!sondage.votes().voter(userId, option)) {
+            throw new InvalidOperationException("Vous avez déjà voté à ce sondage");
+        }
+        salle.sondagesModifies.set(true);
+    }
+
+    /**
+     * Clôture par le formateur : les compteurs sont recopiés dans les options du sondage.
+     * Un vote accepté au même instant que la clôture peut ne pas figurer dans le résultat enregistré.
+     */
+    @Transactional
+    public SondageDTO fermerSondage(Long formationId, Long sondageId, String userEmail) {
+        Salle salle = salle(formationId);
+        formateur(salle, userEmail);
+        SondageActif sondage = salle.sondages.get(sondageId);
+        if (sondage == null) {
+            throw new InteractionNotFoundException("Sondage non trouvé");
+        }
+        if (!sondage.ouvert().compareAndSet(true, false)) {
+            throw new InvalidOperationException("Ce sondage est déjà clos");
+        }
+        try {
+            enregistrerResultats(List.of(sondage), LocalDateTime.now());
+            sondageRepository.flush();
+        } catch (RuntimeException e) {
+            sondage.ouvert().set(true);
+            throw e;
+        }
+        salle.sondagesModifies.set(true);
+        return versDto(sondage);
+    }
+
+    @Transactional
+    public QuestionLiveDTO poserQuestion(Long formationId, QuestionRequest request, String userEmail) {
+        Salle salle = salle(formationId);
+        User auteur = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé avec l'email : " + userEmail));
+        if (!membershipService.estParticipant(formationId, auteur.getId())) {
+            throw new AccessDeniedException("Vous n'êtes pas inscrit à cette formation");
+        }
+        QuestionLive question = questionLiveRepository.save(QuestionLive.builder()
+                .formationId(formationId)
+                .userId(auteur.getId())
+                .auteur(nom(auteur))
+                .texte(texte(request.getTexte(), 1000, "La question"))
+                .votes(0)
+                .creeeLe(LocalDateTime.now())
+                .build());
+        QuestionActive active = versActive(question);
+        TransactionUtils.afterCommit(() -> {
+            salle.questions.put(active.id(), active);
+            salle.questionsModifiees.set(true);
+        });
+        return versDto(active);
+    }
+
+    public void voterQuestion(Long formationId, Long questionId, String userEmail) {
+        Salle salle = salle(formationId);
+        Long userId = participant(formationId, salle, userEmail);
+        QuestionActive question = salle.questions.get(questionId);
+        if (question == null) {
+            throw new InteractionNotFoundException("Question non trouvée");
+        }
+        if (question.userId().equals(userId)) {
+            throw new InvalidOperationException("Vous ne pouvez pas voter pour votre propre question");
+        }
+        if (!question.votes().voter(userId, 0)) {
+            throw new InvalidOperationException("Vous avez déjà voté pour cette question");
+        }
+        salle.questionsModifiees.set(true);
+    }
+
+    /**
+     * Session en cours : état en mémoire ; sinon, résultats enregistrés.
+     */
+    @Transactional(readOnly = true)
+    public List<SondageDTO> getSondages(Long formationId) {
+        Salle salle = salles.get(formationId);
+        if (salle != null) {
+            return salle.sondages.values().stream().map(this::versDto).toList();
+        }
+        return sondageRepository.findByFormationIdOrderByIdAsc(formationId).stream()
+                .map(s -> versDto(versActif(s)))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<QuestionLiveDTO> getQuestions(Long formationId) {
+        Salle salle = salles.get(formationId);
+        if (salle != null) {
+            return questions(salle, Integer.MAX_VALUE);
+        }
+        return questionLiveRepository.findByFormationIdOrderByVotesDescIdAsc(formationId).stream()
+                .map(q -> versDto(versActive(q)))
+                .toList();
+    }
+
+    /**
+     * Fin de session (dans la transaction de terminerFormation) : sondages encore ouverts clos
+     * avec leurs résultats, votes des questions recopiés en un lot d'UPDATE.
+     */
+    public void terminerSession(Long formationId) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        Salle salle = salles.get(formationId);
+        if (salle == null) {
+            // Aucune interaction depuis le démarrage de l'application : rien à recopier
+            sondageRepository.findByFormationIdAndOuvertTrue(formationId).forEach(s -> {
+                s.setOuvert(false);
+                s.setClosLe(maintenant);
+            });
+            return;
+        }
+        List<SondageActif> ouverts = new ArrayList<>();
+        for (SondageActif sondage : salle.sondages.values()) {
+            if (sondage.ouvert().compareAndSet(true, false)) {
+                ouverts.add(sondage);
+            }
+        }
+        enregistrerResultats(ouverts, maintenant);
+        List<QuestionLive> questions = questionLiveRepository.findAllById(salle.questions.keySet());
+        for (QuestionLive question : questions) {
+            // Seules les questions dont le total a changé sont réécrites (dirty checking)
+            question.setVotes(salle.questions.get(question.getId()).votes().valeur(0));
+        }
+        salle.sondagesModifies.set(true);
+        salle.questionsModifiees.set(true);
+        TransactionUtils.afterCommit(() -> {
+            diffuser(formationId, salle);
+            salles.remove(formationId, salle);
+        });
+    }
+
+    // Dans la transaction de suppression de la formation
+    public void supprimerSession(Long formationId) {
+        questionLiveRepository.deleteByFormationId(formationId);
+        sondageRepository.deleteAll(sondageRepository.findByFormationIdOrderByIdAsc(formationId));
+        TransactionUtils.afterCommit(() -> salles.remove(formationId));
+    }
+
+    /**
+     * Instantanés des salles modifiées depuis le passage précédent : une rafale de votes donne
+     * au plus un message par type et par période.
+     */
+    @Scheduled(fixedDelayString = "${app.polls.broadcast-ms:1000}")
+    public void diffuser() {
+        salles.forEach((formationId, salle) -> {
+            try {
+                diffuser(formationId, salle);
+            } catch (RuntimeException e) {
+                log.error("Diffusion des sondages impossible pour la formation {}", formationId, e);
+            }
+        });
+    }
+
+    private void diffuser(Long formationId, Salle salle) {
+        // Drapeau remis à zéro avant la lecture : un vote concurrent sera repris au passage suivant
+        if (salle.sondagesModifies.getAndSet(false)) {
+            formationLiveHub.publier(formationId, EVENEMENT_SONDAGES,
+                    () -> salle.sondages.values().stream().map(this::versDto).toList());
+        }
+        if (salle.questionsModifiees.getAndSet(false)) {
+            formationLiveHub.publier(formationId, EVENEMENT_QUESTIONS, () -> questions(salle, questionsDiffusees));
+        }
+    }
+
+    private void enregistrerResultats(List<SondageActif> sondages, LocalDateTime closLe) {
+        if (sondages.isEmpty()) {
+            return;
+        }
+        Map<Long, SondageActif> parId = new HashMap<>();
+        sondages.forEach(s -> parId.put(s.id(), s));
+        for (Sondage sondage : sondageRepository.findAllById(parId.keySet())) {
+            long[] votes = parId.get(sondage.getId()).votes().valeurs();
+            for (int i = 0; i < votes.length; i++) {
+                sondage.getOptions().get(i).setVotes(votes[i]);
+            }
+            sondage.setOuvert(false);
+            sondage.setClosLe(closLe);
+        }
+    }
+
+    /**
+     * Salle de la formation, créée au premier accès si la formation est EN_COURS.
+     */
+    private Salle salle(Long formationId) {
+        Salle salle = salles.get(formationId);
+        if (salle != null) {
+            return salle;
+        }
+        return salles.computeIfAbsent(formationId, id -> {
+            Formation formation = formationRepository.findById(id)
+                    .orElseThrow(() -> new FormationNotFoundException("Formation non trouvée"));
+            if (formation.getStatut() != FormationStatus.EN_COURS) {
+                throw new InvalidOperationException("Les sondages et questions ne sont ouverts que pendant la session en direct");
+            }
+            Salle nouvelle = new Salle(formation.getFormateur().getId());
+            sondageRepository.findByFormationIdOrderByIdAsc(id)
+                    .forEach(s -> nouvelle.sondages.put(s.getId(), versActif(s)));
+            questionLiveRepository.findByFormationIdOrderByVotesDescIdAsc(id)
+                    .forEach(q -> nouvelle.questions.put(q.getId(), versActive(q)));
+            return nouvelle;
+        });
+    }
+
+    private Long utilisateur(Salle salle, String userEmail) {
+        if (userEmail == null || userEmail.isBlank()) {
+            throw new UserNotFoundException("L'email de l'utilisateur ne peut pas être vide.");
+        }
+        return salle.identifiants.computeIfAbsent(userEmail, email -> userRepository.findVersionByEmail(email)
+                .map(UserVersionView::getId)
+                .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé avec l'email : " + email)));
+    }
+
+    private void formateur(Salle salle, String userEmail) {
+        if (!utilisateur(salle, userEmail).equals(salle.formateurId)) {
+            throw new AccessDeniedException("Seul le formateur peut gérer les sondages de cette formation");
+        }
+    }
+
+    // Contrôle sur le bitmap des inscrits en mémoire, pas sur la collection participants
+    private Long participant(Long formationId, Salle salle, String userEmail) {
+        Long userId = utilisateur(salle, userEmail);
+        if (!membershipService.estParticipant(formationId, userId)) {
+            throw new AccessDeniedException("Vous n'êtes pas inscrit à cette formation");
+        }
+        return userId;
+    }
+
+    private List<QuestionLiveDTO> questions(Salle salle, int limite) {
+        return salle.questions.values().stream()
+                .map(this::versDto)
+                .sorted(Comparator.comparingLong(QuestionLiveDTO::getVotes).reversed()
+                        .thenComparing(QuestionLiveDTO::getId))
+                .limit(limite)
+                .toList();
+    }
+
+    private static String texte(String valeur, int longueurMax, String libelle) {
+        if (valeur == null || valeur.isBlank()) {
+            throw new InvalidOperationException(libelle + " ne peut pas être vide");
+        }
+        String texte = valeur.strip();
+        if (texte.length() > longueurMax) {
+            throw new InvalidOperationException(libelle + " dépasse " + longueurMax + " caractères");
+        }
+        return texte;
+    }
+
+    private static String nom(User user) {
+        String nom = ((user.getPrenom() == null ? "" : user.getPrenom()) + " "
+                + (user.getNom() == null ? "" : user.getNom())).strip();
+        return nom.isEmpty() ? user.getEmail() : nom;
+    }
+
+    private static SondageActif versActif(Sondage sondage) {
+        List<SondageOption> options = sondage.getOptions();
+        return new SondageActif(sondage.getId(), sondage.getQuestion(),
+                options.stream().map(SondageOption::getLibelle).toList(),
+                new CompteurVotes(options.stream().mapToLong(SondageOption::getVotes).toArray()),
+                new AtomicBoolean(sondage.isOuvert()));
+    }
+
+    private static QuestionActive versActive(QuestionLive question) {
+        return new QuestionActive(question.getId(), question.getUserId(), question.getAuteur(), question.getTexte(),
+                question.getCreeeLe(), new CompteurVotes(new long[]{question.getVotes()}));
+    }
+
+    private SondageDTO versDto(SondageActif sondage) {
+        long[] votes = sondage.votes().valeurs();
+        return SondageDTO.builder()
+                .id(sondage.id())
+                .question(sondage.question())
+                .ouvert(sondage.ouvert().get())
+                .options(IntStream.range(0, votes.length)
+                        .mapToObj(i -> new OptionSondageDTO(sondage.options().get(i), votes[i]))
+                        .toList())
+                .totalVotes(Arrays.stream(votes).sum())
+                .build();
+    }
+
+    private QuestionLiveDTO versDto(QuestionActive question) {
+        return QuestionLiveDTO.builder()
+                .id(question.id())
+                .userId(question.userId())
+                .auteur(question.auteur())
+                .texte(question.texte())
+                .votes(question.votes().valeur(0))
+                .creeeLe(question.creeeLe())
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package spring._3alemliveback.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring._3alemliveback.dto.formation.MeetDemandeView;
+import spring._3alemliveback.enums.MeetStatus;
+import spring._3alemliveback.meeting.DemandeMeet;
+import spring._3alemliveback.meeting.MeetingGateway;
+import spring._3alemliveback.repo.FormationRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Worker de création des liens Meet : les formations sont enregistrées avec meetStatut=EN_ATTENTE
+ * et ce worker crée leurs réunions par lots via le fournisseur configuré ({@link MeetingGateway}), hors
+ * de toute transaction et de toute requête HTTP. Échecs retentés avec un délai croissant.
+ */
+@Service
+@Slf4j
+public class MeetProvisioningService {
+
+    // Au-delà, une formation EN_COURS est considérée abandonnée (instance arrêtée) et reprise
+    private static final Duration BAIL = Duration.ofMinutes(5);
+    private static final Duration DELAI_INITIAL = Duration.ofMinutes(1);
+
+    private final FormationRepository formationRepository;
+    private final MeetingGateway meetingGateway;
+    private final TransactionTemplate transactionTemplate;
+    private final int tailleLot;
+    private final int tentativesMax;
+    // Passage planifié et déclenchements à la création (MeetProvisioningListener) ne se chevauchent pas
+    private final AtomicBoolean enCours = new AtomicBoolean();
+
+    public MeetProvisioningService(FormationRepository formationRepository,
+                                   MeetingGateway meetingGateway,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.meet.batch-size:50}") int tailleLot,
+                                   @Value("${app.meet.max-attempts:6}") int tentativesMax) {
+        this.formationRepository = formationRepository;
+        this.meetingGateway = meetingGateway;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tailleLot = tailleLot;
+        this.tentativesMax = tentativesMax;
+    }
+
+    @Scheduled(fixedDelayString = "${app.meet.poll-delay-ms:5000}")
+    public void provisionner() {
+        if (!enCours.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Lots successifs tant que la file est pleine (ex. nombreuses formations créées d'un coup)
+            while (provisionnerLot() == tailleLot) {
+                log.debug("Lot Meet complet, lot suivant");
+            }
+        } finally {
+            enCours.set(false);
+        }
+    }
+
+    /**
+     * @return nombre de formations traitées
+     */
+    int provisionnerLot() {
+        // Fournisseur désactivé ou circuit ouvert : les demandes restent EN_ATTENTE sans tentative consommée
+        if (!meetingGateway.disponible()) {
+            return 0;
+        }
+        LocalDateTime debut = LocalDateTime.now();
+        // Réservation validée aussitôt : l'appel au fournisseur se fait sans verrou ni connexion retenus
+        List<MeetDemandeView> demandes = transactionTemplate.execute(status -> {
+            List<Long> ids = formationRepository.reserverDemandesMeet(debut, tailleLot);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            formationRepository.marquerMeetEnCours(ids, debut.plus(BAIL));
+            return formationRepository.findDemandesMeet(ids);
+        });
+        if (demandes == null || demandes.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, String> resultats = meetingGateway.creerLiens(demandes.stream()
+                .map(d -> new DemandeMeet(d.getId(), d.getTitre(), d.getDescription(),
+                        d.getDateDebut(), d.getDateFin()))
+                .toList());
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime maintenant = LocalDateTime.now();
+            for (MeetDemandeView demande : demandes) {
+                String lien = resultats.get(demande.getId());
+                if (lien != null) {
+                    formationRepository.enregistrerLienMeet(demande.getId(), lien, maintenant);
+                } else if (demande.getTentatives() >= tentativesMax) {
+                    log.error("Lien Meet abandonné pour la formation {} après {} tentative(s)", demande.getId(), demande.getTentatives());
+                    formationRepository.enregistrerEchecMeet(demande.getId(), MeetStatus.ECHEC.name(), null);
+                } else {
+                    formationRepository.enregistrerEchecMeet(demande.getId(), MeetStatus.EN_ATTENTE.name(),
+                            maintenant.plus(delaiAvantNouvelleTentative(demande.getTentatives())));
+                }
+            }
+        });
+        log.info("Liens Meet : {} créé(s) sur {} demande(s)", resultats.size(), demandes.size());
+        return demandes.size();
+    }
+
+    // 1, 2, 4, 8... minutes
+    private static Duration delaiAvantNouvelleTentative(int tentatives) {
+        return DELAI_INITIAL.multipliedBy(1L << Math.min(Math.max(tentatives - 1, 0), 10));
+    }
+}
@@ -0,0 +1,101 @@
+package spring._3alemliveback.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import spring._3alemliveback.index.MembershipIndex;
+import spring._3alemliveback.live.FormationLiveHub;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.util.TransactionUtils;
+
+import java.time.LocalDateTime;
+
+/**
+ * Appartenance des apprenants aux formations. Les lectures passent par des bitmaps
+ * d'identifiants en mémoire (cf. {@link MembershipIndex}) ; toutes les inscriptions et
+ * désinscriptions passent par ce service pour que l'index, et celui des recommandations,
+ * restent à jour après commit (et les statistiques experts, dans la même transaction).
+ */
+@Service
+@Slf4j
+public class MembershipService {
+
+    private final FormationRepository formationRepository;
+    private final RecommendationService recommendationService;
+    private final ExpertStatsService expertStatsService;
+    private final FormationLiveHub formationLiveHub;
+    private final MembershipIndex index;
+
+    public MembershipService(FormationRepository formationRepository,
+                             RecommendationService recommendationService,
+                             ExpertStatsService expertStatsService,
+                             FormationLiveHub formationLiveHub,
+                             @Value("${app.membership.cache-size:1000}") int capacite) {
+        this.formationRepository = formationRepository;
+        this.recommendationService = recommendationService;
+        this.expertStatsService = expertStatsService;
+        this.formationLiveHub = formationLiveHub;
+        this.index = new MembershipIndex(capacite, formationRepository::findParticipantIds);
+    }
+
+    /**
+     * Réponse en mémoire ; en cas d'échec du chargement du bitmap, repli sur un EXISTS indexé.
+     */
+    public boolean estParticipant(Long formationId, Long userId) {
+        try {
+            return index.contient(formationId, userId);
+        } catch (RuntimeException e) {
+            log.warn("Index d'appartenance indisponible pour la formation {} : {}", formationId, e.getMessage());
+            return formationRepository.existsParticipant(formationId, userId);
+        }
+    }
+
+    /**
+     * Vérification en base, à utiliser sous le verrou de la formation avant une écriture :
+     * l'index n'intègre une inscription qu'après le commit de sa transaction.
+     */
+    public boolean estParticipantEnBase(Long formationId, Long userId) {
+        return formationRepository.existsParticipant(formationId, userId);
+    }
+
+    public int nombreParticipants(Long formationId) {
+        try {
+            return index.compter(formationId);
+        } catch (RuntimeException e) {
+            log.warn("Index d'appartenance indisponible pour la formation {} : {}", formationId, e.getMessage());
+            return (int) formationRepository.countParticipants(formationId);
+        }
+    }
+
+    public void inscrire(Long formationId, Long userId) {
+        formationRepository.ajouterParticipant(formationId, userId);
+        formationRepository.marquerModifiee(formationId, LocalDateTime.now());
+        expertStatsService.enregistrerInscriptions(formationId, 1);
+        TransactionUtils.afterCommit(() -> {
+            index.ajouter(formationId, userId);
+            recommendationService.inscription(formationId, userId);
+        });
+        formationLiveHub.placesModifiees(formationId, () -> nombreParticipants(formationId));
+    }
+
+    /**
+     * @return faux si l'apprenant n'était pas inscrit
+     */
+    public boolean desinscrire(Long formationId, Long userId) {
+        if (formationRepository.retirerParticipant(formationId, userId) == 0) {
+            return false;
+        }
+        formationRepository.marquerModifiee(formationId, LocalDateTime.now());
+        expertStatsService.enregistrerInscriptions(formationId, -1);
+        TransactionUtils.afterCommit(() -> {
+            index.retirer(formationId, userId);
+            recommendationService.desinscription(formationId, userId);
+        });
+        formationLiveHub.placesModifiees(formationId, () -> nombreParticipants(formationId));
+        return true;
+    }
+
+    public void retirerFormation(Long formationId) {
+        TransactionUtils.afterCommit(() -> index.invalider(formationId));
+    }
+}
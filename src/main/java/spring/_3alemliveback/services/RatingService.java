@@ -0,0 +1,113 @@
+package spring._3alemliveback.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import spring._3alemliveback.dto.formation.FormationRatingView;
+import spring._3alemliveback.dto.formation.TopRatedFormationDTO;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.index.RatingLeaderboard;
+import spring._3alemliveback.live.FormationLiveHub;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.util.TransactionUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Notes agrégées des formations : rating_sum / rating_count sont incrémentés atomiquement
+ * à chaque avis, et les classements "mieux notées" (global et par catégorie) sont tenus
+ * en mémoire pour être lus sans requête.
+ */
+@Service
+@Slf4j
+public class RatingService {
+
+    private final FormationRepository formationRepository;
+    private final RatingLeaderboard leaderboard;
+    private final FormationLiveHub formationLiveHub;
+
+    @Value("${app.ratings.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    public RatingService(FormationRepository formationRepository,
+                         FormationLiveHub formationLiveHub,
+                         @Value("${app.ratings.top-n:20}") int topN) {
+        this.formationRepository = formationRepository;
+        this.formationLiveHub = formationLiveHub;
+        this.leaderboard = new RatingLeaderboard(topN, (categorie, limite) ->
+                formationRepository.findTopRatedByCategorie(categorie, limite).stream()
+                        .map(RatingService::toEntry)
+                        .toList());
+    }
+
+    /**
+     * Rattrapage des agrégats depuis la table avis, puis chargement des classements.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        if (backfillOnStartup) {
+            int corrigees = formationRepository.recalculerAgregatsNotes();
+            log.info("Agrégats de notation recalculés : {} formation(s) corrigée(s)", corrigees);
+        }
+        leaderboard.chargerTout();
+        log.info("Classements des formations les mieux notées chargés (top {})", leaderboard.getCapacite());
+    }
+
+    /**
+     * Enregistre une note dans les agrégats de la formation. Doit être appelée dans la
+     * transaction qui insère l'avis : le classement mémoire n'est mis à jour qu'après commit.
+     */
+    public void enregistrerNote(Long formationId, int note) {
+        formationRepository.incrementerNote(formationId, note, LocalDateTime.now());
+        formationRepository.findRatingById(formationId).ifPresent(view -> {
+            RatingLeaderboard.Entry entry = toEntry(view);
+            TransactionUtils.afterCommit(() -> leaderboard.mettreAJour(entry));
+            formationLiveHub.avisAjoute(formationId, view.getRatingSum(), view.getRatingCount());
+        });
+    }
+
+    /**
+     * Répercute un changement de titre ou de catégorie d'une formation déjà notée sur les classements.
+     */
+    public void synchroniserFormation(Long formationId, FormationCategory ancienneCategorie) {
+        Optional<RatingLeaderboard.Entry> entry = formationRepository.findRatingById(formationId).map(RatingService::toEntry);
+        TransactionUtils.afterCommit(() -> {
+            leaderboard.retirer(formationId, ancienneCategorie);
+            entry.ifPresent(leaderboard::mettreAJour);
+        });
+    }
+
+    public void retirerFormation(Long formationId, FormationCategory categorie) {
+        TransactionUtils.afterCommit(() -> leaderboard.retirer(formationId, categorie));
+    }
+
+    public List<TopRatedFormationDTO> getTopRated(int limit) {
+        return toDtos(leaderboard.topGlobal(), limit);
+    }
+
+    public List<TopRatedFormationDTO> getTopRated(FormationCategory categorie, int limit) {
+        return toDtos(leaderboard.top(categorie), limit);
+    }
+
+    private static List<TopRatedFormationDTO> toDtos(List<RatingLeaderboard.Entry> entries, int limit) {
+        return entries.stream()
+                .limit(Math.max(limit, 0))
+                .map(e -> TopRatedFormationDTO.builder()
+                        .id(e.formationId())
+                        .titre(e.titre())
+                        .categorie(e.categorie())
+                        .noteMoyenne(Math.round(e.moyenne() * 100) / 100d)
+                        .nombreAvis(e.nombre())
+                        .build())
+                .toList();
+    }
+
+    private static RatingLeaderboard.Entry toEntry(FormationRatingView view) {
+        return new RatingLeaderboard.Entry(view.getId(), view.getTitre(), view.getCategorie(),
+                view.getRatingSum(), view.getRatingCount());
+    }
+}
@@ -0,0 +1,240 @@
+package spring._3alemliveback.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring._3alemliveback.dto.formation.FormationFicheView;
+import spring._3alemliveback.dto.formation.RecommandationDTO;
+import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.exceptions.UserNotFoundException;
+import spring._3alemliveback.index.CoEnrollmentIndex;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.UserRepository;
+import spring._3alemliveback.util.TransactionUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Recommandations "les apprenants ont aussi suivi" et fil "recommandé pour vous", servis depuis
+ * un {@link CoEnrollmentIndex} en mémoire. MembershipService y répercute chaque inscription et
+ * FormationService chaque changement de formation et chaque nouvel avis (après commit) ; l'index
+ * est reconstruit au démarrage puis périodiquement.
+ */
+@Service
+@Slf4j
+public class RecommendationService {
+
+    public static final int LIMITE_MAX = 20;
+
+    private final FormationRepository formationRepository;
+    private final UserRepository userRepository;
+    private final RatingService ratingService;
+    private final TransactionTemplate transactionTemplate;
+    private final int topK;
+    private final int inscriptionsMax;
+    private final Object verrouReconstruction = new Object();
+
+    private volatile CoEnrollmentIndex index;
+    // Modifications reçues pendant une reconstruction, rejouées sur le nouvel index (opérations idempotentes)
+    private List<Consumer<CoEnrollmentIndex>> journal;
+
+    public RecommendationService(FormationRepository formationRepository,
+                                 UserRepository userRepository,
+                                 RatingService ratingService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.recommendations.top-k:50}") int topK,
+                                 @Value("${app.recommendations.max-enrollments-per-learner:200}") int inscriptionsMax) {
+        this.formationRepository = formationRepository;
+        this.userRepository = userRepository;
+        this.ratingService = ratingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.topK = topK;
+        this.inscriptionsMax = inscriptionsMax;
+        this.index = new CoEnrollmentIndex(topK, inscriptionsMax);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        reconstruire();
+    }
+
+    /**
+     * Recharge fiches et inscriptions dans un nouvel index, puis le substitue à l'ancien.
+     * Les lectures continuent sur l'ancien index pendant le chargement. Minute 40 par défaut : à l'écart
+     * de la purge des clés d'idempotence (minute 15) et des purges nocturnes (3 h 30, 3 h 45).
+     */
+    @Scheduled(cron = "${app.recommendations.rebuild-cron:0 40 * * * *}")
+    public void reconstruire() {
+        synchronized (verrouReconstruction) {
+            long debut = System.nanoTime();
+            synchronized (this) {
+                journal = new ArrayList<>();
+            }
+            CoEnrollmentIndex nouvel = new CoEnrollmentIndex(topK, inscriptionsMax);
+            try {
+                transactionTemplate.executeWithoutResult(status -> charger(nouvel));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    journal = null;
+                }
+                log.error("Échec de la reconstruction de l'index de recommandations : {}", e.getMessage(), e);
+                return;
+            }
+            nouvel.finaliser();
+            synchronized (this) {
+                journal.forEach(operation -> operation.accept(nouvel));
+                journal = null;
+                index = nouvel;
+            }
+            log.info("Index de recommandations reconstruit : {} inscription(s), {} formation(s) en {} ms",
+                    nouvel.nombreInscriptions(), nouvel.nombreFormations(), (System.nanoTime() - debut) / 1_000_000);
+        }
+    }
+
+    private void charger(CoEnrollmentIndex nouvel) {
+        for (FormationFicheView fiche : formationRepository.findFichesRecommandation()) {
+            nouvel.definirFiche(fiche.getId(), toFiche(fiche.getTitre(), fiche.getCategorie(), fiche.getStatut(),
+                    fiche.getRatingSum(), fiche.getRatingCount()));
+        }
+        // Lignes triées par apprenant : ses inscriptions sont regroupées puis chargées d'un bloc
+        try (Stream<Object[]> lignes = formationRepository.streamInscriptionsParApprenant()) {
+            long[] courant = {0L};
+            long[][] formations = {new long[16]};
+            int[] taille = {0};
+            lignes.forEach(ligne -> {
+                long apprenantId = ((Number) ligne[0]).longValue();
+                if (apprenantId != courant[0]) {
+                    if (taille[0] > 0) {
+                        nouvel.chargerApprenant(courant[0], Arrays.copyOf(formations[0], taille[0]));
+                    }
+                    courant[0] = apprenantId;
+                    taille[0] = 0;
+                }
+                if (taille[0] == formations[0].length) {
+                    formations[0] = Arrays.copyOf(formations[0], taille[0] * 2);
+                }
+                formations[0][taille[0]++] = ((Number) ligne[1]).longValue();
+            });
+            if (taille[0] > 0) {
+                nouvel.chargerApprenant(courant[0], Arrays.copyOf(formations[0], taille[0]));
+            }
+        }
+    }
+
+    /**
+     * Formations le plus souvent suivies avec celle-ci. Lecture en mémoire uniquement.
+     */
+    public List<RecommandationDTO> getRecommandations(Long formationId, int limite) {
+        return index.similaires(formationId, borner(limite)).stream()
+                .map(RecommendationService::toDto)
+                .toList();
+    }
+
+    /**
+     * Fil personnalisé à partir des formations suivies ; sans historique exploitable, repli sur
+     * les formations les mieux notées non encore suivies.
+     */
+    public List<RecommandationDTO> getRecommandationsPourApprenant(String userEmail, int limite) {
+        Long apprenantId = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé pour l'email : " + userEmail))
+                .getId();
+        int k = borner(limite);
+        CoEnrollmentIndex courant = index;
+        List<RecommandationDTO> recommandations = new ArrayList<>(courant.pourApprenant(apprenantId, k).stream()
+                .map(RecommendationService::toDto)
+                .toList());
+        if (recommandations.size() < k) {
+            long[] suivies = courant.formationsDe(apprenantId);
+            ratingService.getTopRated(LIMITE_MAX).stream()
+                    .filter(f -> Arrays.binarySearch(suivies, f.getId()) < 0)
+                    .filter(f -> recommandations.stream().noneMatch(r -> r.getId().equals(f.getId())))
+                    .limit(k - recommandations.size())
+                    .map(f -> RecommandationDTO.builder()
+                            .id(f.getId())
+                            .titre(f.getTitre())
+                            .categorie(f.getCategorie())
+                            .noteMoyenne(f.getNoteMoyenne())
+                            .nombreAvis(f.getNombreAvis())
+                            .build())
+                    .forEach(recommandations::add);
+        }
+        return recommandations;
+    }
+
+    public void inscription(Long formationId, Long apprenantId) {
+        appliquer(i -> i.ajouter(formationId, apprenantId));
+    }
+
+    public void desinscription(Long formationId, Long apprenantId) {
+        appliquer(i -> i.retirer(formationId, apprenantId));
+    }
+
+    /**
+     * Titre, catégorie et statut d'une formation créée ou modifiée, pris en compte après commit.
+     * Seules les formations approuvées sont recommandées.
+     */
+    public void synchroniserFormation(Formation formation) {
+        long id = formation.getId();
+        CoEnrollmentIndex.Fiche fiche = toFiche(formation.getTitre(), formation.getCategorie(), formation.getStatut(),
+                formation.getRatingSum(), formation.getRatingCount());
+        TransactionUtils.afterCommit(() -> appliquer(i -> i.definirFiche(id, fiche)));
+    }
+
+    /**
+     * Nouvel avis : les totaux sont relus dans la transaction qui les a incrémentés (ligne verrouillée),
+     * puis appliqués après commit, sans attendre la prochaine reconstruction.
+     */
+    public void enregistrerNote(Long formationId) {
+        formationRepository.findRatingById(formationId).ifPresent(view -> {
+            long sommeNotes = view.getRatingSum() == null ? 0L : view.getRatingSum();
+            long nombreAvis = view.getRatingCount() == null ? 0L : view.getRatingCount();
+            TransactionUtils.afterCommit(() -> appliquer(i -> i.definirNotes(formationId, sommeNotes, nombreAvis)));
+        });
+    }
+
+    public void retirerFormation(Long formationId) {
+        TransactionUtils.afterCommit(() -> appliquer(i -> i.retirerFormation(formationId)));
+    }
+
+    private synchronized void appliquer(Consumer<CoEnrollmentIndex> operation) {
+        operation.accept(index);
+        if (journal != null) {
+            journal.add(operation);
+        }
+    }
+
+    private static CoEnrollmentIndex.Fiche toFiche(String titre, FormationCategory categorie,
+                                                   FormationStatus statut, Long sommeNotes, Long nombreAvis) {
+        return new CoEnrollmentIndex.Fiche(titre, categorie,
+                sommeNotes == null ? 0L : sommeNotes, nombreAvis == null ? 0L : nombreAvis,
+                statut == FormationStatus.APPROUVEE);
+    }
+
+    private static RecommandationDTO toDto(CoEnrollmentIndex.Recommandation r) {
+        return RecommandationDTO.builder()
+                .id(r.formationId())
+                .titre(r.fiche().titre())
+                .categorie(r.fiche().categorie())
+                .noteMoyenne(Math.round(r.fiche().moyenne() * 100) / 100d)
+                .nombreAvis(r.fiche().nombreAvis())
+                .coInscrits(r.coInscrits())
+                .score(Math.round(r.score() * 1000) / 1000d)
+                .build();
+    }
+
+    private static int borner(int limite) {
+        return Math.min(Math.max(limite, 1), LIMITE_MAX);
+    }
+}
@@ -0,0 +1,151 @@
+package spring._3alemliveback.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import spring._3alemliveback.dto.search.SuggestionDTO;
+import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.enums.SuggestionType;
+import spring._3alemliveback.index.PrefixIndex;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.UserRepository;
+import spring._3alemliveback.util.TransactionUtils;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Autocomplétion du champ de recherche : titres des formations approuvées, catégories
+ * et noms des experts actifs. Les suggestions sont servies depuis un index de préfixes
+ * en mémoire, sans accès à la base ; FormationService et AuthenticationService le tiennent
+ * à jour au fil des modifications (après commit).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestionService {
+
+    public static final int LIMITE_MAX = 20;
+
+    private final FormationRepository formationRepository;
+    private final UserRepository userRepository;
+
+    // Les libellés les plus courts d'abord : la saisie est alors la plus grande partie du libellé
+    private final PrefixIndex<SuggestionDTO> index = new PrefixIndex<>(LIMITE_MAX,
+            Comparator.comparingInt((SuggestionDTO s) -> s.getLibelle().length())
+                    .thenComparing(SuggestionDTO::getLibelle, String.CASE_INSENSITIVE_ORDER));
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void chargerIndex() {
+        index.clear();
+        for (FormationCategory categorie : FormationCategory.values()) {
+            index.put(cleCategorie(categorie), libelleCategorie(categorie), SuggestionDTO.builder()
+                    .type(SuggestionType.CATEGORIE)
+                    .code(categorie.name())
+                    .libelle(libelleCategorie(categorie))
+                    .build());
+        }
+        formationRepository.findTitresByStatut(FormationStatus.APPROUVEE)
+                .forEach(f -> indexerFormationMaintenant(f.getId(), f.getTitre()));
+        userRepository.findNomsActifsByRole(Role.EXPERT)
+                .forEach(u -> indexerExpertMaintenant(u.getId(), u.getPrenom(), u.getNom()));
+        log.info("Index d'autocomplétion chargé : {} entrées", index.size());
+    }
+
+    /**
+     * Suggestions pour un préfixe saisi. Les libellés les plus courts sont proposés en premier.
+     */
+    public List<SuggestionDTO> suggerer(String prefixe, int limite) {
+        int k = Math.min(Math.max(limite, 1), LIMITE_MAX);
+        return index.search(prefixe, k);
+    }
+
+    /**
+     * Indexe une formation si elle est approuvée, la retire sinon (rejet, démarrage, suppression).
+     */
+    public void synchroniserFormation(Formation formation) {
+        Long id = formation.getId();
+        String titre = formation.getTitre();
+        boolean visible = formation.getStatut() == FormationStatus.APPROUVEE;
+        TransactionUtils.afterCommit(() -> {
+            if (visible) {
+                indexerFormationMaintenant(id, titre);
+            } else {
+                index.remove(cleFormation(id));
+            }
+        });
+    }
+
+    public void retirerFormation(Long formationId) {
+        TransactionUtils.afterCommit(() -> index.remove(cleFormation(formationId)));
+    }
+
+    /**
+     * Indexe un expert s'il est vérifié et activé, le retire sinon.
+     */
+    public void synchroniserExpert(User user) {
+        if (user.getRole() != Role.EXPERT) {
+            return;
+        }
+        Long id = user.getId();
+        String prenom = user.getPrenom();
+        String nom = user.getNom();
+        boolean visible = user.isVerified() && user.isActive();
+        TransactionUtils.afterCommit(() -> {
+            if (visible) {
+                indexerExpertMaintenant(id, prenom, nom);
+            } else {
+                index.remove(cleExpert(id));
+            }
+        });
+    }
+
+    private void indexerFormationMaintenant(Long id, String titre) {
+        if (titre == null || titre.isBlank()) {
+            return;
+        }
+        index.put(cleFormation(id), titre, SuggestionDTO.builder()
+                .type(SuggestionType.FORMATION)
+                .id(id)
+                .libelle(titre)
+                .build());
+    }
+
+    private void indexerExpertMaintenant(Long id, String prenom, String nom) {
+        String libelle = ((prenom != null ? prenom : "") + " " + (nom != null ? nom : "")).trim();
+        if (libelle.isEmpty()) {
+            return;
+        }
+        // "Prénom Nom" : les suffixes de mots rendent aussi la saisie par le nom de famille
+        index.put(cleExpert(id), libelle, SuggestionDTO.builder()
+                .type(SuggestionType.EXPERT)
+                .id(id)
+                .libelle(libelle)
+                .build());
+    }
+
+    private static String libelleCategorie(FormationCategory categorie) {
+        String texte = categorie.name().replace('_', ' ').toLowerCase();
+        return Character.toUpperCase(texte.charAt(0)) + texte.substring(1);
+    }
+
+    private static String cleFormation(Long id) {
+        return "F:" + id;
+    }
+
+    private static String cleExpert(Long id) {
+        return "E:" + id;
+    }
+
+    private static String cleCategorie(FormationCategory categorie) {
+        return "C:" + categorie.name();
+    }
+}
@@ -0,0 +1,49 @@
+package spring._3alemliveback.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Répond 304 si If-None-Match / If-Modified-Since correspondent à {@code version}, sans calculer
+     * le corps ; sinon 200 avec le corps fourni. ETag et Last-Modified sont posés par checkNotModified.
+     * no-cache impose une revalidation à chaque affichage plutôt qu'une fraîcheur heuristique.
+     * L'ETag est envoyé faible : Tomcat ne compresse pas une réponse qui porte un ETag fort.
+     */
+    public static <T> ResponseEntity<T> repondre(WebRequest request, ResourceVersion version, Supplier<T> corps) {
+        return repondreSelonFormat(request, version, format -> corps.get());
+    }
+
+    /**
+     * Variante pour les corps qui dépendent du format négocié (JSON, CBOR, Smile), comme les flux
+     * StreamingResponseBody. Chaque format a son propre ETag et la réponse varie selon Accept.
+     */
+    public static <T> ResponseEntity<T> repondreSelonFormat(WebRequest request, ResourceVersion version,
+                                                            Function<MediaType, T> corps) {
+        MediaType format = MediaFormats.negocier(request.getHeader(HttpHeaders.ACCEPT));
+        ResourceVersion representation = MediaFormats.estJson(format) ? version : version.variante(format.getSubtype());
+        if (request.checkNotModified("W/" + representation.etag(), representation.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+        // Type explicite : les corps écrits en flux (StreamingResponseBody) n'en déduisent aucun
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(format)
+                .body(corps.apply(format));
+    }
+}
@@ -0,0 +1,39 @@
+package spring._3alemliveback.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+public final class ImageResponses {
+
+    private ImageResponses() {
+    }
+
+    /**
+     * Réponse binaire d'une image stockée en base, type déduit de la signature du fichier.
+     */
+    public static ResponseEntity<byte[]> of(byte[] image) {
+        if (image == null || image.length == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(detecter(image))
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic())
+                .body(image);
+    }
+
+    static MediaType detecter(byte[] image) {
+        if (image.length > 3 && (image[0] & 0xFF) == 0x89 && image[1] == 'P' && image[2] == 'N' && image[3] == 'G') {
+            return MediaType.IMAGE_PNG;
+        }
+        if (image.length > 2 && image[0] == 'G' && image[1] == 'I' && image[2] == 'F') {
+            return MediaType.IMAGE_GIF;
+        }
+        if (image.length > 11 && image[8] == 'W' && image[9] == 'E' && image[10] == 'B' && image[11] == 'P') {
+            return MediaType.parseMediaType("image/webp");
+        }
+        return MediaType.IMAGE_JPEG;
+    }
+}
@@ -0,0 +1,38 @@
+package spring._3alemliveback.util;
+
+import spring._3alemliveback.exceptions.InvalidOperationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Curseur opaque du journal des modifications (colonne journal_xid, voir schema.sql) : "la lecture
+ * suivante reprend strictement après (xid, id)". {@code emis} date la lecture qui l'a produit, pour
+ * détecter un curseur plus ancien que la rétention des tombstones.
+ */
+public record JournalCursor(long xid, long id, LocalDateTime emis) {
+
+    public static final JournalCursor DEBUT = new JournalCursor(-1, Long.MAX_VALUE, LocalDateTime.of(1970, 1, 1, 0, 0));
+
+    /**
+     * Curseur placé juste avant {@code horizon} : tout le journal antérieur a été lu.
+     */
+    public static JournalCursor avant(long horizon, LocalDateTime emis) {
+        return new JournalCursor(horizon - 1, Long.MAX_VALUE, emis);
+    }
+
+    public String encode() {
+        String brut = xid + "|" + id + "|" + emis;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static JournalCursor decode(String curseur) {
+        try {
+            String[] champs = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8).split("\\|");
+            return new JournalCursor(Long.parseLong(champs[0]), Long.parseLong(champs[1]), LocalDateTime.parse(champs[2]));
+        } catch (RuntimeException e) {
+            throw new InvalidOperationException("Curseur de synchronisation invalide");
+        }
+    }
+}
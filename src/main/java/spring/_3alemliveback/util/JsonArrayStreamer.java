@@ -0,0 +1,108 @@
+package spring._3alemliveback.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Écrit le résultat d'une requête de repository sous forme de tableau JSON (ou CBOR / Smile), ligne par ligne,
+ * directement sur la réponse HTTP. La requête s'exécute dans une transaction en lecture seule
+ * sur un curseur JDBC (méthodes de repository renvoyant un {@link Stream}, annotées avec
+ * la taille de lot {@link #FETCH_SIZE}) : la mémoire utilisée ne dépend pas du nombre de lignes.
+ */
+@Component
+@Slf4j
+public class JsonArrayStreamer {
+
+    /**
+     * Taille de lot des curseurs, à reprendre dans les @QueryHint des méthodes de streaming.
+     */
+    public static final String FETCH_SIZE = "500";
+    private static final int LOT = Integer.parseInt(FETCH_SIZE);
+
+    private final Map<MediaType, ObjectMapper> mappers;
+    private final EntityManager entityManager;
+    private final TransactionTemplate lectureSeule;
+
+    public JsonArrayStreamer(ObjectMapper objectMapper,
+                             MappingJackson2CborHttpMessageConverter cborConverter,
+                             MappingJackson2SmileHttpMessageConverter smileConverter,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager) {
+        this.mappers = Map.of(MediaType.APPLICATION_JSON, objectMapper,
+                MediaType.APPLICATION_CBOR, cborConverter.getObjectMapper(),
+                MediaFormats.SMILE, smileConverter.getObjectMapper());
+        this.entityManager = entityManager;
+        this.lectureSeule = new TransactionTemplate(transactionManager);
+        this.lectureSeule.setReadOnly(true);
+    }
+
+    /**
+     * @param format   JSON, CBOR ou Smile (cf. MediaFormats.negocier)
+     * @param requete  méthode de repository renvoyant un Stream (appelée dans la transaction)
+     * @param mapping  conversion d'une ligne en objet sérialisé
+     */
+    public <T, R> StreamingResponseBody stream(MediaType format, Supplier<Stream<T>> requete, Function<T, R> mapping) {
+        return streamParLots(format, requete, lot -> lot.stream().map(mapping).toList());
+    }
+
+    /**
+     * Variante où la conversion reçoit les lignes par lots de {@link #FETCH_SIZE} : elle peut compléter
+     * tout un lot en une requête (collections lues par IN plutôt qu'une requête par ligne).
+     *
+     * @param mappingLot conversion d'un lot de lignes, dans le même ordre
+     */
+    public <T, R> StreamingResponseBody streamParLots(MediaType format, Supplier<Stream<T>> requete,
+                                                      Function<List<T>, List<R>> mappingLot) {
+        ObjectMapper mapper = mappers.getOrDefault(new MediaType(format.getType(), format.getSubtype()),
+                mappers.get(MediaType.APPLICATION_JSON));
+        // Un flush par lot, pas après chaque ligne
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return sortie -> lectureSeule.executeWithoutResult(status -> {
+            try (Stream<T> lignes = requete.get();
+                 JsonGenerator generateur = mapper.getFactory().createGenerator(sortie)) {
+                generateur.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generateur.writeStartArray();
+                Iterator<T> iterateur = lignes.iterator();
+                List<T> lot = new ArrayList<>(LOT);
+                while (iterateur.hasNext()) {
+                    lot.add(iterateur.next());
+                    if (lot.size() == LOT || !iterateur.hasNext()) {
+                        for (R valeur : mappingLot.apply(lot)) {
+                            writer.writeValue(generateur, valeur);
+                        }
+                        lot.clear();
+                        // Les entités déjà écrites ne doivent pas s'accumuler dans le contexte de persistance
+                        entityManager.clear();
+                        generateur.flush();
+                    }
+                }
+                generateur.writeEndArray();
+            } catch (IOException e) {
+                // Client déconnecté en cours de réponse : la transaction est annulée, le curseur fermé
+                log.debug("Streaming JSON interrompu : {}", e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package spring._3alemliveback.util;
+
+import spring._3alemliveback.exceptions.InvalidOperationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Curseur opaque de pagination par clé (date, id) : "la page suivante commence strictement
+ * après cette ligne". Encodé en Base64 URL-safe pour être passé tel quel en paramètre de requête.
+ */
+public record KeysetCursor(LocalDateTime date, long id) {
+
+    // Borne basse utilisée pour la première page d'un tri croissant
+    public static final KeysetCursor DEBUT_ASC = new KeysetCursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+
+    // Borne haute utilisée pour la première page d'un tri décroissant
+    public static final KeysetCursor DEBUT_DESC = new KeysetCursor(LocalDateTime.of(9999, 12, 31, 23, 59), Long.MAX_VALUE);
+
+    public String encode() {
+        String brut = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String curseur) {
+        try {
+            String brut = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8);
+            int separateur = brut.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(brut.substring(0, separateur)),
+                    Long.parseLong(brut.substring(separateur + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidOperationException("Curseur de pagination invalide");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package spring._3alemliveback.util;
+
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * Formats de réponse négociables : JSON (par défaut), CBOR et Smile.
+ */
+public final class MediaFormats {
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    // Ordre de préférence à qualité égale : JSON reste le choix d'un navigateur ("*/*")
+    private static final List<MediaType> SUPPORTES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE);
+
+    private MediaFormats() {
+    }
+
+    /**
+     * @param accept valeur de l'en-tête Accept (peut être null)
+     * @return le format supporté de meilleure qualité, JSON si aucun ne correspond
+     */
+    public static MediaType negocier(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> acceptes;
+        try {
+            acceptes = MediaType.parseMediaTypes(accept);
+        } catch (RuntimeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        // Score : qualité, puis correspondance exacte plutôt que joker ("application/cbor" l'emporte sur "*/*")
+        MediaType choisi = MediaType.APPLICATION_JSON;
+        double meilleureQualite = 0;
+        boolean meilleurExact = false;
+        for (MediaType format : SUPPORTES) {
+            for (MediaType accepte : acceptes) {
+                double qualite = accepte.getQualityValue();
+                boolean exact = !accepte.isWildcardSubtype();
+                if (accepte.includes(format) && qualite > 0
+                        && (qualite > meilleureQualite || (qualite == meilleureQualite && exact && !meilleurExact))) {
+                    choisi = format;
+                    meilleureQualite = qualite;
+                    meilleurExact = exact;
+                }
+            }
+        }
+        return choisi;
+    }
+
+    public static boolean estJson(MediaType format) {
+        return MediaType.APPLICATION_JSON.equalsTypeAndSubtype(format);
+    }
+}
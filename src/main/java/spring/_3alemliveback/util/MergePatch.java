@@ -0,0 +1,60 @@
+package spring._3alemliveback.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * JSON Merge Patch (RFC 7386) sur un DTO plat : seuls les champs présents dans le patch sont
+ * appliqués, un champ absent reste inchangé, null efface la valeur. Les tableaux sont remplacés.
+ */
+public final class MergePatch<T> {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private final JsonNode patch;
+    private final T valeurs;
+
+    private MergePatch(JsonNode patch, T valeurs) {
+        this.patch = patch;
+        this.valeurs = valeurs;
+    }
+
+    /**
+     * @param type    DTO listant les champs modifiables ; tout autre champ est refusé
+     * @param nonNuls champs obligatoires, qui ne peuvent pas être effacés
+     */
+    public static <T> MergePatch<T> lire(ObjectMapper objectMapper, JsonNode patch, Class<T> type, String... nonNuls) {
+        if (patch == null || !patch.isObject()) {
+            throw new InvalidOperationException("Le patch doit être un objet JSON");
+        }
+        for (String champ : nonNuls) {
+            if (patch.has(champ) && patch.get(champ).isNull()) {
+                throw new InvalidOperationException("Le champ " + champ + " ne peut pas être effacé");
+            }
+        }
+        try {
+            T valeurs = objectMapper.readerFor(type)
+                    .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(patch);
+            return new MergePatch<>(patch, valeurs);
+        } catch (JsonProcessingException e) {
+            throw new InvalidOperationException("Patch invalide : " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean contient(String champ) {
+        return patch.has(champ);
+    }
+
+    public T valeurs() {
+        return valeurs;
+    }
+}
@@ -0,0 +1,52 @@
+package spring._3alemliveback.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Validateurs HTTP d'une représentation : ETag (entre guillemets, sans préfixe W/) et date de dernière
+ * modification (ms, -1 si inconnue).
+ */
+public record ResourceVersion(String etag, long lastModified) {
+
+    /**
+     * @param ressource   identifiant de la représentation et versions dont elle dépend (ex. "formation-42-3.1")
+     * @param horodatages dates de dernière modification des lignes concernées, la plus récente est retenue
+     */
+    public static ResourceVersion of(String ressource, LocalDateTime... horodatages) {
+        long derniere = -1;
+        for (LocalDateTime horodatage : horodatages) {
+            if (horodatage != null) {
+                derniere = Math.max(derniere, horodatage.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+        }
+        return new ResourceVersion("\"" + ressource + "-" + Long.toHexString(Math.max(derniere, 0)) + "\"", derniere);
+    }
+
+    /**
+     * Précondition If-Match : vraie si l'un des ETags fournis désigne cette version, quelle que soit
+     * la représentation lue (variante ?fields=, CBOR...), ou pour "*". Le préfixe faible "W/" des
+     * ETags envoyés par ConditionalGet est ignoré.
+     */
+    public boolean correspond(String ifMatch) {
+        String base = etag.substring(0, etag.length() - 1);
+        for (String candidat : ifMatch.split(",")) {
+            String valeur = candidat.trim();
+            if (valeur.startsWith("W/")) {
+                valeur = valeur.substring(2);
+            }
+            if (valeur.equals("*") || valeur.equals(etag) || valeur.startsWith(base + "~")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Même version, autre représentation (ex. sélection de champs ?fields=) : ETag distinct.
+     */
+    public ResourceVersion variante(String representation) {
+        String suffixe = representation.replaceAll("[^A-Za-z0-9.]", "");
+        return new ResourceVersion(etag.substring(0, etag.length() - 1) + "~" + suffixe + "\"", lastModified);
+    }
+}
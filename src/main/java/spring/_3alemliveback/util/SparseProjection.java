@@ -0,0 +1,107 @@
+package spring._3alemliveback.util;
+
+import spring._3alemliveback.exceptions.InvalidOperationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sélection de champs (?fields=a,b,c) traduite en liste SELECT JPQL : seules les colonnes
+ * des champs demandés sont lues, et la jointure n'est ajoutée que si un champ la requiert.
+ * Chaque champ déclare ses expressions JPQL et la fonction qui en construit la valeur JSON.
+ */
+public final class SparseProjection {
+
+    public record Champ(String nom, List<String> expressions, boolean jointure, Function<Object[], Object> valeur) {
+    }
+
+    private final String from;
+    private final String jointure;
+    private final Map<String, Champ> champs = new LinkedHashMap<>();
+
+    /**
+     * @param from     entité et alias, ex. "Formation f"
+     * @param jointure jointure optionnelle, ex. "LEFT JOIN f.formateur fo"
+     */
+    public SparseProjection(String from, String jointure) {
+        this.from = from;
+        this.jointure = jointure;
+    }
+
+    public SparseProjection champ(String nom, String expression) {
+        return champ(nom, false, colonnes -> colonnes[0], expression);
+    }
+
+    public SparseProjection champ(String nom, boolean jointure, Function<Object[], Object> valeur, String... expressions) {
+        champs.put(nom, new Champ(nom, List.of(expressions), jointure, valeur));
+        return this;
+    }
+
+    /**
+     * @param fields liste de champs séparés par des virgules ; "id" est toujours inclus
+     */
+    public Selection selection(String fields) {
+        Set<String> noms = new LinkedHashSet<>();
+        noms.add("id");
+        Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(nom -> !nom.isEmpty())
+                .forEach(noms::add);
+        List<Champ> retenus = new ArrayList<>(noms.size());
+        for (String nom : noms) {
+            Champ champ = champs.get(nom);
+            if (champ == null) {
+                throw new InvalidOperationException("Champ inconnu : " + nom + " (champs disponibles : "
+                        + String.join(",", champs.keySet()) + ")");
+            }
+            retenus.add(champ);
+        }
+        return new Selection(retenus);
+    }
+
+    public final class Selection {
+        private final List<Champ> retenus;
+        private final boolean avecJointure;
+
+        private Selection(List<Champ> retenus) {
+            this.retenus = retenus;
+            this.avecJointure = retenus.stream().anyMatch(Champ::jointure);
+        }
+
+        /**
+         * @param suite clauses WHERE / ORDER BY ajoutées après le FROM
+         */
+        public String jpql(String suite) {
+            String select = retenus.stream()
+                    .flatMap(c -> c.expressions().stream())
+                    .collect(Collectors.joining(", "));
+            return "SELECT " + select + " FROM " + from + (avecJointure ? " " + jointure : "") + " " + suite;
+        }
+
+        public Map<String, Object> ligne(Object[] colonnes) {
+            Map<String, Object> ligne = new LinkedHashMap<>();
+            int i = 0;
+            for (Champ champ : retenus) {
+                int n = champ.expressions().size();
+                ligne.put(champ.nom(), champ.valeur().apply(Arrays.copyOfRange(colonnes, i, i + n)));
+                i += n;
+            }
+            return ligne;
+        }
+
+        /**
+         * Identifiant stable de la sélection (champs triés, "id" compris), pour distinguer les ETags des
+         * représentations partielles. Sans virgule : une liste d'ETags If-Match se découpe sur les virgules.
+         */
+        public String cle() {
+            return retenus.stream().map(Champ::nom).sorted().collect(Collectors.joining("."));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+-- Objets PostgreSQL que Hibernate (ddl-auto=update) ne sait pas générer.
+-- Exécuté après la mise à jour du schéma par Hibernate (spring.jpa.defer-datasource-initialization=true) :
+-- chaque instruction doit donc rester idempotente.
+
+-- Recherche plein texte sur les formations -----------------------------------------------------------
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() n'est pas IMMUTABLE : ce wrapper à dictionnaire explicite l'est, ce qui permet
+-- de l'utiliser dans une colonne générée et dans un index.
+CREATE OR REPLACE FUNCTION immutable_unaccent(text) RETURNS text
+    AS 'SELECT public.unaccent(''public.unaccent''::regdictionary, $1)'
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+UPDATE formations f
+SET formateur_nom = trim(concat_ws(' ', u.prenom, u.nom))
+FROM users u
+WHERE u.id = f.formateur_id AND f.formateur_nom IS NULL;
+
+ALTER TABLE formations ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('french', immutable_unaccent(coalesce(titre, ''))), 'A') ||
+        setweight(to_tsvector('french', immutable_unaccent(coalesce(formateur_nom, ''))), 'B') ||
+        setweight(to_tsvector('french', immutable_unaccent(coalesce(description, ''))), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_formations_search_vector ON formations USING GIN (search_vector);
+
+-- Validateurs des GET conditionnels -------------------------------------------------------------------
+-- Lignes antérieures à l'ajout des colonnes version / updated_at.
+
+UPDATE formations SET version = 0 WHERE version IS NULL;
+UPDATE formations SET updated_at = LOCALTIMESTAMP WHERE updated_at IS NULL;
+UPDATE users SET version = 0 WHERE version IS NULL;
+UPDATE users SET updated_at = LOCALTIMESTAMP WHERE updated_at IS NULL;
+
+-- Provisionnement asynchrone des liens Meet ------------------------------------------------------------
+-- Formations antérieures : lien déjà créé, ou à créer par le worker s'il avait échoué à la création.
+
+UPDATE formations SET meet_statut = CASE WHEN url_meet IS NULL THEN 'EN_ATTENTE' ELSE 'PROVISIONNE' END
+WHERE meet_statut IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_formations_meet_en_attente ON formations (meet_prochaine_tentative)
+    WHERE meet_statut IN ('EN_ATTENTE', 'EN_COURS');
+
+-- Planning des formateurs ---------------------------------------------------------------------------
+-- Deux formations d'un même formateur ne peuvent pas se chevaucher (formations rejetées exclues).
+-- Contrainte d'exclusion GiST : btree_gist fournit l'égalité sur formateur_id. Son index sert aussi les
+-- recherches de créneaux occupés (FormationRepository.findCreneauxOccupes, même prédicat).
+-- Corps du DO entre apostrophes (le découpage du script se fait sur les ';' hors chaînes). Si des
+-- chevauchements existent déjà, la contrainte n'est pas créée : seule la vérification applicative s'applique.
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ''formations_creneau_formateur_excl'') THEN
+        ALTER TABLE formations ADD CONSTRAINT formations_creneau_formateur_excl
+            EXCLUDE USING gist (formateur_id WITH =, tsrange(date_debut, date_fin, ''[)'') WITH &&)
+            WHERE (statut <> ''REJETEE'' AND date_debut < date_fin);
+    END IF;
+EXCEPTION WHEN exclusion_violation THEN
+    RAISE WARNING ''Formations qui se chevauchent : contrainte formations_creneau_formateur_excl non créée'';
+END';
+
+-- Journal des modifications (synchronisation du catalogue, statistiques admin) --------------------------
+-- Chaque écriture d'une ligne y inscrit l'identifiant de sa transaction. Un lecteur ne parcourt que les
+-- transactions antérieures au xmin de son instantané (toutes terminées) : une transaction validée tard
+-- n'est jamais dépassée par le curseur, elle retarde seulement la lecture.
+-- Lignes antérieures : 0, avant toute transaction réelle.
+
+ALTER TABLE formations ADD COLUMN IF NOT EXISTS journal_xid bigint;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS journal_xid bigint;
+ALTER TABLE formation_tombstones ADD COLUMN IF NOT EXISTS journal_xid bigint;
+
+UPDATE formations SET journal_xid = 0 WHERE journal_xid IS NULL;
+UPDATE users SET journal_xid = 0 WHERE journal_xid IS NULL;
+UPDATE formation_tombstones SET journal_xid = 0 WHERE journal_xid IS NULL;
+
+CREATE OR REPLACE FUNCTION marquer_journal_xid() RETURNS trigger
+    AS 'BEGIN NEW.journal_xid := pg_current_xact_id()::text::bigint; RETURN NEW; END'
+    LANGUAGE plpgsql;
+
+CREATE OR REPLACE TRIGGER formations_journal_xid BEFORE INSERT OR UPDATE ON formations
+    FOR EACH ROW EXECUTE FUNCTION marquer_journal_xid();
+CREATE OR REPLACE TRIGGER users_journal_xid BEFORE INSERT OR UPDATE ON users
+    FOR EACH ROW EXECUTE FUNCTION marquer_journal_xid();
+CREATE OR REPLACE TRIGGER formation_tombstones_journal_xid BEFORE INSERT OR UPDATE ON formation_tombstones
+    FOR EACH ROW EXECUTE FUNCTION marquer_journal_xid();
@@ -0,0 +1,47 @@
+package spring._3alemliveback.chat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.repo.MessageChatRepository;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Salons du chat : une connexion acceptée par la poignée de main après la fin de la session ne rouvre
+ * pas le salon. Hors transaction, fermerSalon s'applique immédiatement.
+ */
+class ChatHubTest {
+
+    private final MessageChatRepository messageChatRepository = mock(MessageChatRepository.class);
+    private final ChatHub hub = new ChatHub(messageChatRepository, mock(ChatTranscriptWriter.class),
+            new JacksonConfig().objectMapper(), new SimpleMeterRegistry(), 1, 50, 256, 65536, 1000, 0);
+
+    @AfterEach
+    void arreter() throws InterruptedException {
+        hub.arreter();
+    }
+
+    @Test
+    void salonFermeNonRouvert() throws IOException {
+        hub.fermerSalon(1L);
+
+        WebSocketSession tardive = mock(WebSocketSession.class);
+        assertNull(hub.rejoindre(tardive, new ChatParticipant(1L, 7L, "Amina")));
+        verify(tardive).close(ChatRoom.FIN_DE_SESSION);
+        verify(messageChatRepository, never()).findByFormationIdOrderBySequenceDesc(eq(1L), any());
+
+        // Les autres formations ne sont pas concernées
+        assertNotNull(hub.rejoindre(mock(WebSocketSession.class), new ChatParticipant(2L, 7L, "Amina")));
+    }
+}
@@ -0,0 +1,170 @@
+package spring._3alemliveback.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import spring._3alemliveback.config.JacksonConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Boucle du salon : un client trop lent est coupé sans que la fermeture de sa session s'exécute dans
+ * la boucle, et une fermeture en échec n'empêche pas de couper les suivants. Le pool est remplacé
+ * par deux files de tâches exécutées pas à pas : boucle du salon d'un côté, envois et fermetures des
+ * connexions de l'autre. Le dernier cas tourne sur un vrai pool avec des milliers de connexions.
+ */
+class ChatRoomTest {
+
+    private static final ChatParticipant AUTEUR = new ChatParticipant(1L, 7L, "Amina");
+    private static final int CONNEXIONS = 5_000;
+    private static final int CAPACITE = 8;
+    private static final int MESSAGES = 20;
+
+    private final ArrayDeque<Runnable> boucle = new ArrayDeque<>();
+    private final ArrayDeque<Runnable> taches = new ArrayDeque<>();
+    private final Counter clientsLents = new SimpleMeterRegistry().counter("chat.slow_consumers.dropped");
+    private final ChatRoom salon = new ChatRoom(1L, List.of(), boucle::add, this::json,
+            mock(ChatTranscriptWriter.class), clientsLents, 0);
+
+    @Test
+    void clientsLentsCoupesHorsDeLaBoucle() throws IOException {
+        WebSocketSession enEchec = mock(WebSocketSession.class);
+        doThrow(new IllegalStateException("session déjà fermée")).when(enEchec).close(any());
+        WebSocketSession lente = mock(WebSocketSession.class);
+        ChatConnexion premiere = connexion(enEchec);
+        ChatConnexion seconde = connexion(lente);
+        salon.rejoindre(premiere);
+        salon.rejoindre(seconde);
+        executerBoucle();
+
+        // Les tâches d'envoi ne tournent pas : la file d'une place reste pleine
+        salon.publier(new ChatParticipant(1L, 7L, "Amina"), "bonjour");
+        executerBoucle();
+        salon.publier(new ChatParticipant(1L, 7L, "Amina"), "vous m'entendez ?");
+        executerBoucle();
+
+        assertEquals(2.0, clientsLents.count());
+        assertEquals(0, salon.nombreConnexions());
+        verify(enEchec, never()).close(any());
+        verify(lente, never()).close(any());
+
+        executerConnexions();
+        verify(enEchec).close(ChatRoom.CLIENT_TROP_LENT);
+        verify(lente).close(ChatRoom.CLIENT_TROP_LENT);
+    }
+
+    @Test
+    void fermetureDuSalonFermeChaqueSessionUneFois() throws IOException {
+        WebSocketSession session = mock(WebSocketSession.class);
+        ChatConnexion connexion = connexion(session);
+        salon.rejoindre(connexion);
+        executerBoucle();
+
+        salon.fermer();
+        executerBoucle();
+        // Envoi interrompu ensuite : la connexion est déjà fermée
+        connexion.fermer(CloseStatus.SESSION_NOT_RELIABLE);
+        executerConnexions();
+
+        verify(session).close(ChatRoom.FIN_DE_SESSION);
+        verify(session, never()).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void diffusionBorneeMalgreUnClientBloque() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch debloquer = new CountDownLatch(1);
+        AtomicLong recus = new AtomicLong();
+        try {
+            ChatRoom diffusion = new ChatRoom(1L, List.of(), pool, this::json, mock(ChatTranscriptWriter.class),
+                    clientsLents, 0);
+            // Envoi bloqué jusqu'à la fin du test : occupe un thread du pool
+            WebSocketSession bloquee = mock(WebSocketSession.class, withSettings().stubOnly());
+            doAnswer(invocation -> debloquer.await(30, TimeUnit.SECONDS)).when(bloquee).sendMessage(any());
+            diffusion.rejoindre(new ChatConnexion(bloquee, AUTEUR, diffusion, CAPACITE, pool, 65536));
+            for (int i = 0; i < CONNEXIONS; i++) {
+                WebSocketSession rapide = mock(WebSocketSession.class, withSettings().stubOnly());
+                doAnswer(invocation -> {
+                    String trame = ((TextMessage) invocation.getArgument(0)).getPayload();
+                    recus.addAndGet(trame.split("\"sequence\"", -1).length - 1);
+                    return null;
+                }).when(rapide).sendMessage(any());
+                diffusion.rejoindre(new ChatConnexion(rapide, AUTEUR, diffusion, CAPACITE, pool, 65536));
+            }
+
+            int coupeAuMessage = 0;
+            for (int message = 1; message <= MESSAGES; message++) {
+                diffusion.publier(AUTEUR, "message " + message);
+                long attendus = (long) CONNEXIONS * message;
+                attendre(() -> recus.get() == attendus);
+                if (coupeAuMessage == 0 && clientsLents.count() > 0) {
+                    coupeAuMessage = message;
+                }
+            }
+
+            // Tous les clients rapides ont tout reçu, le client bloqué a été coupé dès que sa file a débordé :
+            // au plus CAPACITE messages en attente plus la trame bloquée, quel que soit le nombre de messages
+            assertEquals(1.0, clientsLents.count());
+            assertTrue(coupeAuMessage > 0 && coupeAuMessage <= CAPACITE + 3, "coupé au message " + coupeAuMessage);
+            attendre(() -> diffusion.nombreConnexions() == CONNEXIONS);
+            assertEquals((long) CONNEXIONS * MESSAGES, recus.get());
+        } finally {
+            debloquer.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private static void attendre(BooleanSupplier condition) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "délai dépassé");
+            Thread.sleep(1);
+        }
+    }
+
+    private ChatConnexion connexion(WebSocketSession session) {
+        return new ChatConnexion(session, new ChatParticipant(1L, 7L, "Amina"), salon, 1, taches::add, 65536);
+    }
+
+    private void executerBoucle() {
+        while (!boucle.isEmpty()) {
+            boucle.poll().run();
+        }
+    }
+
+    private void executerConnexions() {
+        while (!taches.isEmpty()) {
+            taches.poll().run();
+        }
+    }
+
+    private String json(Object valeur) {
+        try {
+            return new JacksonConfig().objectMapper().writeValueAsString(valeur);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
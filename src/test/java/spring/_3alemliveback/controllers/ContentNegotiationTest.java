@@ -0,0 +1,227 @@
+package spring._3alemliveback.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.dto.formation.FormationDTO;
+import spring._3alemliveback.dto.register.UserDto;
+import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.services.AttendanceService;
+import spring._3alemliveback.services.AuthenticationService;
+import spring._3alemliveback.services.CatalogSyncService;
+import spring._3alemliveback.services.FormationService;
+import spring._3alemliveback.services.IdempotencyService;
+import spring._3alemliveback.services.LiveInteractionService;
+import spring._3alemliveback.services.RatingService;
+import spring._3alemliveback.services.RecommendationService;
+import spring._3alemliveback.services.SuggestionService;
+import spring._3alemliveback.util.JsonArrayStreamer;
+import spring._3alemliveback.util.MediaFormats;
+import spring._3alemliveback.util.ResourceVersion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Négociation JSON / CBOR / Smile selon Accept, y compris sur les listes écrites en flux : Content-Type,
+ * Vary, ETag par format et corps lisible par le décodeur correspondant. Convertisseurs de JacksonConfig,
+ * flux par un vrai JsonArrayStreamer sur des lignes en mémoire.
+ */
+class ContentNegotiationTest {
+
+    private static final byte[] IMAGE = {1, 2, 3, (byte) 0xFF};
+    private static final ResourceVersion VERSION = ResourceVersion.of("formations-approuvees",
+            LocalDateTime.of(2030, 1, 1, 9, 0));
+
+    private final FormationService formationService = mock(FormationService.class);
+    private final AuthenticationService authenticationService = mock(AuthenticationService.class);
+
+    private JsonArrayStreamer streamer;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void configurer() {
+        JacksonConfig jackson = new JacksonConfig();
+        ObjectMapper json = jackson.objectMapper();
+        MappingJackson2CborHttpMessageConverter cbor = jackson.cborHttpMessageConverter();
+        MappingJackson2SmileHttpMessageConverter smile = jackson.smileHttpMessageConverter();
+        streamer = new JsonArrayStreamer(json, cbor, smile, mock(EntityManager.class), mock(PlatformTransactionManager.class));
+
+        FormationController formations = new FormationController(formationService, mock(SuggestionService.class),
+                mock(RatingService.class), mock(RecommendationService.class), mock(CatalogSyncService.class),
+                mock(IdempotencyService.class), mock(LiveInteractionService.class), mock(AttendanceService.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(formations, new AuthenticationController(authenticationService))
+                .setMessageConverters(new ByteArrayHttpMessageConverter(), new StringHttpMessageConverter(),
+                        new MappingJackson2HttpMessageConverter(json), cbor, smile)
+                .build();
+    }
+
+    @Test
+    void approuveesEnFluxCbor() throws Exception {
+        approuvees(formation(1L), formation(2L));
+
+        MvcResult resultat = flux(get("/api/formations/approved").accept(MediaType.APPLICATION_CBOR));
+
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, resultat.getResponse().getContentType());
+        assertEquals("W/" + VERSION.variante("cbor").etag(), resultat.getResponse().getHeader(HttpHeaders.ETAG));
+        assertTrue(resultat.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+        JsonNode liste = new CBORMapper().readTree(resultat.getResponse().getContentAsByteArray());
+        assertEquals(2, liste.size());
+        assertEquals("Formation 2", liste.get(1).get("titre").asText());
+        // Octets bruts, pas de Base64
+        assertArrayEquals(IMAGE, liste.get(0).get("imageFormation").binaryValue());
+    }
+
+    @Test
+    void approuveesEnJsonParDefaut() throws Exception {
+        approuvees(formation(1L));
+
+        MvcResult resultat = flux(get("/api/formations/approved").accept(MediaType.ALL));
+
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, resultat.getResponse().getContentType());
+        assertEquals("W/" + VERSION.etag(), resultat.getResponse().getHeader(HttpHeaders.ETAG));
+        JsonNode liste = new ObjectMapper().readTree(resultat.getResponse().getContentAsByteArray());
+        assertEquals(1L, liste.get(0).get("id").asLong());
+    }
+
+    @Test
+    void approuveesNonModifieesEnCborSansCalculerLeFlux() throws Exception {
+        when(formationService.getVersionFormationsApprouvees()).thenReturn(VERSION);
+
+        mockMvc.perform(get("/api/formations/approved")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/" + VERSION.variante("cbor").etag()))
+                .andExpect(status().isNotModified());
+
+        verify(formationService, never()).streamFormationsApprouvees(any(MediaType.class));
+    }
+
+    @Test
+    void enAttenteSelonLaQualiteDAccept() throws Exception {
+        when(formationService.streamFormationsEnAttente(any(MediaType.class))).thenAnswer(invocation ->
+                streamer.stream(invocation.getArgument(0), () -> Stream.of(formation(5L)), Function.identity()));
+
+        MvcResult resultat = flux(get("/api/formations/pending")
+                .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-jackson-smile"));
+
+        assertEquals(MediaFormats.SMILE.toString(), resultat.getResponse().getContentType());
+        JsonNode liste = new SmileMapper().readTree(resultat.getResponse().getContentAsByteArray());
+        assertEquals(5L, liste.get(0).get("id").asLong());
+    }
+
+    @Test
+    void expertsEnFluxSmile() throws Exception {
+        when(authenticationService.streamAllExperts(any(MediaType.class))).thenAnswer(invocation ->
+                streamer.stream(invocation.getArgument(0), () -> Stream.of(expert(7L), expert(8L)), Function.identity()));
+
+        MvcResult resultat = flux(get("/api/v1/auth/users/experts").accept(MediaFormats.SMILE));
+
+        assertEquals(MediaFormats.SMILE.toString(), resultat.getResponse().getContentType());
+        assertTrue(resultat.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+        JsonNode liste = new SmileMapper().readTree(resultat.getResponse().getContentAsByteArray());
+        assertEquals(2, liste.size());
+        assertEquals("expert8@example.com", liste.get(1).get("email").asText());
+        assertArrayEquals(IMAGE, liste.get(0).get("profileImage").binaryValue());
+    }
+
+    @Test
+    void formationUniqueEtagParFormat() throws Exception {
+        ResourceVersion version = ResourceVersion.of("formation-1", LocalDateTime.of(2030, 1, 1, 9, 0));
+        when(formationService.getVersionFormation(1L)).thenReturn(version);
+        when(formationService.getFormationById(1L)).thenReturn(formation(1L));
+
+        MvcResult cbor = mockMvc.perform(get("/api/formations/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/\"")))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("~cbor\"")))
+                .andReturn();
+        String etag = cbor.getResponse().getHeader(HttpHeaders.ETAG);
+        assertArrayEquals(IMAGE, new CBORMapper().readTree(cbor.getResponse().getContentAsByteArray())
+                .get("imageFormation").binaryValue());
+
+        mockMvc.perform(get("/api/formations/1").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+        // Le même ETag ne vaut pas pour la représentation JSON
+        mockMvc.perform(get("/api/formations/1").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    private void approuvees(FormationDTO... lignes) {
+        when(formationService.getVersionFormationsApprouvees()).thenReturn(VERSION);
+        when(formationService.streamFormationsApprouvees(any(MediaType.class))).thenAnswer(invocation ->
+                streamer.stream(invocation.getArgument(0), () -> Stream.of(lignes), Function.identity()));
+    }
+
+    /**
+     * Les corps StreamingResponseBody sont écrits en asynchrone : en-têtes posés au démarrage, corps au dispatch.
+     */
+    private MvcResult flux(RequestBuilder requete) throws Exception {
+        MvcResult demarre = mockMvc.perform(requete)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(demarre))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private static FormationDTO formation(Long id) {
+        return FormationDTO.builder()
+                .id(id)
+                .titre("Formation " + id)
+                .dateDebut(LocalDateTime.of(2030, 1, 1, 9, 0))
+                .imageFormation(IMAGE)
+                .avis(List.of())
+                .build();
+    }
+
+    private static UserDto expert(Long id) {
+        return UserDto.builder()
+                .id(id)
+                .email("expert" + id + "@example.com")
+                .role(Role.EXPERT)
+                .isActive(true)
+                .profileImage(IMAGE)
+                .domaines(List.of("devops"))
+                .build();
+    }
+}
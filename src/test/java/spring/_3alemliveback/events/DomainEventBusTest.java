@@ -0,0 +1,230 @@
+package spring._3alemliveback.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.entities.OutboxEvent;
+import spring._3alemliveback.repo.OutboxEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bus des événements métier sans transaction (livraison soumise aussitôt) : bail de la ligne outbox,
+ * pause croissante entre deux échecs, abandon, refus du pool saturé. La réservation des lignes par le
+ * relais est couverte par OutboxRelayTest.
+ */
+class DomainEventBusTest {
+
+    private static final long BAIL_SECONDES = 60;
+    private static final int TENTATIVES_MAX = 3;
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong ids = new AtomicLong();
+    private DomainEventBus bus;
+
+    DomainEventBusTest() {
+        when(repository.save(any(OutboxEvent.class))).thenAnswer(invocation -> {
+            OutboxEvent ligne = invocation.getArgument(0);
+            ligne.setId(ids.incrementAndGet());
+            return ligne;
+        });
+    }
+
+    @AfterEach
+    void arreter() throws InterruptedException {
+        bus.arreter();
+    }
+
+    @Test
+    void abonneDurableEcritUneLigneSousBailPuisLaMarqueTraitee() {
+        Abonne abonne = new Abonne("promotion", true);
+        bus = bus(List.of(abonne), 2, 10);
+
+        LocalDateTime avant = LocalDateTime.now();
+        bus.publier(promotion());
+        LocalDateTime apres = LocalDateTime.now();
+
+        ArgumentCaptor<OutboxEvent> ligne = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(repository).save(ligne.capture());
+        assertEquals("WaitlistPromoted", ligne.getValue().getType());
+        assertEquals("promotion", ligne.getValue().getAbonne());
+        // Le relais ne reprend pas la ligne tant que la livraison directe est en cours
+        entre(ligne.getValue().getProchaineTentative(), avant.plusSeconds(BAIL_SECONDES), apres.plusSeconds(BAIL_SECONDES));
+        verify(repository, timeout(2000)).marquerTraite(eq(1L), any());
+        assertEquals(1, abonne.appels.get());
+    }
+
+    @Test
+    void sansAbonneDurableAucuneLigneOutbox() {
+        Abonne abonne = new Abonne("promotion", false);
+        bus = bus(List.of(abonne), 2, 10);
+
+        bus.publier(promotion());
+        // Inscription directe : aucun abonné, donc ni ligne ni livraison
+        bus.publier(new Enrolled(1L, 2L, "apprenant@example.com", "Kubernetes"));
+
+        verify(repository, after(200).never()).save(any());
+        assertEquals(1, abonne.appels.get());
+        verify(repository, never()).marquerTraite(any(), any());
+    }
+
+    @Test
+    void echecsEspacesDeFaconCroissantePuisAbandon() {
+        Abonne abonne = new Abonne("promotion", true);
+        abonne.echec = new IllegalStateException("SMTP indisponible");
+        bus = bus(List.of(abonne), 2, 10);
+
+        LocalDateTime avant = LocalDateTime.now();
+        bus.publier(promotion());
+        ArgumentCaptor<LocalDateTime> prochaine = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository, timeout(2000)).enregistrerEchec(eq(1L), eq(1), prochaine.capture(), eq("SMTP indisponible"));
+        entre(prochaine.getValue(), avant.plusSeconds(30), LocalDateTime.now().plusSeconds(30));
+
+        // Deuxième échec, repris par le relais : pause doublée
+        avant = LocalDateTime.now();
+        bus.relivrer(ligne(1L, "WaitlistPromoted", "promotion", 1));
+        verify(repository, timeout(2000)).enregistrerEchec(eq(1L), eq(2), prochaine.capture(), anyString());
+        entre(prochaine.getValue(), avant.plusSeconds(60), LocalDateTime.now().plusSeconds(60));
+
+        // Dernière tentative : plus de prochaine tentative, la ligne reste pour diagnostic
+        bus.relivrer(ligne(1L, "WaitlistPromoted", "promotion", TENTATIVES_MAX - 1));
+        verify(repository, timeout(2000)).enregistrerEchec(eq(1L), eq(TENTATIVES_MAX), isNull(), anyString());
+        verify(repository, never()).marquerTraite(any(), any());
+    }
+
+    @Test
+    void poolSatureRefuseEtLaisseLaLigneAuRelais() throws InterruptedException {
+        Abonne abonne = new Abonne("promotion", true);
+        abonne.blocage = new CountDownLatch(1);
+        // Un thread occupé, une place en file : la troisième livraison est refusée
+        bus = bus(List.of(abonne), 1, 1);
+
+        bus.publier(promotion());
+        assertTrue(abonne.demarre.await(2, TimeUnit.SECONDS));
+        bus.publier(promotion());
+        bus.publier(promotion());
+
+        assertEquals(1.0, registry.counter("domain.events.rejected", "listener", "promotion").count());
+        abonne.blocage.countDown();
+        verify(repository, timeout(2000)).marquerTraite(eq(1L), any());
+        verify(repository, timeout(2000)).marquerTraite(eq(2L), any());
+        // La ligne refusée garde son bail : le relais la reprendra à expiration
+        verify(repository, after(200).never()).marquerTraite(eq(3L), any());
+        verify(repository, never()).enregistrerEchec(eq(3L), anyInt(), any(), any());
+    }
+
+    @Test
+    void ligneDontLAbonneAChangeDeTypeAbandonnee() throws Exception {
+        Abonne abonne = new Abonne("promotion", true);
+        bus = bus(List.of(abonne), 2, 10);
+
+        // Ligne écrite quand l'abonné écoutait encore Enrolled : abandonnée sans tentative
+        OutboxEvent ancienne = ligne(9L, "Enrolled", "promotion", 0);
+        ancienne.setPayload(new JacksonConfig().objectMapper()
+                .writeValueAsString(new Enrolled(1L, 2L, "apprenant@example.com", "Kubernetes")));
+        bus.relivrer(ancienne);
+        bus.relivrer(ligne(10L, "WaitlistPromoted", "abonne-supprime", 0));
+
+        verify(repository).enregistrerEchec(eq(9L), eq(0), isNull(), anyString());
+        verify(repository).enregistrerEchec(eq(10L), eq(0), isNull(), anyString());
+        verify(repository, after(200).never()).enregistrerEchec(eq(9L), eq(1), any(), any());
+        assertEquals(0, abonne.appels.get());
+    }
+
+    private DomainEventBus bus(List<DomainEventListener<?>> listeners, int threads, int capacite) {
+        return new DomainEventBus(listeners, repository, new JacksonConfig().objectMapper(), registry,
+                threads, capacite, true, BAIL_SECONDES, TENTATIVES_MAX);
+    }
+
+    private static WaitlistPromoted promotion() {
+        return new WaitlistPromoted(1L, 2L, "apprenant@example.com", "Kubernetes");
+    }
+
+    private static OutboxEvent ligne(Long id, String type, String abonne, int tentatives) {
+        String payload;
+        try {
+            payload = new JacksonConfig().objectMapper().writeValueAsString(promotion());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return OutboxEvent.builder()
+                .id(id)
+                .type(type)
+                .abonne(abonne)
+                .payload(payload)
+                .createdAt(LocalDateTime.now())
+                .tentatives(tentatives)
+                .build();
+    }
+
+    private static void entre(LocalDateTime valeur, LocalDateTime min, LocalDateTime max) {
+        assertTrue(!valeur.isBefore(min) && !valeur.isAfter(max),
+                () -> valeur + " hors de [" + min + ", " + max + "]");
+    }
+
+    private static final class Abonne implements DomainEventListener<WaitlistPromoted> {
+
+        private final String nom;
+        private final boolean durable;
+        private final AtomicInteger appels = new AtomicInteger();
+        private final CountDownLatch demarre = new CountDownLatch(1);
+        private volatile RuntimeException echec;
+        private volatile CountDownLatch blocage;
+
+        private Abonne(String nom, boolean durable) {
+            this.nom = nom;
+            this.durable = durable;
+        }
+
+        @Override
+        public Class<WaitlistPromoted> typeEvenement() {
+            return WaitlistPromoted.class;
+        }
+
+        @Override
+        public void traiter(WaitlistPromoted evenement) throws InterruptedException {
+            appels.incrementAndGet();
+            demarre.countDown();
+            if (blocage != null) {
+                blocage.await(Duration.ofSeconds(5).toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (echec != null) {
+                throw echec;
+            }
+        }
+
+        @Override
+        public boolean durable() {
+            return durable;
+        }
+
+        @Override
+        public String nom() {
+            return nom;
+        }
+    }
+}
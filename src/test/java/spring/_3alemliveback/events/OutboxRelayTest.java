@@ -0,0 +1,74 @@
+package spring._3alemliveback.events;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring._3alemliveback.entities.OutboxEvent;
+import spring._3alemliveback.repo.OutboxEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reprise des lignes outbox : réservation, prolongation du bail avant relivraison. Le SKIP LOCKED de
+ * reserver relève de PostgreSQL et n'est pas rejoué ici.
+ */
+class OutboxRelayTest {
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final DomainEventBus bus = mock(DomainEventBus.class);
+    private final OutboxRelay relay = new OutboxRelay(repository, bus, mock(PlatformTransactionManager.class), 50, 7);
+
+    @Test
+    void outboxDesactiveeAucuneRequete() {
+        relay.relancer();
+        relay.purger();
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void lignesReserveesSousNouveauBailPuisRelivrees() {
+        when(bus.outboxActive()).thenReturn(true);
+        when(bus.bail()).thenReturn(Duration.ofSeconds(60));
+        OutboxEvent premiere = OutboxEvent.builder().id(1L).build();
+        OutboxEvent seconde = OutboxEvent.builder().id(2L).build();
+        when(repository.reserver(any(), eq(50))).thenReturn(List.of(1L, 2L));
+        when(repository.findAllById(List.of(1L, 2L))).thenReturn(List.of(premiere, seconde));
+
+        LocalDateTime avant = LocalDateTime.now();
+        relay.relancer();
+
+        ArgumentCaptor<LocalDateTime> maintenant = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> bail = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).reserver(maintenant.capture(), eq(50));
+        verify(repository).prolongerBail(eq(List.of(1L, 2L)), bail.capture());
+        assertTrue(!maintenant.getValue().isBefore(avant));
+        // Une instance voisine ne reprend pas la ligne pendant la relivraison
+        assertTrue(bail.getValue().isEqual(maintenant.getValue().plusSeconds(60)));
+        verify(bus).relivrer(premiere);
+        verify(bus).relivrer(seconde);
+    }
+
+    @Test
+    void rienAReserverRienARelivrer() {
+        when(bus.outboxActive()).thenReturn(true);
+        when(repository.reserver(any(), anyInt())).thenReturn(List.of());
+
+        relay.relancer();
+
+        verify(repository, never()).prolongerBail(any(), any());
+        verify(bus, never()).relivrer(any());
+    }
+}
@@ -0,0 +1,85 @@
+package spring._3alemliveback.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import spring._3alemliveback.enums.FormationCategory;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reconstruction en mémoire de l'index de recommandations (RecommendationService.reconstruire, hors
+ * lecture SQL) : 1 000 000 d'inscriptions synthétiques, 100 000 apprenants × 10 formations parmi 5 000,
+ * popularité en loi de puissance. Réglages par défaut : top-K 50, seuil 200 inscriptions.
+ * <p>
+ * Hors de la suite normale :
+ * mvn test -Dtest=CoEnrollmentIndexBenchmark -Dbenchmarks=true
+ * <p>
+ * Mesuré (JDK 17.0.9, un seul cœur, tas par défaut ; médiane de 5 reconstructions après 2 de chauffe,
+ * quatre exécutions) : 949, 966, 1137 et 1228 ms, dont ~120 ms pour finaliser(). L'essentiel est le
+ * remplissage de la matrice (45 paires par apprenant). Le chargement SQL trié par apprenant s'y ajoute
+ * en production. La borne ci-dessous détecte une régression, elle ne garantit pas la seconde.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class CoEnrollmentIndexBenchmark {
+
+    private static final int APPRENANTS = 100_000;
+    private static final int PAR_APPRENANT = 10;
+    private static final int FORMATIONS = 5_000;
+    private static final long RECONSTRUCTION_MAX_MS = 2_000;
+
+    @Test
+    void reconstruireUnMillionDInscriptions() {
+        long[][] inscriptions = generer(new Random(1));
+        long[] durees = new long[7];
+        for (int essai = 0; essai < durees.length; essai++) {
+            long debut = System.nanoTime();
+            CoEnrollmentIndex index = reconstruire(inscriptions);
+            durees[essai] = (System.nanoTime() - debut) / 1_000_000;
+            assertEquals((long) APPRENANTS * PAR_APPRENANT, index.nombreInscriptions());
+        }
+        long[] mesurees = Arrays.copyOfRange(durees, 2, durees.length);
+        Arrays.sort(mesurees);
+        long mediane = mesurees[mesurees.length / 2];
+        System.out.printf("Reconstruction de %d inscriptions : médiane %d ms (essais %s)%n",
+                (long) APPRENANTS * PAR_APPRENANT, mediane, Arrays.toString(durees));
+        assertTrue(mediane < RECONSTRUCTION_MAX_MS, mediane + " ms");
+    }
+
+    private static CoEnrollmentIndex reconstruire(long[][] inscriptions) {
+        CoEnrollmentIndex index = new CoEnrollmentIndex(50, 200);
+        for (long formation = 1; formation <= FORMATIONS; formation++) {
+            index.definirFiche(formation, new CoEnrollmentIndex.Fiche("F" + formation,
+                    FormationCategory.values()[(int) (formation % FormationCategory.values().length)], 40, 10, true));
+        }
+        for (int apprenant = 0; apprenant < inscriptions.length; apprenant++) {
+            index.chargerApprenant(apprenant + 1, inscriptions[apprenant]);
+        }
+        index.finaliser();
+        return index;
+    }
+
+    // Formation tirée en loi de puissance : quelques formations très suivies, une longue traîne
+    private static long[][] generer(Random aleatoire) {
+        long[][] inscriptions = new long[APPRENANTS][];
+        for (int apprenant = 0; apprenant < APPRENANTS; apprenant++) {
+            long[] suivies = new long[PAR_APPRENANT];
+            int n = 0;
+            while (n < PAR_APPRENANT) {
+                long formation = 1 + (long) (FORMATIONS * Math.pow(aleatoire.nextDouble(), 3));
+                boolean deja = false;
+                for (int i = 0; i < n; i++) {
+                    deja |= suivies[i] == formation;
+                }
+                if (!deja) {
+                    suivies[n++] = formation;
+                }
+            }
+            inscriptions[apprenant] = suivies;
+        }
+        return inscriptions;
+    }
+}
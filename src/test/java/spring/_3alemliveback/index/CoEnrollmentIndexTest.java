@@ -0,0 +1,159 @@
+package spring._3alemliveback.index;
+
+import org.junit.jupiter.api.Test;
+import spring._3alemliveback.enums.FormationCategory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tops de co-inscriptions maintenus par incréments, comparés à un recomptage complet des inscriptions
+ * après des ajouts et retraits aléatoires (seuil d'inscriptions par apprenant franchi dans les deux sens).
+ */
+class CoEnrollmentIndexTest {
+
+    private static final int K = 3;
+    private static final int INSCRIPTIONS_MAX = 6;
+    private static final int FORMATIONS = 15;
+    private static final int APPRENANTS = 60;
+
+    // Apprenant → formations suivies
+    private final Map<Long, TreeSet<Long>> reference = new HashMap<>();
+
+    @Test
+    void topsIdentiquesAuRecomptageSousAjoutsEtRetraits() {
+        Random aleatoire = new Random(2024);
+        CoEnrollmentIndex index = index();
+        index.finaliser();
+
+        for (int operation = 1; operation <= 20_000; operation++) {
+            long formation = 1 + aleatoire.nextInt(FORMATIONS);
+            long apprenant = 1 + aleatoire.nextInt(APPRENANTS);
+            TreeSet<Long> suivies = reference.computeIfAbsent(apprenant, a -> new TreeSet<>());
+            // Légère préférence pour l'ajout : des apprenants passent et repassent le seuil
+            if (aleatoire.nextInt(100) < 55) {
+                assertEquals(suivies.add(formation), index.ajouter(formation, apprenant));
+            } else {
+                assertEquals(suivies.remove(formation), index.retirer(formation, apprenant));
+            }
+            if (operation % 500 == 0) {
+                verifierTops(index);
+            }
+        }
+        verifierTops(index);
+    }
+
+    @Test
+    void reconstructionIdentiqueALIndexIncremental() {
+        Random aleatoire = new Random(99);
+        CoEnrollmentIndex incremental = index();
+        incremental.finaliser();
+        for (int operation = 0; operation < 5_000; operation++) {
+            long formation = 1 + aleatoire.nextInt(FORMATIONS);
+            long apprenant = 1 + aleatoire.nextInt(APPRENANTS);
+            TreeSet<Long> suivies = reference.computeIfAbsent(apprenant, a -> new TreeSet<>());
+            if (aleatoire.nextBoolean()) {
+                suivies.add(formation);
+                incremental.ajouter(formation, apprenant);
+            } else {
+                suivies.remove(formation);
+                incremental.retirer(formation, apprenant);
+            }
+        }
+
+        CoEnrollmentIndex reconstruit = index();
+        reference.forEach((apprenant, suivies) ->
+                reconstruit.chargerApprenant(apprenant, suivies.stream().mapToLong(Long::longValue).toArray()));
+        reconstruit.finaliser();
+
+        assertEquals(incremental.nombreInscriptions(), reconstruit.nombreInscriptions());
+        for (long formation = 1; formation <= FORMATIONS; formation++) {
+            assertEquals(comptes(incremental, formation), comptes(reconstruit, formation), "formation " + formation);
+        }
+        verifierTops(reconstruit);
+    }
+
+    @Test
+    void filPersonnelSansFormationDejaSuivie() {
+        CoEnrollmentIndex index = index();
+        index.chargerApprenant(1, new long[]{1, 2});
+        index.chargerApprenant(2, new long[]{1, 3});
+        index.chargerApprenant(3, new long[]{1});
+        index.finaliser();
+
+        List<CoEnrollmentIndex.Recommandation> fil = index.pourApprenant(3, 10);
+
+        assertEquals(List.of(2L, 3L), fil.stream().map(CoEnrollmentIndex.Recommandation::formationId).sorted().toList());
+        assertTrue(index.pourApprenant(99, 10).isEmpty());
+        index.retirerFormation(2);
+        assertFalse(index.pourApprenant(3, 10).stream().anyMatch(r -> r.formationId() == 2));
+    }
+
+    @Test
+    void notesMisesAJourSansReconstruction() {
+        CoEnrollmentIndex index = index();
+        index.chargerApprenant(1, new long[]{1, 2});
+        index.finaliser();
+
+        index.definirNotes(2, 9, 2);
+        // Valeurs absolues : rejouées sur un index reconstruit, elles ne s'additionnent pas
+        index.definirNotes(2, 9, 2);
+        // Formation inconnue de l'index : ignorée
+        index.definirNotes(99, 5, 1);
+
+        CoEnrollmentIndex.Fiche fiche = index.similaires(1, 10).get(0).fiche();
+        assertEquals(2, fiche.nombreAvis());
+        assertEquals(4.5, fiche.moyenne());
+        assertEquals("F2", fiche.titre());
+        assertTrue(fiche.recommandable());
+    }
+
+    private CoEnrollmentIndex index() {
+        CoEnrollmentIndex index = new CoEnrollmentIndex(K, INSCRIPTIONS_MAX);
+        for (long formation = 1; formation <= FORMATIONS; formation++) {
+            index.definirFiche(formation, new CoEnrollmentIndex.Fiche("F" + formation,
+                    FormationCategory.values()[(int) formation % FormationCategory.values().length], 0, 0, true));
+        }
+        return index;
+    }
+
+    private void verifierTops(CoEnrollmentIndex index) {
+        for (long formation = 1; formation <= FORMATIONS; formation++) {
+            assertEquals(topRecompte(formation), comptes(index, formation), "top de la formation " + formation);
+        }
+    }
+
+    /**
+     * Top-K par recomptage : apprenants sous le seuil, co-inscrits décroissants puis identifiant croissant.
+     */
+    private Map<Long, Integer> topRecompte(long formation) {
+        Map<Long, Integer> co = new HashMap<>();
+        reference.values().stream()
+                .filter(suivies -> suivies.size() <= INSCRIPTIONS_MAX && suivies.contains(formation))
+                .forEach(suivies -> suivies.stream()
+                        .filter(autre -> autre != formation)
+                        .forEach(autre -> co.merge(autre, 1, Integer::sum)));
+        List<Map.Entry<Long, Integer>> classees = new ArrayList<>(co.entrySet());
+        classees.sort(Comparator.comparing(Map.Entry<Long, Integer>::getValue).reversed()
+                .thenComparing(Map.Entry::getKey));
+        Map<Long, Integer> top = new HashMap<>();
+        classees.stream().limit(K).forEach(e -> top.put(e.getKey(), e.getValue()));
+        return top;
+    }
+
+    // Candidats du top (toutes les fiches sont recommandables) et leurs co-inscrits
+    private static Map<Long, Integer> comptes(CoEnrollmentIndex index, long formation) {
+        Map<Long, Integer> comptes = new HashMap<>();
+        index.similaires(formation, Integer.MAX_VALUE).forEach(r -> comptes.put(r.formationId(), r.coInscrits()));
+        return comptes;
+    }
+}
@@ -0,0 +1,110 @@
+package spring._3alemliveback.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compteurs de votes sans verrou : total exact sous votes concurrents, un seul vote par utilisateur
+ * même quand il vote en rafale depuis plusieurs threads.
+ */
+class CompteurVotesTest {
+
+    private static final int THREADS = 8;
+    private static final int VOTANTS_PAR_THREAD = 5_000;
+
+    @Test
+    void votesConcurrentsAdditionnesExactement() throws Exception {
+        CompteurVotes compteur = new CompteurVotes(new long[]{3, 0, 0});
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<?>> taches = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                long premier = (long) t * VOTANTS_PAR_THREAD;
+                taches.add(pool.submit(() -> {
+                    depart.await();
+                    for (long votant = premier; votant < premier + VOTANTS_PAR_THREAD; votant++) {
+                        assertTrue(compteur.voter(votant, (int) (votant % 3)));
+                    }
+                    return null;
+                }));
+            }
+            depart.countDown();
+            for (Future<?> tache : taches) {
+                tache.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long total = (long) THREADS * VOTANTS_PAR_THREAD;
+        long[] valeurs = compteur.valeurs();
+        assertEquals(3 + total, valeurs[0] + valeurs[1] + valeurs[2]);
+        assertEquals(total / 3, valeurs[1]);
+    }
+
+    @Test
+    void unSeulVoteParUtilisateurSousConcurrence() throws Exception {
+        CompteurVotes compteur = new CompteurVotes(new long[]{0, 0});
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch depart = new CountDownLatch(1);
+        AtomicInteger acceptes = new AtomicInteger();
+        List<Future<?>> taches = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int choix = t % 2;
+                taches.add(pool.submit(() -> {
+                    depart.await();
+                    if (compteur.voter(7L, choix)) {
+                        acceptes.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            depart.countDown();
+            for (Future<?> tache : taches) {
+                tache.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, acceptes.get());
+        assertEquals(1, compteur.valeur(0) + compteur.valeur(1));
+    }
+
+    @Test
+    void secondVoteRefuseSansRemplacerLePremier() {
+        CompteurVotes compteur = new CompteurVotes(new long[]{0, 0});
+
+        assertTrue(compteur.voter(7L, 0));
+        assertFalse(compteur.voter(7L, 1));
+
+        assertArrayEquals(new long[]{1, 0}, compteur.valeurs());
+    }
+
+    @Test
+    void choixInexistantRefuseSansConsommerLeVote() {
+        CompteurVotes compteur = new CompteurVotes(new long[]{0, 0});
+
+        assertThrows(IllegalArgumentException.class, () -> compteur.voter(7L, 2));
+        assertThrows(IllegalArgumentException.class, () -> compteur.voter(7L, -1));
+
+        assertTrue(compteur.voter(7L, 1));
+        assertArrayEquals(new long[]{0, 1}, compteur.valeurs());
+    }
+}
@@ -0,0 +1,84 @@
+package spring._3alemliveback.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdBitmapTest {
+
+    @Test
+    void ajouteEtRetireAuxLimitesDeTranche() {
+        IdBitmap bitmap = new IdBitmap();
+        long[] limites = {0, 65_535, 65_536, 131_071, 131_072, (1L << 32) - 1, 1L << 32, Long.MAX_VALUE};
+        for (long id : limites) {
+            assertTrue(bitmap.add(id));
+            assertFalse(bitmap.add(id));
+        }
+        assertEquals(limites.length, bitmap.cardinality());
+        assertFalse(bitmap.contains(65_537));
+        assertFalse(bitmap.contains(1));
+
+        assertTrue(bitmap.remove(65_535));
+        assertFalse(bitmap.remove(65_535));
+        assertFalse(bitmap.contains(65_535));
+        assertTrue(bitmap.contains(65_536));
+        assertTrue(bitmap.contains(0));
+        assertEquals(limites.length - 1, bitmap.cardinality());
+
+        for (long id : limites) {
+            bitmap.remove(id);
+        }
+        assertEquals(0, bitmap.cardinality());
+        assertFalse(bitmap.contains(0));
+    }
+
+    @Test
+    void passeDuTableauAuBitmapQuandUneTrancheDevientDense() {
+        IdBitmap bitmap = new IdBitmap();
+        long base = 3L << 16;
+        for (long i = 0; i < 10_000; i++) {
+            assertTrue(bitmap.add(base + i * 3));
+        }
+        assertEquals(10_000, bitmap.cardinality());
+        for (long i = 0; i < 10_000; i++) {
+            assertTrue(bitmap.contains(base + i * 3));
+            assertFalse(bitmap.contains(base + i * 3 + 1));
+        }
+        // Les tranches voisines ne sont pas touchées
+        assertFalse(bitmap.contains(base - 1));
+        assertFalse(bitmap.contains(base + 65_536));
+
+        for (long i = 0; i < 10_000; i += 2) {
+            assertTrue(bitmap.remove(base + i * 3));
+        }
+        assertEquals(5_000, bitmap.cardinality());
+        assertFalse(bitmap.contains(base));
+        assertTrue(bitmap.contains(base + 3));
+    }
+
+    @Test
+    void suitUnEnsembleDeReferenceSousOperationsAleatoires() {
+        Random aleatoire = new Random(31);
+        IdBitmap bitmap = new IdBitmap();
+        Set<Long> attendu = new HashSet<>();
+        for (int operation = 0; operation < 200_000; operation++) {
+            // Trois tranches, dont une assez remplie pour être convertie en bitmap
+            long id = (aleatoire.nextInt(3) * 65_536L) + aleatoire.nextInt(aleatoire.nextBoolean() ? 12_000 : 65_536);
+            if (aleatoire.nextInt(3) == 0) {
+                assertEquals(attendu.remove(id), bitmap.remove(id));
+            } else {
+                assertEquals(attendu.add(id), bitmap.add(id));
+            }
+        }
+        assertEquals(attendu.size(), bitmap.cardinality());
+        for (long id = 0; id < 3 * 65_536L + 10; id++) {
+            assertEquals(attendu.contains(id), bitmap.contains(id), "id " + id);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package spring._3alemliveback.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Table long → int à adressage ouvert, comparée à une HashMap. Les clés {@link #collision(long)}
+ * tombent toutes dans la case 0 jusqu'à 2^20 cases : longues séquences de sondage, et suppressions
+ * par recalage au milieu de ces séquences.
+ */
+class LongIntHashMapTest {
+
+    private static final long MULTIPLICATEUR = 0x9E3779B97F4A7C15L;
+    private static final long INVERSE = inverse(MULTIPLICATEUR);
+
+    @Test
+    void ajouterCumuleEtSupprimeAZero() {
+        LongIntHashMap table = new LongIntHashMap();
+
+        assertEquals(2, table.ajouter(5, 2));
+        assertEquals(5, table.ajouter(5, 3));
+        assertEquals(0, table.ajouter(5, -5));
+        assertEquals(0, table.get(5));
+        assertEquals(0, table.size());
+        // Un delta nul sur une clé absente ne crée pas d'entrée
+        assertEquals(0, table.ajouter(6, 0));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void cleZeroReservee() {
+        assertThrows(IllegalArgumentException.class, () -> new LongIntHashMap().ajouter(0, 1));
+    }
+
+    @Test
+    void clesEnCollisionSurvivent() {
+        LongIntHashMap table = new LongIntHashMap(2);
+        for (long i = 1; i <= 64; i++) {
+            table.ajouter(collision(i), (int) i);
+        }
+        assertEquals(64, table.size());
+
+        // Retraits au début, au milieu et en fin de séquence
+        for (long i = 1; i <= 64; i += 3) {
+            table.remove(collision(i));
+        }
+        for (long i = 1; i <= 64; i++) {
+            assertEquals((i - 1) % 3 == 0 ? 0 : (int) i, table.get(collision(i)), "clé " + i);
+        }
+        assertEquals(64 - 22, table.size());
+    }
+
+    @Test
+    void resteExactSousAjoutsEtRetraitsAleatoires() {
+        Random aleatoire = new Random(42);
+        LongIntHashMap table = new LongIntHashMap();
+        Map<Long, Integer> reference = new HashMap<>();
+
+        for (int operation = 0; operation < 200_000; operation++) {
+            // Moitié de clés ordinaires, moitié de clés en collision
+            long cle = aleatoire.nextBoolean() ? 1 + aleatoire.nextInt(2_000) : collision(1 + aleatoire.nextInt(200));
+            if (aleatoire.nextInt(10) == 0) {
+                table.remove(cle);
+                reference.remove(cle);
+            } else {
+                int delta = aleatoire.nextInt(5) - 2;
+                int attendu = reference.getOrDefault(cle, 0) + delta;
+                if (attendu == 0) {
+                    reference.remove(cle);
+                } else {
+                    reference.put(cle, attendu);
+                }
+                assertEquals(attendu, table.ajouter(cle, delta));
+            }
+        }
+
+        assertEquals(reference.size(), table.size());
+        reference.forEach((cle, valeur) -> assertEquals(valeur, table.get(cle)));
+        Map<Long, Integer> parcourue = new HashMap<>();
+        table.forEach(parcourue::put);
+        assertEquals(reference, parcourue);
+    }
+
+    @Test
+    void clesDeCollisionToutesDansLaCaseZero() {
+        for (long i = 1; i <= 500; i++) {
+            assertEquals(0, (int) ((collision(i) * MULTIPLICATEUR) >>> 32) & ((1 << 20) - 1));
+        }
+    }
+
+    /**
+     * Clé dont le produit par le multiplicateur de hachage vaut i·2^52 : bits 32 à 51 nuls, donc
+     * indice 0 pour toute table d'au plus 2^20 cases. Distinctes et non nulles pour 1 ≤ i < 4096.
+     */
+    static long collision(long i) {
+        return (i << 52) * INVERSE;
+    }
+
+    // Inverse modulo 2^64 d'un nombre impair (Newton : chaque itération double les bits exacts)
+    private static long inverse(long impair) {
+        long x = impair;
+        for (int i = 0; i < 5; i++) {
+            x *= 2 - impair * x;
+        }
+        return x;
+    }
+}
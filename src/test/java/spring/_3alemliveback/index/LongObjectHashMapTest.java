@@ -0,0 +1,82 @@
+package spring._3alemliveback.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static spring._3alemliveback.index.LongIntHashMapTest.collision;
+
+class LongObjectHashMapTest {
+
+    @Test
+    void putRemplaceEtNullRetire() {
+        LongObjectHashMap<String> table = new LongObjectHashMap<>();
+
+        table.put(7, "a");
+        table.put(7, "b");
+        assertEquals("b", table.get(7));
+        assertEquals(1, table.size());
+
+        table.put(7, null);
+        assertNull(table.get(7));
+        assertEquals(0, table.size());
+        assertThrows(IllegalArgumentException.class, () -> table.put(0, "zéro"));
+    }
+
+    @Test
+    void computeIfAbsentNeCreeQuUneFois() {
+        LongObjectHashMap<int[]> table = new LongObjectHashMap<>();
+
+        int[] premier = table.computeIfAbsent(3, cle -> new int[1]);
+        int[] second = table.computeIfAbsent(3, cle -> new int[1]);
+
+        assertSame(premier, second);
+    }
+
+    @Test
+    void agrandissementAvecClesEnCollision() {
+        LongObjectHashMap<Long> table = new LongObjectHashMap<>(2);
+        for (long i = 1; i <= 500; i++) {
+            table.put(collision(i), i);
+            table.put(i, -i);
+        }
+        assertEquals(1000, table.size());
+        for (long i = 1; i <= 500; i++) {
+            assertEquals(i, table.get(collision(i)));
+            assertEquals(-i, table.get(i));
+        }
+    }
+
+    @Test
+    void resteExactSousAjoutsEtRetraitsAleatoires() {
+        Random aleatoire = new Random(7);
+        LongObjectHashMap<Integer> table = new LongObjectHashMap<>();
+        Map<Long, Integer> reference = new HashMap<>();
+
+        for (int operation = 0; operation < 200_000; operation++) {
+            long cle = aleatoire.nextBoolean() ? 1 + aleatoire.nextInt(2_000) : collision(1 + aleatoire.nextInt(200));
+            if (aleatoire.nextInt(3) == 0) {
+                table.remove(cle);
+                reference.remove(cle);
+            } else {
+                table.put(cle, operation);
+                reference.put(cle, operation);
+            }
+        }
+
+        assertEquals(reference.size(), table.size());
+        reference.forEach((cle, valeur) -> assertEquals(valeur, table.get(cle)));
+        Map<Long, Integer> parcourue = new HashMap<>();
+        table.forEach(parcourue::put);
+        assertEquals(reference, parcourue);
+        int[] valeurs = {0};
+        table.forEachValue(valeur -> valeurs[0]++);
+        assertEquals(reference.size(), valeurs[0]);
+    }
+}
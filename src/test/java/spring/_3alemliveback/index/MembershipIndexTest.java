@@ -0,0 +1,116 @@
+package spring._3alemliveback.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cache LRU des bitmaps de participants, alimenté par une "base" simulée en mémoire.
+ */
+class MembershipIndexTest {
+
+    private final Map<Long, Set<Long>> base = new HashMap<>();
+    private final Map<Long, Integer> chargements = new HashMap<>();
+
+    private MembershipIndex index(int capacite) {
+        return new MembershipIndex(capacite, formationId -> {
+            chargements.merge(formationId, 1, Integer::sum);
+            return List.copyOf(base.getOrDefault(formationId, Set.of()));
+        });
+    }
+
+    @Test
+    void chargeUneFoisPuisSertDepuisLaMemoire() {
+        base.put(1L, new HashSet<>(Set.of(10L, 11L)));
+        MembershipIndex index = index(4);
+
+        assertTrue(index.contient(1, 10));
+        assertFalse(index.contient(1, 12));
+        assertEquals(2, index.compter(1));
+        assertEquals(1, chargements.get(1L));
+    }
+
+    @Test
+    void evinceLaFormationLaMoinsRecemmentUtiliseeEtLaRecharge() {
+        base.put(1L, new HashSet<>(Set.of(10L)));
+        base.put(2L, new HashSet<>(Set.of(20L)));
+        base.put(3L, new HashSet<>(Set.of(30L)));
+        MembershipIndex index = index(2);
+
+        index.contient(1, 10);
+        index.contient(2, 20);
+        // 1 redevient la plus récente : c'est 2 qui sort à l'arrivée de 3
+        index.contient(1, 10);
+        index.contient(3, 30);
+        assertEquals(2, index.size());
+
+        index.contient(1, 10);
+        assertEquals(1, chargements.get(1L));
+        index.contient(2, 20);
+        assertEquals(2, chargements.get(2L));
+    }
+
+    @Test
+    void lesEcrituresSuiventLeCacheEtLaBaseApresRechargement() {
+        base.put(1L, new HashSet<>(Set.of(10L)));
+        MembershipIndex index = index(1);
+
+        index.contient(1, 10);
+        base.get(1L).add(11L);
+        index.ajouter(1, 11);
+        base.get(1L).remove(10L);
+        index.retirer(1, 10);
+        assertTrue(index.contient(1, 11));
+        assertFalse(index.contient(1, 10));
+        assertEquals(1, chargements.get(1L));
+
+        // Évincée par la formation 2, rechargée ensuite depuis la base à jour
+        index.contient(2, 20);
+        base.get(1L).add(12L);
+        index.ajouter(1, 12);
+        assertTrue(index.contient(1, 12));
+        assertFalse(index.contient(1, 10));
+        assertEquals(2, chargements.get(1L));
+    }
+
+    @Test
+    void invaliderForceUnRechargement() {
+        base.put(1L, new HashSet<>(Set.of(10L)));
+        MembershipIndex index = index(4);
+
+        index.contient(1, 10);
+        base.get(1L).add(11L);
+        index.invalider(1);
+        assertTrue(index.contient(1, 11));
+        assertEquals(2, chargements.get(1L));
+    }
+
+    @Test
+    void unChargementConcurrentDUneEcritureNEstPasMisEnCache() {
+        base.put(1L, new HashSet<>(Set.of(10L)));
+        MembershipIndex[] index = new MembershipIndex[1];
+        index[0] = new MembershipIndex(4, formationId -> {
+            List<Long> lus = List.copyOf(base.get(formationId));
+            chargements.merge(formationId, 1, Integer::sum);
+            if (chargements.get(formationId) == 1) {
+                // Inscription validée entre la lecture en base et la mise en cache
+                base.get(formationId).add(11L);
+                index[0].ajouter(formationId, 11L);
+            }
+            return lus;
+        });
+
+        assertFalse(index[0].contient(1, 11));
+        assertEquals(0, index[0].size());
+        assertTrue(index[0].contient(1, 11));
+        assertEquals(2, chargements.get(1L));
+    }
+}
@@ -0,0 +1,110 @@
+package spring._3alemliveback.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Trie compressé et top-k par nœud, comparés à un parcours exhaustif des libellés.
+ */
+class PrefixIndexTest {
+
+    private static final Comparator<String> PLUS_COURT = Comparator.comparingInt(String::length)
+            .thenComparing(Comparator.naturalOrder());
+
+    @Test
+    void trouveUnMotInterieurSansAccentsNiCasse() {
+        PrefixIndex<String> index = new PrefixIndex<>(5, PLUS_COURT);
+        index.put("F:1", "Formation Sécurité réseau", "Formation Sécurité réseau");
+        index.put("F:2", "Spring Boot", "Spring Boot");
+
+        assertEquals(List.of("Formation Sécurité réseau"), index.search("SECU", 5));
+        assertEquals(List.of("Formation Sécurité réseau"), index.search("securite res", 5));
+        assertEquals(List.of("Spring Boot"), index.search("boo", 5));
+        assertTrue(index.search("boot x", 5).isEmpty());
+    }
+
+    @Test
+    void renvoieLesMeilleursMemeDerriereBeaucoupDeCorrespondances() {
+        PrefixIndex<String> index = new PrefixIndex<>(3, PLUS_COURT);
+        // Les libellés longs sont insérés d'abord et précèdent les courts dans l'ordre alphabétique
+        for (int i = 0; i < 1000; i++) {
+            String libelle = "java " + "a".repeat(20) + i;
+            index.put("F:" + i, libelle, libelle);
+        }
+        index.put("F:court", "java zz", "java zz");
+        index.put("F:moyen", "java zzz", "java zzz");
+
+        assertEquals("java zz", index.search("ja", 3).get(0));
+        assertEquals("java zzz", index.search("ja", 3).get(1));
+    }
+
+    @Test
+    void remplaceEtRetireUnDocument() {
+        PrefixIndex<String> index = new PrefixIndex<>(5, PLUS_COURT);
+        index.put("E:1", "Amine Ben Ali", "Amine Ben Ali");
+        index.put("E:1", "Amine Trabelsi", "Amine Trabelsi");
+
+        assertTrue(index.search("ben", 5).isEmpty());
+        assertEquals(List.of("Amine Trabelsi"), index.search("trab", 5));
+        assertEquals(1, index.size());
+
+        index.remove("E:1");
+        assertTrue(index.search("amine", 5).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void resteExactSousAjoutsEtRetraitsAleatoires() {
+        Random aleatoire = new Random(42);
+        String[] mots = {"a", "ab", "abc", "abd", "b", "ba", "bab", "java", "jav", "js", "spring", "sp"};
+        int capacite = 4;
+        PrefixIndex<String> index = new PrefixIndex<>(capacite, PLUS_COURT);
+        Map<String, String> attendu = new HashMap<>();
+
+        for (int operation = 0; operation < 5000; operation++) {
+            String cle = "D:" + aleatoire.nextInt(60);
+            if (aleatoire.nextInt(3) == 0) {
+                index.remove(cle);
+                attendu.remove(cle);
+            } else {
+                int nombreMots = 1 + aleatoire.nextInt(3);
+                StringBuilder libelle = new StringBuilder();
+                for (int i = 0; i < nombreMots; i++) {
+                    libelle.append(mots[aleatoire.nextInt(mots.length)]).append(' ');
+                }
+                // Le suffixe rend chaque libellé unique pour que l'ordre attendu soit total
+                libelle.append(cle.substring(2));
+                index.put(cle, libelle.toString(), libelle.toString());
+                attendu.put(cle, libelle.toString());
+            }
+            if (operation % 50 == 0) {
+                for (String prefixe : List.of("a", "ab", "abc", "b", "ba", "j", "jav", "java", "s", "sp", "spr", "x", "1")) {
+                    assertEquals(parcoursExhaustif(attendu, prefixe, capacite), index.search(prefixe, capacite),
+                            "préfixe " + prefixe + " après " + operation + " opérations");
+                }
+            }
+        }
+        assertEquals(attendu.size(), index.size());
+    }
+
+    private static List<String> parcoursExhaustif(Map<String, String> libelles, String prefixe, int limite) {
+        List<String> trouves = new ArrayList<>();
+        for (String libelle : libelles.values()) {
+            if (Arrays.stream(PrefixIndex.normaliser(libelle).split(" ")).anyMatch(mot -> mot.startsWith(prefixe))) {
+                trouves.add(libelle);
+            }
+        }
+        trouves.sort(PLUS_COURT);
+        return trouves.subList(0, Math.min(limite, trouves.size()));
+    }
+}
@@ -0,0 +1,143 @@
+package spring._3alemliveback.index;
+
+import org.junit.jupiter.api.Test;
+import spring._3alemliveback.enums.FormationCategory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Classements mieux notés comparés à un tri complet d'une "base" simulée en mémoire.
+ */
+class RatingLeaderboardTest {
+
+    private static final Comparator<RatingLeaderboard.Entry> ORDRE = Comparator
+            .comparingDouble(RatingLeaderboard.Entry::moyenne).reversed()
+            .thenComparing(Comparator.comparingLong(RatingLeaderboard.Entry::nombre).reversed())
+            .thenComparingLong(RatingLeaderboard.Entry::formationId);
+
+    private final Map<Long, RatingLeaderboard.Entry> base = new HashMap<>();
+    private final AtomicInteger rechargements = new AtomicInteger();
+
+    @Test
+    void reordonneApresUnNouvelAvis() {
+        RatingLeaderboard leaderboard = leaderboard(3);
+        noter(leaderboard, 1, "Java", FormationCategory.DEVOPS, 4);
+        noter(leaderboard, 2, "Docker", FormationCategory.DEVOPS, 5);
+        assertEquals(List.of(2L, 1L), ids(leaderboard.top(FormationCategory.DEVOPS)));
+
+        noter(leaderboard, 2, "Docker", FormationCategory.DEVOPS, 1);
+        assertEquals(List.of(1L, 2L), ids(leaderboard.top(FormationCategory.DEVOPS)));
+        assertEquals(List.of(1L, 2L), ids(leaderboard.topGlobal()));
+    }
+
+    @Test
+    void suitUnChangementDeCategorieEtDeTitre() {
+        RatingLeaderboard leaderboard = leaderboard(3);
+        noter(leaderboard, 1, "Kubernetes", FormationCategory.DEVOPS, 5);
+        noter(leaderboard, 2, "React", FormationCategory.WEB_UI_UX, 4);
+
+        // Comme RatingService.synchroniserFormation : retrait de l'ancienne catégorie, puis nouvelle entrée
+        RatingLeaderboard.Entry deplacee = new RatingLeaderboard.Entry(1, "Kubernetes en production",
+                FormationCategory.CLOUD_COMPUTING, 5, 1);
+        base.put(1L, deplacee);
+        leaderboard.retirer(1, FormationCategory.DEVOPS);
+        leaderboard.mettreAJour(deplacee);
+
+        assertTrue(leaderboard.top(FormationCategory.DEVOPS).isEmpty());
+        assertEquals(List.of(deplacee), leaderboard.top(FormationCategory.CLOUD_COMPUTING));
+        assertEquals("Kubernetes en production", leaderboard.topGlobal().get(0).titre());
+        assertEquals(List.of(1L, 2L), ids(leaderboard.topGlobal()));
+    }
+
+    @Test
+    void rechargeQuandUneFormationSuivieTombeDerriereUneFormationNonSuivie() {
+        RatingLeaderboard leaderboard = leaderboard(2);
+        noter(leaderboard, 1, "A", FormationCategory.DEVOPS, 5);
+        noter(leaderboard, 2, "B", FormationCategory.DEVOPS, 5);
+        noter(leaderboard, 3, "C", FormationCategory.DEVOPS, 4);
+        assertEquals(List.of(1L, 2L), ids(leaderboard.top(FormationCategory.DEVOPS)));
+
+        int avant = rechargements.get();
+        noter(leaderboard, 2, "B", FormationCategory.DEVOPS, 1);
+        noter(leaderboard, 2, "B", FormationCategory.DEVOPS, 1);
+
+        assertTrue(rechargements.get() > avant);
+        assertEquals(List.of(1L, 3L), ids(leaderboard.top(FormationCategory.DEVOPS)));
+    }
+
+    @Test
+    void resteExactSousDesOperationsAleatoires() {
+        Random aleatoire = new Random(7);
+        FormationCategory[] categories = {FormationCategory.DEVOPS, FormationCategory.DATA_SCIENCE, FormationCategory.BLOCKCHAIN};
+        RatingLeaderboard leaderboard = leaderboard(4);
+
+        for (int operation = 0; operation < 3000; operation++) {
+            long id = 1 + aleatoire.nextInt(40);
+            RatingLeaderboard.Entry actuelle = base.get(id);
+            int choix = aleatoire.nextInt(10);
+            if (actuelle != null && choix == 0) {
+                base.remove(id);
+                leaderboard.retirer(id, actuelle.categorie());
+            } else if (actuelle != null && choix == 1) {
+                FormationCategory nouvelle = categories[aleatoire.nextInt(categories.length)];
+                RatingLeaderboard.Entry deplacee = new RatingLeaderboard.Entry(id, "T" + operation, nouvelle,
+                        actuelle.somme(), actuelle.nombre());
+                base.put(id, deplacee);
+                leaderboard.retirer(id, actuelle.categorie());
+                leaderboard.mettreAJour(deplacee);
+            } else {
+                FormationCategory categorie = actuelle != null ? actuelle.categorie() : categories[aleatoire.nextInt(categories.length)];
+                noter(leaderboard, id, "T" + id, categorie, 1 + aleatoire.nextInt(5));
+            }
+
+            for (FormationCategory categorie : categories) {
+                assertEquals(attendu(categorie, 4), leaderboard.top(categorie), "catégorie " + categorie + ", opération " + operation);
+            }
+            assertEquals(attendu(null, 4), leaderboard.topGlobal(), "global, opération " + operation);
+        }
+    }
+
+    private RatingLeaderboard leaderboard(int capacite) {
+        RatingLeaderboard leaderboard = new RatingLeaderboard(capacite, (categorie, limite) -> {
+            rechargements.incrementAndGet();
+            return attendu(categorie, limite);
+        });
+        leaderboard.chargerTout();
+        return leaderboard;
+    }
+
+    /**
+     * Même enchaînement que RatingService.enregistrerNote : incrément en base puis mise à jour du classement.
+     */
+    private void noter(RatingLeaderboard leaderboard, long id, String titre, FormationCategory categorie, int note) {
+        RatingLeaderboard.Entry actuelle = base.get(id);
+        RatingLeaderboard.Entry entry = new RatingLeaderboard.Entry(id, titre, categorie,
+                (actuelle != null ? actuelle.somme() : 0) + note, (actuelle != null ? actuelle.nombre() : 0) + 1);
+        base.put(id, entry);
+        leaderboard.mettreAJour(entry);
+    }
+
+    private List<RatingLeaderboard.Entry> attendu(FormationCategory categorie, int limite) {
+        List<RatingLeaderboard.Entry> entries = new ArrayList<>();
+        for (RatingLeaderboard.Entry entry : base.values()) {
+            if (categorie == null || entry.categorie() == categorie) {
+                entries.add(entry);
+            }
+        }
+        entries.sort(ORDRE);
+        return entries.subList(0, Math.min(limite, entries.size()));
+    }
+
+    private static List<Long> ids(List<RatingLeaderboard.Entry> entries) {
+        return entries.stream().map(RatingLeaderboard.Entry::formationId).toList();
+    }
+}
@@ -0,0 +1,204 @@
+package spring._3alemliveback.live;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.enums.FormationStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Diffuseur d'une formation : aucune lecture en base ni aucun envoi sous son verrou, client lent
+ * coupé sans retenir les autres, lecture des inscrits terminée en retard ignorée. Envois capturés
+ * par un SseEmitter qui n'écrit sur aucune réponse.
+ */
+class FormationBroadcasterTest {
+
+    private static final FormationLiveHub.Etat ETAT = new FormationLiveHub.Etat(FormationStatus.APPROUVEE, 10, 2, 0, 0);
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final Counter clientsLents = new SimpleMeterRegistry().counter("formation.live.slow_consumers.dropped");
+    private final ExecutorService envois = Executors.newFixedThreadPool(2);
+    private final ExecutorService planificateur = Executors.newSingleThreadExecutor();
+    private final FormationBroadcaster diffuseur = new FormationBroadcaster(1L, this::json, 32, clientsLents);
+
+    @AfterEach
+    void arreter() {
+        envois.shutdownNow();
+        planificateur.shutdownNow();
+    }
+
+    @Test
+    void lectureDesInscritsHorsDuVerrou() throws Exception {
+        diffuseur.initialiser(ETAT);
+        Emetteur premier = abonner();
+        CountDownLatch enLecture = new CountDownLatch(1);
+        CountDownLatch liberee = new CountDownLatch(1);
+        diffuseur.placesModifiees(() -> {
+            enLecture.countDown();
+            attendre(liberee);
+            return 3;
+        });
+        CompletableFuture<Void> diffusion = CompletableFuture.runAsync(diffuseur::diffuser, planificateur);
+        assertTrue(enLecture.await(2, TimeUnit.SECONDS));
+
+        // Requête en cours : un nouvel abonné et un instantané passent sans attendre la lecture
+        Emetteur second = assertTimeoutPreemptively(Duration.ofSeconds(2), () -> abonner());
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> diffuseur.publier("sondages", "[]"));
+
+        liberee.countDown();
+        diffusion.get(2, TimeUnit.SECONDS);
+        premier.attendre(5);
+        assertTrue(premier.dernier("places").contains("\"inscrits\":3"));
+        second.attendre(5);
+    }
+
+    @Test
+    void clientLentCoupeSansRetenirLesAutres() throws Exception {
+        diffuseur.initialiser(ETAT);
+        CountDownLatch debloque = new CountDownLatch(1);
+        Emetteur lent = new Emetteur(debloque);
+        Emetteur rapide = new Emetteur(null);
+        diffuseur.ajouter(new AbonneLive(lent, 8, envois), null);
+        diffuseur.ajouter(new AbonneLive(rapide, 8, envois), null);
+
+        // L'envoi au client lent reste bloqué : sa file déborde, celle de l'autre se vide
+        for (int i = 0; i < 20; i++) {
+            assertTimeoutPreemptively(Duration.ofSeconds(2), () -> diffuseur.publier("questions", "[]"));
+            rapide.attendre(4 + i);
+        }
+
+        assertEquals(1.0, clientsLents.count());
+        assertEquals(1, diffuseur.nombreAbonnes());
+        debloque.countDown();
+    }
+
+    @Test
+    void lectureTermineeEnRetardIgnoree() throws Exception {
+        diffuseur.initialiser(ETAT);
+        Emetteur abonne = abonner();
+        CountDownLatch enLecture = new CountDownLatch(1);
+        CountDownLatch liberee = new CountDownLatch(1);
+        diffuseur.placesModifiees(() -> {
+            enLecture.countDown();
+            attendre(liberee);
+            return 5;
+        });
+        CompletableFuture<Void> ancienne = CompletableFuture.runAsync(diffuseur::diffuser, planificateur);
+        assertTrue(enLecture.await(2, TimeUnit.SECONDS));
+
+        // Inscription validée pendant la première lecture : la seconde voit le compte à jour
+        assertTrue(diffuseur.placesModifiees(() -> 7));
+        diffuseur.diffuser();
+        liberee.countDown();
+        ancienne.get(2, TimeUnit.SECONDS);
+
+        abonne.attendre(4);
+        assertTrue(abonne.dernier("places").contains("\"inscrits\":7"));
+        Thread.sleep(100);
+        assertEquals(4, abonne.recus.size());
+    }
+
+    @Test
+    void modificationsPendantLeChargementConservees() throws Exception {
+        Emetteur abonne = abonner();
+        diffuseur.avisAjoute(9, 2);
+        diffuseur.placesModifiees(() -> 4);
+        assertTrue(abonne.recus.isEmpty());
+
+        assertTrue(diffuseur.initialiser(new FormationLiveHub.Etat(FormationStatus.APPROUVEE, 10, 2, 4, 1)));
+        abonne.attendre(3);
+        // Avis le plus complet, inscrits relus à la diffusion suivante
+        assertTrue(abonne.dernier("avis").contains("\"nombreAvis\":2"));
+        assertTrue(diffuseur.aDiffuser());
+        diffuseur.diffuser();
+        abonne.attendre(4);
+        assertTrue(abonne.dernier("places").contains("\"inscrits\":4"));
+    }
+
+    @Test
+    void changementDeStatutPendantLeChargementImposeUneRelecture() {
+        diffuseur.formationModifiee(FormationStatus.EN_COURS, 10);
+
+        assertEquals(false, diffuseur.initialiser(ETAT));
+        assertTrue(diffuseur.initialiser(new FormationLiveHub.Etat(FormationStatus.EN_COURS, 10, 2, 0, 0)));
+    }
+
+    private Emetteur abonner() {
+        Emetteur emetteur = new Emetteur(null);
+        assertTrue(diffuseur.ajouter(new AbonneLive(emetteur, 64, envois), null));
+        return emetteur;
+    }
+
+    private String json(Object contenu) {
+        try {
+            return objectMapper.writeValueAsString(contenu);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void attendre(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Garde le texte de chaque événement envoyé ; bloque chaque envoi tant que le verrou donné n'est pas levé.
+     */
+    static final class Emetteur extends SseEmitter {
+
+        final List<String> recus = new CopyOnWriteArrayList<>();
+        private final CountDownLatch blocage;
+
+        Emetteur(CountDownLatch blocage) {
+            this.blocage = blocage;
+        }
+
+        @Override
+        public void send(SseEventBuilder evenement) {
+            if (blocage != null) {
+                FormationBroadcasterTest.attendre(blocage);
+            }
+            recus.add(evenement.build().stream().map(d -> d.getData().toString()).collect(Collectors.joining()));
+        }
+
+        void attendre(int nombre) throws InterruptedException {
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (recus.size() < nombre && System.nanoTime() < limite) {
+                Thread.sleep(5);
+            }
+            assertTrue(recus.size() >= nombre, () -> recus.size() + " message(s) reçu(s) sur " + nombre);
+        }
+
+        String dernier(String nom) {
+            for (int i = recus.size() - 1; i >= 0; i--) {
+                if (recus.get(i).contains("event:" + nom + "\n")) {
+                    return recus.get(i);
+                }
+            }
+            throw new AssertionError("Aucun message " + nom + " dans " + recus);
+        }
+    }
+}
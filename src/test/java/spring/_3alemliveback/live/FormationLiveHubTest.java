@@ -0,0 +1,76 @@
+package spring._3alemliveback.live;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.exceptions.FormationNotFoundException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Premier abonné d'une formation : une notification validée pendant la lecture de l'état initial
+ * n'est pas perdue. Hors transaction, les notifications sont traitées aussitôt.
+ */
+class FormationLiveHubTest {
+
+    private final FormationLiveHub hub = new FormationLiveHub(new JacksonConfig().objectMapper(),
+            new SimpleMeterRegistry(), 2, 60_000, 10, 32, 25, 2, 64);
+
+    @AfterEach
+    void arreter() throws InterruptedException {
+        hub.arreter();
+    }
+
+    @Test
+    void changementDeStatutPendantLeChargementRelu() {
+        AtomicInteger lectures = new AtomicInteger();
+
+        hub.abonner(1L, null, () -> {
+            if (lectures.incrementAndGet() == 1) {
+                // Démarrage validé entre la lecture et l'enregistrement du diffuseur
+                hub.formationModifiee(1L, FormationStatus.EN_COURS, 10);
+                return new FormationLiveHub.Etat(FormationStatus.APPROUVEE, 10, 0, 0, 0);
+            }
+            return new FormationLiveHub.Etat(FormationStatus.EN_COURS, 10, 0, 0, 0);
+        });
+
+        assertEquals(2, lectures.get());
+    }
+
+    @Test
+    void inscriptionPendantLeChargementRecompteeEnsuite() throws InterruptedException {
+        CountDownLatch recompte = new CountDownLatch(1);
+
+        hub.abonner(1L, null, () -> {
+            hub.placesModifiees(1L, () -> {
+                recompte.countDown();
+                return 1;
+            });
+            return new FormationLiveHub.Etat(FormationStatus.APPROUVEE, 10, 0, 0, 0);
+        });
+
+        assertTrue(recompte.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void formationIntrouvableNeLaissePasDeDiffuseur() {
+        assertThrows(FormationNotFoundException.class, () -> hub.abonner(1L, null, () -> {
+            throw new FormationNotFoundException("Formation non trouvée");
+        }));
+
+        AtomicInteger lectures = new AtomicInteger();
+        hub.abonner(1L, null, () -> {
+            lectures.incrementAndGet();
+            return new FormationLiveHub.Etat(FormationStatus.APPROUVEE, 10, 0, 0, 0);
+        });
+        assertEquals(1, lectures.get());
+    }
+}
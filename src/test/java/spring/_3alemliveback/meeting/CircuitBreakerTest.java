@@ -0,0 +1,107 @@
+package spring._3alemliveback.meeting;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Transitions du disjoncteur. Une durée d'ouverture nulle rend le passage en semi-ouvert immédiat,
+ * une durée d'une heure le rend impossible pendant le test.
+ */
+class CircuitBreakerTest {
+
+    @Test
+    void ouvertAuSeuilDEchecsConsecutifs() {
+        CircuitBreaker circuit = new CircuitBreaker(3, Duration.ofHours(1));
+
+        circuit.echec();
+        circuit.echec();
+        assertEquals(CircuitBreaker.Etat.FERME, circuit.etat());
+        assertTrue(circuit.autoriser());
+
+        circuit.echec();
+        assertEquals(CircuitBreaker.Etat.OUVERT, circuit.etat());
+        assertFalse(circuit.autoriser());
+        assertFalse(circuit.disponible());
+    }
+
+    @Test
+    void unSuccesRemetLeCompteurAZero() {
+        CircuitBreaker circuit = new CircuitBreaker(3, Duration.ofHours(1));
+
+        circuit.echec();
+        circuit.echec();
+        circuit.succes();
+        circuit.echec();
+        circuit.echec();
+
+        assertEquals(CircuitBreaker.Etat.FERME, circuit.etat());
+    }
+
+    @Test
+    void semiOuvertNAutoriseQuUnSeulEssai() {
+        CircuitBreaker circuit = ouvert(Duration.ZERO);
+
+        assertTrue(circuit.disponible());
+        assertTrue(circuit.autoriser());
+        assertEquals(CircuitBreaker.Etat.SEMI_OUVERT, circuit.etat());
+        assertFalse(circuit.autoriser());
+        assertFalse(circuit.disponible());
+    }
+
+    @Test
+    void essaiReussiRefermeLeCircuit() {
+        CircuitBreaker circuit = ouvert(Duration.ZERO);
+        circuit.autoriser();
+
+        circuit.succes();
+
+        assertEquals(CircuitBreaker.Etat.FERME, circuit.etat());
+        assertTrue(circuit.autoriser());
+        assertTrue(circuit.autoriser());
+    }
+
+    @Test
+    void essaiEchoueRouvreLeCircuitSansAttendreLeSeuil() {
+        CircuitBreaker circuit = new CircuitBreaker(3, Duration.ofMillis(50));
+        circuit.echec();
+        circuit.echec();
+        circuit.echec();
+        attendre(Duration.ofMillis(60));
+        assertTrue(circuit.autoriser());
+
+        circuit.echec();
+
+        assertEquals(CircuitBreaker.Etat.OUVERT, circuit.etat());
+        assertFalse(circuit.autoriser());
+    }
+
+    @Test
+    void essaiIgnoreRendLaPlaceSansChangerDEtat() {
+        CircuitBreaker circuit = ouvert(Duration.ZERO);
+        circuit.autoriser();
+
+        circuit.ignorer();
+
+        assertEquals(CircuitBreaker.Etat.SEMI_OUVERT, circuit.etat());
+        assertTrue(circuit.autoriser());
+    }
+
+    private static CircuitBreaker ouvert(Duration dureeOuverture) {
+        CircuitBreaker circuit = new CircuitBreaker(1, dureeOuverture);
+        circuit.echec();
+        return circuit;
+    }
+
+    private static void attendre(Duration duree) {
+        try {
+            Thread.sleep(duree.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
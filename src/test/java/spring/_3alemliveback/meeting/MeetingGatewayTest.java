@@ -0,0 +1,161 @@
+package spring._3alemliveback.meeting;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Délai, reprises et disjoncteur de la passerelle, sur un fournisseur simulé.
+ */
+class MeetingGatewayTest {
+
+    private static final List<DemandeMeet> LOT = List.of(new DemandeMeet(1L, "Java", "Bases",
+            LocalDateTime.of(2030, 1, 15, 10, 0), LocalDateTime.of(2030, 1, 15, 12, 0)));
+    private static final Map<Long, String> LIENS = Map.of(1L, "https://meet.example/1");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<MeetingGateway> passerelles = new ArrayList<>();
+
+    @AfterEach
+    void arreter() {
+        passerelles.forEach(MeetingGateway::arreter);
+    }
+
+    @Test
+    void depassementDeDelaiNonRejoue() {
+        Fournisseur fournisseur = new Fournisseur(() -> {
+            Thread.sleep(2000);
+            return LIENS;
+        });
+        MeetingGateway passerelle = passerelle(fournisseur, 2, 5);
+
+        assertEquals(Map.of(), passerelle.creerLiens(LOT));
+        // L'appel a pu aboutir côté fournisseur : pas de seconde tentative
+        assertEquals(1, fournisseur.appels.get());
+        assertEquals(1, registry.timer("meeting.provider.calls", "provider", "test", "outcome", "timeout").count());
+    }
+
+    @Test
+    void erreurDeTransportRejoueeJusquAuSucces() {
+        Fournisseur fournisseur = new Fournisseur(() -> {
+            throw new ConnectException("connexion refusée");
+        }, () -> LIENS);
+        MeetingGateway passerelle = passerelle(fournisseur, 2, 5);
+
+        assertEquals(LIENS, passerelle.creerLiens(LOT));
+        assertEquals(2, fournisseur.appels.get());
+    }
+
+    @Test
+    void reprisesLimitees() {
+        Fournisseur fournisseur = new Fournisseur(() -> {
+            throw new IOException("503");
+        });
+        MeetingGateway passerelle = passerelle(fournisseur, 1, 5);
+
+        assertEquals(Map.of(), passerelle.creerLiens(LOT));
+        assertEquals(2, fournisseur.appels.get());
+    }
+
+    @Test
+    void delaiReseauNonRejoue() {
+        Fournisseur fournisseur = new Fournisseur(() -> {
+            throw new SocketTimeoutException("read timed out");
+        });
+        MeetingGateway passerelle = passerelle(fournisseur, 2, 5);
+
+        assertEquals(Map.of(), passerelle.creerLiens(LOT));
+        assertEquals(1, fournisseur.appels.get());
+    }
+
+    @Test
+    void circuitOuvertApresLeSeuilDEchecs() {
+        Fournisseur fournisseur = new Fournisseur(() -> {
+            throw new SocketTimeoutException("read timed out");
+        });
+        MeetingGateway passerelle = passerelle(fournisseur, 0, 2);
+
+        passerelle.creerLiens(LOT);
+        assertTrue(passerelle.disponible());
+        passerelle.creerLiens(LOT);
+        assertFalse(passerelle.disponible());
+
+        // Refus sans appeler le fournisseur
+        assertEquals(Map.of(), passerelle.creerLiens(LOT));
+        assertEquals(2, fournisseur.appels.get());
+        assertEquals(1, registry.counter("meeting.provider.rejected", "provider", "test").count());
+    }
+
+    @Test
+    void lotSansLienNOuvrePasLeCircuit() {
+        Fournisseur fournisseur = new Fournisseur(Map::of);
+        MeetingGateway passerelle = passerelle(fournisseur, 0, 1);
+
+        assertEquals(Map.of(), passerelle.creerLiens(LOT));
+        assertEquals(Map.of(), passerelle.creerLiens(LOT));
+
+        assertTrue(passerelle.disponible());
+        assertEquals(2, fournisseur.appels.get());
+        assertEquals(2, registry.timer("meeting.provider.calls", "provider", "test", "outcome", "empty").count());
+    }
+
+    @Test
+    void erreurApplicativeNiRejoueeNiComptee() {
+        Fournisseur fournisseur = new Fournisseur(() -> {
+            throw new IllegalStateException("demande invalide");
+        });
+        MeetingGateway passerelle = passerelle(fournisseur, 2, 1);
+
+        assertEquals(Map.of(), passerelle.creerLiens(LOT));
+
+        assertEquals(1, fournisseur.appels.get());
+        assertTrue(passerelle.disponible());
+    }
+
+    private MeetingGateway passerelle(MeetingProvider fournisseur, int reprises, int seuilEchecs) {
+        MeetingGateway passerelle = new MeetingGateway(fournisseur, registry, 200, reprises, 2, seuilEchecs, 3600);
+        passerelles.add(passerelle);
+        return passerelle;
+    }
+
+    private interface Reponse {
+        Map<Long, String> obtenir() throws Exception;
+    }
+
+    /**
+     * Répond successivement avec chacune des réponses fournies, puis répète la dernière.
+     */
+    private static final class Fournisseur implements MeetingProvider {
+
+        private final Reponse[] reponses;
+        private final AtomicInteger appels = new AtomicInteger();
+
+        Fournisseur(Reponse... reponses) {
+            this.reponses = reponses;
+        }
+
+        @Override
+        public String nom() {
+            return "test";
+        }
+
+        @Override
+        public Map<Long, String> creerLiens(List<DemandeMeet> demandes) throws Exception {
+            int appel = appels.getAndIncrement();
+            return reponses[Math.min(appel, reponses.length - 1)].obtenir();
+        }
+    }
+}
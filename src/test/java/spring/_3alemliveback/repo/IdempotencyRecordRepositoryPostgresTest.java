@@ -0,0 +1,94 @@
+package spring._3alemliveback.repo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import spring._3alemliveback.entities.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Bail des clés d'idempotence (INSERT ... ON CONFLICT de reserver) sur une vraie base PostgreSQL :
+ * une clé en cours ou terminée n'est reprise qu'après expiration.
+ * <p>
+ * Base jetable fournie par TEST_POSTGRES_URL, comme ChangeJournalPostgresTest.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = "jdbc:postgresql:.+")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyRecordRepositoryPostgresTest {
+
+    private static final String CLE = "POST /api/formations/inscription:test";
+    private static final LocalDateTime T0 = LocalDateTime.of(2030, 1, 1, 9, 0);
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TEST_POSTGRES_URL"));
+        if (System.getenv("TEST_POSTGRES_USER") != null) {
+            registry.add("spring.datasource.username", () -> System.getenv("TEST_POSTGRES_USER"));
+            registry.add("spring.datasource.password", () -> System.getenv("TEST_POSTGRES_PASSWORD"));
+        }
+    }
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @BeforeEach
+    @AfterEach
+    void vider() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void cleEnCoursReprisApresExpirationDuBail() {
+        assertEquals(1, repository.reserver(CLE, "a", T0, T0.plusMinutes(2)));
+        // Instance toujours en vie : la clé reste à elle
+        assertEquals(0, repository.reserver(CLE, "a", T0.plusMinutes(1), T0.plusMinutes(3)));
+
+        // Instance tombée sans terminer : une fois le bail passé, la clé est reprise
+        assertEquals(1, repository.reserver(CLE, "b", T0.plusMinutes(3), T0.plusMinutes(5)));
+        IdempotencyRecord reprise = repository.findById(CLE).orElseThrow();
+        assertEquals("b", reprise.getEmpreinte());
+        assertEquals(T0.plusMinutes(5), reprise.getExpiresAt());
+    }
+
+    @Test
+    void reponseTermineeConserveeJusquALaRetention() {
+        repository.reserver(CLE, "a", T0, T0.plusMinutes(2));
+        repository.terminer(CLE, 201, "application/cbor", new byte[]{1, 2}, T0.plusHours(24));
+
+        assertEquals(0, repository.reserver(CLE, "a", T0.plusHours(1), T0.plusHours(1).plusMinutes(2)));
+        IdempotencyRecord terminee = repository.findById(CLE).orElseThrow();
+        assertEquals(201, terminee.getStatutHttp());
+        assertEquals("application/cbor", terminee.getTypeContenu());
+
+        // Rétention écoulée : la clé repart de zéro, réponse précédente effacée
+        assertEquals(1, repository.reserver(CLE, "a", T0.plusHours(25), T0.plusHours(25).plusMinutes(2)));
+        IdempotencyRecord reprise = repository.findById(CLE).orElseThrow();
+        assertNull(reprise.getStatutHttp());
+        assertNull(reprise.getTypeContenu());
+        assertNull(reprise.getCorps());
+    }
+
+    @Test
+    void echecLibereUniquementUneCleEnCours() {
+        repository.reserver(CLE, "a", T0, T0.plusMinutes(2));
+        assertEquals(1, repository.liberer(CLE));
+        assertEquals(1, repository.reserver(CLE, "a", T0, T0.plusMinutes(2)));
+
+        repository.terminer(CLE, 200, "application/json", new byte[]{1}, T0.plusHours(24));
+        assertEquals(0, repository.liberer(CLE));
+    }
+}
@@ -0,0 +1,93 @@
+package spring._3alemliveback.repo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring._3alemliveback.repo.PresenceBatchRepository.Intervalle;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Upsert des présences sur une vraie base PostgreSQL : la fin d'un intervalle ne fait qu'avancer, et
+ * deux entrées de même clé dans un lot sont refusées (d'où la fusion faite par AttendanceService).
+ * <p>
+ * Base jetable fournie par TEST_POSTGRES_URL, comme ChangeJournalPostgresTest.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = "jdbc:postgresql:.+")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(PresenceBatchRepository.class)
+class PresenceBatchRepositoryPostgresTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2030, 1, 1, 9, 0);
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TEST_POSTGRES_URL"));
+        if (System.getenv("TEST_POSTGRES_USER") != null) {
+            registry.add("spring.datasource.username", () -> System.getenv("TEST_POSTGRES_USER"));
+            registry.add("spring.datasource.password", () -> System.getenv("TEST_POSTGRES_PASSWORD"));
+        }
+    }
+
+    @Autowired
+    private PresenceBatchRepository repository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    @AfterEach
+    void vider() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                jdbcTemplate.update("DELETE FROM presences WHERE formation_id = -1"));
+    }
+
+    @Test
+    void finDUnIntervalleOuvertNeFaitQuAvancer() {
+        enregistrer(List.of(new Intervalle(-1L, 7L, T0, T0.plusMinutes(10))));
+        enregistrer(List.of(new Intervalle(-1L, 7L, T0, T0.plusMinutes(5))));
+
+        assertEquals(600L, secondes());
+    }
+
+    @Test
+    void memeCleDeuxFoisDansUnLotRefusee() {
+        List<Intervalle> doublon = List.of(new Intervalle(-1L, 7L, T0, T0.plusMinutes(1)),
+                new Intervalle(-1L, 7L, T0, T0.plusMinutes(2)));
+
+        DataAccessException refus = assertThrows(DataAccessException.class, () -> enregistrer(doublon));
+        // SQLSTATE 21000 : "ON CONFLICT DO UPDATE command cannot affect row a second time"
+        assertEquals("21000", ((SQLException) refus.getMostSpecificCause()).getSQLState());
+    }
+
+    // Comme AttendanceService.vider : un lot par transaction
+    private void enregistrer(List<Intervalle> intervalles) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> repository.enregistrer(intervalles));
+    }
+
+    private Long secondes() {
+        return jdbcTemplate.queryForObject("SELECT secondes FROM presences WHERE formation_id = -1 AND user_id = 7",
+                Long.class);
+    }
+}
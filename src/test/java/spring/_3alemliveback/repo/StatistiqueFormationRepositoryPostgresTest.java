@@ -0,0 +1,167 @@
+package spring._3alemliveback.repo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.entities.StatistiqueFormation;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.Role;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Read model des statistiques experts sur une vraie base PostgreSQL : l'upsert recopie les champs
+ * de la formation sans toucher aux compteurs, la suppression et la purge des orphelines retirent
+ * les lignes, et le rattrapage ne réécrit que les lignes divergentes (un second passage ne change rien).
+ * <p>
+ * Base jetable fournie par TEST_POSTGRES_URL, comme ChangeJournalPostgresTest.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = "jdbc:postgresql:.+")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StatistiqueFormationRepositoryPostgresTest {
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TEST_POSTGRES_URL"));
+        if (System.getenv("TEST_POSTGRES_USER") != null) {
+            registry.add("spring.datasource.username", () -> System.getenv("TEST_POSTGRES_USER"));
+            registry.add("spring.datasource.password", () -> System.getenv("TEST_POSTGRES_PASSWORD"));
+        }
+    }
+
+    @Autowired
+    private StatistiqueFormationRepository repository;
+    @Autowired
+    private FormationRepository formationRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private User expert;
+    private Long formationId;
+
+    @BeforeEach
+    void preparer() {
+        transaction = new TransactionTemplate(transactionManager);
+        vider();
+        expert = ecrire(() -> userRepository.save(utilisateur("expert@example.com", Role.EXPERT)));
+        User apprenant = ecrire(() -> userRepository.save(utilisateur("apprenant@example.com", Role.USER)));
+        LocalDateTime debut = LocalDateTime.of(2030, 1, 7, 9, 0);
+        formationId = ecrire(() -> formationRepository.save(Formation.builder()
+                .titre("Docker")
+                .dateDebut(debut)
+                .dateFin(debut.plusHours(3))
+                .nombreMaxParticipants(10)
+                .prix(50.0)
+                .categorie(FormationCategory.DEVOPS)
+                .statut(FormationStatus.APPROUVEE)
+                .formateur(expert)
+                .build())).getId();
+        ecrire(() -> formationRepository.ajouterParticipant(formationId, apprenant.getId()));
+    }
+
+    @AfterEach
+    void vider() {
+        transaction.executeWithoutResult(status ->
+                jdbcTemplate.execute("TRUNCATE statistiques_formations, formations, users CASCADE"));
+    }
+
+    @Test
+    void upsertInitialiseLesCompteursPuisNeLesTouchePlus() {
+        assertEquals(1, ecrire(() -> repository.synchroniser(formationId)));
+        StatistiqueFormation creee = ligne();
+        assertEquals(1, creee.getInscrits());
+        assertEquals(10, creee.getPlaces());
+        assertEquals(FormationStatus.APPROUVEE, creee.getStatut());
+
+        ecrire(() -> repository.ajouterInscrits(formationId, 2));
+        ecrire(() -> repository.ajouterNote(formationId, 4));
+        jdbcUpdate("UPDATE formations SET titre = 'Kubernetes', statut = 'EN_COURS', nombre_max_participants = 20 WHERE id = ?");
+
+        assertEquals(1, ecrire(() -> repository.synchroniser(formationId)));
+        StatistiqueFormation modifiee = ligne();
+        assertEquals("Kubernetes", modifiee.getTitre());
+        assertEquals(FormationStatus.EN_COURS, modifiee.getStatut());
+        assertEquals(20, modifiee.getPlaces());
+        // Compteurs tenus par les transactions d'inscription et d'avis, pas recopiés
+        assertEquals(3, modifiee.getInscrits());
+        assertEquals(4, modifiee.getRatingSum());
+        assertEquals(1, modifiee.getRatingCount());
+    }
+
+    @Test
+    void suppressionEtPurgeDesOrphelines() {
+        ecrire(() -> repository.synchroniser(formationId));
+        ecrire(() -> repository.save(StatistiqueFormation.builder()
+                .formationId(-1L)
+                .formateurId(expert.getId())
+                .titre("Supprimée hors application")
+                .build()));
+
+        assertEquals(1, ecrire(() -> repository.purgerOrphelines()));
+        assertEquals(1, repository.count());
+        assertEquals(1, ecrire(() -> repository.supprimer(formationId)));
+        assertEquals(0, repository.count());
+        assertEquals(0, ecrire(() -> repository.supprimer(formationId)));
+    }
+
+    @Test
+    void rattrapageIdempotent() {
+        // Formation antérieure au read model : créée au premier passage
+        assertEquals(1, ecrire(() -> repository.reconstruire()));
+        assertEquals(1, ligne().getInscrits());
+        assertEquals(0, ecrire(() -> repository.reconstruire()));
+
+        // Compteur divergent (écriture hors application) : corrigé une fois
+        ecrire(() -> repository.ajouterInscrits(formationId, 5));
+        assertEquals(1, ecrire(() -> repository.reconstruire()));
+        assertEquals(1, ligne().getInscrits());
+        assertEquals(0, ecrire(() -> repository.reconstruire()));
+    }
+
+    private StatistiqueFormation ligne() {
+        return repository.findById(formationId).orElseThrow();
+    }
+
+    private <T> T ecrire(Supplier<T> ecriture) {
+        return transaction.execute(status -> ecriture.get());
+    }
+
+    private void jdbcUpdate(String sql) {
+        transaction.executeWithoutResult(status -> jdbcTemplate.update(sql, formationId));
+    }
+
+    private static User utilisateur(String email, Role role) {
+        return User.builder()
+                .email(email)
+                .nom("Nom")
+                .prenom("Prénom")
+                .role(role)
+                .isActive(true)
+                .isVerified(true)
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package spring._3alemliveback.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring._3alemliveback.dto.formation.FormationLiveView;
+import spring._3alemliveback.dto.register.UserVersionView;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.PresenceBatchRepository;
+import spring._3alemliveback.repo.PresenceBatchRepository.Intervalle;
+import spring._3alemliveback.repo.PresenceRepository;
+import spring._3alemliveback.repo.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vidage des présences : un lot refusé par la base est repris au vidage suivant sans doublon de clé
+ * (formation_id, user_id, debut), que l'upsert PostgreSQL refuserait dans une même commande (cf.
+ * PresenceBatchRepositoryPostgresTest) ; les intervalles clos en attente de vidage restent bornés.
+ */
+class AttendanceServiceTest {
+
+    private static final Long FORMATION = 1L;
+    private static final String APPRENANT = "apprenant@example.com";
+
+    private final PresenceBatchRepository presenceBatchRepository = mock(PresenceBatchRepository.class);
+    private final FormationRepository formationRepository = mock(FormationRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final MembershipService membershipService = mock(MembershipService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // Copies : le service peut réutiliser la liste passée
+    private final List<List<Intervalle>> lots = new ArrayList<>();
+
+    AttendanceServiceTest() {
+        FormationLiveView enCours = mock(FormationLiveView.class);
+        when(enCours.getStatut()).thenReturn(FormationStatus.EN_COURS);
+        when(formationRepository.findLiveById(FORMATION)).thenReturn(Optional.of(enCours));
+        UserVersionView apprenant = mock(UserVersionView.class);
+        when(apprenant.getId()).thenReturn(7L);
+        when(userRepository.findVersionByEmail(APPRENANT)).thenReturn(Optional.of(apprenant));
+        when(membershipService.estParticipant(FORMATION, 7L)).thenReturn(true);
+    }
+
+    @Test
+    void lotEnEchecPuisBattementFusionnesParCle() throws InterruptedException {
+        AttendanceService service = service(75, 1000);
+        doAnswer(invocation -> {
+            lots.add(List.copyOf(invocation.getArgument(0)));
+            throw new DataAccessResourceFailureException("connexion perdue");
+        }).doAnswer(invocation -> {
+            lots.add(List.copyOf(invocation.getArgument(0)));
+            return null;
+        }).when(presenceBatchRepository).enregistrer(any());
+
+        service.battement(FORMATION, APPRENANT);
+        service.vider();
+        Thread.sleep(5);
+        // Même intervalle, prolongé : même début que celui du lot refusé
+        service.battement(FORMATION, APPRENANT);
+        service.vider();
+
+        verify(presenceBatchRepository, times(2)).enregistrer(any());
+        Intervalle refuse = lots.get(0).get(0);
+        List<Intervalle> repris = lots.get(1);
+        assertEquals(1, repris.size());
+        assertEquals(refuse.debut(), repris.get(0).debut());
+        assertTrue(repris.get(0).fin().isAfter(refuse.fin()));
+    }
+
+    @Test
+    void intervallesClosBornesEnAttenteDuVidage() throws InterruptedException {
+        // Coupure nulle : chaque battement clôt l'intervalle précédent
+        AttendanceService service = service(0, 2);
+        doAnswer(invocation -> {
+            lots.add(List.copyOf(invocation.getArgument(0)));
+            return null;
+        }).when(presenceBatchRepository).enregistrer(any());
+
+        for (int i = 0; i < 5; i++) {
+            service.battement(FORMATION, APPRENANT);
+            Thread.sleep(2);
+        }
+        service.vider();
+
+        // Deux intervalles clos gardés, deux abandonnés, plus l'intervalle courant
+        assertEquals(3, lots.get(0).size());
+        assertEquals(2.0, registry.counter("attendance.intervals.dropped").count());
+    }
+
+    private AttendanceService service(long coupureSecondes, int maxEnAttente) {
+        return new AttendanceService(formationRepository, userRepository, mock(PresenceRepository.class),
+                presenceBatchRepository, membershipService, mock(PlatformTransactionManager.class),
+                registry, coupureSecondes, maxEnAttente, 10_000);
+    }
+}
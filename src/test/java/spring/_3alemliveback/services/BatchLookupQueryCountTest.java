@@ -0,0 +1,240 @@
+package spring._3alemliveback.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import spring._3alemliveback.chat.ChatHub;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.dto.common.BatchRequest;
+import spring._3alemliveback.dto.common.BatchResponse;
+import spring._3alemliveback.dto.formation.FormationDTO;
+import spring._3alemliveback.dto.register.UserDto;
+import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.events.DomainEventBus;
+import spring._3alemliveback.exceptions.GlobalExceptionHandler;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+import spring._3alemliveback.live.FormationLiveHub;
+import spring._3alemliveback.mapper.UserMapper;
+import spring._3alemliveback.repo.SparseQueryRepository;
+import spring._3alemliveback.security.JwtService;
+import spring._3alemliveback.util.JsonArrayStreamer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lectures par lot de formations et d'utilisateurs : plus de 100 identifiants refusés en 400,
+ * identifiants inconnus listés à part, doublons lus une fois, et nombre de requêtes SQL
+ * indépendant de la taille du lot (une requête IN, plus un GROUP BY pour les participants ;
+ * associations chargées par lots).
+ * Comptage par les statistiques Hibernate sur une base H2 embarquée, comme FormationListQueryCountTest.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database=H2",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.connection.provider_disables_autocommit=false",
+        "spring.sql.init.mode=never"
+})
+@Import({FormationService.class, AuthenticationService.class, UserMapper.class, SparseQueryRepository.class,
+        JsonArrayStreamer.class, JacksonConfig.class})
+class BatchLookupQueryCountTest {
+
+    // Formations et formateur en une requête IN + participants en un GROUP BY, puis par lots :
+    // avis, et collections EAGER du formateur (domaines, certifications, jetons)
+    private static final int REQUETES_MAX_FORMATIONS = 6;
+    // Utilisateurs en une requête IN + une requête par collection EAGER (domaines, certifications, jetons), par lots
+    private static final int REQUETES_MAX_UTILISATEURS = 4;
+
+    private static final int FORMATIONS = 12;
+    private static final int PARTICIPANTS = 4;
+    private static final long INCONNU = 999_999L;
+
+    @Autowired
+    private FormationService formationService;
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private SuggestionService suggestionService;
+    @MockitoBean
+    private RatingService ratingService;
+    @MockitoBean
+    private MembershipService membershipService;
+    @MockitoBean
+    private RecommendationService recommendationService;
+    @MockitoBean
+    private ExpertStatsService expertStatsService;
+    @MockitoBean
+    private DomainEventBus domainEventBus;
+    @MockitoBean
+    private FormationLiveHub formationLiveHub;
+    @MockitoBean
+    private ChatHub chatHub;
+    @MockitoBean
+    private LiveInteractionService liveInteractionService;
+    @MockitoBean
+    private AttendanceService attendanceService;
+    @MockitoBean
+    private CatalogSyncService catalogSyncService;
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+    @MockitoBean
+    private JwtService jwtService;
+    @MockitoBean
+    private AuthenticationManager authenticationManager;
+    @MockitoBean
+    private EmailService emailService;
+
+    private Statistics statistiques;
+    private final List<Long> formations = new ArrayList<>();
+    private final List<Long> utilisateurs = new ArrayList<>();
+
+    @BeforeEach
+    void peupler() {
+        User expert = utilisateur("expert@example.com", Role.EXPERT);
+        List<User> apprenants = new ArrayList<>();
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            apprenants.add(utilisateur("apprenant" + i + "@example.com", Role.USER));
+        }
+        LocalDateTime debut = LocalDateTime.of(2030, 1, 1, 9, 0);
+        for (int i = 0; i < FORMATIONS; i++) {
+            Formation formation = Formation.builder()
+                    .titre("Formation " + i)
+                    .description("Description " + i)
+                    .dateDebut(debut.plusDays(i))
+                    .dateFin(debut.plusDays(i).plusHours(3))
+                    .duree(3)
+                    .nombreMaxParticipants(30)
+                    .prix(49.0)
+                    .categorie(FormationCategory.DEVOPS)
+                    .statut(FormationStatus.APPROUVEE)
+                    .formateur(expert)
+                    .participants(new ArrayList<>(apprenants.subList(0, i % (PARTICIPANTS + 1))))
+                    .avis(new ArrayList<>())
+                    .build();
+            entityManager.persist(formation);
+            formations.add(formation.getId());
+        }
+        utilisateurs.add(expert.getId());
+        apprenants.forEach(apprenant -> utilisateurs.add(apprenant.getId()));
+        entityManager.flush();
+        entityManager.clear();
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void plusDeCentIdentifiantsRefusesEn400() {
+        BatchRequest trop = new BatchRequest(LongStream.rangeClosed(1, BatchRequest.TAILLE_MAX + 1).boxed().toList());
+
+        InvalidOperationException formationsRefusees = assertThrows(InvalidOperationException.class,
+                () -> formationService.getFormationsByIds(trop));
+        assertThrows(InvalidOperationException.class, () -> authenticationService.getUsersByIds(trop));
+        assertEquals(HttpStatus.BAD_REQUEST,
+                new GlobalExceptionHandler().handleInvalidOperationException(formationsRefusees).getStatusCode());
+
+        // La limite porte sur les identifiants distincts
+        List<Long> repetes = new ArrayList<>(LongStream.rangeClosed(1, BatchRequest.TAILLE_MAX).boxed().toList());
+        repetes.addAll(repetes);
+        BatchResponse<FormationDTO> lot = formationService.getFormationsByIds(new BatchRequest(repetes));
+        assertEquals(BatchRequest.TAILLE_MAX, lot.getResultats().size() + lot.getIntrouvables().size());
+    }
+
+    @Test
+    void identifiantsInconnusListesAPart() {
+        BatchResponse<FormationDTO> lot = formationService.getFormationsByIds(
+                new BatchRequest(List.of(formations.get(3), INCONNU, formations.get(1))));
+
+        assertEquals(List.of(formations.get(3), formations.get(1)), List.copyOf(lot.getResultats().keySet()));
+        assertEquals(List.of(INCONNU), lot.getIntrouvables());
+        assertEquals(3, lot.getResultats().get(formations.get(3)).getNombreParticipants());
+        assertEquals("Formation 1", lot.getResultats().get(formations.get(1)).getTitre());
+
+        BatchResponse<UserDto> profils = authenticationService.getUsersByIds(
+                new BatchRequest(List.of(INCONNU, utilisateurs.get(0))));
+        assertEquals("expert@example.com", profils.getResultats().get(utilisateurs.get(0)).getEmail());
+        assertEquals(List.of(INCONNU), profils.getIntrouvables());
+    }
+
+    @Test
+    void doublonsLusUneFois() {
+        List<Long> ids = new ArrayList<>();
+        ids.add(formations.get(2));
+        ids.add(null);
+        ids.add(formations.get(2));
+        ids.add(INCONNU);
+        ids.add(INCONNU);
+
+        BatchResponse<FormationDTO> lot = formationService.getFormationsByIds(new BatchRequest(ids));
+
+        assertEquals(1, lot.getResultats().size());
+        assertEquals(List.of(INCONNU), lot.getIntrouvables());
+        assertEquals(1, authenticationService.getUsersByIds(
+                new BatchRequest(List.of(utilisateurs.get(1), utilisateurs.get(1)))).getResultats().size());
+    }
+
+    @Test
+    void formationsEnUneRequeteINEtUnGroupBy() {
+        long une = compter(() -> formationService.getFormationsByIds(new BatchRequest(formations.subList(0, 1))), 1);
+        long toutes = compter(() -> formationService.getFormationsByIds(new BatchRequest(formations)), FORMATIONS);
+        assertTrue(toutes <= REQUETES_MAX_FORMATIONS, toutes + " requêtes");
+        assertEquals(une, toutes);
+    }
+
+    @Test
+    void utilisateursEnUneRequeteIN() {
+        long un = compter(() -> authenticationService.getUsersByIds(new BatchRequest(utilisateurs.subList(0, 1))), 1);
+        long tous = compter(() -> authenticationService.getUsersByIds(new BatchRequest(utilisateurs)), PARTICIPANTS + 1);
+        assertTrue(tous <= REQUETES_MAX_UTILISATEURS, tous + " requêtes");
+        assertEquals(un, tous);
+    }
+
+    private User utilisateur(String email, Role role) {
+        User user = User.builder()
+                .email(email)
+                .nom("Nom")
+                .prenom("Prénom")
+                .role(role)
+                .isActive(true)
+                .isVerified(true)
+                .domaines(new ArrayList<>(List.of("DevOps")))
+                .certifications(new ArrayList<>(List.of("CKA")))
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+
+    private long compter(Supplier<BatchResponse<?>> lecture, int attendus) {
+        entityManager.clear();
+        statistiques.clear();
+        BatchResponse<?> lot = lecture.get();
+        assertEquals(attendus, lot.getResultats().size());
+        assertTrue(lot.getIntrouvables().isEmpty());
+        return statistiques.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,103 @@
+package spring._3alemliveback.services;
+
+import org.junit.jupiter.api.Test;
+import spring._3alemliveback.dto.formation.FormationChangeView;
+import spring._3alemliveback.dto.formation.FormationChangesResponse;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.FormationTombstoneRepository;
+import spring._3alemliveback.util.JournalCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Curseurs de la synchronisation du catalogue. L'ordre du journal lui-même (transactions validées
+ * tard) est vérifié sur PostgreSQL par ChangeJournalPostgresTest.
+ */
+class CatalogSyncServiceTest {
+
+    private static final long HORIZON = 1000;
+
+    private final FormationRepository formationRepository = mock(FormationRepository.class);
+    private final CatalogSyncService service = new CatalogSyncService(formationRepository,
+            mock(FormationTombstoneRepository.class), 30);
+
+    @Test
+    void pageIncompleteRepartDeLHorizon() {
+        when(formationRepository.findHorizonJournal()).thenReturn(HORIZON);
+        when(formationRepository.findChangements(-1, Long.MAX_VALUE, HORIZON, 11))
+                .thenReturn(List.of(ligne(7, 900, true), ligne(3, 950, true)));
+
+        FormationChangesResponse reponse = service.getChangements(null, 10);
+
+        assertEquals(List.of(7L, 3L), reponse.getSupprimees());
+        assertFalse(reponse.isHasMore());
+        JournalCursor suivant = JournalCursor.decode(reponse.getNextCursor());
+        // Toute transaction à venir porte un xid >= horizon
+        assertEquals(HORIZON - 1, suivant.xid());
+        assertEquals(Long.MAX_VALUE, suivant.id());
+    }
+
+    @Test
+    void pageCompleteRepartDeLaDerniereLigne() {
+        when(formationRepository.findHorizonJournal()).thenReturn(HORIZON);
+        when(formationRepository.findChangements(anyLong(), anyLong(), eq(HORIZON), anyInt()))
+                .thenReturn(List.of(ligne(1, 10, true), ligne(2, 10, true), ligne(3, 11, true)));
+
+        FormationChangesResponse reponse = service.getChangements(null, 2);
+
+        assertEquals(List.of(1L, 2L), reponse.getSupprimees());
+        assertTrue(reponse.isHasMore());
+        JournalCursor suivant = JournalCursor.decode(reponse.getNextCursor());
+        assertEquals(10, suivant.xid());
+        assertEquals(2, suivant.id());
+    }
+
+    @Test
+    void curseurPlusAncienQueLaRetentionImposeUneResynchronisation() {
+        when(formationRepository.findHorizonJournal()).thenReturn(HORIZON);
+        String ancien = new JournalCursor(500, 4, LocalDateTime.now().minusDays(31)).encode();
+
+        FormationChangesResponse reponse = service.getChangements(ancien, 10);
+
+        assertTrue(reponse.isResynchronisation());
+        verify(formationRepository).findChangements(-1, Long.MAX_VALUE, HORIZON, 11);
+    }
+
+    @Test
+    void curseurIllisibleRefuse() {
+        assertThrows(InvalidOperationException.class, () -> service.getChangements("pas-un-curseur", 10));
+    }
+
+    private static FormationChangeView ligne(long id, long xid, boolean supprime) {
+        return new FormationChangeView() {
+            public Long getId() {
+                return id;
+            }
+
+            public LocalDateTime getHorodatage() {
+                return LocalDateTime.now();
+            }
+
+            public Boolean getSupprime() {
+                return supprime;
+            }
+
+            public Long getJournalXid() {
+                return xid;
+            }
+        };
+    }
+}
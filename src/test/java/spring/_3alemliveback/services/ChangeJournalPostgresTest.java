@@ -0,0 +1,153 @@
+package spring._3alemliveback.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import spring._3alemliveback.dto.admin.AdminStatsResponse;
+import spring._3alemliveback.dto.admin.StatistiqueJourDTO;
+import spring._3alemliveback.dto.formation.FormationChangesResponse;
+import spring._3alemliveback.enums.Role;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Journal des modifications (journal_xid, schema.sql) sur une vraie base PostgreSQL : une transaction
+ * validée après une transaction plus récente ne doit jamais être dépassée par le curseur.
+ * <p>
+ * Base jetable fournie par TEST_POSTGRES_URL (ex. jdbc:postgresql://localhost:5432/alem_test), vidée
+ * par les tests ; identifiants de application.properties sauf TEST_POSTGRES_USER / TEST_POSTGRES_PASSWORD.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = "jdbc:postgresql:.+")
+@DataJpaTest(properties = "spring.sql.init.mode=always")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CatalogSyncService.class, AnalyticsService.class})
+class ChangeJournalPostgresTest {
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TEST_POSTGRES_URL"));
+        if (System.getenv("TEST_POSTGRES_USER") != null) {
+            registry.add("spring.datasource.username", () -> System.getenv("TEST_POSTGRES_USER"));
+            registry.add("spring.datasource.password", () -> System.getenv("TEST_POSTGRES_PASSWORD"));
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private CatalogSyncService catalogSyncService;
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @BeforeEach
+    @AfterEach
+    void vider() throws SQLException {
+        try (Connection connexion = dataSource.getConnection(); Statement statement = connexion.createStatement()) {
+            statement.execute("TRUNCATE formation_tombstones, statistiques_journalieres, users CASCADE");
+            connexion.commit();
+        }
+    }
+
+    @Test
+    void uneSuppressionValideeTardNEstPasSauteeParLeCurseur() throws SQLException {
+        String curseur = catalogSyncService.getChangements(null, 100).getNextCursor();
+
+        try (Connection lente = dataSource.getConnection(); Connection rapide = dataSource.getConnection()) {
+            // Transaction ouverte avant l'autre, validée après elle : deleted_at plus ancien, commit plus tardif
+            supprimer(lente, 1L);
+            supprimer(rapide, 2L);
+            rapide.commit();
+
+            FormationChangesResponse pendant = catalogSyncService.getChangements(curseur, 100);
+            assertEquals(List.of(), pendant.getSupprimees());
+            curseur = pendant.getNextCursor();
+
+            lente.commit();
+        }
+
+        FormationChangesResponse apres = catalogSyncService.getChangements(curseur, 100);
+        assertEquals(List.of(1L, 2L), apres.getSupprimees());
+        assertEquals(List.of(), catalogSyncService.getChangements(apres.getNextCursor(), 100).getSupprimees());
+    }
+
+    @Test
+    void lesPagesSuiventLOrdreDesTransactions() throws SQLException {
+        try (Connection connexion = dataSource.getConnection()) {
+            for (long id = 1; id <= 5; id++) {
+                supprimer(connexion, id);
+                connexion.commit();
+            }
+        }
+
+        FormationChangesResponse premiere = catalogSyncService.getChangements(null, 3);
+        assertEquals(List.of(1L, 2L, 3L), premiere.getSupprimees());
+        assertTrue(premiere.isHasMore());
+        FormationChangesResponse seconde = catalogSyncService.getChangements(premiere.getNextCursor(), 3);
+        assertEquals(List.of(4L, 5L), seconde.getSupprimees());
+        assertEquals(false, seconde.isHasMore());
+    }
+
+    @Test
+    void unCompteValideTardEstCompteAuPassageSuivant() throws SQLException {
+        analyticsService.actualiser();
+
+        try (Connection lente = dataSource.getConnection(); Connection rapide = dataSource.getConnection()) {
+            inscrire(lente, "lent@example.com");
+            inscrire(rapide, "rapide@example.com");
+            rapide.commit();
+
+            analyticsService.actualiser();
+            assertEquals(0L, experts().getUtilisateursParRole().get(Role.EXPERT));
+
+            lente.commit();
+        }
+
+        analyticsService.actualiser();
+        AdminStatsResponse stats = experts();
+        assertEquals(2L, stats.getUtilisateursParRole().get(Role.EXPERT));
+        StatistiqueJourDTO aujourdhui = stats.getEvolution().get(stats.getEvolution().size() - 1);
+        assertEquals(2, aujourdhui.getExpertsInscrits());
+    }
+
+    private AdminStatsResponse experts() {
+        return analyticsService.getStats(1).orElseThrow();
+    }
+
+    private static void supprimer(Connection connexion, long formationId) throws SQLException {
+        try (PreparedStatement insert = connexion.prepareStatement(
+                "INSERT INTO formation_tombstones (formation_id, deleted_at) VALUES (?, ?)")) {
+            insert.setLong(1, formationId);
+            insert.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            insert.executeUpdate();
+        }
+    }
+
+    private static void inscrire(Connection connexion, String email) throws SQLException {
+        try (PreparedStatement insert = connexion.prepareStatement(
+                "INSERT INTO users (email, role, is_active, is_verified, version, updated_at) VALUES (?, 'EXPERT', false, false, 0, ?)")) {
+            insert.setString(1, email);
+            insert.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            insert.executeUpdate();
+        }
+    }
+}
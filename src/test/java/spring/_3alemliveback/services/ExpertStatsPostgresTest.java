@@ -0,0 +1,210 @@
+package spring._3alemliveback.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring._3alemliveback.chat.ChatHub;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.dto.formation.AvisRequest;
+import spring._3alemliveback.dto.formation.ExpertStatsResponse;
+import spring._3alemliveback.dto.formation.FormationRequest;
+import spring._3alemliveback.entities.StatistiqueFormation;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.events.DomainEventBus;
+import spring._3alemliveback.live.FormationLiveHub;
+import spring._3alemliveback.repo.SparseQueryRepository;
+import spring._3alemliveback.repo.StatistiqueFormationRepository;
+import spring._3alemliveback.repo.UserRepository;
+import spring._3alemliveback.util.JsonArrayStreamer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statistiques experts tenues par FormationService sur une vraie base PostgreSQL : la ligne du read
+ * model suit chaque transition (création, approbation, inscription, désinscription, démarrage, fin,
+ * avis, rejet, suppression) dans la transaction qui la motive.
+ * <p>
+ * Base jetable fournie par TEST_POSTGRES_URL, comme ChangeJournalPostgresTest.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = "jdbc:postgresql:.+")
+@DataJpaTest(properties = "spring.sql.init.mode=always")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({FormationService.class, MembershipService.class, ExpertStatsService.class, SparseQueryRepository.class,
+        JsonArrayStreamer.class, JacksonConfig.class})
+class ExpertStatsPostgresTest {
+
+    private static final String EXPERT = "expert@example.com";
+    private static final LocalDateTime DEBUT = LocalDateTime.now().plusDays(7).withNano(0);
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TEST_POSTGRES_URL"));
+        if (System.getenv("TEST_POSTGRES_USER") != null) {
+            registry.add("spring.datasource.username", () -> System.getenv("TEST_POSTGRES_USER"));
+            registry.add("spring.datasource.password", () -> System.getenv("TEST_POSTGRES_PASSWORD"));
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private FormationService formationService;
+    @Autowired
+    private ExpertStatsService expertStatsService;
+    @Autowired
+    private StatistiqueFormationRepository statistiqueRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private SuggestionService suggestionService;
+    @MockitoBean
+    private RatingService ratingService;
+    @MockitoBean
+    private RecommendationService recommendationService;
+    @MockitoBean
+    private DomainEventBus domainEventBus;
+    @MockitoBean
+    private FormationLiveHub formationLiveHub;
+    @MockitoBean
+    private ChatHub chatHub;
+    @MockitoBean
+    private LiveInteractionService liveInteractionService;
+    @MockitoBean
+    private AttendanceService attendanceService;
+    @MockitoBean
+    private CatalogSyncService catalogSyncService;
+
+    private User expert;
+
+    @BeforeEach
+    void preparer() throws SQLException {
+        vider();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        expert = transaction.execute(s -> userRepository.save(utilisateur(EXPERT, Role.EXPERT)));
+        for (int i = 1; i <= 2; i++) {
+            String email = apprenant(i);
+            transaction.execute(s -> userRepository.save(utilisateur(email, Role.USER)));
+        }
+    }
+
+    @AfterEach
+    void vider() throws SQLException {
+        try (Connection connexion = dataSource.getConnection(); Statement statement = connexion.createStatement()) {
+            statement.execute("TRUNCATE statistiques_formations, formations, users CASCADE");
+            connexion.commit();
+        }
+    }
+
+    @Test
+    void compteursSuiventChaqueTransition() {
+        Long id = formationService.createFormation(demande("Docker", DEBUT), EXPERT).getId();
+        assertEquals(FormationStatus.EN_ATTENTE, ligne(id).getStatut());
+        assertEquals(0, ligne(id).getInscrits());
+        assertEquals(10, ligne(id).getPlaces());
+
+        formationService.approveFormation(id);
+        assertEquals(FormationStatus.APPROUVEE, ligne(id).getStatut());
+        assertEquals(1, expertStatsService.getStatistiques(expert.getId()).getSessionsAVenir());
+
+        formationService.inscriptionFormation(id, apprenant(1));
+        formationService.inscriptionFormation(id, apprenant(2));
+        assertEquals(2, ligne(id).getInscrits());
+        formationService.desinscriptionFormation(id, apprenant(2));
+        assertEquals(1, ligne(id).getInscrits());
+
+        formationService.demarrerFormation(id, EXPERT);
+        assertEquals(FormationStatus.EN_COURS, ligne(id).getStatut());
+        formationService.terminerFormation(id, EXPERT);
+        assertEquals(FormationStatus.TERMINEE, ligne(id).getStatut());
+
+        AvisRequest avis = new AvisRequest();
+        avis.setNote(4);
+        formationService.ajouterAvis(id, avis, apprenant(1));
+        StatistiqueFormation notee = ligne(id);
+        assertEquals(4, notee.getRatingSum());
+        assertEquals(1, notee.getRatingCount());
+
+        ExpertStatsResponse stats = expertStatsService.getStatistiques(expert.getId());
+        assertEquals(1, stats.getNombreFormations());
+        assertEquals(0, stats.getSessionsAVenir());
+        assertEquals(1, stats.getInscrits());
+        assertEquals(4.0, stats.getNoteMoyenne());
+        assertEquals(49.0, stats.getRevenuEstime());
+    }
+
+    @Test
+    void formationRejeteeOuSupprimeeHorsDesTotaux() {
+        Long gardee = formationService.createFormation(demande("Docker", DEBUT), EXPERT).getId();
+        Long rejetee = formationService.createFormation(demande("Helm", DEBUT.plusDays(1)), EXPERT).getId();
+        Long supprimee = formationService.createFormation(demande("Kafka", DEBUT.plusDays(2)), EXPERT).getId();
+
+        formationService.rejectFormation(rejetee);
+        assertEquals(FormationStatus.REJETEE, ligne(rejetee).getStatut());
+        formationService.deleteFormation(supprimee, EXPERT);
+        assertTrue(statistiqueRepository.findById(supprimee).isEmpty());
+
+        ExpertStatsResponse stats = expertStatsService.getStatistiques(expert.getId());
+        assertEquals(2, stats.getFormations().size());
+        assertEquals(1, stats.getNombreFormations());
+        assertEquals(10, stats.getPlaces());
+        assertEquals(gardee, stats.getFormations().get(1).getFormationId());
+    }
+
+    private StatistiqueFormation ligne(Long formationId) {
+        return statistiqueRepository.findById(formationId).orElseThrow();
+    }
+
+    private static FormationRequest demande(String titre, LocalDateTime debut) {
+        FormationRequest demande = new FormationRequest();
+        demande.setTitre(titre);
+        demande.setDescription("Description");
+        demande.setDateDebut(debut);
+        demande.setDateFin(debut.plusHours(3));
+        demande.setDuree(3);
+        demande.setNombreMaxParticipants(10);
+        demande.setPrix(49.0);
+        demande.setCategorie(FormationCategory.DEVOPS);
+        return demande;
+    }
+
+    private static String apprenant(int i) {
+        return "apprenant" + i + "@example.com";
+    }
+
+    private static User utilisateur(String email, Role role) {
+        return User.builder()
+                .email(email)
+                .nom("Nom")
+                .prenom("Prénom")
+                .role(role)
+                .isActive(true)
+                .isVerified(true)
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package spring._3alemliveback.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.events.DomainEventBus;
+import spring._3alemliveback.mapper.UserMapper;
+import spring._3alemliveback.repo.SparseQueryRepository;
+import spring._3alemliveback.security.JwtService;
+import spring._3alemliveback.util.JsonArrayStreamer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Liste des experts en flux : projection sans entité, collections complétées par lot.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database=H2",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.connection.provider_disables_autocommit=false",
+        "spring.sql.init.mode=never"
+})
+@Import({AuthenticationService.class, UserMapper.class, SparseQueryRepository.class, JsonArrayStreamer.class, JacksonConfig.class})
+class ExpertStreamQueryCountTest {
+
+    private static final int EXPERTS = 30;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+    @MockitoBean
+    private JwtService jwtService;
+    @MockitoBean
+    private AuthenticationManager authenticationManager;
+    @MockitoBean
+    private EmailService emailService;
+    @MockitoBean
+    private DomainEventBus domainEventBus;
+    @MockitoBean
+    private SuggestionService suggestionService;
+
+    @Test
+    void expertsEnTroisRequetesSansEntiteEnContexte() throws Exception {
+        for (int i = 0; i < EXPERTS; i++) {
+            entityManager.persist(User.builder()
+                    .email("expert" + i + "@example.com")
+                    .nom("Expert")
+                    .prenom("N" + i)
+                    .role(Role.EXPERT)
+                    .isVerified(true)
+                    .isActive(i % 2 == 0)
+                    .domaines(new ArrayList<>(List.of("devops", "cloud-" + i)))
+                    .certifications(i % 3 == 0 ? new ArrayList<>() : new ArrayList<>(List.of("cka")))
+                    .cvPdf(new byte[]{(byte) i})
+                    .build());
+        }
+        entityManager.persist(User.builder().email("non-verifie@example.com").role(Role.EXPERT).isVerified(false).build());
+        entityManager.persist(User.builder().email("apprenant@example.com").role(Role.USER).isVerified(true).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiques.clear();
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        authenticationService.streamAllExperts(MediaType.APPLICATION_JSON).writeTo(sortie);
+
+        // Le curseur, puis domaines et certifications du lot
+        assertEquals(3, statistiques.getPrepareStatementCount());
+        assertEquals(0, statistiques.getEntityLoadCount());
+
+        JsonNode experts = objectMapper.readTree(sortie.toByteArray());
+        assertEquals(EXPERTS, experts.size());
+        JsonNode premier = experts.get(0);
+        assertEquals("expert0@example.com", premier.get("email").asText());
+        assertEquals(Set.of("devops", "cloud-0"), valeurs(premier.get("domaines")));
+        assertEquals(Set.of(), valeurs(premier.get("certifications")));
+        assertEquals(Set.of("cka"), valeurs(experts.get(1).get("certifications")));
+        assertFalse(experts.get(1).get("active").asBoolean());
+    }
+
+    private static Set<String> valeurs(JsonNode tableau) {
+        Set<String> valeurs = new TreeSet<>();
+        tableau.forEach(valeur -> valeurs.add(valeur.asText()));
+        return valeurs;
+    }
+}
@@ -0,0 +1,207 @@
+package spring._3alemliveback.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import spring._3alemliveback.chat.ChatHub;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.dto.formation.AvisPageResponse;
+import spring._3alemliveback.entities.Avis;
+import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.events.DomainEventBus;
+import spring._3alemliveback.live.FormationLiveHub;
+import spring._3alemliveback.repo.SparseQueryRepository;
+import spring._3alemliveback.util.JsonArrayStreamer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Nombre de requêtes SQL des listes de formations et de la page d'avis : il ne doit pas
+ * dépendre du nombre de formations, de participants ni d'avis (pas de N+1).
+ * Comptage par les statistiques Hibernate sur une base H2 embarquée.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database=H2",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // La base embarquée est en auto-commit : Hibernate doit le couper pour que chaque test soit annulé
+        "spring.jpa.properties.hibernate.connection.provider_disables_autocommit=false",
+        "spring.sql.init.mode=never"
+})
+@Import({FormationService.class, SparseQueryRepository.class, JsonArrayStreamer.class, JacksonConfig.class})
+class FormationListQueryCountTest {
+
+    // Recherche de l'utilisateur courant (collections EAGER comprises) + la requête de la liste
+    private static final int REQUETES_MAX_LISTE = 5;
+    // existsById + la page d'avis
+    private static final int REQUETES_MAX_AVIS = 2;
+    // Une seule requête sur curseur
+    private static final int REQUETES_MAX_FLUX = 1;
+
+    private static final int FORMATIONS = 12;
+    private static final int PARTICIPANTS = 4;
+
+    @Autowired
+    private FormationService formationService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private SuggestionService suggestionService;
+    @MockitoBean
+    private RatingService ratingService;
+    @MockitoBean
+    private MembershipService membershipService;
+    @MockitoBean
+    private RecommendationService recommendationService;
+    @MockitoBean
+    private ExpertStatsService expertStatsService;
+    @MockitoBean
+    private DomainEventBus domainEventBus;
+    @MockitoBean
+    private FormationLiveHub formationLiveHub;
+    @MockitoBean
+    private ChatHub chatHub;
+    @MockitoBean
+    private LiveInteractionService liveInteractionService;
+    @MockitoBean
+    private AttendanceService attendanceService;
+    @MockitoBean
+    private CatalogSyncService catalogSyncService;
+
+    private Statistics statistiques;
+    private Long formationNotee;
+
+    @BeforeEach
+    void peupler() {
+        User expert = utilisateur("expert@example.com", Role.EXPERT);
+        List<User> apprenants = new ArrayList<>();
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            apprenants.add(utilisateur("apprenant" + i + "@example.com", Role.USER));
+        }
+        LocalDateTime debut = LocalDateTime.of(2030, 1, 1, 9, 0);
+        for (int i = 0; i < FORMATIONS; i++) {
+            Formation formation = Formation.builder()
+                    .titre("Formation " + i)
+                    .description("Description " + i)
+                    .dateDebut(debut.plusDays(i))
+                    .dateFin(debut.plusDays(i).plusHours(3))
+                    .duree(3)
+                    .nombreMaxParticipants(30)
+                    .prix(49.0)
+                    .categorie(FormationCategory.DEVOPS)
+                    .statut(i % 3 == 0 ? FormationStatus.EN_ATTENTE : FormationStatus.APPROUVEE)
+                    .formateur(expert)
+                    .imageFormation(new byte[]{1, 2, 3})
+                    .participants(new ArrayList<>(apprenants))
+                    .avis(new ArrayList<>())
+                    .build();
+            entityManager.persist(formation);
+            for (User apprenant : apprenants) {
+                formation.getAvis().add(Avis.builder()
+                        .formation(formation)
+                        .utilisateur(apprenant)
+                        .note(4)
+                        .commentaire("Très bien")
+                        .dateCreation(debut.minusDays(apprenants.indexOf(apprenant)))
+                        .build());
+            }
+            formationNotee = formation.getId();
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void mesFormationsEnUneRequeteDeListe() {
+        long requetes = compter(() -> assertEquals(FORMATIONS, formationService.getMyFormations("expert@example.com").size()));
+        assertTrue(requetes <= REQUETES_MAX_LISTE, requetes + " requêtes");
+    }
+
+    @Test
+    void mesFormationsAvecFieldsEnUneRequeteDeListe() {
+        long requetes = compter(() -> assertEquals(FORMATIONS,
+                formationService.getMyFormations("expert@example.com", "id,titre,nombreParticipants").size()));
+        assertTrue(requetes <= REQUETES_MAX_LISTE, requetes + " requêtes");
+    }
+
+    @Test
+    void mesInscriptionsEnUneRequeteDeListe() {
+        long requetes = compter(() -> assertEquals(FORMATIONS - FORMATIONS / 3,
+                formationService.getMyInscriptions("apprenant0@example.com").size()));
+        assertTrue(requetes <= REQUETES_MAX_LISTE, requetes + " requêtes");
+    }
+
+    @Test
+    void pageAvisEnUneRequete() {
+        long requetes = compter(() -> {
+            AvisPageResponse page = formationService.getAvisByFormation(formationNotee, null, null, 3);
+            assertEquals(3, page.getAvis().size());
+            assertTrue(page.isHasMore());
+            AvisPageResponse suite = formationService.getAvisByFormation(formationNotee, page.getNextCursor(), null, 3);
+            assertEquals(PARTICIPANTS - 3, suite.getAvis().size());
+        });
+        assertTrue(requetes <= 2 * REQUETES_MAX_AVIS, requetes + " requêtes");
+    }
+
+    @Test
+    void fluxApprouveesEtEnAttenteEnUneRequete() throws IOException {
+        long approuvees = compterFlux(formationService.streamFormationsApprouvees(MediaType.APPLICATION_JSON));
+        long enAttente = compterFlux(formationService.streamFormationsEnAttente(MediaType.APPLICATION_JSON));
+        assertTrue(approuvees <= REQUETES_MAX_FLUX, approuvees + " requêtes");
+        assertTrue(enAttente <= REQUETES_MAX_FLUX, enAttente + " requêtes");
+    }
+
+    private User utilisateur(String email, Role role) {
+        User user = User.builder()
+                .email(email)
+                .nom("Nom")
+                .prenom("Prénom")
+                .role(role)
+                .isActive(true)
+                .isVerified(true)
+                .profileImage(new byte[]{9})
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+
+    private long compter(Runnable lecture) {
+        entityManager.clear();
+        statistiques.clear();
+        lecture.run();
+        return statistiques.getPrepareStatementCount();
+    }
+
+    private long compterFlux(StreamingResponseBody flux) throws IOException {
+        entityManager.clear();
+        statistiques.clear();
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        flux.writeTo(sortie);
+        assertTrue(sortie.size() > 2);
+        return statistiques.getPrepareStatementCount();
+    }
+}
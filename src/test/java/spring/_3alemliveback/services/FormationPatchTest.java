@@ -0,0 +1,146 @@
+package spring._3alemliveback.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spring._3alemliveback.chat.ChatHub;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.dto.formation.FormationDTO;
+import spring._3alemliveback.dto.formation.FormationRequest;
+import spring._3alemliveback.dto.formation.FormationVersionView;
+import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.events.DomainEventBus;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+import spring._3alemliveback.exceptions.PreconditionFailedException;
+import spring._3alemliveback.live.FormationLiveHub;
+import spring._3alemliveback.repo.AvisRepository;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.SparseQueryRepository;
+import spring._3alemliveback.repo.UserRepository;
+import spring._3alemliveback.repo.WaitlistEntryRepository;
+import spring._3alemliveback.util.JsonArrayStreamer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * PATCH d'une formation : verrou pris avant la précondition If-Match, capacité jamais inférieure
+ * au nombre d'inscrits (PUT compris).
+ */
+class FormationPatchTest {
+
+    private static final Long FORMATION = 42L;
+    private static final String EXPERT = "expert@example.com";
+
+    private final FormationRepository formationRepository = mock(FormationRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final WaitlistEntryRepository waitlistEntryRepository = mock(WaitlistEntryRepository.class);
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final FormationService service = new FormationService(formationRepository, userRepository,
+            mock(AvisRepository.class), waitlistEntryRepository, mock(SuggestionService.class), mock(RatingService.class),
+            mock(MembershipService.class), mock(RecommendationService.class), mock(ExpertStatsService.class),
+            mock(DomainEventBus.class), mock(FormationLiveHub.class), mock(ChatHub.class),
+            mock(LiveInteractionService.class), mock(AttendanceService.class), mock(JsonArrayStreamer.class),
+            mock(CatalogSyncService.class), mock(SparseQueryRepository.class), objectMapper);
+
+    private Formation formation;
+
+    @BeforeEach
+    void formation() {
+        User expert = User.builder().id(7L).email(EXPERT).role(Role.EXPERT).version(2L).build();
+        formation = Formation.builder()
+                .id(FORMATION)
+                .titre("Kubernetes")
+                .dateDebut(LocalDateTime.of(2030, 1, 1, 9, 0))
+                .dateFin(LocalDateTime.of(2030, 1, 1, 12, 0))
+                .nombreMaxParticipants(10)
+                .statut(FormationStatus.APPROUVEE)
+                .formateur(expert)
+                .participants(new ArrayList<>())
+                .avis(new ArrayList<>())
+                .version(3L)
+                .updatedAt(LocalDateTime.of(2029, 12, 1, 8, 0))
+                .build();
+        when(userRepository.findByEmail(EXPERT)).thenReturn(Optional.of(expert));
+        when(formationRepository.findByIdForUpdate(FORMATION)).thenReturn(Optional.of(formation));
+        when(formationRepository.saveAndFlush(any(Formation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(waitlistEntryRepository.findHeadByFormationId(anyLong())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void verrouPrisAvantLaPreconditionIfMatch() throws Exception {
+        // ETag tel que renvoyé par le GET, préfixe faible compris
+        FormationVersionView vue = mock(FormationVersionView.class);
+        when(vue.getVersion()).thenReturn(formation.getVersion());
+        when(vue.getFormateurVersion()).thenReturn(formation.getFormateur().getVersion());
+        when(vue.getUpdatedAt()).thenReturn(formation.getUpdatedAt());
+        when(formationRepository.findVersionById(FORMATION)).thenReturn(Optional.of(vue));
+        String etag = service.getVersionFormation(FORMATION).etag();
+
+        FormationDTO modifiee = service.patchFormation(FORMATION, patch("{\"titre\": \"Helm\"}"), "W/" + etag, EXPERT);
+
+        assertEquals("Helm", modifiee.getTitre());
+        verify(formationRepository, never()).findById(any());
+    }
+
+    @Test
+    void ifMatchPerimeRefuse() throws Exception {
+        assertThrows(PreconditionFailedException.class, () ->
+                service.patchFormation(FORMATION, patch("{\"titre\": \"Helm\"}"), "W/\"formation-42-2.2-0\"", EXPERT));
+        verify(formationRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void capaciteInferieureAuxInscritsRefusee() throws Exception {
+        when(formationRepository.countParticipants(FORMATION)).thenReturn(8L);
+
+        assertThrows(InvalidOperationException.class, () ->
+                service.patchFormation(FORMATION, patch("{\"nombreMaxParticipants\": 7}"), null, EXPERT));
+        assertEquals(10, formation.getNombreMaxParticipants());
+        verify(formationRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void capaciteEgaleAuxInscritsAcceptee() throws Exception {
+        when(formationRepository.countParticipants(FORMATION)).thenReturn(8L);
+
+        FormationDTO modifiee = service.patchFormation(FORMATION, patch("{\"nombreMaxParticipants\": 8}"), null, EXPERT);
+
+        assertEquals(8, modifiee.getNombreMaxParticipants());
+    }
+
+    @Test
+    void capaciteInferieureAuxInscritsRefuseeEnPut() {
+        when(formationRepository.countParticipants(FORMATION)).thenReturn(8L);
+        FormationRequest demande = FormationRequest.builder()
+                .titre("Kubernetes")
+                .dateDebut(formation.getDateDebut())
+                .dateFin(formation.getDateFin())
+                .nombreMaxParticipants(7)
+                .build();
+
+        assertThrows(InvalidOperationException.class, () -> service.updateFormation(FORMATION, demande, EXPERT));
+        verify(formationRepository, never()).saveAndFlush(any());
+
+        demande.setNombreMaxParticipants(8);
+        assertEquals(8, service.updateFormation(FORMATION, demande, EXPERT).getNombreMaxParticipants());
+    }
+
+    private JsonNode patch(String json) throws Exception {
+        return objectMapper.readTree(json);
+    }
+}
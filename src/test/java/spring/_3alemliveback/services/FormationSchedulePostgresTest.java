@@ -0,0 +1,261 @@
+package spring._3alemliveback.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import spring._3alemliveback.chat.ChatHub;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.dto.formation.DisponibilitesResponse;
+import spring._3alemliveback.dto.formation.FormationRequest;
+import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.events.DomainEventBus;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+import spring._3alemliveback.exceptions.ScheduleConflictException;
+import spring._3alemliveback.live.FormationLiveHub;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.SparseQueryRepository;
+import spring._3alemliveback.repo.UserRepository;
+import spring._3alemliveback.util.JsonArrayStreamer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Planning des formateurs sur une vraie base PostgreSQL : chevauchement refusé en 409, créneaux
+ * adjacents [a, b) / [b, c) acceptés, formation rejetée ignorée, et contrainte d'exclusion
+ * formations_creneau_formateur_excl (schema.sql) qui départage deux créations concurrentes passées
+ * toutes deux par la vérification applicative.
+ * <p>
+ * Base jetable fournie par TEST_POSTGRES_URL, comme ChangeJournalPostgresTest.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = "jdbc:postgresql:.+")
+@DataJpaTest(properties = "spring.sql.init.mode=always")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({FormationService.class, SparseQueryRepository.class, JsonArrayStreamer.class, JacksonConfig.class})
+class FormationSchedulePostgresTest {
+
+    private static final String EXPERT = "expert@example.com";
+    private static final LocalDateTime NEUF_HEURES = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TEST_POSTGRES_URL"));
+        if (System.getenv("TEST_POSTGRES_USER") != null) {
+            registry.add("spring.datasource.username", () -> System.getenv("TEST_POSTGRES_USER"));
+            registry.add("spring.datasource.password", () -> System.getenv("TEST_POSTGRES_PASSWORD"));
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private FormationService formationService;
+    @Autowired
+    private FormationRepository formationRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private SuggestionService suggestionService;
+    @MockitoBean
+    private RatingService ratingService;
+    @MockitoBean
+    private MembershipService membershipService;
+    @MockitoBean
+    private RecommendationService recommendationService;
+    @MockitoBean
+    private ExpertStatsService expertStatsService;
+    @MockitoBean
+    private DomainEventBus domainEventBus;
+    @MockitoBean
+    private FormationLiveHub formationLiveHub;
+    @MockitoBean
+    private ChatHub chatHub;
+    @MockitoBean
+    private LiveInteractionService liveInteractionService;
+    @MockitoBean
+    private AttendanceService attendanceService;
+    @MockitoBean
+    private CatalogSyncService catalogSyncService;
+
+    private TransactionTemplate transaction;
+    private User expert;
+
+    @BeforeEach
+    void preparer() throws SQLException {
+        vider();
+        transaction = new TransactionTemplate(transactionManager);
+        expert = transaction.execute(s -> userRepository.save(User.builder()
+                .email(EXPERT)
+                .nom("Nom")
+                .prenom("Prénom")
+                .role(Role.EXPERT)
+                .isActive(true)
+                .isVerified(true)
+                .build()));
+    }
+
+    @AfterEach
+    void vider() throws SQLException {
+        try (Connection connexion = dataSource.getConnection(); Statement statement = connexion.createStatement()) {
+            statement.execute("TRUNCATE formations, users CASCADE");
+            connexion.commit();
+        }
+    }
+
+    @Test
+    void chevauchementRefuseEnConflit() {
+        formationService.createFormation(demande(NEUF_HEURES, NEUF_HEURES.plusHours(3)), EXPERT);
+
+        ScheduleConflictException conflit = assertThrows(ScheduleConflictException.class, () ->
+                formationService.createFormation(demande(NEUF_HEURES.plusHours(2), NEUF_HEURES.plusHours(4)), EXPERT));
+        assertTrue(conflit.getMessage().contains("chevauche"), conflit.getMessage());
+        ResponseStatus statut = AnnotatedElementUtils.findMergedAnnotation(ScheduleConflictException.class, ResponseStatus.class);
+        assertEquals(HttpStatus.CONFLICT, statut.value());
+        assertEquals(1, formationRepository.count());
+    }
+
+    @Test
+    void creneauxAdjacentsAcceptes() {
+        formationService.createFormation(demande(NEUF_HEURES, NEUF_HEURES.plusHours(3)), EXPERT);
+        formationService.createFormation(demande(NEUF_HEURES.plusHours(3), NEUF_HEURES.plusHours(5)), EXPERT);
+        formationService.createFormation(demande(NEUF_HEURES.minusHours(2), NEUF_HEURES), EXPERT);
+
+        DisponibilitesResponse disponibilites = formationService.getDisponibilites(expert.getId(),
+                NEUF_HEURES.minusDays(1), NEUF_HEURES.plusDays(1));
+        assertEquals(3, disponibilites.getOccupe().size());
+    }
+
+    @Test
+    void formationRejeteeNeBloquePasLeCreneau() {
+        Formation rejetee = formationService.createFormation(demande(NEUF_HEURES, NEUF_HEURES.plusHours(3)), EXPERT);
+        formationService.rejectFormation(rejetee.getId());
+
+        formationService.createFormation(demande(NEUF_HEURES.plusHours(1), NEUF_HEURES.plusHours(2)), EXPERT);
+
+        assertEquals(1, formationService.getDisponibilites(expert.getId(),
+                NEUF_HEURES.minusDays(1), NEUF_HEURES.plusDays(1)).getOccupe().size());
+    }
+
+    @Test
+    void creationsConcurrentesDepartageesParLaContrainte() throws Exception {
+        CountDownLatch premiereEcrite = new CountDownLatch(1);
+        CountDownLatch valider = new CountDownLatch(1);
+        // Première création écrite mais pas encore validée : invisible à la vérification de la seconde
+        CompletableFuture<Formation> premiere = CompletableFuture.supplyAsync(() -> transaction.execute(s -> {
+            Formation formation = formationService.createFormation(demande(NEUF_HEURES, NEUF_HEURES.plusHours(3)), EXPERT);
+            premiereEcrite.countDown();
+            attendre(valider);
+            return formation;
+        }));
+        assertTrue(premiereEcrite.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Formation> seconde = CompletableFuture.supplyAsync(() ->
+                formationService.createFormation(demande(NEUF_HEURES.plusHours(1), NEUF_HEURES.plusHours(4)), EXPERT));
+        // L'insertion de la seconde attend la fin de la première sur l'index de la contrainte
+        attendreVerrouEnAttente();
+        valider.countDown();
+
+        premiere.get(10, TimeUnit.SECONDS);
+        ExecutionException echec = assertThrows(ExecutionException.class, () -> seconde.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(ScheduleConflictException.class, echec.getCause());
+        assertEquals(1, formationRepository.count());
+    }
+
+    @Test
+    void demarrageRefuseSiUneAutreFormationEstEnCours() {
+        Formation enCours = formationService.createFormation(demande(NEUF_HEURES, NEUF_HEURES.plusHours(3)), EXPERT);
+        Formation suivante = formationService.createFormation(demande(NEUF_HEURES.plusHours(3), NEUF_HEURES.plusHours(5)), EXPERT);
+        formationService.approveFormation(enCours.getId());
+        formationService.approveFormation(suivante.getId());
+        formationService.demarrerFormation(enCours.getId(), EXPERT);
+
+        assertThrows(ScheduleConflictException.class, () -> formationService.demarrerFormation(suivante.getId(), EXPERT));
+
+        formationService.terminerFormation(enCours.getId(), EXPERT);
+        assertEquals(FormationStatus.EN_COURS, formationService.demarrerFormation(suivante.getId(), EXPERT).getStatut());
+    }
+
+    @Test
+    void fenetreDeDisponibilitesLimiteeA366Jours() {
+        LocalDateTime debut = NEUF_HEURES.minusDays(1);
+
+        assertEquals(0, formationService.getDisponibilites(expert.getId(), debut, debut.plusDays(366)).getOccupe().size());
+        assertThrows(InvalidOperationException.class, () ->
+                formationService.getDisponibilites(expert.getId(), debut, debut.plusDays(366).plusMinutes(1)));
+    }
+
+    private FormationRequest demande(LocalDateTime debut, LocalDateTime fin) {
+        FormationRequest demande = new FormationRequest();
+        demande.setTitre("Formation " + debut.toLocalTime());
+        demande.setDescription("Description");
+        demande.setDateDebut(debut);
+        demande.setDateFin(fin);
+        demande.setDuree(3);
+        demande.setNombreMaxParticipants(30);
+        demande.setPrix(49.0);
+        demande.setCategorie(FormationCategory.DEVOPS);
+        return demande;
+    }
+
+    private void attendreVerrouEnAttente() throws SQLException, InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        try (Connection connexion = dataSource.getConnection(); Statement statement = connexion.createStatement()) {
+            while (System.nanoTime() < limite) {
+                try (ResultSet resultat = statement.executeQuery("SELECT count(*) FROM pg_locks WHERE NOT granted")) {
+                    resultat.next();
+                    if (resultat.getLong(1) > 0) {
+                        connexion.rollback();
+                        return;
+                    }
+                }
+                connexion.rollback();
+                Thread.sleep(10);
+            }
+        }
+        throw new AssertionError("La seconde création n'attend pas la première");
+    }
+
+    private static void attendre(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
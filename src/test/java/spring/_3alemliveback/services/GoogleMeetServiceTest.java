@@ -0,0 +1,146 @@
+package spring._3alemliveback.services;
+
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.calendar.Calendar;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spring._3alemliveback.meeting.DemandeMeet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Création des liens Meet contre une API Calendar simulée localement (endpoint batch) : identifiants
+ * d'événement et de conférence stables d'une tentative à l'autre, 409 résolu par relecture de
+ * l'événement déjà créé.
+ */
+class GoogleMeetServiceTest {
+
+    private static final String BOUNDARY_REPONSE = "batch_stub";
+
+    private HttpServer serveur;
+    private final AtomicInteger appels = new AtomicInteger();
+    private final List<String> corpsRecus = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void demarrer() throws IOException {
+        serveur = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serveur.createContext("/batch/calendar/v3", this::repondreBatch);
+        serveur.start();
+    }
+
+    @AfterEach
+    void arreter() {
+        serveur.stop(0);
+    }
+
+    @Test
+    void createMeetLinksEnvoieUnSeulBatchEtIgnoreLesEchecs() throws Exception {
+        LocalDateTime debut = LocalDateTime.of(2030, 1, 15, 10, 0);
+        List<DemandeMeet> demandes = List.of(
+                new DemandeMeet(1L, "Java", "Bases", debut, debut.plusHours(2)),
+                new DemandeMeet(2L, "Echec", "Refusée par le serveur", debut, debut.plusHours(2)),
+                new DemandeMeet(3L, "Spring", "Avancé", debut, debut.plusHours(2)));
+
+        Map<Long, String> liens = service().createMeetLinks(demandes);
+
+        assertEquals(1, appels.get());
+        assertEquals(Map.of(1L, "https://meet.google.com/stub-0", 3L, "https://meet.google.com/stub-2"), liens);
+        assertTrue(corpsRecus.get(0).contains("\"id\":\"formation2\""));
+        assertTrue(corpsRecus.get(0).contains("\"requestId\":\"formation-2\""));
+    }
+
+    @Test
+    void evenementDejaCreeReluApresUnConflit() throws Exception {
+        LocalDateTime debut = LocalDateTime.of(2030, 1, 15, 10, 0);
+        List<DemandeMeet> demandes = List.of(
+                new DemandeMeet(1L, "Java", "Bases", debut, debut.plusHours(2)),
+                new DemandeMeet(4L, "Existant", "Créé par une tentative précédente", debut, debut.plusHours(2)));
+
+        Map<Long, String> liens = service().createMeetLinks(demandes);
+
+        assertEquals(2, appels.get());
+        assertEquals(Map.of(1L, "https://meet.google.com/stub-0", 4L, "https://meet.google.com/existant"), liens);
+        assertTrue(corpsRecus.get(1).contains("GET "));
+        assertTrue(corpsRecus.get(1).contains("/calendar/v3/calendars/primary/events/formation4"));
+    }
+
+    @Test
+    void createMeetLinksSansDemandeNAppellePasGoogle() throws Exception {
+        assertTrue(service().createMeetLinks(List.of()).isEmpty());
+        assertEquals(0, appels.get());
+    }
+
+    private GoogleMeetService service() {
+        Calendar calendar = new Calendar.Builder(new NetHttpTransport(), GsonFactory.getDefaultInstance(), null)
+                .setRootUrl("http://localhost:" + serveur.getAddress().getPort() + "/")
+                .setApplicationName("test")
+                .build();
+        return new GoogleMeetService(calendar);
+    }
+
+    /**
+     * Une réponse par partie de la requête multipart/mixed : 500 pour la formation "Echec", 409 pour
+     * "Existant", l'événement existant pour une lecture, sinon un événement avec un point d'entrée vidéo.
+     */
+    private void repondreBatch(HttpExchange echange) throws IOException {
+        appels.incrementAndGet();
+        String contentType = echange.getRequestHeaders().getFirst("Content-Type");
+        String boundary = "--" + contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+        String corpsRecu = new String(echange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        corpsRecus.add(corpsRecu);
+
+        StringBuilder reponse = new StringBuilder();
+        int index = 0;
+        for (String partie : corpsRecu.split(java.util.regex.Pattern.quote(boundary))) {
+            if (!partie.contains("application/http")) {
+                continue;
+            }
+            reponse.append("--").append(BOUNDARY_REPONSE).append("\r\n")
+                    .append("Content-Type: application/http\r\n")
+                    .append("Content-ID: <response-").append(index).append(">\r\n\r\n");
+            if (partie.contains("\"summary\":\"Echec\"")) {
+                reponse.append("HTTP/1.1 500 Internal Server Error\r\n")
+                        .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                        .append("{\"error\":{\"code\":500,\"message\":\"boum\"}}\r\n");
+            } else if (partie.contains("\"summary\":\"Existant\"")) {
+                reponse.append("HTTP/1.1 409 Conflict\r\n")
+                        .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                        .append("{\"error\":{\"code\":409,\"message\":\"The requested identifier already exists.\"}}\r\n");
+            } else if (partie.contains("GET ")) {
+                reponse.append("HTTP/1.1 200 OK\r\n")
+                        .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                        .append("{\"id\":\"formation4\",\"conferenceData\":{\"entryPoints\":[")
+                        .append("{\"entryPointType\":\"video\",\"uri\":\"https://meet.google.com/existant\"}]}}\r\n");
+            } else {
+                reponse.append("HTTP/1.1 200 OK\r\n")
+                        .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                        .append("{\"id\":\"evt").append(index).append("\",\"conferenceData\":{\"entryPoints\":[")
+                        .append("{\"entryPointType\":\"video\",\"uri\":\"https://meet.google.com/stub-").append(index).append("\"}]}}\r\n");
+            }
+            index++;
+        }
+        reponse.append("--").append(BOUNDARY_REPONSE).append("--\r\n");
+
+        byte[] octets = reponse.toString().getBytes(StandardCharsets.UTF_8);
+        echange.getResponseHeaders().add("Content-Type", "multipart/mixed; boundary=" + BOUNDARY_REPONSE);
+        echange.sendResponseHeaders(200, octets.length);
+        try (OutputStream sortie = echange.getResponseBody()) {
+            sortie.write(octets);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package spring._3alemliveback.services;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.entities.IdempotencyRecord;
+import spring._3alemliveback.exceptions.IdempotencyConflictException;
+import spring._3alemliveback.exceptions.IdempotencyKeyReuseException;
+import spring._3alemliveback.repo.IdempotencyRecordRepository;
+import spring._3alemliveback.util.MediaFormats;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Idempotency-Key : doublons simultanés, reprises (format compris), portée par appelant, bail d'une
+ * autre instance. La reprise d'un bail expiré en base est vérifiée par IdempotencyRecordRepositoryPostgresTest.
+ */
+class IdempotencyServiceTest {
+
+    private static final String PORTEE = "POST /api/formations/inscription";
+    private static final String APPRENANT = "apprenant@example.com";
+
+    private final IdempotencyRecordRepository repository = mock(IdempotencyRecordRepository.class);
+    private final IdempotencyService service;
+
+    IdempotencyServiceTest() {
+        JacksonConfig jackson = new JacksonConfig();
+        service = new IdempotencyService(repository, jackson.objectMapper(), jackson.cborHttpMessageConverter(),
+                jackson.smileHttpMessageConverter(), 24, 100);
+        when(repository.reserver(anyString(), anyString(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void doublonSimultaneAttendLaPremiereExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch commencee = new CountDownLatch(1);
+        CountDownLatch liberee = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<?>> premiere = threads.submit(() -> executer("cle-1", List.of(1, APPRENANT), () -> {
+                executions.incrementAndGet();
+                commencee.countDown();
+                attendre(liberee);
+                return ResponseEntity.ok(Map.of("statut", "INSCRIT"));
+            }));
+            assertTrue(commencee.await(5, TimeUnit.SECONDS));
+
+            Thread[] doublon = new Thread[1];
+            Future<ResponseEntity<?>> seconde = threads.submit(() -> {
+                doublon[0] = Thread.currentThread();
+                return executer("cle-1", List.of(1, APPRENANT), () -> {
+                    executions.incrementAndGet();
+                    return ResponseEntity.ok(Map.of());
+                });
+            });
+            // Le doublon est bloqué sur la réponse de la première requête
+            while (doublon[0] == null || doublon[0].getState() != Thread.State.TIMED_WAITING) {
+                Thread.onSpinWait();
+            }
+            liberee.countDown();
+
+            ResponseEntity<?> originale = premiere.get(5, TimeUnit.SECONDS);
+            ResponseEntity<?> rejouee = seconde.get(5, TimeUnit.SECONDS);
+            assertEquals(1, executions.get());
+            assertNull(originale.getHeaders().getFirst(IdempotencyService.HEADER_REJOUE));
+            assertEquals("true", rejouee.getHeaders().getFirst(IdempotencyService.HEADER_REJOUE));
+            assertArrayEquals((byte[]) originale.getBody(), (byte[]) rejouee.getBody());
+            verify(repository, times(1)).reserver(anyString(), anyString(), any(), any());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void repriseRejoueLeFormatDOrigine() throws Exception {
+        ResponseEntity<?> originale = service.executer("cle-2", PORTEE, APPRENANT, List.of(1, APPRENANT),
+                MediaType.APPLICATION_CBOR, () -> new ResponseEntity<>(Map.of("statut", "LISTE_ATTENTE"), HttpStatus.ACCEPTED));
+        // Reprise avec un autre Accept : même représentation, même Content-Type
+        ResponseEntity<?> rejouee = service.executer("cle-2", PORTEE, APPRENANT, List.of(1, APPRENANT),
+                MediaType.APPLICATION_JSON, () -> {
+                    throw new AssertionError("traitement réexécuté");
+                });
+
+        assertEquals(MediaType.APPLICATION_CBOR, originale.getHeaders().getContentType());
+        assertEquals(MediaType.APPLICATION_CBOR, rejouee.getHeaders().getContentType());
+        assertEquals(HttpStatus.ACCEPTED, rejouee.getStatusCode());
+        assertArrayEquals((byte[]) originale.getBody(), (byte[]) rejouee.getBody());
+        assertEquals("LISTE_ATTENTE", new CBORMapper().readTree((byte[]) rejouee.getBody()).get("statut").asText());
+        verify(repository).terminer(anyString(), eq(202), eq(MediaType.APPLICATION_CBOR_VALUE), any(), any());
+    }
+
+    @Test
+    void memeCleChezDeuxAppelantsExecuteeDeuxFois() {
+        AtomicInteger executions = new AtomicInteger();
+        service.executer("cle-3", PORTEE, "a@example.com", List.of(1, "a@example.com"), MediaType.APPLICATION_JSON,
+                () -> ResponseEntity.ok(executions.incrementAndGet()));
+        service.executer("cle-3", PORTEE, "b@example.com", List.of(1, "b@example.com"), MediaType.APPLICATION_JSON,
+                () -> ResponseEntity.ok(executions.incrementAndGet()));
+
+        assertEquals(2, executions.get());
+        ArgumentCaptor<String> ids = ArgumentCaptor.forClass(String.class);
+        verify(repository, times(2)).reserver(ids.capture(), anyString(), any(), any());
+        assertNotEquals(ids.getAllValues().get(0), ids.getAllValues().get(1));
+        assertTrue(ids.getAllValues().get(0).length() <= 200);
+    }
+
+    @Test
+    void cleReutiliseePourUneAutreRequeteRefusee() {
+        executer("cle-4", List.of(1, APPRENANT), () -> ResponseEntity.ok(Map.of()));
+
+        assertThrows(IdempotencyKeyReuseException.class,
+                () -> executer("cle-4", List.of(2, APPRENANT), () -> ResponseEntity.ok(Map.of())));
+    }
+
+    @Test
+    void echecLibereLaCle() {
+        assertThrows(IllegalStateException.class, () -> executer("cle-5", List.of(1, APPRENANT), () -> {
+            throw new IllegalStateException("formation complète");
+        }));
+        verify(repository).liberer(anyString());
+
+        AtomicInteger executions = new AtomicInteger();
+        executer("cle-5", List.of(1, APPRENANT), () -> ResponseEntity.ok(executions.incrementAndGet()));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void reponseTermineeParUneAutreInstanceRejouee() throws Exception {
+        when(repository.reserver(anyString(), anyString(), any(), any())).thenReturn(0);
+        byte[] corps = {1, 2, 3};
+        when(repository.findById(anyString())).thenReturn(Optional.of(IdempotencyRecord.builder()
+                .empreinte(empreinte(List.of(1, APPRENANT)))
+                .statutHttp(200)
+                .typeContenu(MediaFormats.SMILE.toString())
+                .corps(corps)
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build()));
+
+        ResponseEntity<?> rejouee = executer("cle-6", List.of(1, APPRENANT), () -> {
+            throw new AssertionError("traitement réexécuté");
+        });
+
+        assertEquals(MediaFormats.SMILE, rejouee.getHeaders().getContentType());
+        assertArrayEquals(corps, (byte[]) rejouee.getBody());
+    }
+
+    @Test
+    void bailEnCoursSurUneAutreInstanceRefuse() {
+        when(repository.reserver(anyString(), anyString(), any(), any())).thenReturn(0);
+        when(repository.findById(anyString())).thenReturn(Optional.of(IdempotencyRecord.builder()
+                .empreinte("autre")
+                .expiresAt(LocalDateTime.now().plusMinutes(2))
+                .build()));
+
+        assertThrows(IdempotencyConflictException.class, () -> executer("cle-7", List.of(1, APPRENANT), () -> {
+            throw new AssertionError("traitement exécuté pendant le bail");
+        }));
+    }
+
+    private ResponseEntity<?> executer(String cle, Object requete, Supplier<? extends ResponseEntity<?>> traitement) {
+        return service.executer(cle, PORTEE, APPRENANT, requete, MediaType.APPLICATION_JSON, traitement);
+    }
+
+    private static String empreinte(Object requete) throws Exception {
+        byte[] json = new JacksonConfig().objectMapper().writeValueAsBytes(requete);
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+    }
+
+    private static void attendre(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package spring._3alemliveback.services;
+
+import org.junit.jupiter.api.Test;
+import spring._3alemliveback.dto.live.VoteRequest;
+import spring._3alemliveback.dto.register.UserVersionView;
+import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.entities.QuestionLive;
+import spring._3alemliveback.entities.Sondage;
+import spring._3alemliveback.entities.SondageOption;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.exceptions.AccessDeniedException;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+import spring._3alemliveback.live.FormationLiveHub;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.QuestionLiveRepository;
+import spring._3alemliveback.repo.SondageRepository;
+import spring._3alemliveback.repo.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sondages et questions en direct : votes concurrents comptés exactement, un vote par utilisateur
+ * (le second est refusé, il ne remplace pas le premier), non-inscrits et sondages clos refusés,
+ * résultats recopiés dans les entités à la clôture d'un sondage et à la fin de la session.
+ * Hors transaction, les mises à jour après validation sont immédiates.
+ */
+class LiveInteractionServiceTest {
+
+    private static final Long FORMATION = 1L;
+    private static final Long FORMATEUR = 100L;
+    private static final String FORMATEUR_EMAIL = "expert@example.com";
+    private static final Long INTRUS = 99_999L;
+
+    private final FormationRepository formationRepository = mock(FormationRepository.class);
+    private final SondageRepository sondageRepository = mock(SondageRepository.class);
+    private final QuestionLiveRepository questionLiveRepository = mock(QuestionLiveRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final MembershipService membershipService = mock(MembershipService.class);
+    private final LiveInteractionService service = new LiveInteractionService(formationRepository, sondageRepository,
+            questionLiveRepository, userRepository, membershipService, mock(FormationLiveHub.class), 50);
+
+    private final Sondage couleur = sondage(10L, "Couleur ?");
+    private final Sondage langage = sondage(11L, "Langage ?");
+    private final QuestionLive question = QuestionLive.builder()
+            .id(20L)
+            .formationId(FORMATION)
+            .userId(1L)
+            .auteur("Amina")
+            .texte("Et en production ?")
+            .creeeLe(LocalDateTime.now())
+            .build();
+
+    LiveInteractionServiceTest() {
+        Formation formation = Formation.builder()
+                .id(FORMATION)
+                .statut(FormationStatus.EN_COURS)
+                .formateur(User.builder().id(FORMATEUR).build())
+                .build();
+        when(formationRepository.findById(FORMATION)).thenReturn(Optional.of(formation));
+        when(sondageRepository.findByFormationIdOrderByIdAsc(FORMATION)).thenReturn(List.of(couleur, langage));
+        when(questionLiveRepository.findByFormationIdOrderByVotesDescIdAsc(FORMATION)).thenReturn(List.of(question));
+        when(sondageRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return List.of(couleur, langage).stream().filter(s -> ids.contains(s.getId())).toList();
+        });
+        when(questionLiveRepository.findAllById(any())).thenReturn(List.of(question));
+        // Apprenant n° i : apprenant<i>@example.com, id i ; seul l'intrus n'est pas inscrit
+        when(userRepository.findVersionByEmail(anyString())).thenAnswer(invocation -> {
+            String email = invocation.getArgument(0);
+            long id = email.equals(FORMATEUR_EMAIL) ? FORMATEUR
+                    : Long.parseLong(email.substring("apprenant".length(), email.indexOf('@')));
+            UserVersionView vue = mock(UserVersionView.class);
+            when(vue.getId()).thenReturn(id);
+            return Optional.of(vue);
+        });
+        when(membershipService.estParticipant(any(), anyLong()))
+                .thenAnswer(invocation -> !INTRUS.equals(invocation.getArgument(1)));
+    }
+
+    @Test
+    void votesConcurrentsComptesExactement() throws Exception {
+        int threads = 8;
+        int votantsParThread = 250;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<?>> taches = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int premier = 1 + t * votantsParThread;
+                taches.add(pool.submit(() -> {
+                    depart.await();
+                    for (int i = premier; i < premier + votantsParThread; i++) {
+                        service.voter(FORMATION, 10L, new VoteRequest(i % 2), apprenant(i));
+                    }
+                    return null;
+                }));
+            }
+            depart.countDown();
+            for (Future<?> tache : taches) {
+                tache.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        service.fermerSondage(FORMATION, 10L, FORMATEUR_EMAIL);
+        assertEquals(threads * votantsParThread / 2, couleur.getOptions().get(0).getVotes());
+        assertEquals(threads * votantsParThread / 2, couleur.getOptions().get(1).getVotes());
+    }
+
+    @Test
+    void secondVoteRefuseEtPremierConserve() {
+        service.voter(FORMATION, 10L, new VoteRequest(0), apprenant(1));
+
+        assertThrows(InvalidOperationException.class,
+                () -> service.voter(FORMATION, 10L, new VoteRequest(1), apprenant(1)));
+
+        service.fermerSondage(FORMATION, 10L, FORMATEUR_EMAIL);
+        assertEquals(1, couleur.getOptions().get(0).getVotes());
+        assertEquals(0, couleur.getOptions().get(1).getVotes());
+    }
+
+    @Test
+    void voteDUnNonInscritRefuse() {
+        assertThrows(AccessDeniedException.class,
+                () -> service.voter(FORMATION, 10L, new VoteRequest(0), apprenant(INTRUS)));
+        assertThrows(AccessDeniedException.class,
+                () -> service.voterQuestion(FORMATION, 20L, apprenant(INTRUS)));
+
+        assertEquals(0, service.getSondages(FORMATION).get(0).getTotalVotes());
+    }
+
+    @Test
+    void voteApresClotureRefuse() {
+        service.voter(FORMATION, 10L, new VoteRequest(1), apprenant(1));
+        service.fermerSondage(FORMATION, 10L, FORMATEUR_EMAIL);
+
+        assertThrows(InvalidOperationException.class,
+                () -> service.voter(FORMATION, 10L, new VoteRequest(1), apprenant(2)));
+        assertEquals(1, couleur.getOptions().get(1).getVotes());
+    }
+
+    @Test
+    void clotureEnregistreLesResultats() {
+        service.voter(FORMATION, 10L, new VoteRequest(0), apprenant(1));
+        service.voter(FORMATION, 10L, new VoteRequest(1), apprenant(2));
+        service.voter(FORMATION, 10L, new VoteRequest(1), apprenant(3));
+
+        service.fermerSondage(FORMATION, 10L, FORMATEUR_EMAIL);
+
+        assertEquals(List.of(1L, 2L), couleur.getOptions().stream().map(SondageOption::getVotes).toList());
+        assertFalse(couleur.isOuvert());
+        assertNotNull(couleur.getClosLe());
+        // L'autre sondage reste ouvert
+        assertEquals(true, langage.isOuvert());
+    }
+
+    @Test
+    void finDeSessionEnregistreSondagesOuvertsEtQuestions() {
+        service.voter(FORMATION, 10L, new VoteRequest(1), apprenant(2));
+        service.voter(FORMATION, 11L, new VoteRequest(0), apprenant(2));
+        service.voter(FORMATION, 11L, new VoteRequest(0), apprenant(3));
+        service.voterQuestion(FORMATION, 20L, apprenant(2));
+        service.voterQuestion(FORMATION, 20L, apprenant(3));
+
+        service.terminerSession(FORMATION);
+
+        assertEquals(List.of(0L, 1L), couleur.getOptions().stream().map(SondageOption::getVotes).toList());
+        assertEquals(List.of(2L, 0L), langage.getOptions().stream().map(SondageOption::getVotes).toList());
+        assertFalse(couleur.isOuvert());
+        assertFalse(langage.isOuvert());
+        assertNotNull(langage.getClosLe());
+        assertEquals(2, question.getVotes());
+    }
+
+    private static String apprenant(long id) {
+        return "apprenant" + id + "@example.com";
+    }
+
+    private static Sondage sondage(Long id, String question) {
+        return Sondage.builder()
+                .id(id)
+                .formationId(FORMATION)
+                .question(question)
+                .options(new ArrayList<>(List.of(new SondageOption("A", 0), new SondageOption("B", 0))))
+                .ouvert(true)
+                .creeLe(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package spring._3alemliveback.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.events.DomainEventBus;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.SparseQueryRepository;
+import spring._3alemliveback.repo.TokenRepository;
+import spring._3alemliveback.repo.UserRepository;
+import spring._3alemliveback.security.JwtService;
+import spring._3alemliveback.util.JsonArrayStreamer;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * PATCH du profil : nom et prénom ne peuvent pas être effacés par un null, les autres champs si.
+ */
+class ProfilePatchTest {
+
+    private static final String EMAIL = "apprenant@example.com";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final AuthenticationService service = new AuthenticationService(userRepository, mock(TokenRepository.class),
+            mock(PasswordEncoder.class), mock(JwtService.class), mock(AuthenticationManager.class),
+            mock(EmailService.class), mock(DomainEventBus.class), mock(FormationRepository.class),
+            mock(SuggestionService.class), mock(JsonArrayStreamer.class), mock(SparseQueryRepository.class), objectMapper);
+
+    private final User user = User.builder().id(7L).email(EMAIL).nom("Benali").prenom("Amina").phone("0600000000")
+            .role(Role.USER).build();
+
+    ProfilePatchTest() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void nomEtPrenomNonEffacables() {
+        assertThrows(InvalidOperationException.class,
+                () -> service.patchUserProfile(EMAIL, objectMapper.readTree("{\"nom\": null}"), null));
+        assertThrows(InvalidOperationException.class,
+                () -> service.patchUserProfile(EMAIL, objectMapper.readTree("{\"prenom\": null}"), null));
+
+        assertEquals("Benali", user.getNom());
+        assertEquals("Amina", user.getPrenom());
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void champFacultatifEffacable() throws Exception {
+        User modifie = service.patchUserProfile(EMAIL, objectMapper.readTree("{\"phone\": null}"), null);
+
+        assertNull(modifie.getPhone());
+        assertEquals("Benali", modifie.getNom());
+    }
+}
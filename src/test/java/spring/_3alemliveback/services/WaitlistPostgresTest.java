@@ -0,0 +1,267 @@
+package spring._3alemliveback.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring._3alemliveback.chat.ChatHub;
+import spring._3alemliveback.config.JacksonConfig;
+import spring._3alemliveback.dto.formation.InscriptionResponse;
+import spring._3alemliveback.entities.Formation;
+import spring._3alemliveback.entities.User;
+import spring._3alemliveback.entities.WaitlistEntry;
+import spring._3alemliveback.enums.FormationCategory;
+import spring._3alemliveback.enums.FormationStatus;
+import spring._3alemliveback.enums.InscriptionStatus;
+import spring._3alemliveback.enums.Role;
+import spring._3alemliveback.events.DomainEventBus;
+import spring._3alemliveback.events.WaitlistPromoted;
+import spring._3alemliveback.exceptions.AccessDeniedException;
+import spring._3alemliveback.live.FormationLiveHub;
+import spring._3alemliveback.repo.FormationRepository;
+import spring._3alemliveback.repo.SparseQueryRepository;
+import spring._3alemliveback.repo.UserRepository;
+import spring._3alemliveback.repo.WaitlistEntryRepository;
+import spring._3alemliveback.util.JsonArrayStreamer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Liste d'attente sur une vraie base PostgreSQL : rangs FIFO, demande en double sans seconde
+ * entrée, promotion à la désinscription et à l'augmentation de capacité, et dernière place
+ * disputée par deux inscriptions concurrentes (une place, une entrée en attente, grâce au verrou
+ * de findByIdForUpdate).
+ * <p>
+ * Base jetable fournie par TEST_POSTGRES_URL, comme ChangeJournalPostgresTest.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = "jdbc:postgresql:.+")
+@DataJpaTest(properties = "spring.sql.init.mode=always")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({FormationService.class, MembershipService.class, SparseQueryRepository.class, JsonArrayStreamer.class,
+        JacksonConfig.class})
+class WaitlistPostgresTest {
+
+    private static final String EXPERT = "expert@example.com";
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TEST_POSTGRES_URL"));
+        if (System.getenv("TEST_POSTGRES_USER") != null) {
+            registry.add("spring.datasource.username", () -> System.getenv("TEST_POSTGRES_USER"));
+            registry.add("spring.datasource.password", () -> System.getenv("TEST_POSTGRES_PASSWORD"));
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private FormationService formationService;
+    @Autowired
+    private FormationRepository formationRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private SuggestionService suggestionService;
+    @MockitoBean
+    private RatingService ratingService;
+    @MockitoBean
+    private RecommendationService recommendationService;
+    @MockitoBean
+    private ExpertStatsService expertStatsService;
+    @MockitoBean
+    private DomainEventBus domainEventBus;
+    @MockitoBean
+    private FormationLiveHub formationLiveHub;
+    @MockitoBean
+    private ChatHub chatHub;
+    @MockitoBean
+    private LiveInteractionService liveInteractionService;
+    @MockitoBean
+    private AttendanceService attendanceService;
+    @MockitoBean
+    private CatalogSyncService catalogSyncService;
+
+    private TransactionTemplate transaction;
+    private final List<User> apprenants = new ArrayList<>();
+    private Long formationId;
+
+    @BeforeEach
+    void preparer() throws SQLException {
+        vider();
+        transaction = new TransactionTemplate(transactionManager);
+        User expert = transaction.execute(s -> userRepository.save(utilisateur(EXPERT, Role.EXPERT)));
+        for (int i = 1; i <= 4; i++) {
+            String email = apprenant(i);
+            apprenants.add(transaction.execute(s -> userRepository.save(utilisateur(email, Role.USER))));
+        }
+        LocalDateTime debut = LocalDateTime.of(2030, 1, 7, 9, 0);
+        formationId = transaction.execute(s -> formationRepository.save(Formation.builder()
+                .titre("Docker")
+                .description("Description")
+                .dateDebut(debut)
+                .dateFin(debut.plusHours(3))
+                .duree(3)
+                .nombreMaxParticipants(1)
+                .prix(49.0)
+                .categorie(FormationCategory.DEVOPS)
+                .statut(FormationStatus.APPROUVEE)
+                .formateur(expert)
+                .build())).getId();
+    }
+
+    @AfterEach
+    void vider() throws SQLException {
+        try (Connection connexion = dataSource.getConnection(); Statement statement = connexion.createStatement()) {
+            statement.execute("TRUNCATE formations, users CASCADE");
+            connexion.commit();
+        }
+    }
+
+    @Test
+    void rangsAttribuesDansLOrdreDArrivee() {
+        assertEquals(InscriptionStatus.INSCRIT, inscrire(1).getStatut());
+
+        for (int i = 2; i <= 4; i++) {
+            InscriptionResponse reponse = inscrire(i);
+            assertEquals(InscriptionStatus.LISTE_ATTENTE, reponse.getStatut());
+            assertEquals(i - 1, reponse.getPositionAttente());
+            assertEquals(i - 1, reponse.getTailleListeAttente());
+        }
+
+        // Départ du deuxième de la file : le troisième avance d'un rang
+        formationService.desinscriptionFormation(formationId, apprenant(3));
+        assertEquals(1, formationService.getPositionListeAttente(formationId, apprenant(2)).getPositionAttente());
+        assertEquals(2, formationService.getPositionListeAttente(formationId, apprenant(4)).getPositionAttente());
+    }
+
+    @Test
+    void demandeEnDoubleSansSecondeEntree() {
+        inscrire(1);
+        inscrire(2);
+
+        InscriptionResponse encore = inscrire(2);
+        assertEquals(InscriptionStatus.LISTE_ATTENTE, encore.getStatut());
+        assertEquals(1, encore.getPositionAttente());
+        assertTrue(encore.getMessage().contains("déjà en liste d'attente"), encore.getMessage());
+        assertEquals(1, waitlistEntryRepository.countByFormationId(formationId));
+        assertThrows(AccessDeniedException.class, () -> inscrire(1));
+
+        // Deux entrées pour le même apprenant : refusées par uk_waitlist_formation_user
+        assertThrows(DataIntegrityViolationException.class, () -> transaction.executeWithoutResult(s ->
+                waitlistEntryRepository.saveAndFlush(WaitlistEntry.builder()
+                        .formation(formationRepository.getReferenceById(formationId))
+                        .user(apprenants.get(1))
+                        .position(2L)
+                        .dateAjout(LocalDateTime.now())
+                        .build())));
+    }
+
+    @Test
+    void premierDeLaFilePromuALaDesinscription() {
+        inscrire(1);
+        inscrire(2);
+        inscrire(3);
+
+        formationService.desinscriptionFormation(formationId, apprenant(1));
+
+        assertTrue(formationRepository.existsParticipant(formationId, apprenants.get(1).getId()));
+        assertFalse(formationRepository.existsParticipant(formationId, apprenants.get(0).getId()));
+        assertEquals(1, formationService.getPositionListeAttente(formationId, apprenant(3)).getPositionAttente());
+        verify(domainEventBus).publier(argThat(e -> e instanceof WaitlistPromoted promu
+                && promu.userId().equals(apprenants.get(1).getId())));
+    }
+
+    @Test
+    void premiersDeLaFilePromusALAugmentationDeCapacite() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            inscrire(i);
+        }
+
+        formationService.patchFormation(formationId, objectMapper.readTree("{\"nombreMaxParticipants\": 3}"), null, EXPERT);
+
+        assertEquals(3, formationRepository.countParticipants(formationId));
+        assertTrue(formationRepository.existsParticipant(formationId, apprenants.get(2).getId()));
+        assertEquals(1, waitlistEntryRepository.countByFormationId(formationId));
+        assertEquals(1, formationService.getPositionListeAttente(formationId, apprenant(4)).getPositionAttente());
+    }
+
+    @Test
+    void dernierePlaceDisputeeUnInscritEtUnEnAttente() throws Exception {
+        CountDownLatch depart = new CountDownLatch(1);
+        CompletableFuture<InscriptionResponse> premier = CompletableFuture.supplyAsync(() -> inscrireApres(depart, 1));
+        CompletableFuture<InscriptionResponse> second = CompletableFuture.supplyAsync(() -> inscrireApres(depart, 2));
+        depart.countDown();
+
+        List<InscriptionStatus> statuts = List.of(premier.get(10, TimeUnit.SECONDS).getStatut(),
+                second.get(10, TimeUnit.SECONDS).getStatut());
+        assertTrue(statuts.contains(InscriptionStatus.INSCRIT), statuts::toString);
+        assertTrue(statuts.contains(InscriptionStatus.LISTE_ATTENTE), statuts::toString);
+        assertEquals(1, formationRepository.countParticipants(formationId));
+        assertEquals(1, waitlistEntryRepository.countByFormationId(formationId));
+    }
+
+    private InscriptionResponse inscrire(int apprenant) {
+        return formationService.inscriptionFormation(formationId, apprenant(apprenant));
+    }
+
+    private InscriptionResponse inscrireApres(CountDownLatch depart, int apprenant) {
+        try {
+            depart.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return inscrire(apprenant);
+    }
+
+    private static String apprenant(int i) {
+        return "apprenant" + i + "@example.com";
+    }
+
+    private static User utilisateur(String email, Role role) {
+        return User.builder()
+                .email(email)
+                .nom("Nom")
+                .prenom("Prénom")
+                .role(role)
+                .isActive(true)
+                .isVerified(true)
+                .build();
+    }
+}
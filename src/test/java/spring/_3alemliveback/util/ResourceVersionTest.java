@@ -0,0 +1,31 @@
+package spring._3alemliveback.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceVersionTest {
+
+    private final ResourceVersion version = ResourceVersion.of("formation-42-3.1", LocalDateTime.of(2030, 1, 1, 9, 0));
+
+    @Test
+    void ifMatchAccepteLEtagFaibleEnvoyeParLeGet() {
+        assertTrue(version.correspond(version.etag()));
+        assertTrue(version.correspond("W/" + version.etag()));
+        assertTrue(version.correspond("W/" + version.variante("cbor").etag()));
+        assertTrue(version.correspond("\"autre\", W/" + version.variante("id.titre").etag()));
+        assertTrue(version.correspond("*"));
+    }
+
+    @Test
+    void ifMatchRefuseUneAutreVersion() {
+        ResourceVersion suivante = ResourceVersion.of("formation-42-4.1", LocalDateTime.of(2030, 1, 1, 9, 5));
+        assertFalse(version.correspond(suivante.etag()));
+        assertFalse(version.correspond("W/" + suivante.variante("cbor").etag()));
+        // "formation-4" n'est pas un préfixe de version de "formation-42"
+        assertFalse(ResourceVersion.of("formation-4").correspond("W/" + ResourceVersion.of("formation-42").etag()));
+    }
+}
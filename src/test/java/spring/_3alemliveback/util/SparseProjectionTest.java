@@ -0,0 +1,92 @@
+package spring._3alemliveback.util;
+
+import org.junit.jupiter.api.Test;
+import spring._3alemliveback.dto.formation.FormationDTO;
+import spring._3alemliveback.dto.formation.FormationFields;
+import spring._3alemliveback.dto.register.UserFields;
+import spring._3alemliveback.exceptions.GlobalExceptionHandler;
+import spring._3alemliveback.exceptions.InvalidOperationException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Traduction de ?fields= en JPQL pour les formations et les utilisateurs : champ inconnu refusé en 400,
+ * "id" toujours présent, jointure du formateur et colonnes LOB uniquement sur demande, clé d'ETag
+ * indépendante de l'ordre des champs.
+ */
+class SparseProjectionTest {
+
+    private static final String SUITE = "WHERE f.statut = :statut";
+
+    @Test
+    void champInconnuRefuseEn400() {
+        InvalidOperationException refus = assertThrows(InvalidOperationException.class,
+                () -> FormationFields.PROJECTION.selection("titre,motDePasse"));
+        assertTrue(refus.getMessage().contains("motDePasse"), refus.getMessage());
+        assertThrows(InvalidOperationException.class, () -> UserFields.PROJECTION.selection("password"));
+        // Collections de UserDto non sélectionnables
+        assertThrows(InvalidOperationException.class, () -> UserFields.PROJECTION.selection("domaines"));
+        assertEquals(400, new GlobalExceptionHandler().handleInvalidOperationException(refus).getStatusCode().value());
+    }
+
+    @Test
+    void idToujoursInclus() {
+        SparseProjection.Selection selection = FormationFields.PROJECTION.selection("titre");
+
+        assertEquals("SELECT f.id, f.titre FROM Formation f " + SUITE, selection.jpql(SUITE));
+        assertEquals(List.of("id", "titre"), List.copyOf(selection.ligne(new Object[]{7L, "Docker"}).keySet()));
+        // Vide, blancs ou "id" répété : une seule colonne id
+        assertEquals("SELECT f.id FROM Formation f " + SUITE, FormationFields.PROJECTION.selection(" , id,").jpql(SUITE));
+        assertEquals("SELECT u.id, u.email FROM User u WHERE u.id = :id",
+                UserFields.PROJECTION.selection("email").jpql("WHERE u.id = :id"));
+    }
+
+    @Test
+    void jointureDuFormateurSeulementSiDemandee() {
+        String sansFormateur = FormationFields.PROJECTION.selection("titre,prix,nombreParticipants").jpql(SUITE);
+        assertFalse(sansFormateur.contains("JOIN"), sansFormateur);
+        assertFalse(sansFormateur.contains("fo."), sansFormateur);
+
+        SparseProjection.Selection avecFormateur = FormationFields.PROJECTION.selection("titre,formateur");
+        assertTrue(avecFormateur.jpql(SUITE).contains(" LEFT JOIN f.formateur fo "), avecFormateur.jpql(SUITE));
+        Map<String, Object> ligne = avecFormateur.ligne(new Object[]{7L, "Docker", 3L, "Benali", "Amina", false});
+        FormationDTO.FormateurDTO formateur = (FormationDTO.FormateurDTO) ligne.get("formateur");
+        assertEquals("Benali", formateur.getNom());
+        assertNull(formateur.getAvatarUrl());
+        // Formation sans formateur : LEFT JOIN, valeur nulle
+        assertNull(avecFormateur.ligne(new Object[]{7L, "Docker", null, null, null, null}).get("formateur"));
+    }
+
+    @Test
+    void colonnesLobSeulementSiNommees() {
+        // imageUrl ne lit qu'un booléen de présence, pas l'image
+        assertEquals("SELECT f.id, f.titre, f.id, CASE WHEN f.imageFormation IS NULL THEN false ELSE true END"
+                + " FROM Formation f " + SUITE, FormationFields.PROJECTION.selection("titre,imageUrl").jpql(SUITE));
+        assertEquals("SELECT f.id, f.imageFormation FROM Formation f " + SUITE,
+                FormationFields.PROJECTION.selection("imageFormation").jpql(SUITE));
+
+        assertEquals("SELECT u.id, u.nom, u.id, CASE WHEN u.profileImage IS NULL THEN false ELSE true END FROM User u ",
+                UserFields.PROJECTION.selection("nom,avatarUrl").jpql(""));
+        assertEquals("SELECT u.id, u.profileImage, u.cvPdf FROM User u ",
+                UserFields.PROJECTION.selection("profileImage,cvPdf").jpql(""));
+    }
+
+    @Test
+    void cleIndependanteDeLOrdre() {
+        assertEquals(FormationFields.PROJECTION.selection("titre,prix").cle(),
+                FormationFields.PROJECTION.selection("prix,titre").cle());
+        assertEquals(FormationFields.PROJECTION.selection("prix,titre").cle(),
+                FormationFields.PROJECTION.selection("id, titre,prix,titre").cle());
+        assertEquals("id.prix.titre", FormationFields.PROJECTION.selection("titre,prix").cle());
+        assertNotEquals(FormationFields.PROJECTION.selection("titre").cle(),
+                FormationFields.PROJECTION.selection("titre,prix").cle());
+    }
+}
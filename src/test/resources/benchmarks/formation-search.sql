@@ -0,0 +1,58 @@
+-- Benchmark de la recherche plein texte (GET /api/formations/search).
+-- À exécuter avec psql sur une base jetable, après un premier démarrage de l'application
+-- (tables Hibernate + schema.sql appliqués) :
+--   psql -d 3alemLive_bench -f src/test/resources/benchmarks/formation-search.sql
+-- Chaque requête lit 21 lignes (page de 20 + 1 pour hasNext), sans requête de comptage.
+-- Mesuré sur PostgreSQL 16, 1 vCPU, configuration par défaut, 100 000 formations approuvées :
+--   'securite' (1 formation sur 6)           ~95 ms (seq scan parallèle, le planificateur écarte le GIN)
+--   expression + 2 termes (3 333 résultats)  ~50 ms (bitmap scan GIN)
+--   'hedi kubernetes' (3 300 résultats)      ~29 ms (bitmap scan GIN)
+-- Le coût est dominé par ts_rank_cd sur toutes les lignes trouvées avant le tri top-N.
+
+\timing on
+
+BEGIN;
+
+INSERT INTO users (nom, prenom, email, role, is_active, is_verified)
+SELECT 'Formateur' || g, (ARRAY['Amine','Sarra','Hédi','Léa','Yassine','Chloé'])[1 + g % 6],
+       'bench-expert-' || g || '@example.com', 'EXPERT', true, true
+FROM generate_series(1, 2000) g
+ON CONFLICT (email) DO NOTHING;
+
+INSERT INTO formations (titre, description, date_debut, date_fin, duree, nombre_max_participants, prix,
+                        categorie, statut, formateur_id, formateur_nom)
+SELECT (ARRAY['Développement', 'Sécurité', 'Intelligence artificielle', 'Déploiement', 'Réseaux', 'Données'])[1 + g % 6]
+           || ' ' || (ARRAY['avancé', 'pour débutants', 'en pratique', 'des applications web', 'cloud', 'mobile'])[1 + (g / 7) % 6]
+           || ' #' || g,
+       'Formation ' || g || ' : ' || repeat('apprentissage des concepts, ateliers pratiques et études de cas réels. ', 1 + g % 5)
+           || (ARRAY['Kubernetes et Docker', 'réseaux de neurones', 'React et Angular', 'cryptographie appliquée', 'SQL et PostgreSQL'])[1 + g % 5],
+       now() + (g / 2000) * interval '1 day', now() + (g / 2000) * interval '1 day' + interval '3 hours',
+       3, 30, (g % 200) + 19.9,
+       (ARRAY['WEB_UI_UX','INTELLIGENCE_ARTIFICIELLE','DEVELOPPEMENT_MOBILE','CLOUD_COMPUTING','DEVOPS',
+              'CYBERSECURITE','DATA_SCIENCE','BLOCKCHAIN','AUTRES'])[1 + g % 9],
+       'APPROUVEE', u.id, u.prenom || ' ' || u.nom
+FROM generate_series(1, 100000) g
+JOIN users u ON u.email = 'bench-expert-' || (1 + g % 2000) || '@example.com';
+
+ANALYZE formations;
+
+-- Requêtes représentatives (terme fréquent, terme rare, accents omis, expression exacte, nom de formateur)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT f.id, ts_rank_cd(f.search_vector, q.query) AS rang
+FROM formations f, websearch_to_tsquery('french', immutable_unaccent('securite')) AS q(query)
+WHERE f.statut = 'APPROUVEE' AND f.search_vector @@ q.query
+ORDER BY rang DESC, f.id DESC LIMIT 21;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT f.id, ts_rank_cd(f.search_vector, q.query) AS rang
+FROM formations f, websearch_to_tsquery('french', immutable_unaccent('"intelligence artificielle" reseaux neurones')) AS q(query)
+WHERE f.statut = 'APPROUVEE' AND f.search_vector @@ q.query
+ORDER BY rang DESC, f.id DESC LIMIT 21;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT f.id, ts_rank_cd(f.search_vector, q.query) AS rang
+FROM formations f, websearch_to_tsquery('french', immutable_unaccent('hedi kubernetes')) AS q(query)
+WHERE f.statut = 'APPROUVEE' AND f.search_vector @@ q.query
+ORDER BY rang DESC, f.id DESC LIMIT 21;
+
+ROLLBACK;